@@ -261,14 +261,10 @@ class Minimizer extends Script {
         nArgs = (nArgs < 1) ? 1 : nArgs;
         
         int numParallel = options.nPar;
-        if (threadsAvail % numParallel != 0) {
-            logger.warning(String.format(" Number of threads available %d not evenly divisible by np %d; reverting to sequential", threadsAvail, numParallel));
-            numParallel = 1;
-        } else if (nArgs % numParallel != 0) {
+        // Threads are partitioned between parallel topologies by setParallel.
+        if (nArgs % numParallel != 0) {
             logger.warning(String.format(" Number of topologies %d not evenly divisible by np %d; reverting to sequential", arguments.size(), numParallel));
             numParallel = 1;
-        } else {
-            threadsPer = threadsAvail / numParallel;
         }
         
         if (!arguments || arguments.isEmpty()) {
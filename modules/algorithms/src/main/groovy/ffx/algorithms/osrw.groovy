@@ -412,14 +412,10 @@ if (options.dw) {
 
 if (options.np) {
     numParallel = Integer.parseInt(options.np);
-    if (threadsAvail % numParallel != 0) {
-        logger.warning(String.format(" Number of threads available %d not evenly divisible by np %d; reverting to sequential", threadsAvail, numParallel));
-        numParallel = 1;
-    } else if (arguments.size() % numParallel != 0) {
+    // Threads are partitioned between parallel topologies by setParallel.
+    if (arguments.size() % numParallel != 0) {
         logger.warning(String.format(" Number of topologies %d not evenly divisible by np %d; reverting to sequential", arguments.size(), numParallel));
         numParallel = 1;
-    } else {
-        threadsPer = threadsAvail / numParallel;
     }
 }
 
@@ -793,7 +789,7 @@ void optStructure(MolecularAssembly mola, Potential pot) {
 
 if (arguments.size() == 1) {
     if (distResidues) {
-        optStructure(topologies[0], energies[0]);
+        optStructure(topologies[0], topologies[0].getPotentialEnergy());
     }
     // Check for constant pressure
     if (NPT) {
@@ -899,8 +895,8 @@ if (arguments.size() == 1) {
             optStructure(topologies[0], dualTopologyEnergy);
         } else {
             logger.info(" Generating separate starting structures for each topology of the dual toplogy:");
-            optStructure(topologies[0], energies[0]);
-            optStructure(topologies[1], energies[1]);
+            optStructure(topologies[0], topologies[0].getPotentialEnergy());
+            optStructure(topologies[1], topologies[1].getPotentialEnergy());
         }
     }
     // Wrap the DualTopology potential energy inside an OSRW instance.
@@ -0,0 +1,529 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.algorithms;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * The EnergyRestartFile class reads and writes binary, append-only restart
+ * files of rotamer self, pair and triple energies.
+ *
+ * The file begins with a magic number and version, followed by sections.
+ * Each section starts with a header that gives the box iteration and cell
+ * indices (-1 outside of box optimization), and the name and number of
+ * rotamers of each residue. It is followed by fixed-width (36 byte) energy
+ * records of a term type, six residue/rotamer indices (-1 if unused) and the
+ * energy. Residue indices of a record refer to the residues of its section,
+ * so that sections written by different runs (or Comm ranks) can simply be
+ * concatenated.
+ *
+ * Files are reloaded through memory-mapped windows into an index of records
+ * per term type. A run that is killed may leave a partial record at the end
+ * of a file, which is ignored when reading and truncated away before new
+ * records are appended.
+ *
+ * @author Michael J. Schnieders
+ *
+ * @since 1.0
+ */
+final class EnergyRestartFile {
+
+    private static final Logger logger = Logger.getLogger(EnergyRestartFile.class.getName());
+
+    /**
+     * Energy terms stored in a restart file.
+     */
+    enum Term {
+        SELF(1), PAIR(2), TRIPLE(3);
+
+        /**
+         * Record type, which is also the number of residues of the term.
+         */
+        final int type;
+
+        Term(int type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * "FFXR" followed by the format version.
+     */
+    private static final int MAGIC = 0x46465852;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int SECTION = 0;
+    private static final int RECORD_BYTES = 36;
+    private static final long WINDOW_BYTES = 1L << 28;
+
+    /**
+     * Index of each term type: residue and rotamer indices (relative to the
+     * residues passed to read) and the energy of each record.
+     */
+    private final int indices[][] = new int[Term.values().length][];
+    private final double energies[][] = new double[Term.values().length][];
+    private final int size[] = new int[Term.values().length];
+
+    EnergyRestartFile() {
+        for (Term term : Term.values()) {
+            indices[term.ordinal()] = new int[1024 * 2 * term.type];
+            energies[term.ordinal()] = new double[1024];
+        }
+    }
+
+    /**
+     * Number of records of a term.
+     *
+     * @param term the Term.
+     * @return the number of records.
+     */
+    int size(Term term) {
+        return size[term.ordinal()];
+    }
+
+    /**
+     * Residue index of a record.
+     *
+     * @param term the Term.
+     * @param record the record.
+     * @param body residue of the term (0 to term.type - 1).
+     * @return the residue index.
+     */
+    int residue(Term term, int record, int body) {
+        return indices[term.ordinal()][2 * (record * term.type + body)];
+    }
+
+    /**
+     * Rotamer index of a record.
+     *
+     * @param term the Term.
+     * @param record the record.
+     * @param body residue of the term (0 to term.type - 1).
+     * @return the rotamer index.
+     */
+    int rotamer(Term term, int record, int body) {
+        return indices[term.ordinal()][2 * (record * term.type + body) + 1];
+    }
+
+    /**
+     * Energy of a record.
+     *
+     * @param term the Term.
+     * @param record the record.
+     * @return the energy.
+     */
+    double energy(Term term, int record) {
+        return energies[term.ordinal()][record];
+    }
+
+    /**
+     * Check if a file starts with the binary restart magic number.
+     *
+     * @param file the File.
+     * @return true for a binary restart file.
+     */
+    static boolean isBinary(File file) {
+        if (!file.exists() || file.length() < FILE_HEADER_BYTES) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Load the energies of a set of residues from one or more restart files.
+     * Only sections of the given box are used, and residues are matched by
+     * name; records for residues that are missing or have a different number
+     * of rotamers are skipped. Records in later sections or files take
+     * precedence when they are loaded in order.
+     *
+     * @param files restart files to merge.
+     * @param names name of each residue.
+     * @param nRotamers number of rotamers of each residue.
+     * @param boxIteration box iteration (-1 outside of box optimization).
+     * @param cellIndices cell indices (ignored if boxIteration is -1).
+     * @return the indexed energies.
+     * @throws IOException if a file cannot be read.
+     */
+    static EnergyRestartFile read(List<File> files, String names[], int nRotamers[],
+            int boxIteration, int cellIndices[]) throws IOException {
+        EnergyRestartFile restart = new EnergyRestartFile();
+        HashMap<String, Integer> residueIndex = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            residueIndex.put(names[i], i);
+        }
+        int box[] = boxKey(boxIteration, cellIndices);
+        for (File file : files) {
+            scan(file, new Visitor() {
+                int map[];
+                long skipped = 0;
+
+                @Override
+                public void section(int sectionBox[], String sectionNames[], int sectionRotamers[]) {
+                    if (!Arrays.equals(box, sectionBox)) {
+                        map = null;
+                        return;
+                    }
+                    map = new int[sectionNames.length];
+                    for (int n = 0; n < sectionNames.length; n++) {
+                        Integer i = residueIndex.get(sectionNames[n]);
+                        map[n] = (i != null && nRotamers[i] == sectionRotamers[n]) ? i : -1;
+                    }
+                }
+
+                @Override
+                public void record(Term term, int index[], double energy) {
+                    if (map == null) {
+                        return;
+                    }
+                    for (int b = 0; b < term.type; b++) {
+                        int n = index[2 * b];
+                        if (n < 0 || n >= map.length || map[n] < 0
+                                || index[2 * b + 1] < 0 || index[2 * b + 1] >= nRotamers[map[n]]) {
+                            skipped++;
+                            return;
+                        }
+                        index[2 * b] = map[n];
+                    }
+                    restart.add(term, index, energy);
+                }
+
+                @Override
+                public void end() {
+                    if (skipped > 0) {
+                        logger.warning(format(" Skipped %d energies of unmatched residues or rotamers in %s.",
+                                skipped, file.getName()));
+                    }
+                }
+            });
+        }
+        return restart;
+    }
+
+    /**
+     * Append all complete sections and records of a set of partial restart
+     * files (e.g. written by different Comm ranks or runs) to a target file.
+     *
+     * @param target the merged restart file.
+     * @param parts the partial restart files.
+     * @throws IOException if a file cannot be read or written.
+     */
+    static void merge(File target, List<File> parts) throws IOException {
+        try (Writer writer = new Writer(target)) {
+            for (File part : parts) {
+                scan(part, new Visitor() {
+                    @Override
+                    public void section(int box[], String names[], int nRotamers[]) {
+                        try {
+                            writer.section(box, names, nRotamers);
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+
+                    @Override
+                    public void record(Term term, int index[], double energy) {
+                        try {
+                            writer.record(term.type, index, energy);
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+            }
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    void add(Term term, int index[], double energy) {
+        int t = term.ordinal();
+        int n = size[t];
+        int width = 2 * term.type;
+        if (n == energies[t].length) {
+            energies[t] = Arrays.copyOf(energies[t], 2 * n);
+            indices[t] = Arrays.copyOf(indices[t], 2 * n * width);
+        }
+        System.arraycopy(index, 0, indices[t], n * width, width);
+        energies[t][n] = energy;
+        size[t]++;
+    }
+
+    private static int[] boxKey(int boxIteration, int cellIndices[]) {
+        if (boxIteration < 0 || cellIndices == null) {
+            return new int[]{-1, -1, -1, -1};
+        }
+        return new int[]{boxIteration, cellIndices[0], cellIndices[1], cellIndices[2]};
+    }
+
+    /**
+     * Receives the contents of a restart file as it is scanned.
+     */
+    private interface Visitor {
+
+        void section(int box[], String names[], int nRotamers[]);
+
+        void record(Term term, int index[], double energy);
+
+        default void end() {
+        }
+    }
+
+    /**
+     * Scan a restart file through memory-mapped windows.
+     *
+     * @return the length of the file up to the end of its last whole record.
+     */
+    private static long scan(File file, Visitor visitor) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long length = channel.size();
+            if (length < FILE_HEADER_BYTES) {
+                throw new IOException(format(" %s is not a binary energy restart file.", file.getName()));
+            }
+            long base = 0;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(WINDOW_BYTES, length));
+            if (window.getInt(0) != MAGIC) {
+                throw new IOException(format(" %s is not a binary energy restart file.", file.getName()));
+            }
+            int version = window.getInt(4);
+            if (version != VERSION) {
+                throw new IOException(format(" Unsupported energy restart file version %d in %s.", version, file.getName()));
+            }
+            Term terms[] = Term.values();
+            int index[] = new int[6];
+            long position = FILE_HEADER_BYTES;
+            while (position + 8 <= length) {
+                if (position + 8 > base + window.limit()) {
+                    base = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW_BYTES, length - base));
+                }
+                int offset = (int) (position - base);
+                int type = window.getInt(offset);
+                long recordBytes = (type == SECTION) ? window.getInt(offset + 4) : RECORD_BYTES;
+                if (type < SECTION || type > terms.length || recordBytes < 8) {
+                    logger.warning(format(" Corrupt energy restart record at byte %d of %s.", position, file.getName()));
+                    break;
+                }
+                if (position + recordBytes > length) {
+                    // A partial record at the end of the file.
+                    break;
+                }
+                if (position + recordBytes > base + window.limit()) {
+                    base = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, base,
+                            Math.min(Math.max(WINDOW_BYTES, recordBytes), length - base));
+                    offset = 0;
+                }
+                if (type == SECTION) {
+                    window.position(offset + 8);
+                    int box[] = new int[4];
+                    for (int b = 0; b < 4; b++) {
+                        box[b] = window.getInt();
+                    }
+                    int nResidues = window.getInt();
+                    String names[] = new String[nResidues];
+                    int nRotamers[] = new int[nResidues];
+                    for (int i = 0; i < nResidues; i++) {
+                        nRotamers[i] = window.getInt();
+                        byte name[] = new byte[window.getShort() & 0xffff];
+                        window.get(name);
+                        names[i] = new String(name, StandardCharsets.UTF_8);
+                    }
+                    visitor.section(box, names, nRotamers);
+                } else {
+                    for (int b = 0; b < 6; b++) {
+                        index[b] = window.getInt(offset + 4 + 4 * b);
+                    }
+                    visitor.record(terms[type - 1], index, window.getDouble(offset + 28));
+                }
+                position += recordBytes;
+            }
+            visitor.end();
+            return position;
+        }
+    }
+
+    /**
+     * Appends sections and energy records to a binary restart file, which is
+     * created (with its file header) if necessary.
+     */
+    static final class Writer implements AutoCloseable {
+
+        private final DataOutputStream out;
+
+        /**
+         * Open a restart file for appending.
+         *
+         * @param file the restart File.
+         * @throws IOException if the file is not a binary restart file or
+         * cannot be opened.
+         */
+        Writer(File file) throws IOException {
+            boolean create = !file.exists() || file.length() == 0;
+            if (!create) {
+                if (!isBinary(file)) {
+                    throw new IOException(format(" %s is not a binary energy restart file.", file.getName()));
+                }
+                /**
+                 * Drop a partial record left by an interrupted run, so that
+                 * appended records start on a record boundary.
+                 */
+                long length = scan(file, new Visitor() {
+                    @Override
+                    public void section(int box[], String names[], int nRotamers[]) {
+                    }
+
+                    @Override
+                    public void record(Term term, int index[], double energy) {
+                    }
+                });
+                long extra = file.length() - length;
+                if (extra > 0) {
+                    logger.warning(format(" Truncating %d bytes after the last whole record of %s.", extra, file.getName()));
+                    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                        raf.getChannel().truncate(length);
+                    }
+                }
+            }
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+            if (create) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+            }
+        }
+
+        /**
+         * Start a section; the residue indices of the following records refer
+         * to the given residues.
+         *
+         * @param boxIteration box iteration (-1 outside of box optimization).
+         * @param cellIndices cell indices (or null).
+         * @param names name of each residue.
+         * @param nRotamers number of rotamers of each residue.
+         * @throws IOException if the section cannot be written.
+         */
+        void section(int boxIteration, int cellIndices[], String names[], int nRotamers[]) throws IOException {
+            section(boxKey(boxIteration, cellIndices), names, nRotamers);
+        }
+
+        private void section(int box[], String names[], int nRotamers[]) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream section = new DataOutputStream(bytes);
+            for (int b : box) {
+                section.writeInt(b);
+            }
+            section.writeInt(names.length);
+            for (int i = 0; i < names.length; i++) {
+                section.writeInt(nRotamers[i]);
+                byte name[] = names[i].getBytes(StandardCharsets.UTF_8);
+                section.writeShort(name.length);
+                section.write(name);
+            }
+            out.writeInt(SECTION);
+            out.writeInt(8 + bytes.size());
+            bytes.writeTo(out);
+        }
+
+        /**
+         * Write the self energy of rotamer ri of residue i.
+         */
+        void self(int i, int ri, double energy) throws IOException {
+            record(Term.SELF.type, new int[]{i, ri}, energy);
+        }
+
+        /**
+         * Write a pair energy.
+         */
+        void pair(int i, int ri, int j, int rj, double energy) throws IOException {
+            record(Term.PAIR.type, new int[]{i, ri, j, rj}, energy);
+        }
+
+        /**
+         * Write a triple energy.
+         */
+        void triple(int i, int ri, int j, int rj, int k, int rk, double energy) throws IOException {
+            record(Term.TRIPLE.type, new int[]{i, ri, j, rj, k, rk}, energy);
+        }
+
+        private void record(int type, int index[], double energy) throws IOException {
+            out.writeInt(type);
+            for (int b = 0; b < 6; b++) {
+                out.writeInt(b < 2 * type ? index[b] : -1);
+            }
+            out.writeDouble(energy);
+        }
+
+        /**
+         * Flush buffered records to the file.
+         *
+         * @throws IOException if the records cannot be written.
+         */
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
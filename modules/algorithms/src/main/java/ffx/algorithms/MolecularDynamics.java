@@ -47,6 +47,9 @@ import java.util.logging.Logger;
 import static java.lang.String.format;
 import static java.util.Arrays.fill;
 
+import static org.apache.commons.math3.util.FastMath.max;
+import static org.apache.commons.math3.util.FastMath.sqrt;
+
 import javax.swing.undo.CannotUndoException;
 
 import org.apache.commons.configuration.CompositeConfiguration;
@@ -57,10 +60,13 @@ import ffx.algorithms.Thermostat.Thermostats;
 import ffx.numerics.Potential;
 import ffx.potential.ForceFieldEnergy;
 import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.LambdaInterface;
 import ffx.potential.extended.ExtendedSystem;
 import ffx.potential.parsers.DYNFilter;
 import ffx.potential.parsers.PDBFilter;
+import ffx.potential.parsers.TRJFilter;
 import ffx.potential.parsers.XYZFilter;
+import ffx.potential.utils.EnergyMetrics;
 import java.util.stream.Collectors;
 
 /**
@@ -92,6 +98,12 @@ public class MolecularDynamics implements Runnable, Terminatable {
     private boolean initVelocities = true;
     private boolean loadRestart = false;
     private boolean initialized = false;
+    /**
+     * True when the coordinates were reloaded or changed outside the
+     * integrator, so induced dipoles kept from earlier steps no longer belong
+     * to a continuous trajectory.
+     */
+    private boolean inducedDipoleHistoryStale = true;
     private boolean done = true;
     private boolean terminate = false;
     private int numberOfVariables;
@@ -109,6 +121,7 @@ public class MolecularDynamics implements Runnable, Terminatable {
     private double currentPotentialEnergy;
     private double currentTotalEnergy;
     private boolean saveSnapshotAsPDB = true;
+    private boolean saveSnapshotAsTRJ = false;
     private int saveRestartFileFrequency = 1000;
     private String fileType = "PDB";
     private double restartFrequency = 0.1;
@@ -116,6 +129,32 @@ public class MolecularDynamics implements Runnable, Terminatable {
     private ExtendedSystem extendedSystem;
     private DynamicsState dynamicsState;
     private double totalSimTime = 0.0;
+    /**
+     * Sums for a least-squares fit of the total energy to time, which reports
+     * the energy drift of NVE trajectories (e.g. to compare the extended
+     * Lagrangian induced dipoles against a converged SCF).
+     */
+    private int driftCount;
+    private double driftReference;
+    private double driftT, driftT2, driftE, driftE2, driftTE;
+    /**
+     * If true, snapshots and restart files are formatted and written by a
+     * background SnapshotWriter rather than on the integration thread.
+     */
+    private boolean asynchronousSnapshots = false;
+    /**
+     * Number of pooled snapshot buffers; the integration thread blocks when
+     * all of them are waiting to be written.
+     */
+    private int snapshotQueueSize = 2;
+    private SnapshotWriter snapshotWriter = null;
+    /**
+     * Energy metrics are exported every metricsFrequency steps (0 exports
+     * them only at the end of the run) in JSON or CSV format.
+     */
+    private int metricsFrequency = 0;
+    private String metricsFormat = "json";
+    private File metricsFile = null;
 
     /**
      * <p>
@@ -166,7 +205,9 @@ public class MolecularDynamics implements Runnable, Terminatable {
         }
         switch (requestedIntegrator) {
             case RESPA:
-                integrator = new Respa(numberOfVariables, x, v, a, aPrevious, mass);
+                Respa respa = new Respa(numberOfVariables, x, v, a, aPrevious, mass);
+                respa.setOuterSteps(properties.getInt("respa-outer-steps", 1));
+                integrator = respa;
                 break;
             case STOCHASTIC:
                 double friction = properties.getDouble("friction", 91.0);
@@ -221,6 +262,11 @@ public class MolecularDynamics implements Runnable, Terminatable {
             thermostat.setRandomSeed(properties.getInt("randomseed", 0));
         }
 
+        asynchronousSnapshots = properties.getBoolean("async-snapshots", false);
+        snapshotQueueSize = properties.getInt("snapshot-queue-size", 2);
+        metricsFrequency = properties.getInt("energy-metrics-frequency", 0);
+        metricsFormat = properties.getString("energy-metrics-format", "json").toLowerCase();
+
         /**
          * For StochasticDynamics, center of mass motion will not be removed.
          */
@@ -437,8 +483,12 @@ public class MolecularDynamics implements Runnable, Terminatable {
          * Set snapshot file type.
          */
         saveSnapshotAsPDB = true;
+        saveSnapshotAsTRJ = false;
         if (fileType.equals("XYZ")) {
             saveSnapshotAsPDB = false;
+        } else if (fileType.equals("TRJ")) {
+            saveSnapshotAsPDB = false;
+            saveSnapshotAsTRJ = true;
         } else if (!fileType.equals("PDB")) {
             logger.warning("Snapshot file type unrecognized; saving snaphshots as PDB.\n");
         }
@@ -470,6 +520,10 @@ public class MolecularDynamics implements Runnable, Terminatable {
                 }
                 ainfo.pdbFilter = new PDBFilter(ainfo.pdbFile, mola, mola.getForceField(), aprops);
             }
+            if (saveSnapshotAsTRJ && ainfo.trjFilter == null) {
+                ainfo.trjFile = XYZFilter.version(new File(filename + ".trj"));
+                ainfo.trjFilter = new TRJFilter(ainfo.trjFile, mola, mola.getForceField(), aprops);
+            }
         });
 
         /*File file = molecularAssembly.getFile();
@@ -481,6 +535,8 @@ public class MolecularDynamics implements Runnable, Terminatable {
         
         String firstFileName = FilenameUtils.removeExtension(molecularAssembly.getFile().getAbsolutePath());
 
+        metricsFile = new File(firstFileName + "-metrics." + metricsFormat);
+
         if (dyn == null) {
             this.restartFile = new File(firstFileName + ".dyn");
             loadRestart = false;
@@ -638,7 +694,11 @@ public class MolecularDynamics implements Runnable, Terminatable {
         //logger.info(String.format(" Archive file: %s", archiveFile.getName()));
         for (int i = 0; i < assemblies.size(); i++) {
             AssemblyInfo ai = assemblies.get(i);
-            logger.info(String.format(" Archive file %3d: %s", i, ai.archiveFile.getName()));
+            if (saveSnapshotAsTRJ) {
+                logger.info(String.format(" Trajectory file %3d: %s", i, ai.trjFile.getName()));
+            } else {
+                logger.info(String.format(" Archive file %3d: %s", i, ai.archiveFile.getName()));
+            }
         }
         logger.info(String.format(" Restart file:     %s", restartFile.getName()));
 
@@ -660,7 +720,8 @@ public class MolecularDynamics implements Runnable, Terminatable {
     /**
      * Method to set file type from groovy scripts.
      *
-     * @param fileType the type of snapshot files to write.
+     * @param fileType the type of snapshot files to write (PDB, XYZ or the
+     * binary TRJ format).
      */
     public void setFileType(String fileType) {
         this.fileType = fileType;
@@ -675,6 +736,29 @@ public class MolecularDynamics implements Runnable, Terminatable {
         this.restartFrequency = restartFrequency;
     }
 
+    /**
+     * Choose whether snapshots and restart files are written by a background
+     * thread.
+     *
+     * @param asynchronousSnapshots true to write snapshots asynchronously.
+     */
+    public void setAsynchronousSnapshots(boolean asynchronousSnapshots) {
+        this.asynchronousSnapshots = asynchronousSnapshots;
+    }
+
+    /**
+     * Write the energy metrics, if the potential is collecting them.
+     */
+    private void writeMetrics() {
+        if (!(potential instanceof ForceFieldEnergy) || metricsFile == null) {
+            return;
+        }
+        EnergyMetrics metrics = ((ForceFieldEnergy) potential).getMetrics();
+        if (metrics != null && metrics.write(metricsFile)) {
+            logger.fine(String.format(" Wrote energy metrics to %s", metricsFile.getName()));
+        }
+    }
+
     /**
      * Set the number of time steps between removal of center of mass kinetic
      * energy.
@@ -752,6 +836,14 @@ public class MolecularDynamics implements Runnable, Terminatable {
             }
         }
 
+        /**
+         * Induced dipoles from before this call belong to a continuous
+         * trajectory unless the coordinates were reloaded or moved since.
+         */
+        if (!initialized || inducedDipoleHistoryStale) {
+            clearInducedDipoleHistory();
+        }
+
         /**
          * Compute the current potential energy.
          */
@@ -791,12 +883,88 @@ public class MolecularDynamics implements Runnable, Terminatable {
          * Integrate Newton's equations of motion for the requested number of
          * steps, unless early termination is requested.
          */
+        if (asynchronousSnapshots) {
+            snapshotWriter = new SnapshotWriter(snapshotQueueSize);
+            snapshotWriter.start();
+        }
+
+        driftCount = 0;
+        driftReference = currentTotalEnergy;
+        driftT = 0.0;
+        driftT2 = 0.0;
+        driftE = 0.0;
+        driftE2 = 0.0;
+        driftTE = 0.0;
+
+        try {
+            integrate();
+        } finally {
+            /**
+             * Restore full electrostatics after outer RESPA time steps and wait
+             * for queued snapshots and restart files to reach the disk, even if
+             * a step throws.
+             */
+            if (integrator instanceof Respa) {
+                ((Respa) integrator).resetOuterSteps();
+            }
+            if (snapshotWriter != null) {
+                snapshotWriter.finish();
+                snapshotWriter = null;
+            }
+        }
+
+        writeMetrics();
+
+        /**
+         * Log normal completion.
+         */
+        if (!terminate) {
+            logger.info(String.format(" Completed %8d time steps\n", nSteps));
+        }
+
+        /**
+         * Report energy conservation for NVE trajectories.
+         */
+        if (driftCount > 1) {
+            double n = driftCount;
+            double slope = (n * driftTE - driftT * driftE) / (n * driftT2 - driftT * driftT);
+            double mean = driftE / n;
+            double rms = sqrt(max(0.0, driftE2 / n - mean * mean));
+            logger.info(String.format(" Total Energy Drift:       %12.6f (kcal/mol/psec)", slope));
+            logger.info(String.format(" Total Energy Fluctuation: %12.6f (kcal/mol RMS)\n", rms));
+        }
+        
+        /**
+         * Reset the done and terminate flags.
+         */
+        done = true;
+        terminate = false;
+        
+        if (monteCarloListener != null) {
+            long startTime = System.nanoTime();
+            if (monteCarloListener.mcUpdate(molecularAssembly)) {
+                inducedDipoleHistoryStale = true;
+            }
+            x = potential.getCoordinates(x);
+            long took = (long) ((System.nanoTime() - startTime) * 1e-6);
+            // logger.info(String.format(" mcUpdate() took: %d ms", took));
+        }
+    }
+
+    /**
+     * Integrate Newton's equations of motion for the requested number of
+     * steps, unless early termination is requested.
+     */
+    private void integrate() {
         long time = System.nanoTime();
         for (int step = 1; step <= nSteps; step++) {
             if (notifyMonteCarlo && monteCarloListener != null) {
                 long startTime = System.nanoTime();
-                monteCarloListener.mcUpdate(molecularAssembly);
+                boolean moved = monteCarloListener.mcUpdate(molecularAssembly);
                 x = potential.getCoordinates(x);
+                if (moved) {
+                    clearInducedDipoleHistory();
+                }
                 long took = (long) ((System.nanoTime() - startTime) * 1e-6);
                 // logger.info(String.format(" mcUpdate() took: %d ms", took));
             }
@@ -829,6 +997,14 @@ public class MolecularDynamics implements Runnable, Terminatable {
              */
             integrator.postForce(grad);
 
+            /**
+             * Add the reciprocal space energy from the outer RESPA time step.
+             */
+            if (integrator instanceof Respa) {
+                Respa r = (Respa) integrator;
+                currentPotentialEnergy += r.getOuterStepEnergy();
+            }
+
             /**
              * Compute the full-step kinetic energy.
              */
@@ -877,6 +1053,16 @@ public class MolecularDynamics implements Runnable, Terminatable {
              * Log the current state every printFrequency steps.
              */
             totalSimTime += dt;
+            if (thermostat instanceof Adiabatic) {
+                double t = step * dt;
+                double e = currentTotalEnergy - driftReference;
+                driftCount++;
+                driftT += t;
+                driftT2 += t * t;
+                driftE += e;
+                driftE2 += e * e;
+                driftTE += t * e;
+            }
             if (step % printFrequency == 0) {
                 time = System.nanoTime() - time;
                 logger.info(String.format(" %7.3e%13.4f%13.4f%13.4f%9.2f%9.3f", totalSimTime, currentKineticEnergy, currentPotentialEnergy,
@@ -901,7 +1087,22 @@ public class MolecularDynamics implements Runnable, Terminatable {
                     }
                 }*/
                 for (AssemblyInfo ai : assemblies) {
-                    if (ai.archiveFile != null && !saveSnapshotAsPDB) {
+                    if (saveSnapshotAsTRJ) {
+                        if (potential instanceof LambdaInterface) {
+                            ai.trjFilter.setLambda(((LambdaInterface) potential).getLambda());
+                        }
+                        if (snapshotWriter != null) {
+                            snapshotWriter.writeTrajectory(ai.trjFilter, ai.trjFile);
+                        } else if (!ai.trjFilter.writeFile(ai.trjFile, true)) {
+                            logger.warning(String.format(" Appending frame to %s failed", ai.trjFile.getName()));
+                        }
+                    } else if (snapshotWriter != null) {
+                        if (ai.archiveFile != null && !saveSnapshotAsPDB) {
+                            snapshotWriter.writeArchive(ai.xyzFilter, ai.archiveFile);
+                        } else if (saveSnapshotAsPDB) {
+                            snapshotWriter.writePDB(ai.pdbFilter, ai.pdbFile);
+                        }
+                    } else if (ai.archiveFile != null && !saveSnapshotAsPDB) {
                         if (ai.xyzFilter.writeFile(ai.archiveFile, true)) {
                             logger.info(String.format(" Appended snap shot to %s", ai.archiveFile.getName()));
                         } else {
@@ -921,13 +1122,23 @@ public class MolecularDynamics implements Runnable, Terminatable {
              * Write out restart files every saveRestartFileFrequency steps.
              */
             if (saveRestartFileFrequency > 0 && step % saveRestartFileFrequency == 0) {
-                if (dynFilter.writeDYN(restartFile, molecularAssembly.getCrystal(), x, v, a, aPrevious)) {
+                if (snapshotWriter != null) {
+                    snapshotWriter.writeRestart(dynFilter, restartFile, molecularAssembly.getCrystal(),
+                            numberOfVariables, x, v, a, aPrevious);
+                } else if (dynFilter.writeDYN(restartFile, molecularAssembly.getCrystal(), x, v, a, aPrevious)) {
                     logger.info(String.format(" Wrote dynamics restart file to " + restartFile.getName()));
                 } else {
                     logger.info(String.format(" Writing dynamics restart file to " + restartFile.getName() + " failed"));
                 }
             }
 
+            /**
+             * Export energy metrics every metricsFrequency steps.
+             */
+            if (metricsFrequency > 0 && step % metricsFrequency == 0) {
+                writeMetrics();
+            }
+
             /**
              * Notify the algorithmListener.
              */
@@ -943,27 +1154,17 @@ public class MolecularDynamics implements Runnable, Terminatable {
                 break;
             }
         }
+    }
 
-        /**
-         * Log normal completion.
-         */
-        if (!terminate) {
-            logger.info(String.format(" Completed %8d time steps\n", nSteps));
-        }
-        
-        /**
-         * Reset the done and terminate flags.
-         */
-        done = true;
-        terminate = false;
-        
-        if (monteCarloListener != null) {
-            long startTime = System.nanoTime();
-            monteCarloListener.mcUpdate(molecularAssembly);
-            x = potential.getCoordinates(x);
-            long took = (long) ((System.nanoTime() - startTime) * 1e-6);
-            // logger.info(String.format(" mcUpdate() took: %d ms", took));
+    /**
+     * Discard induced dipoles saved by the polarization predictor after the
+     * coordinates were changed outside the integrator.
+     */
+    private void clearInducedDipoleHistory() {
+        if (potential instanceof ForceFieldEnergy) {
+            ((ForceFieldEnergy) potential).clearInducedDipoleHistory();
         }
+        inducedDipoleHistoryStale = false;
     }
 
     /**
@@ -1006,6 +1207,8 @@ public class MolecularDynamics implements Runnable, Terminatable {
         File pdbFile = null;
         PDBFilter pdbFilter = null;
         XYZFilter xyzFilter = null;
+        File trjFile = null;
+        TRJFilter trjFilter = null;
         
         public AssemblyInfo(MolecularAssembly assembly) {
             this.mola = assembly;
@@ -1025,6 +1228,7 @@ public class MolecularDynamics implements Runnable, Terminatable {
             throw new CannotUndoException();
         }
         dynamicsState.restore();
+        inducedDipoleHistoryStale = true;
     }
     
     private final boolean verboseDynamicsState = System.getProperty("md-verbose") != null;
@@ -55,7 +55,8 @@ public interface MonteCarloListener {
      * listener will be called.
      *
      * @param active The system the algorithm is operating on.
-     * @return A return of <code>true</code> indicates the algorithm continues.
+     * @return A return of <code>true</code> indicates a move was accepted and
+     * the coordinates of <code>active</code> changed.
      */
     public abstract boolean mcUpdate(MolecularAssembly active);
 
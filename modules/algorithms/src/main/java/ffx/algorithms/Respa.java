@@ -37,7 +37,10 @@
  */
 package ffx.algorithms;
 
+import java.util.logging.Logger;
+
 import ffx.numerics.Potential;
+import ffx.potential.ForceFieldEnergy;
 
 /**
  * Respa performs multiple time step molecular dynamics using the reversible
@@ -46,18 +49,48 @@ import ffx.numerics.Potential;
  *
  * The inner RESPA loop is position Verlet.
  *
+ * Optionally, reciprocal space PME is moved to a third, outer level: the
+ * middle (MD) time step then sees only real space electrostatics, while the
+ * difference between the full and real space forces is applied as an impulse
+ * every outerSteps MD steps.
+ *
+ * Each outer step re-evaluates the electrostatics with reciprocal space
+ * (real space, SCF and reciprocal space, but not the bonded or van der Waals
+ * terms). Over n = outerSteps MD steps the split saves (n - 1) reciprocal
+ * space evaluations and costs one extra real space evaluation, so it pays off
+ * when (n - 1) times the reciprocal space time exceeds the real space
+ * electrostatics time (see RespaBenchmark). This favors large periodic
+ * systems with fine PME grids or poorly scaling FFTs and n of 2 to 4; with
+ * mutual polarization the real space SCF usually dominates, and n = 2 rarely
+ * helps.
+ *
  * @author Gaurav Chattree
  *
  * @since 1.0
  */
 public class Respa extends Integrator {
 
+    private static final Logger logger = Logger.getLogger(Respa.class.getName());
+
     private double dalt;
     private double dta;
     private double dta_2;
     private int nalt;
     private final double eps = .00000001;
     private double halfStepEnergy = 0;
+    /**
+     * Number of MD time steps per reciprocal space (outer) time step.
+     */
+    private int outerSteps = 1;
+    /**
+     * Number of MD time steps taken since outer step forces were updated.
+     */
+    private int step = 0;
+    private boolean outerInitialized = false;
+    private ForceFieldEnergy forceFieldEnergy = null;
+    private double aOuter[] = null;
+    private double gradOuter[] = null;
+    private double outerStepEnergy = 0.0;
 
     /**
      * Initialize Respa multiple time step molecular dynamics.
@@ -89,6 +122,44 @@ public class Respa extends Integrator {
         return halfStepEnergy;
     }
 
+    /**
+     * Get the reciprocal space potential energy applied on the outer time step,
+     * as computed at the most recent outer step.
+     *
+     * @return The outer time step potential energy.
+     */
+    public double getOuterStepEnergy() {
+        return outerStepEnergy;
+    }
+
+    /**
+     * Set the number of MD time steps per reciprocal space time step. A value
+     * of 1 (the default) evaluates all non-bonded terms every MD step.
+     *
+     * @param outerSteps MD time steps per reciprocal space evaluation.
+     */
+    public void setOuterSteps(int outerSteps) {
+        if (outerSteps < 1) {
+            outerSteps = 1;
+        }
+        this.outerSteps = outerSteps;
+        step = 0;
+        outerInitialized = false;
+        outerStepEnergy = 0.0;
+    }
+
+    /**
+     * End the current sequence of outer time steps and restore full
+     * electrostatics. The next call to preForce starts a new outer step.
+     */
+    public void resetOuterSteps() {
+        if (forceFieldEnergy != null) {
+            forceFieldEnergy.setRealSpaceOnly(false);
+        }
+        step = 0;
+        outerInitialized = false;
+    }
+
     /**
      * Performs the inner RESPA loop via position Verlet.
      *
@@ -97,6 +168,18 @@ public class Respa extends Integrator {
     @Override
     public void preForce(Potential potential) {
         double gradient[] = new double[nVariables];
+
+        /**
+         * At the start of an outer step, apply half of the reciprocal space
+         * impulse.
+         */
+        if (outerSteps > 1 && step == 0 && initOuter(potential)) {
+            double dtOuter_2 = outerSteps * dt_2;
+            for (int i = 0; i < nVariables; i++) {
+                v[i] += aOuter[i] * dtOuter_2;
+            }
+        }
+
         for (int i = 0; i < nVariables; i++) {
             v[i] += a[i] * dt_2;
         }
@@ -119,6 +202,66 @@ public class Respa extends Integrator {
         potential.setEnergyTermState(Potential.STATE.SLOW);
     }
 
+    /**
+     * Prepare for an outer step, computing the reciprocal space acceleration
+     * (and the real space acceleration of the MD step) if this is the first
+     * one.
+     *
+     * @return true if reciprocal space is split onto the outer time step.
+     */
+    private boolean initOuter(Potential potential) {
+        if (!(potential instanceof ForceFieldEnergy)) {
+            if (!outerInitialized) {
+                logger.warning(" Respa outer time steps require a ForceFieldEnergy; reciprocal space will be evaluated every step.");
+                outerSteps = 1;
+            }
+            return false;
+        }
+        forceFieldEnergy = (ForceFieldEnergy) potential;
+        if (aOuter == null || aOuter.length < nVariables) {
+            aOuter = new double[nVariables];
+            gradOuter = new double[nVariables];
+        }
+        if (!outerInitialized) {
+            /**
+             * The real space gradient at the current coordinates.
+             */
+            forceFieldEnergy.setEnergyTermState(Potential.STATE.SLOW);
+            if (!forceFieldEnergy.setRealSpaceOnly(true)) {
+                logger.warning(" Electrostatics do not support a real space only mode; reciprocal space will be evaluated every step.");
+                outerSteps = 1;
+                return false;
+            }
+            double gradient[] = new double[nVariables];
+            forceFieldEnergy.energyAndGradient(x, gradient);
+            outerForce();
+            /**
+             * The current acceleration was computed from the full slow
+             * gradient; reset it from the real space gradient so that
+             * reciprocal space is applied only by the outer impulse.
+             */
+            for (int i = 0; i < nVariables; i++) {
+                a[i] = -Thermostat.convert * gradient[i] / mass[i];
+            }
+            outerInitialized = true;
+        }
+        forceFieldEnergy.setRealSpaceOnly(true);
+        return true;
+    }
+
+    /**
+     * Compute the outer step acceleration as the difference between the full
+     * and the real space only electrostatic gradients at the current
+     * coordinates. The real space only slow gradient must have just been
+     * computed; only the electrostatics are evaluated again.
+     */
+    private void outerForce() {
+        outerStepEnergy = forceFieldEnergy.outerStepEnergyAndGradient(gradOuter);
+        for (int i = 0; i < nVariables; i++) {
+            aOuter[i] = -Thermostat.convert * gradOuter[i] / mass[i];
+        }
+    }
+
     /**
      * The Respa full-step integration operation.
      *
@@ -130,6 +273,23 @@ public class Respa extends Integrator {
             a[i] = -Thermostat.convert * gradient[i] / mass[i];
             v[i] += a[i] * dt_2;
         }
+
+        /**
+         * At the end of an outer step, update the reciprocal space acceleration
+         * and apply the second half of its impulse. The real space energy and
+         * gradient were just computed at the current coordinates.
+         */
+        if (outerSteps > 1 && outerInitialized) {
+            step++;
+            if (step == outerSteps) {
+                step = 0;
+                outerForce();
+                double dtOuter_2 = outerSteps * dt_2;
+                for (int i = 0; i < nVariables; i++) {
+                    v[i] += aOuter[i] * dtOuter_2;
+                }
+            }
+        }
     }
 
     /**
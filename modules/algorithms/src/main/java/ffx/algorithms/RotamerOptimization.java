@@ -50,7 +50,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.ToDoubleFunction;
 import java.util.function.BiFunction;
@@ -74,11 +77,13 @@ import edu.rit.pj.ParallelTeam;
 import edu.rit.pj.WorkerIteration;
 import edu.rit.pj.WorkerRegion;
 import edu.rit.pj.WorkerTeam;
+import edu.rit.util.Range;
 
 import ffx.utilities.ObjectPair;
 import ffx.crystal.Crystal;
 import ffx.crystal.SymOp;
 import ffx.numerics.Potential;
+import ffx.potential.ForceFieldEnergy;
 import ffx.potential.MolecularAssembly;
 import ffx.potential.bonded.Atom;
 import ffx.potential.bonded.MultiResidue;
@@ -190,6 +195,40 @@ public class RotamerOptimization implements Terminatable {
      * stringent Dead-End Elimination criteria.
      */
     private boolean useGoldstein = true;
+    /**
+     * Flag to test residues for dead-end elimination in parallel using the
+     * ParallelTeam of the potential; eliminations are then applied in order.
+     * Off by default until validated (see validatePruning).
+     */
+    private boolean parallelPruning = false;
+    /**
+     * Flag to cache elimination bounds between pruning sweeps.
+     */
+    private boolean cachePruningBounds = false;
+    /**
+     * Flag to repeat elimination serially without cached bounds, in parallel,
+     * and with cached bounds, and compare the eliminated rotamers and pairs.
+     */
+    private boolean validatePruning = false;
+    /**
+     * The number of eliminations involving each residue, which invalidates
+     * cached pruning bounds.
+     */
+    private int eliminationCount[];
+    /**
+     * Cached minimum and maximum pair energies of each [residue][rotamer *
+     * nres + residue], with the elimination counts at which they were found.
+     */
+    private long pairBoundStamp[][];
+    private double pairBoundMin[][];
+    private double pairBoundMax[][];
+    /**
+     * Cached Goldstein bounds of each [residue][(rotamerA * nRotamers +
+     * rotamerB) * nres + residue], with the elimination counts at which they
+     * were found.
+     */
+    private long goldsteinBoundStamp[][];
+    private double goldsteinBound[][];
     /**
      * The number of most-favorable structures to include as output.
      */
@@ -243,9 +282,13 @@ public class RotamerOptimization implements Terminatable {
     private boolean lazyMatrix = false;
     /**
      * Trimer-energies for each trimer of rotamers.
-     * [residue1][rotamer1][residue2][rotamer2][residue3][rotamer3]
+     * Blocks are allocated only for residue triples that receive an energy.
      */
-    protected double threeBodyEnergy[][][][][][];
+    protected ThreeBodyEnergyTable threeBodyEnergy;
+    /**
+     * Storage for the three-body energy table (heap, direct or mapped).
+     */
+    private ThreeBodyEnergyTable.Storage threeBodyStorage = ThreeBodyEnergyTable.Storage.HEAP;
     /**
      * Flag to prune clashes.
      */
@@ -302,10 +345,9 @@ public class RotamerOptimization implements Terminatable {
      */
     private boolean eliminatedPairs[][][][];
     /**
-     * Eliminated rotamer pairs.
-     * [residue1][rotamer1][residue2][rotamer2][residue3][rotamer3]
+     * Eliminated rotamer triples.
      */
-    private boolean eliminatedTriples[][][][][][];
+    private ThreeBodyEnergyTable eliminatedTriples;
     /**
      * An array of atomic coordinates (length 3 * the number of atoms).
      */
@@ -363,11 +405,21 @@ public class RotamerOptimization implements Terminatable {
     private boolean writeEnergyRestart = true;
     private boolean loadEnergyRestart = false;
     private File energyRestartFile;
+    /**
+     * Additional (partial) binary restart files whose energies are merged on
+     * load, e.g. from different runs or Comm ranks.
+     */
+    private List<File> energyRestartFiles = new ArrayList<>();
+    /**
+     * Write new energy restart files in the binary, indexed format (see
+     * EnergyRestartFile) rather than as text.
+     */
+    private boolean binaryEnergyRestart = true;
     private final HashMap<Integer, Integer[]> jobMapSingles = new HashMap<>();
     private final HashMap<Integer, Integer[]> jobMapPairs = new HashMap<>();
     private final HashMap<Integer, Integer[]> jobMapTrimers = new HashMap<>();
     private final HashMap<Integer, Integer[]> jobMapQuads = new HashMap<>();
-    private List<String> energiesToWrite;
+    private List<double[]> energiesToWrite;
     private boolean verbose = false;
     // In X, Y, Z.
     private int[] numXYZBoxes = {3, 3, 3};
@@ -391,6 +443,12 @@ public class RotamerOptimization implements Terminatable {
      * and ReceiveThread
      */
     private final int POLLING_FREQUENCY = 500;
+    /**
+     * Maximum number of energy jobs handed to a worker at once, and maximum
+     * number of energies per multicast message.
+     */
+    private static final int MAX_JOB_CHUNK = 64;
+    private static final int ENERGY_BATCH = 256;
     /**
      * ParallelJava construct used for executing the various EnergyRegions.
      * Declared as a field so as to be reused during box optimization.
@@ -444,6 +502,25 @@ public class RotamerOptimization implements Terminatable {
      * input file.
      */
     private ToDoubleFunction<File> eFunction;
+    /**
+     * True once setEnergyFunction has replaced the default energy function.
+     */
+    private boolean externalEnergyFunction = false;
+    /**
+     * Compute energies from the terms that involve the atoms of the residues
+     * in each energy term (see subsystemEnergy), rather than a full energy
+     * evaluation, when the ForceFieldEnergy supports local energies.
+     */
+    private boolean subsystemEnergies = true;
+    /**
+     * Coordinates and use flags of all atoms when the backbone energy was
+     * computed, the backbone energy itself, and the cached local energy of
+     * each residue set in that state.
+     */
+    private double subsystemXYZ[] = null;
+    private boolean subsystemUse[] = null;
+    private double subsystemBackboneEnergy;
+    private final HashMap<Set<Residue>, Double> subsystemReference = new HashMap<>();
 
     /**
      * RotamerOptimization constructor.
@@ -501,6 +578,12 @@ public class RotamerOptimization implements Terminatable {
         String mcNoEnum = System.getProperty("ro-debug-mcNoEnum");
         String addOrigRotStr = System.getProperty("ro-addOrigRot");
         String origAtEndStr = System.getProperty("ro-origAtEnd");
+        String subsystemEnergiesStr = System.getProperty("ro-subsystemEnergies");
+        String threeBodyStorageStr = System.getProperty("ro-threeBodyStorage");
+        String binaryRestartStr = System.getProperty("ro-binaryRestart");
+        String parallelPruningStr = System.getProperty("ro-parallelPruning");
+        String cachePruningBoundsStr = System.getProperty("ro-cachePruningBounds");
+        String validatePruningStr = System.getProperty("ro-validatePruning");
         if (computeQuads != null) {
             boolean value = Boolean.parseBoolean(computeQuads);
             this.computeQuads = value;
@@ -677,6 +760,39 @@ public class RotamerOptimization implements Terminatable {
             // Property works in the contest of Residue class.
             logger.info(String.format(" (KEY) origAtEnd: %b", value));
         }
+        if (subsystemEnergiesStr != null) {
+            boolean value = Boolean.parseBoolean(subsystemEnergiesStr);
+            this.subsystemEnergies = value;
+            logger.info(String.format(" (KEY) subsystemEnergies: %b", subsystemEnergies));
+        }
+        if (threeBodyStorageStr != null) {
+            try {
+                this.threeBodyStorage = ThreeBodyEnergyTable.Storage.valueOf(threeBodyStorageStr.toUpperCase());
+                logger.info(String.format(" (KEY) threeBodyStorage: %s", threeBodyStorage));
+            } catch (IllegalArgumentException ex) {
+                logger.warning(String.format(" Unrecognized three-body storage %s; using %s.", threeBodyStorageStr, threeBodyStorage));
+            }
+        }
+        if (binaryRestartStr != null) {
+            boolean value = Boolean.parseBoolean(binaryRestartStr);
+            this.binaryEnergyRestart = value;
+            logger.info(String.format(" (KEY) binaryRestart: %b", binaryEnergyRestart));
+        }
+        if (parallelPruningStr != null) {
+            boolean value = Boolean.parseBoolean(parallelPruningStr);
+            this.parallelPruning = value;
+            logger.info(String.format(" (KEY) parallelPruning: %b", parallelPruning));
+        }
+        if (cachePruningBoundsStr != null) {
+            boolean value = Boolean.parseBoolean(cachePruningBoundsStr);
+            this.cachePruningBounds = value;
+            logger.info(String.format(" (KEY) cachePruningBounds: %b", cachePruningBounds));
+        }
+        if (validatePruningStr != null) {
+            boolean value = Boolean.parseBoolean(validatePruningStr);
+            this.validatePruning = value;
+            logger.info(String.format(" (KEY) validatePruning: %b", validatePruning));
+        }
         allAssemblies = new ArrayList<>();
         allAssemblies.add(molecularAssembly);
     }
@@ -1699,7 +1815,7 @@ public class RotamerOptimization implements Terminatable {
                         for (int k = j + 1; k < nRes; k++) {
                             Residue rk = residues[k];
                             double dist = trimerDistance(i, 0, j, 0, k, 0);
-                            triEnergy[i][j][k] = threeBodyEnergy[i][0][j][0][k][0];
+                            triEnergy[i][j][k] = threeBodyEnergy.get(i, 0, j, 0, k, 0);
                             double thirdTrimer = triEnergy[i][j][k] / 3.0;
                             residueEnergy[2][i] += thirdTrimer;
                             residueEnergy[2][j] += thirdTrimer;
@@ -2036,9 +2152,9 @@ public class RotamerOptimization implements Terminatable {
             for (int i = 0; i < nRes; i++) {
                 for (int j = i + 1; j < nRes; j++) {
                     for (int k = j + 1; k < nRes; k++) {
-                        if (Math.abs(threeBodyEnergy[i][0][j][0][k][0]) >= trimerCutoff) {
+                        if (Math.abs(threeBodyEnergy.get(i, 0, j, 0, k, 0)) >= trimerCutoff) {
                             logger.info(String.format(" Large Trimer  %s %s %s:    %16.5f",
-                                    residues[i], residues[j], residues[k], threeBodyEnergy[i][0][j][0][k][0]));
+                                    residues[i], residues[j], residues[k], threeBodyEnergy.get(i, 0, j, 0, k, 0)));
                         }
                     }
                 }
@@ -2081,9 +2197,9 @@ public class RotamerOptimization implements Terminatable {
                             Rotamer rotk[] = resk.getRotamers(library);
                             for (int rk = 0; rk < rotk.length; rk++) {
                                 try {
-                                    if (Math.abs(threeBodyEnergy[i][ri][j][rj][k][rk]) >= trimerCutoff) {
+                                    if (Math.abs(threeBodyEnergy.get(i, ri, j, rj, k, rk)) >= trimerCutoff) {
                                         logger.info(String.format(" Large Trimer %7s %-2d, %7s %-2d, %7s %-2d: %16.8f",
-                                                resi, ri, resj, rj, resk, rk, threeBodyEnergy[i][ri][j][rj][k][rk]));
+                                                resi, ri, resj, rj, resk, rk, threeBodyEnergy.get(i, ri, j, rj, k, rk)));
                                     }
                                 } catch (Exception ex) {
                                 }
@@ -3065,7 +3181,7 @@ public class RotamerOptimization implements Terminatable {
                         int rj = optimum[j];
                         for (int k = j + 1; k < nResidues; k++) {
                             int rk = optimum[k];
-                            sumTrimerEnergy += threeBodyEnergy[i][ri][j][rj][k][rk];
+                            sumTrimerEnergy += threeBodyEnergy.get(i, ri, j, rj, k, rk);
                         }
                     }
                 }
@@ -3267,7 +3383,7 @@ public class RotamerOptimization implements Terminatable {
                     int rj = optimum[j];
                     for (int k = j + 1; k < nResidues; k++) {
                         int rk = optimum[k];
-                        sumTrimerEnergy += threeBodyEnergy[i][ri][j][rj][k][rk];
+                        sumTrimerEnergy += threeBodyEnergy.get(i, ri, j, rj, k, rk);
                     }
                 }
             }
@@ -3867,7 +3983,7 @@ public class RotamerOptimization implements Terminatable {
                 pairsDone = false;
                 readyForTrimers = false;
                 trimersDone = false;
-                energiesToWrite = Collections.synchronizedList(new ArrayList<String>());
+                energiesToWrite = Collections.synchronizedList(new ArrayList<double[]>());
                 receiveThread = new ReceiveThread(residuesList.toArray(new Residue[1]));
                 receiveThread.start();
                 if (master && writeEnergyRestart && printFiles) {
@@ -3884,7 +4000,7 @@ public class RotamerOptimization implements Terminatable {
                             }
                         }
                     }
-                    energyWriterThread = new EnergyWriterThread(receiveThread, i + 1, cellIndices);
+                    energyWriterThread = new EnergyWriterThread(receiveThread, residuesList.toArray(new Residue[1]), i + 1, cellIndices);
                     energyWriterThread.start();
                 }
 
@@ -4211,52 +4327,7 @@ public class RotamerOptimization implements Terminatable {
             applyEliminationCriteria(residues);
         } else {
             allocateEliminationMemory(residues);
-            int i = 0;
-            boolean pairEliminated = true;
-            while (pairEliminated) {
-                if (useGoldstein) {
-                    i++;
-                    logIfMaster(String.format("\n Iteration %d: Applying Single Goldstein DEE conditions ", i));
-                    // While there are eliminated rotamers, repeatedly apply single rotamer elimination.
-                    while (goldsteinRotamerDriver(residues)) {
-                        i++;
-                        logIfMaster(this.toString());
-                        logIfMaster(String.format("\n Iteration %d: Applying Single Rotamer Goldstein DEE conditions ", i));
-                    }
-                    i++;
-                    logIfMaster(String.format("\n Iteration %d: Applying Rotamer Pair Goldstein DEE conditions ", i));
-                    // While there are eliminated rotamer pairs, repeatedly apply rotamer pair elimination.
-                    pairEliminated = false;
-                    while (goldsteinRotamerPairDriver(residues)) {
-                        pairEliminated = true;
-                        i++;
-                        logIfMaster(this.toString());
-                        logIfMaster(String.format("\n Iteration %d: Applying Rotamer Pair Goldstein DEE conditions ", i));
-                    }
-                } else {
-                    i++;
-                    logIfMaster(String.format("\n Iteration %d: Applying Single DEE conditions ", i));
-                    // While there are eliminated rotamers, repeatedly apply single rotamer elimination.
-                    while (deeRotamerElimination(residues)) {
-                        i++;
-                        logIfMaster(toString());
-                        logIfMaster(String.format("\n Iteration %d: Applying Single Rotamer DEE conditions ", i));
-                    }
-                    i++;
-                    logIfMaster(String.format("\n Iteration %d: Applying Rotamer Pair DEE conditions ", i));
-                    // While there are eliminated rotamer pairs, repeatedly apply rotamer pair elimination.
-                    pairEliminated = false;
-                    while (deeRotamerPairElimination(residues)) {
-                        pairEliminated = true;
-                        i++;
-                        logIfMaster(toString());
-                        logIfMaster(String.format("\n Iteration %d: Applying Rotamer Pair DEE conditions ", i));
-                    }
-                }
-                validateDEE(residues);
-                logIfMaster(toString());
-            }
-            logIfMaster(" Self-consistent DEE rotamer elimination achieved.\n");
+            eliminateToFixedPoint(residues);
         }
         if (verbose == false) {
             logger.setLevel(prevLevel);
@@ -4321,6 +4392,28 @@ public class RotamerOptimization implements Terminatable {
         if (pruneClashes) {
             validateDEE(residues);
         }
+        eliminateToFixedPoint(residues);
+    }
+
+    /**
+     * Apply the elimination criteria until no more rotamers or rotamer pairs
+     * are eliminated, validating the pruning options first if requested.
+     */
+    private void eliminateToFixedPoint(Residue residues[]) {
+        if (validatePruning) {
+            validatePruning(residues);
+        } else {
+            pruneToFixedPoint(residues);
+        }
+    }
+
+    /**
+     * Apply the Goldstein or DEE criteria for rotamers and rotamer pairs until
+     * no more are eliminated.
+     *
+     * @param residues The residues being optimized.
+     */
+    protected void pruneToFixedPoint(Residue residues[]) {
         int i = 0;
         boolean pairEliminated = true;
         while (pairEliminated) {
@@ -4369,6 +4462,114 @@ public class RotamerOptimization implements Terminatable {
         logIfMaster(" Self-consistent DEE rotamer elimination achieved.\n");
     }
 
+    /**
+     * Repeat elimination from the current state with each combination of
+     * parallel pruning and cached bounds, and compare the eliminated rotamers
+     * and pairs with serial elimination without cached bounds, which is kept.
+     * Single sweeps may legitimately eliminate in a different order, so the
+     * comparison is made at the fixed point.
+     *
+     * @param residues The residues being optimized.
+     * @return true if every combination agrees with serial elimination.
+     */
+    private boolean validatePruning(Residue residues[]) {
+        if (threeBodyTerm) {
+            logIfMaster(" Pruning validation does not restore eliminated triples; skipped with three-body energies.",
+                    Level.WARNING);
+            pruneToFixedPoint(residues);
+            return true;
+        }
+        int nres = residues.length;
+        boolean parallel = parallelPruning;
+        boolean cache = cachePruningBounds;
+        boolean initialSingles[][] = copyEliminatedSingles();
+        boolean initialPairs[][][][] = copyEliminatedPairs();
+        int initialCount[] = Arrays.copyOf(eliminationCount, nres);
+
+        parallelPruning = false;
+        cachePruningBounds = false;
+        pruneToFixedPoint(residues);
+        boolean serialSingles[][] = copyEliminatedSingles();
+        boolean serialPairs[][][][] = copyEliminatedPairs();
+        int serialCount[] = Arrays.copyOf(eliminationCount, nres);
+
+        boolean valid = true;
+        boolean options[][] = {{true, false}, {false, true}, {true, true}};
+        for (boolean option[] : options) {
+            eliminatedSingles = copyEliminatedSingles(initialSingles);
+            eliminatedPairs = copyEliminatedPairs(initialPairs);
+            resetPruningBounds(nres);
+            System.arraycopy(initialCount, 0, eliminationCount, 0, nres);
+            parallelPruning = option[0];
+            cachePruningBounds = option[1];
+            pruneToFixedPoint(residues);
+            int singles = 0;
+            int pairs = 0;
+            for (int i = 0; i < nres; i++) {
+                for (int ri = 0; ri < serialSingles[i].length; ri++) {
+                    if (eliminatedSingles[i][ri] != serialSingles[i][ri]) {
+                        singles++;
+                    }
+                    for (int j = i + 1; j < nres; j++) {
+                        for (int rj = 0; rj < serialPairs[i][ri][j].length; rj++) {
+                            if (eliminatedPairs[i][ri][j][rj] != serialPairs[i][ri][j][rj]) {
+                                pairs++;
+                            }
+                        }
+                    }
+                }
+            }
+            if (singles > 0 || pairs > 0) {
+                valid = false;
+                logIfMaster(String.format(" Pruning (parallel %b, cached bounds %b) differs from serial pruning "
+                        + "for %d rotamers and %d rotamer pairs.", option[0], option[1], singles, pairs), Level.WARNING);
+            } else {
+                logIfMaster(String.format(" Pruning (parallel %b, cached bounds %b) agrees with serial pruning.",
+                        option[0], option[1]));
+            }
+        }
+
+        // Continue from serial elimination without cached bounds.
+        eliminatedSingles = serialSingles;
+        eliminatedPairs = serialPairs;
+        resetPruningBounds(nres);
+        System.arraycopy(serialCount, 0, eliminationCount, 0, nres);
+        parallelPruning = parallel;
+        cachePruningBounds = cache;
+        return valid;
+    }
+
+    private boolean[][] copyEliminatedSingles() {
+        return copyEliminatedSingles(eliminatedSingles);
+    }
+
+    private static boolean[][] copyEliminatedSingles(boolean singles[][]) {
+        boolean copy[][] = new boolean[singles.length][];
+        for (int i = 0; i < singles.length; i++) {
+            copy[i] = Arrays.copyOf(singles[i], singles[i].length);
+        }
+        return copy;
+    }
+
+    private boolean[][][][] copyEliminatedPairs() {
+        return copyEliminatedPairs(eliminatedPairs);
+    }
+
+    private static boolean[][][][] copyEliminatedPairs(boolean pairs[][][][]) {
+        int nres = pairs.length;
+        boolean copy[][][][] = new boolean[nres][][][];
+        for (int i = 0; i < nres; i++) {
+            copy[i] = new boolean[pairs[i].length][][];
+            for (int ri = 0; ri < pairs[i].length; ri++) {
+                copy[i][ri] = new boolean[nres][];
+                for (int j = i + 1; j < nres; j++) {
+                    copy[i][ri][j] = Arrays.copyOf(pairs[i][ri][j], pairs[i][ri][j].length);
+                }
+            }
+        }
+        return copy;
+    }
+
     private static void turnOnAtoms(Residue residue) {
         switch (residue.getResidueType()) {
             case NA:
@@ -4478,16 +4679,147 @@ public class RotamerOptimization implements Terminatable {
                 map(Residue::getRotamer).
                 collect(Collectors.toList());
         File energyDir = dirSupplier.apply(resList, rots);
+        ToDoubleFunction<File> energyFunction = eFunction;
+        if (useSubsystemEnergies()) {
+            energyFunction = (File dir) -> subsystemEnergy(resList);
+        }
         if (catchError) {
             try {
-                return eFunction.applyAsDouble(energyDir);
+                return energyFunction.applyAsDouble(energyDir);
             } catch (ArithmeticException ex) {
                 logger.warning(ex.getMessage());
                 return 1e100;
             }
         } else {
-            return eFunction.applyAsDouble(energyDir);
+            return energyFunction.applyAsDouble(energyDir);
+        }
+    }
+
+    /**
+     * Subsystem energies require the default energy function and a
+     * ForceFieldEnergy whose active terms are all local.
+     *
+     * @return true if energies will be computed by subsystemEnergy.
+     */
+    private boolean useSubsystemEnergies() {
+        return subsystemEnergies && !externalEnergyFunction
+                && potential instanceof ForceFieldEnergy
+                && ((ForceFieldEnergy) potential).localEnergyAvailable();
+    }
+
+    /**
+     * Compute the energy of the current state from the terms that involve the
+     * atoms of the given residues. Relative to the state in which the backbone
+     * energy was computed (an empty residue list), only these atoms can have
+     * moved or been turned on, so
+     *
+     * E = E(backbone) + E_local(current) - E_local(backbone state),
+     *
+     * where the local energy of the backbone state depends only on the
+     * residue set and is cached. The cost of a self, pair or trimer energy
+     * then scales with the size of its residues rather than the system. If
+     * any other atom has changed, a full energy evaluation is used.
+     *
+     * Residue sets that include a MultiResidue also use a full energy
+     * evaluation: switching its active residue (e.g. LEU to ILE, which have
+     * the same number of atoms) changes the chemistry that the backbone
+     * energy, the stored backbone coordinates and the cached reference were
+     * computed with, while the residue set stays the same.
+     *
+     * @param resList Residues in the current energy term (nulls are ignored).
+     * @return Energy of the current state.
+     */
+    private double subsystemEnergy(List<Residue> resList) {
+        ForceFieldEnergy forceFieldEnergy = (ForceFieldEnergy) potential;
+        Atom atoms[] = molecularAssembly.getAtomArray();
+        int nAtoms = atoms.length;
+        Set<Residue> residueSet = new HashSet<>();
+        for (Residue residue : resList) {
+            if (residue != null) {
+                if (residue instanceof MultiResidue) {
+                    return currentPE(null);
+                }
+                residueSet.add(residue);
+            }
+        }
+
+        /**
+         * Store the backbone state.
+         */
+        if (residueSet.isEmpty()) {
+            if (subsystemXYZ == null || subsystemXYZ.length != nAtoms * 3) {
+                subsystemXYZ = new double[nAtoms * 3];
+                subsystemUse = new boolean[nAtoms];
+            }
+            for (int i = 0; i < nAtoms; i++) {
+                Atom atom = atoms[i];
+                int index = atom.getXYZIndex() - 1;
+                subsystemXYZ[index * 3] = atom.getX();
+                subsystemXYZ[index * 3 + 1] = atom.getY();
+                subsystemXYZ[index * 3 + 2] = atom.getZ();
+                subsystemUse[index] = atom.getUse();
+            }
+            subsystemReference.clear();
+            subsystemBackboneEnergy = currentPE(null);
+            return subsystemBackboneEnergy;
+        }
+
+        /**
+         * Check that only atoms of the residue set differ from the backbone
+         * state.
+         */
+        if (subsystemXYZ == null || subsystemXYZ.length != nAtoms * 3) {
+            return currentPE(null);
+        }
+        List<Atom> localList = new ArrayList<>();
+        for (Residue residue : residueSet) {
+            localList.addAll(residue.getAtomList());
+        }
+        Atom localAtoms[] = localList.toArray(new Atom[localList.size()]);
+        boolean local[] = new boolean[nAtoms];
+        for (Atom atom : localAtoms) {
+            local[atom.getXYZIndex() - 1] = true;
+        }
+        for (int i = 0; i < nAtoms; i++) {
+            Atom atom = atoms[i];
+            int index = atom.getXYZIndex() - 1;
+            if (!local[index] && (atom.getUse() != subsystemUse[index]
+                    || atom.getX() != subsystemXYZ[index * 3]
+                    || atom.getY() != subsystemXYZ[index * 3 + 1]
+                    || atom.getZ() != subsystemXYZ[index * 3 + 2])) {
+                logger.fine(String.format(" Full energy evaluation: %s differs from the backbone state.", atom));
+                return currentPE(null);
+            }
         }
+
+        /**
+         * Local energy of the residue set in the backbone state.
+         */
+        Double reference = subsystemReference.get(residueSet);
+        if (reference == null) {
+            int nLocal = localAtoms.length;
+            double xyz[][] = new double[nLocal][3];
+            boolean use[] = new boolean[nLocal];
+            double backbone[] = new double[3];
+            for (int i = 0; i < nLocal; i++) {
+                Atom atom = localAtoms[i];
+                int index = atom.getXYZIndex() - 1;
+                atom.getXYZ(xyz[i]);
+                use[i] = atom.getUse();
+                backbone[0] = subsystemXYZ[index * 3];
+                backbone[1] = subsystemXYZ[index * 3 + 1];
+                backbone[2] = subsystemXYZ[index * 3 + 2];
+                atom.setXYZ(backbone);
+                atom.setUse(subsystemUse[index]);
+            }
+            reference = forceFieldEnergy.localEnergy(localAtoms);
+            for (int i = 0; i < nLocal; i++) {
+                localAtoms[i].setXYZ(xyz[i]);
+                localAtoms[i].setUse(use[i]);
+            }
+            subsystemReference.put(new HashSet<>(residueSet), reference);
+        }
+        return subsystemBackboneEnergy + forceFieldEnergy.localEnergy(localAtoms) - reference;
     }
     
     /**
@@ -4515,6 +4847,7 @@ public class RotamerOptimization implements Terminatable {
      */
     public void setEnergyFunction(ToDoubleFunction<File> ef) {
         this.eFunction = ef;
+        externalEnergyFunction = true;
     }
     
     /**
@@ -4550,11 +4883,11 @@ public class RotamerOptimization implements Terminatable {
 
         if (parallelEnergies) {
             if (!usingBoxOptimization) {
-                energiesToWrite = Collections.synchronizedList(new ArrayList<String>());
+                energiesToWrite = Collections.synchronizedList(new ArrayList<double[]>());
                 receiveThread = new ReceiveThread(residues);
                 receiveThread.start();
                 if (master && writeEnergyRestart && printFiles) {
-                    energyWriterThread = new EnergyWriterThread(receiveThread);
+                    energyWriterThread = new EnergyWriterThread(receiveThread, residues);
                     energyWriterThread.start();
                 }
             }
@@ -4649,22 +4982,19 @@ public class RotamerOptimization implements Terminatable {
                 if (threeBodyTerm) {
                     if (loaded < 3) {
                         jobMapTrimers.clear();
-                        // allocate threeBodyEnergy and create jobs
+                        // reset threeBodyEnergy and create jobs
                         int trimerJobIndex = 0;
-                        threeBodyEnergy = new double[nResidues][][][][][];
+                        resetThreeBodyEnergy(residues);
                         for (int i = 0; i < nResidues; i++) {
                             Residue resi = residues[i];
                             Rotamer roti[] = resi.getRotamers(library);
-                            threeBodyEnergy[i] = new double[roti.length][][][][];
                             for (int ri = 0; ri < roti.length; ri++) {
                                 if (check(i, ri)) {
                                     continue;
                                 }
-                                threeBodyEnergy[i][ri] = new double[nResidues][][][];
                                 for (int j = i + 1; j < nResidues; j++) {
                                     Residue resj = residues[j];
                                     Rotamer rotj[] = resj.getRotamers(library);
-                                    threeBodyEnergy[i][ri][j] = new double[rotj.length][][];
                                     for (int rj = 0; rj < rotj.length; rj++) {
                                         /*if (check(j, rj) || check(i, ri, j, rj)) {
                                             continue;
@@ -4672,11 +5002,9 @@ public class RotamerOptimization implements Terminatable {
                                         if (checkToJ(i,ri,j,rj)) {
                                             continue;
                                         }
-                                        threeBodyEnergy[i][ri][j][rj] = new double[nResidues][];
                                         for (int k = j + 1; k < nResidues; k++) {
                                             Residue resk = residues[k];
                                             Rotamer rotk[] = resk.getRotamers(library);
-                                            threeBodyEnergy[i][ri][j][rj][k] = new double[rotk.length];
                                             for (int rk = 0; rk < rotk.length; rk++) {
                                                 /*if (check(k, rk) || check(i, ri, k, rk) || check(j, rj, k, rk) || check(i, ri, j, rj, k, rk)) {
                                                     continue;
@@ -4704,6 +5032,7 @@ public class RotamerOptimization implements Terminatable {
                         Thread.sleep(POLLING_FREQUENCY);
                     }
                     energyWorkerTeam.execute(triplesRegion);
+                    logIfMaster(threeBodyEnergy.toString());
                 }
 
                 if (computeQuads) {
@@ -5132,14 +5461,13 @@ public class RotamerOptimization implements Terminatable {
                 logger.info(" Calculating local distance matrix using non-eliminated rotamers.");
                 localSequentialDistanceMatrix(residues, localDistanceMatrix);
             }
-            threeBodyEnergy = new double[nResidues][][][][][];
+            resetThreeBodyEnergy(residues);
             for (int i = 0; i < nResidues - 2; i++) {
                 Residue residuei = residues[i];
                 rList.set(0, residuei);
                 Rotamer rotamersi[] = residuei.getRotamers(library);
                 turnOnAtoms(residuei);
                 int ni = rotamersi.length;
-                threeBodyEnergy[i] = new double[ni][][][][];
                 int indexOfI = allResiduesList.indexOf(residuei);
                 for (int ri = 0; ri < ni; ri++) {
                     if (pruneClashes && check(i, ri) && !(ri == 0 && useOrigCoordsRot)) {
@@ -5149,7 +5477,6 @@ public class RotamerOptimization implements Terminatable {
                     RotamerLibrary.applyRotamer(residuei, rotameri);
                     //int npairs = residues.length - (i + 1);
                     // TODO: reduce memory use.
-                    threeBodyEnergy[i][ri] = new double[nResidues][][][];
                     for (int j = i + 1; j < nResidues - 1; j++) {
                         Residue residuej = residues[j];
                         rList.set(1, residuej);
@@ -5157,7 +5484,6 @@ public class RotamerOptimization implements Terminatable {
                         turnOnAtoms(residuej);
                         // Loop over residue j's rotamers and compute pair-wise energies.
                         int nj = rotamersj.length;
-                        threeBodyEnergy[i][ri][j] = new double[nj][][];
                         int indexOfJ = allResiduesList.indexOf(residuej);
                         for (int rj = 0; rj < nj; rj++) {
                             if ((pruneClashes && (check(j, rj)) || (prunePairClashes && check(i, ri, j, rj)))
@@ -5166,14 +5492,12 @@ public class RotamerOptimization implements Terminatable {
                             }
                             Rotamer rotamerj = rotamersj[rj];
                             RotamerLibrary.applyRotamer(residuej, rotamerj);
-                            threeBodyEnergy[i][ri][j][rj] = new double[nResidues][];
                             for (int k = j + 1; k < nResidues; k++) {
                                 Residue residuek = residues[k];
                                 rList.set(2, residuek);
                                 Rotamer rotamersk[] = residuek.getRotamers(library);
                                 turnOnAtoms(residuek);
                                 int nk = rotamersk.length;
-                                threeBodyEnergy[i][ri][j][rj][k] = new double[nk];
                                 int indexOfK = allResiduesList.indexOf(residuek);
                                 for (int rk = 0; rk < nk; rk++) {
                                     if ((pruneClashes
@@ -5220,21 +5544,21 @@ public class RotamerOptimization implements Terminatable {
                                     double dist = Math.min(dij, Math.min(dik, djk));
                                     if (!threeBodyCutoff || (dist < threeBodyCutoffDist)) {
                                         if (dist < superpositionThreshold) {
-                                            threeBodyEnergy[i][ri][j][rj][k][rk] = 1.0E100;
+                                            threeBodyEnergy.set(i, ri, j, rj, k, rk, 1.0E100);
                                             logger.info(String.format(
                                                     " Trimer energy %s %d, %s %d, %s %d:   set to 1.0E100 at %13.6f Ang < %5.3f Ang.",
                                                     residuei, ri, residuej, rj, residuek, rk, dist, superpositionThreshold));
                                         } else {
                                             Rotamer rotamerk = rotamersk[rk];
                                             RotamerLibrary.applyRotamer(residuek, rotamerk);
-                                            threeBodyEnergy[i][ri][j][rj][k][rk] = currentEnergy(rList)
+                                            threeBodyEnergy.set(i, ri, j, rj, k, rk, currentEnergy(rList)
                                                     - self(i, ri) - self(j, rj) - self(k, rk)
                                                     - pair(i, ri, j, rj) - pair(i, ri, k, rk)
-                                                    - pair(j, rj, k, rk) - backboneEnergy;
+                                                    - pair(j, rj, k, rk) - backboneEnergy);
                                             logger.info(String.format(
                                                     " Trimer energy %s %d, %s %d, %s %d: %16.8f at %10.3f Ang.",
                                                     residuei, ri, residuej, rj, residuek, rk,
-                                                    threeBodyEnergy[i][ri][j][rj][k][rk], dist));
+                                                    threeBodyEnergy.get(i, ri, j, rj, k, rk), dist));
                                             if (algorithmListener != null) {
                                                 algorithmListener.algorithmUpdate(molecularAssembly);
                                             }
@@ -5275,6 +5599,7 @@ public class RotamerOptimization implements Terminatable {
                 }
                 turnOffAtoms(residuei);
             }
+            logger.info(threeBodyEnergy.toString());
         }
 
         // Turn on all atoms.
@@ -5664,6 +5989,7 @@ public class RotamerOptimization implements Terminatable {
         int nres = residues.length;
         eliminatedSingles = new boolean[nres][];
         eliminatedPairs = new boolean[nres][][][];
+        resetPruningBounds(nres);
 
         // Loop over residues.
         for (int i = 0; i < nres; i++) {
@@ -5691,35 +6017,14 @@ public class RotamerOptimization implements Terminatable {
             }
         }
         if (threeBodyTerm) {
-            eliminatedTriples = new boolean[nres][][][][][];
+            int nRotamers[] = new int[nres];
             for (int i = 0; i < nres; i++) {
-                Residue residuei = residues[i];
-                Rotamer rotamersi[] = residuei.getRotamers(library);
-                int lenri = rotamersi.length;  // Length rotamers i
-                eliminatedTriples[i] = new boolean[lenri][][][][];
-                // Loop over the set of rotamers for residue i.
-                for (int ri = 0; ri < lenri; ri++) {
-                    eliminatedTriples[i][ri] = new boolean[nres][][][];
-                    for (int j = i + 1; j < nres; j++) {
-                        Residue residuej = residues[j];
-                        Rotamer rotamersj[] = residuej.getRotamers(library);
-                        int lenrj = rotamersj.length;
-                        eliminatedTriples[i][ri][j] = new boolean[lenrj][][];
-                        for (int rj = 0; rj < lenrj; rj++) {
-                            eliminatedTriples[i][ri][j][rj] = new boolean[nres][];
-                            for (int k = j + 1; k < nres; k++) {
-                                Residue residuek = residues[k];
-                                Rotamer rotamersk[] = residuek.getRotamers(library);
-                                int lenrk = rotamersk.length;
-                                eliminatedTriples[i][ri][j][rj][k] = new boolean[lenrk];
-                                for (int rk = 0; rk < lenrk; rk++) {
-                                    eliminatedTriples[i][ri][j][rj][k][rk] = false;
-                                }
-                            }
-                        }
-                    }
-                }
+                nRotamers[i] = residues[i].getRotamers(library).length;
             }
+            if (eliminatedTriples != null) {
+                eliminatedTriples.destroy();
+            }
+            eliminatedTriples = new ThreeBodyEnergyTable(nRotamers, ThreeBodyEnergyTable.Storage.HEAP);
         }
     }
 
@@ -5727,82 +6032,167 @@ public class RotamerOptimization implements Terminatable {
      * Elimination of rotamers.
      */
     private boolean deeRotamerElimination(Residue[] residues) {
+        return pruningSweep(residues, this::deeRotamerElimination, this::deeRotamerRecheck);
+    }
+
+    /**
+     * Apply the singles DEE criteria to the rotamers of residue i.
+     *
+     * @param residues The residues being optimized.
+     * @param i Residue i.
+     * @param candidates If not null, eliminations are added to this list as
+     * candidates and no state is changed.
+     * @return true if a rotamer was eliminated (or a candidate was found).
+     */
+    private boolean deeRotamerElimination(Residue[] residues, int i, List<PruningCandidate> candidates) {
         int nres = residues.length;
         // A flag to indicate if any more rotamers or rotamer pairs were eliminated.
         boolean eliminated = false;
-        // Loop over residues.
         double[] minMax = new double[2];
-        double[] minEnergySingles = null;
-        double[] maxEnergySingles = null;
-        for (int i = 0; i < nres; i++) {
-            Residue residuei = residues[i];
-            Rotamer rotamersi[] = residuei.getRotamers(library);
-            int lenri = rotamersi.length;
-            if (minEnergySingles == null || minEnergySingles.length < lenri) {
-                minEnergySingles = new double[lenri];
-                maxEnergySingles = new double[lenri];
+        Residue residuei = residues[i];
+        Rotamer rotamersi[] = residuei.getRotamers(library);
+        int lenri = rotamersi.length;
+        double[] minEnergySingles = new double[lenri];
+        double[] maxEnergySingles = new double[lenri];
+        // Candidate rotamers without a consistent pair for some residue.
+        boolean[] inconsistent = new boolean[lenri];
+        // Loop over the set of rotamers for residue i.
+        for (int ri = 0; ri < lenri; ri++) {
+            // Check for an eliminated single.
+            if (check(i, ri)) {
+                continue;
             }
-            // Loop over the set of rotamers for residue i.
-            for (int ri = 0; ri < lenri; ri++) {
-                // Check for an eliminated single.
-                if (check(i, ri)) {
+            // Start the min/max summation with the self-energy.
+            minEnergySingles[ri] = selfEnergy[i][ri];
+            maxEnergySingles[ri] = minEnergySingles[ri];
+            for (int j = 0; j < nres; j++) {
+                if (j == i) {
                     continue;
                 }
-                // Start the min/max summation with the self-energy.
-                minEnergySingles[ri] = selfEnergy[i][ri];
-                maxEnergySingles[ri] = minEnergySingles[ri];
-                for (int j = 0; j < nres; j++) {
-                    if (j == i) {
-                        continue;
-                    }
-                    if (minMaxPairEnergy(residues, minMax, i, ri, j)) {
-                        minEnergySingles[ri] += minMax[0];
-                        maxEnergySingles[ri] += minMax[1];
-                    } else {
-                        Residue residuej = residues[j];
-                        logger.info(String.format(" Inconsistent Pair: %s %d, %s.",
-                                residuei, ri, residuej));
-                        eliminateRotamer(residues, i, ri, print);
+                if (cachedMinMaxPairEnergy(residues, minMax, i, ri, j)) {
+                    minEnergySingles[ri] += minMax[0];
+                    maxEnergySingles[ri] += minMax[1];
+                } else if (candidates != null) {
+                    if (!inconsistent[ri] && canEliminateRotamer(i, ri)) {
+                        inconsistent[ri] = true;
+                        candidates.add(new PruningCandidate(i, ri, -1, Double.POSITIVE_INFINITY));
+                        eliminated = true;
                     }
+                } else {
+                    Residue residuej = residues[j];
+                    logger.info(String.format(" Inconsistent Pair: %s %d, %s.",
+                            residuei, ri, residuej));
+                    eliminateRotamer(residues, i, ri, print);
                 }
             }
+        }
 
-            /**
-             * Apply the singles elimination criteria to rotamers of residue i
-             * by determining the most favorable maximum energy.
-             */
-            double eliminationEnergy = Double.MAX_VALUE;
-            for (int ri = 0; ri < lenri; ri++) {
-                if (check(i, ri)) {
-                    continue;
-                }
-                if (maxEnergySingles[ri] < eliminationEnergy) {
-                    eliminationEnergy = maxEnergySingles[ri];
-                }
+        /**
+         * Apply the singles elimination criteria to rotamers of residue i by
+         * determining the most favorable maximum energy.
+         */
+        double eliminationEnergy = Double.MAX_VALUE;
+        int eliminationRotamer = -1;
+        for (int ri = 0; ri < lenri; ri++) {
+            if (check(i, ri) || inconsistent[ri]) {
+                continue;
             }
+            if (maxEnergySingles[ri] < eliminationEnergy) {
+                eliminationEnergy = maxEnergySingles[ri];
+                eliminationRotamer = ri;
+            }
+        }
 
-            /**
-             * Eliminate rotamers whose minimum energy is greater than the worst
-             * case for another rotamer.
-             */
-            for (int ri = 0; ri < lenri; ri++) {
-                if (check(i, ri)) {
-                    continue;
-                }
-                if (minEnergySingles[ri] > eliminationEnergy + ensembleBuffer) {
-                    if (eliminateRotamer(residues, i, ri, print)) {
+        /**
+         * Eliminate rotamers whose minimum energy is greater than the worst
+         * case for another rotamer.
+         */
+        for (int ri = 0; ri < lenri; ri++) {
+            if (check(i, ri) || inconsistent[ri]) {
+                continue;
+            }
+            if (minEnergySingles[ri] > eliminationEnergy + ensembleBuffer) {
+                if (candidates != null) {
+                    if (canEliminateRotamer(i, ri)) {
+                        candidates.add(new PruningCandidate(i, ri, eliminationRotamer, minEnergySingles[ri]));
                         eliminated = true;
                     }
+                } else if (eliminateRotamer(residues, i, ri, print)) {
+                    eliminated = true;
                 }
             }
         }
         return eliminated;
     }
 
+    /**
+     * Apply a singles DEE candidate if it still holds: the rotamer has no
+     * consistent pair with some residue, or its minimum energy is above the
+     * maximum energy of the rotamer that qualified it.
+     *
+     * @param residues The residues being optimized.
+     * @param candidate The candidate.
+     * @return true if the rotamer was eliminated.
+     */
+    private boolean deeRotamerRecheck(Residue[] residues, PruningCandidate candidate) {
+        int nres = residues.length;
+        int i = candidate.i;
+        int ri = candidate.ri;
+        int rb = candidate.rb;
+        if (check(i, ri)) {
+            return false;
+        }
+        double minMax[] = new double[2];
+        double minEnergy = selfEnergy[i][ri];
+        for (int j = 0; j < nres; j++) {
+            if (j == i) {
+                continue;
+            }
+            if (!cachedMinMaxPairEnergy(residues, minMax, i, ri, j)) {
+                logger.info(String.format(" Inconsistent Pair: %s %d, %s.",
+                        residues[i], ri, residues[j]));
+                return eliminateRotamer(residues, i, ri, print);
+            }
+            minEnergy += minMax[0];
+        }
+        if (rb < 0 || check(i, rb)) {
+            return false;
+        }
+        double maxEnergy = selfEnergy[i][rb];
+        for (int j = 0; j < nres; j++) {
+            if (j == i) {
+                continue;
+            }
+            if (!cachedMinMaxPairEnergy(residues, minMax, i, rb, j)) {
+                return false;
+            }
+            maxEnergy += minMax[1];
+        }
+        if (minEnergy > maxEnergy + ensembleBuffer) {
+            return eliminateRotamer(residues, i, ri, print);
+        }
+        return false;
+    }
+
     /**
      * Elimination of rotamers.
      */
     private boolean deeRotamerPairElimination(Residue[] residues) {
+        return pruningSweep(residues, this::deeRotamerPairElimination, this::deeRotamerPairRecheck);
+    }
+
+    /**
+     * Apply the pairs DEE criteria to the rotamer pairs of residue i with
+     * residues j &gt; i.
+     *
+     * @param residues The residues being optimized.
+     * @param i Residue i.
+     * @param candidates If not null, eliminations are added to this list as
+     * candidates and no state is changed.
+     * @return true if a rotamer pair was eliminated (or a candidate was
+     * found).
+     */
+    private boolean deeRotamerPairElimination(Residue[] residues, int i, List<PruningCandidate> candidates) {
         int nres = residues.length;
         double minMax[] = new double[2];
         // A flag to indicate if any more rotamers or rotamer pairs were eliminated.
@@ -5811,102 +6201,397 @@ public class RotamerOptimization implements Terminatable {
         double maxEnergyDoubles[] = null;
         double minEnergyDoubles[] = null;
 
-        // Loop over residues.
-        for (int i = 0; i < nres; i++) {
-            Residue residuei = residues[i];
-            Rotamer rotamersi[] = residuei.getRotamers(library);
-            int lenri = rotamersi.length;
-            // Loop over the set of rotamers for residue i.
-            for (int ri = 0; ri < lenri; ri++) {
-                // Check for an eliminated single.
-                if (check(i, ri)) {
-                    continue;
+        Residue residuei = residues[i];
+        Rotamer rotamersi[] = residuei.getRotamers(library);
+        int lenri = rotamersi.length;
+        // Loop over the set of rotamers for residue i.
+        for (int ri = 0; ri < lenri; ri++) {
+            // Check for an eliminated single.
+            if (check(i, ri)) {
+                continue;
+            }
+            for (int j = i + 1; j < nres; j++) {
+                Residue residuej = residues[j];
+                Rotamer rotamersj[] = residuej.getRotamers(library);
+                int lenrj = rotamersj.length;
+
+                if (maxEnergyDoubles == null || maxEnergyDoubles.length < lenrj) {
+                    maxEnergyDoubles = new double[lenrj];
+                    minEnergyDoubles = new double[lenrj];
                 }
-                for (int j = i + 1; j < nres; j++) {
-                    Residue residuej = residues[j];
-                    Rotamer rotamersj[] = residuej.getRotamers(library);
-                    int lenrj = rotamersj.length;
+                // Candidate pairs without a consistent triple for some residue.
+                boolean inconsistent[] = new boolean[lenrj];
 
-                    if (maxEnergyDoubles == null || maxEnergyDoubles.length < lenrj) {
-                        maxEnergyDoubles = new double[lenrj];
-                        minEnergyDoubles = new double[lenrj];
+                // Loop over residue j's rotamers.
+                for (int rj = 0; rj < lenrj; rj++) {
+                    // Check for an eliminated single or pair.
+                    if (check(j, rj) || check(i, ri, j, rj)) {
+                        continue;
                     }
-
-                    // Loop over residue j's rotamers.
-                    for (int rj = 0; rj < lenrj; rj++) {
-                        // Check for an eliminated single or pair.
-                        if (check(j, rj) || check(i, ri, j, rj)) {
+                    // Start the min/max summation with the "pair" self-energy.
+                    minEnergyDoubles[rj] = selfEnergy[i][ri] + selfEnergy[j][rj] + pair(i, ri, j, rj);
+                    maxEnergyDoubles[rj] = minEnergyDoubles[rj];
+                    // Loop over the third residue.
+                    for (int k = 0; k < nres; k++) {
+                        if (k == i || k == j) {
                             continue;
                         }
-                        // Start the min/max summation with the "pair" self-energy.
-                        minEnergyDoubles[rj] = selfEnergy[i][ri] + selfEnergy[j][rj] + pair(i, ri, j, rj);
-                        maxEnergyDoubles[rj] = minEnergyDoubles[rj];
-                        // Loop over the third residue.
-                        for (int k = 0; k < nres; k++) {
-                            if (k == i || k == j) {
-                                continue;
-                            }
-                            if (minMaxTripleEnergy(residues, minMax, i, ri, j, rj, k)) {
-                                minEnergyDoubles[rj] += minMax[0];
-                                maxEnergyDoubles[rj] += minMax[1];
-                            } else {
-                                Residue residuek = residues[k];
-                                logger.info(String.format(" Inconsistent triple: %s %d, %s %d, %s.",
-                                        residuei, ri, residuej, rj, residuek));
-                                eliminateRotamerPair(residues, i, ri, j, rj, print);
+                        if (minMaxTripleEnergy(residues, minMax, i, ri, j, rj, k)) {
+                            minEnergyDoubles[rj] += minMax[0];
+                            maxEnergyDoubles[rj] += minMax[1];
+                        } else if (candidates != null) {
+                            if (!inconsistent[rj] && canEliminateRotamerPair(i, ri, j, rj)) {
+                                inconsistent[rj] = true;
+                                candidates.add(new PruningCandidate(i, ri, ri, j, rj, -1,
+                                        Double.POSITIVE_INFINITY));
+                                eliminated = true;
                             }
+                        } else {
+                            Residue residuek = residues[k];
+                            logger.info(String.format(" Inconsistent triple: %s %d, %s %d, %s.",
+                                    residuei, ri, residuej, rj, residuek));
+                            eliminateRotamerPair(residues, i, ri, j, rj, print);
                         }
                     }
+                }
 
-                    /**
-                     * Apply the double elimination criteria to the rotamer pair
-                     * by determining the most favorable maximum energy.
-                     */
-                    double pairEliminationEnergy = Double.MAX_VALUE;
-                    for (int rj = 0; rj < lenrj; rj++) {
-                        if (check(j, rj) || check(i, ri, j, rj)) {
+                /**
+                 * Apply the double elimination criteria to the rotamer pair by
+                 * determining the most favorable maximum energy.
+                 */
+                double pairEliminationEnergy = Double.MAX_VALUE;
+                int pairEliminationRotamer = -1;
+                for (int rj = 0; rj < lenrj; rj++) {
+                    if (check(j, rj) || check(i, ri, j, rj) || inconsistent[rj]) {
+                        continue;
+                    }
+                    if (maxEnergyDoubles[rj] < pairEliminationEnergy) {
+                        pairEliminationEnergy = maxEnergyDoubles[rj];
+                        pairEliminationRotamer = rj;
+                    }
+                }
+                /**
+                 * Eliminate rotamer pairs whose minimum energy is higher than
+                 * the worst case for an alternative pair.
+                 */
+                for (int rj = 0; rj < lenrj; rj++) {
+                    if (check(j, rj) || check(i, ri, j, rj) || inconsistent[rj]) {
+                        continue;
+                    }
+                    if (minEnergyDoubles[rj] > pairEliminationEnergy + ensembleBuffer) {
+                        if (candidates != null) {
+                            if (canEliminateRotamerPair(i, ri, j, rj)) {
+                                candidates.add(new PruningCandidate(i, ri, ri, j, rj,
+                                        pairEliminationRotamer, minEnergyDoubles[rj]));
+                                eliminated = true;
+                            }
                             continue;
                         }
-                        if (maxEnergyDoubles[rj] < pairEliminationEnergy) {
-                            pairEliminationEnergy = maxEnergyDoubles[rj];
+                        logger.info(String.format(" Eliminating rotamer pair: %s %d, %s %d (%16.8f > %16.8f + %6.6f)",
+                                residuei, ri, residuej, rj,
+                                minEnergyDoubles[rj], pairEliminationEnergy, ensembleBuffer));
+                        if (eliminateRotamerPair(residues, i, ri, j, rj, print)) {
+                            eliminated = true;
                         }
-                    }
-                    /**
-                     * Eliminate rotamer pairs whose minimum energy is higher
-                     * than the worst case for an alternative pair.
-                     */
-                    for (int rj = 0; rj < lenrj; rj++) {
-                        if (check(j, rj) || check(i, ri, j, rj)) {
-                            continue;
+                        if (eliminateUnpairedRotamer(residues, i, j, rj)) {
+                            eliminated = true;
                         }
-                        if (minEnergyDoubles[rj] > pairEliminationEnergy + ensembleBuffer) {
-                            logger.info(String.format(" Eliminating rotamer pair: %s %d, %s %d (%16.8f > %16.8f + %6.6f)",
-                                    residuei, ri, residuej, rj,
-                                    minEnergyDoubles[rj], pairEliminationEnergy, ensembleBuffer));
-                            if (eliminateRotamerPair(residues, i, ri, j, rj, print)) {
-                                eliminated = true;
-                            }
-                            // Check if any of i's rotamers are left to interact with residue j's rotamer rj?
-                            boolean singleton = true;
-                            for (int rii = 0; rii < lenri; rii++) {
-                                if (!check(i, rii, j, rj)) {
-                                    singleton = false;
-                                }
-                            }
-                            // If not, then this rotamer is completely eliminated.
-                            if (singleton) {
-                                if (eliminateRotamer(residues, j, rj, print)) {
-                                    eliminated = true;
-                                }
+                    }
+                }
+            }
+        }
+        return eliminated;
+    }
+
+    /**
+     * Apply a pairs DEE candidate if it still holds: the pair has no
+     * consistent triple with some residue, or its minimum energy is above the
+     * maximum energy of the pair that qualified it.
+     *
+     * @param residues The residues being optimized.
+     * @param candidate The candidate.
+     * @return true if the rotamer pair was eliminated.
+     */
+    private boolean deeRotamerPairRecheck(Residue[] residues, PruningCandidate candidate) {
+        int nres = residues.length;
+        int i = candidate.i;
+        int ri = candidate.ri;
+        int j = candidate.j;
+        int rj = candidate.rj;
+        int rjb = candidate.rjb;
+        if (check(i, ri) || check(j, rj) || check(i, ri, j, rj)) {
+            return false;
+        }
+        double minMax[] = new double[2];
+        double minEnergy = selfEnergy[i][ri] + selfEnergy[j][rj] + pair(i, ri, j, rj);
+        for (int k = 0; k < nres; k++) {
+            if (k == i || k == j) {
+                continue;
+            }
+            if (!minMaxTripleEnergy(residues, minMax, i, ri, j, rj, k)) {
+                logger.info(String.format(" Inconsistent triple: %s %d, %s %d, %s.",
+                        residues[i], ri, residues[j], rj, residues[k]));
+                return eliminateRotamerPair(residues, i, ri, j, rj, print);
+            }
+            minEnergy += minMax[0];
+        }
+        if (rjb < 0 || check(j, rjb) || check(i, ri, j, rjb)) {
+            return false;
+        }
+        double pairEliminationEnergy = selfEnergy[i][ri] + selfEnergy[j][rjb] + pair(i, ri, j, rjb);
+        for (int k = 0; k < nres; k++) {
+            if (k == i || k == j) {
+                continue;
+            }
+            if (!minMaxTripleEnergy(residues, minMax, i, ri, j, rjb, k)) {
+                return false;
+            }
+            pairEliminationEnergy += minMax[1];
+        }
+        if (minEnergy > pairEliminationEnergy + ensembleBuffer) {
+            logger.info(String.format(" Eliminating rotamer pair: %s %d, %s %d (%16.8f > %16.8f + %6.6f)",
+                    residues[i], ri, residues[j], rj,
+                    minEnergy, pairEliminationEnergy, ensembleBuffer));
+            boolean eliminated = eliminateRotamerPair(residues, i, ri, j, rj, print);
+            if (eliminateUnpairedRotamer(residues, i, j, rj)) {
+                eliminated = true;
+            }
+            return eliminated;
+        }
+        return false;
+    }
+
+    /**
+     * Eliminate rotamer rj of residue j if none of the rotamers of residue i
+     * are left to interact with it.
+     */
+    private boolean eliminateUnpairedRotamer(Residue[] residues, int i, int j, int rj) {
+        int lenri = residues[i].getRotamers(library).length;
+        for (int ri = 0; ri < lenri; ri++) {
+            if (!check(i, ri, j, rj)) {
+                return false;
+            }
+        }
+        return eliminateRotamer(residues, j, rj, print);
+    }
+
+    /**
+     * Functional form of a pruning criteria applied to the rotamers of one
+     * residue (see pruningSweep).
+     */
+    private interface ResiduePruning {
+
+        boolean prune(Residue residues[], int i, List<PruningCandidate> candidates);
+    }
+
+    /**
+     * Functional form of the check that applies a pruning candidate if it
+     * still holds (see pruningSweep).
+     */
+    private interface CandidateCheck {
+
+        boolean apply(Residue residues[], PruningCandidate candidate);
+    }
+
+    /**
+     * Apply a pruning criteria to every residue. On the ParallelTeam of the
+     * potential, the criteria searches each residue for candidate eliminations
+     * against the eliminations present at the start of the sweep, collecting
+     * them (with the rotamers and bound that qualified them) in per-thread
+     * buffers without changing any state. The candidates are then re-checked
+     * and applied on one thread in residue order. The re-check evaluates only
+     * the candidate and its competitor, so every elimination is one the serial
+     * criteria would also make, and a sweep without candidates is a fixed
+     * point of the serial criteria.
+     *
+     * @param residues The residues being optimized.
+     * @param pruning The pruning criteria.
+     * @param recheck Applies a candidate if it still holds.
+     * @return true if anything was eliminated.
+     */
+    private boolean pruningSweep(Residue residues[], ResiduePruning pruning, CandidateCheck recheck) {
+        int nres = residues.length;
+        boolean eliminated = false;
+        ParallelTeam parallelTeam = parallelPruning ? getPruningTeam() : null;
+        if (parallelTeam == null || parallelTeam.getThreadCount() < 2 || nres < 2) {
+            for (int i = 0; i < nres; i++) {
+                if (pruning.prune(residues, i, null)) {
+                    eliminated = true;
+                }
+            }
+            return eliminated;
+        }
+        int nThreads = parallelTeam.getThreadCount();
+        List<List<PruningCandidate>> buffers = new ArrayList<>(nThreads);
+        for (int i = 0; i < nThreads; i++) {
+            buffers.add(new ArrayList<>());
+        }
+        long searchTime = -System.nanoTime();
+        try {
+            parallelTeam.execute(new ParallelRegion() {
+                @Override
+                public void run() throws Exception {
+                    List<PruningCandidate> buffer = buffers.get(getThreadIndex());
+                    execute(0, nres - 1, new IntegerForLoop() {
+                        @Override
+                        public IntegerSchedule schedule() {
+                            return IntegerSchedule.dynamic();
+                        }
+
+                        @Override
+                        public void run(int lb, int ub) {
+                            for (int i = lb; i <= ub; i++) {
+                                pruning.prune(residues, i, buffer);
                             }
                         }
-                    }
+                    });
+                }
+            });
+        } catch (Exception e) {
+            logger.log(Level.WARNING, " Exception during parallel pruning; pruning serially.", e);
+            for (int i = 0; i < nres; i++) {
+                if (pruning.prune(residues, i, null)) {
+                    eliminated = true;
                 }
             }
+            return eliminated;
+        }
+        searchTime += System.nanoTime();
+
+        /**
+         * Each residue is searched by one thread, so a stable sort on the
+         * residue keeps the order in which its candidates were found.
+         */
+        List<PruningCandidate> candidates = new ArrayList<>();
+        for (List<PruningCandidate> buffer : buffers) {
+            candidates.addAll(buffer);
+        }
+        candidates.sort(Comparator.comparingInt(candidate -> candidate.i));
+        long recheckTime = -System.nanoTime();
+        int applied = 0;
+        for (PruningCandidate candidate : candidates) {
+            if (recheck.apply(residues, candidate)) {
+                eliminated = true;
+                applied++;
+            } else if (logger.isLoggable(Level.FINEST)) {
+                logger.finest(String.format(" Pruning candidate %s no longer holds.", candidate));
+            }
+        }
+        recheckTime += System.nanoTime();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format(" Pruning sweep: %d of %d candidates applied; search %8.3f, re-check %8.3f (sec).",
+                    applied, candidates.size(), searchTime * 1.0e-9, recheckTime * 1.0e-9));
         }
         return eliminated;
     }
 
+    /**
+     * The team used to test residues for elimination in parallel, which is
+     * the ParallelTeam of the potential energy.
+     *
+     * @return the ParallelTeam, or null to prune serially.
+     */
+    protected ParallelTeam getPruningTeam() {
+        if (molecularAssembly.getPotentialEnergy() != null) {
+            return molecularAssembly.getPotentialEnergy().getParallelTeam();
+        }
+        return null;
+    }
+
+    /**
+     * A rotamer (i, ri) or rotamer pair (i, ri, j, rj) found by a pruning
+     * criteria, with the competing rotamers (rb of residue i, rjb of residue
+     * j) and the bound that qualified it. A negative competing rotamer marks
+     * a rotamer or pair without a consistent pair or triple.
+     */
+    private static class PruningCandidate {
+
+        final int i;
+        final int ri;
+        final int rb;
+        final int j;
+        final int rj;
+        final int rjb;
+        final double bound;
+
+        PruningCandidate(int i, int ri, int rb, double bound) {
+            this(i, ri, rb, -1, -1, -1, bound);
+        }
+
+        PruningCandidate(int i, int ri, int rb, int j, int rj, int rjb, double bound) {
+            this.i = i;
+            this.ri = ri;
+            this.rb = rb;
+            this.j = j;
+            this.rj = rj;
+            this.rjb = rjb;
+            this.bound = bound;
+        }
+
+        @Override
+        public String toString() {
+            if (j < 0) {
+                return String.format("(%d %d by %d: %16.8f)", i, ri, rb, bound);
+            }
+            return String.format("(%d %d, %d %d by %d %d: %16.8f)", i, ri, j, rj, rb, rjb, bound);
+        }
+    }
+
+    /**
+     * Min/max pair energy of rotamer ri of residue i with residue j (see
+     * minMaxPairEnergy). If bound caching is on and there are no three-body
+     * terms, a valid bound is reused until an elimination involves residue i
+     * or j.
+     */
+    private boolean cachedMinMaxPairEnergy(Residue[] residues, double minMax[], int i, int ri, int j) {
+        if (!cachePruningBounds || threeBodyTerm) {
+            return minMaxPairEnergy(residues, minMax, i, ri, j);
+        }
+        int nres = residues.length;
+        if (pairBoundStamp[i] == null) {
+            int lenri = residues[i].getRotamers(library).length;
+            pairBoundStamp[i] = new long[lenri * nres];
+            pairBoundMin[i] = new double[lenri * nres];
+            pairBoundMax[i] = new double[lenri * nres];
+            fill(pairBoundStamp[i], -1L);
+        }
+        int index = ri * nres + j;
+        long stamp = ((long) eliminationCount[i] << 32) | eliminationCount[j];
+        if (pairBoundStamp[i][index] == stamp) {
+            minMax[0] = pairBoundMin[i][index];
+            minMax[1] = pairBoundMax[i][index];
+            return true;
+        }
+        if (minMaxPairEnergy(residues, minMax, i, ri, j)) {
+            pairBoundMin[i][index] = minMax[0];
+            pairBoundMax[i][index] = minMax[1];
+            pairBoundStamp[i][index] = stamp;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Discard cached pruning bounds and reset the per-residue elimination
+     * counts.
+     */
+    private void resetPruningBounds(int nres) {
+        eliminationCount = new int[nres];
+        pairBoundStamp = new long[nres][];
+        pairBoundMin = new double[nres][];
+        pairBoundMax = new double[nres][];
+        goldsteinBoundStamp = new long[nres][];
+        goldsteinBound = new double[nres][];
+    }
+
+    private boolean canEliminateRotamer(int i, int ri) {
+        return !eliminatedSingles[i][ri] && !(library.getUsingOrigCoordsRotamer() && ri == 0);
+    }
+
+    private boolean canEliminateRotamerPair(int i, int ri, int j, int rj) {
+        return !check(i, ri, j, rj) && !(library.getUsingOrigCoordsRotamer() && ri == 0 && rj == 0);
+    }
+
     private boolean minMaxPairEnergy(Residue[] residues, double minMax[], int i, int ri, int j) {
         Residue residuej = residues[j];
         Rotamer rotamersj[] = residuej.getRotamers(library);
@@ -6114,35 +6799,64 @@ public class RotamerOptimization implements Terminatable {
     }
 
     private boolean goldsteinRotamerDriver(Residue[] residues) {
-        int nres = residues.length;
+        return pruningSweep(residues, this::goldsteinRotamerDriver, this::goldsteinRotamerRecheck);
+    }
+
+    /**
+     * Apply the Goldstein criteria to the rotamers of residue i.
+     *
+     * @param residues The residues being optimized.
+     * @param i Residue i.
+     * @param candidates If not null, eliminations are added to this list as
+     * candidates and no state is changed.
+     * @return true if a rotamer was eliminated (or a candidate was found).
+     */
+    private boolean goldsteinRotamerDriver(Residue[] residues, int i, List<PruningCandidate> candidates) {
         // A flag to indicate if a rotamer is eliminated.
         boolean eliminated = false;
-        // Loop over residue i.
-        for (int i = 0; i < nres; i++) {
-            Residue resi = residues[i];
-            Rotamer roti[] = resi.getRotamers(library);
-            int nri = roti.length;
-            // Loop over the set of rotamers for residue i.
-            for (int riA = 0; riA < nri; riA++) {
-                // Continue if Residue i, Rotamer Ri_a is eliminated single.
-                if (check(i, riA)) {
+        Residue resi = residues[i];
+        Rotamer roti[] = resi.getRotamers(library);
+        int nri = roti.length;
+        // Candidates are not used to eliminate other rotamers.
+        boolean pending[] = candidates != null ? new boolean[nri] : null;
+        // Loop over the set of rotamers for residue i.
+        for (int riA = 0; riA < nri; riA++) {
+            // Continue if Residue i, Rotamer Ri_a is eliminated single.
+            if (check(i, riA)) {
+                continue;
+            }
+            for (int riB = 0; riB < nri; riB++) {
+                if (check(i, riB) || riA == riB || (pending != null && pending[riB])) {
                     continue;
                 }
-                for (int riB = 0; riB < nri; riB++) {
-                    if (check(i, riB) || riA == riB) {
-                        continue;
-                    }
-                    if (goldsteinRotamerElimination(residues, i, riA, riB)) {
-                        eliminated = true;
-                        break;
+                if (goldsteinRotamerElimination(residues, i, riA, riB, candidates)) {
+                    if (pending != null) {
+                        pending[riA] = true;
                     }
+                    eliminated = true;
+                    break;
                 }
             }
         }
         return eliminated;
     }
 
-    private boolean goldsteinRotamerElimination(Residue residues[], int i, int riA, int riB) {
+    /**
+     * Apply a Goldstein candidate if it still holds.
+     *
+     * @param residues The residues being optimized.
+     * @param candidate The candidate.
+     * @return true if the rotamer was eliminated.
+     */
+    private boolean goldsteinRotamerRecheck(Residue[] residues, PruningCandidate candidate) {
+        if (check(candidate.i, candidate.ri) || check(candidate.i, candidate.rb)) {
+            return false;
+        }
+        return goldsteinRotamerElimination(residues, candidate.i, candidate.ri, candidate.rb, null);
+    }
+
+    private boolean goldsteinRotamerElimination(Residue residues[], int i, int riA, int riB,
+            List<PruningCandidate> candidates) {
         int nres = residues.length;
         Residue resi = residues[i];
         // Initialize Goldstein inequality.
@@ -6155,6 +6869,26 @@ public class RotamerOptimization implements Terminatable {
             Residue resj = residues[j];
             Rotamer rotj[] = resj.getRotamers(library);
             int nrj = rotj.length;
+            /**
+             * Without three-body terms, the bound depends only on eliminations
+             * that involve residues i and j.
+             */
+            int cacheIndex = -1;
+            long stamp = 0;
+            if (cachePruningBounds && !threeBodyTerm) {
+                if (goldsteinBoundStamp[i] == null) {
+                    int nri = resi.getRotamers(library).length;
+                    goldsteinBoundStamp[i] = new long[nri * nri * nres];
+                    goldsteinBound[i] = new double[nri * nri * nres];
+                    fill(goldsteinBoundStamp[i], -1L);
+                }
+                cacheIndex = (riA * resi.getRotamers(library).length + riB) * nres + j;
+                stamp = ((long) eliminationCount[i] << 32) | eliminationCount[j];
+                if (goldsteinBoundStamp[i][cacheIndex] == stamp) {
+                    goldsteinEnergy += goldsteinBound[i][cacheIndex];
+                    continue;
+                }
+            }
             double minForResJ = Double.MAX_VALUE;
             int rjEvals = 0;
             for (int rj = 0; rj < nrj; rj++) {
@@ -6210,9 +6944,20 @@ public class RotamerOptimization implements Terminatable {
                 // New: Osprey sets the minForResJ to 0.0
                 minForResJ = 0.0;
             }
+            if (cacheIndex >= 0) {
+                goldsteinBound[i][cacheIndex] = minForResJ;
+                goldsteinBoundStamp[i][cacheIndex] = stamp;
+            }
             goldsteinEnergy += minForResJ;
         }
         if (goldsteinEnergy > ensembleBuffer) {
+            if (candidates != null) {
+                if (canEliminateRotamer(i, riA)) {
+                    candidates.add(new PruningCandidate(i, riA, riB, goldsteinEnergy));
+                    return true;
+                }
+                return false;
+            }
             logIfMaster(String.format(" Goldstein rotamer elimination of %s %d by %d: %16.8f > %6.2f",
                     resi, riA, riB, goldsteinEnergy, ensembleBuffer));
             if (eliminateRotamer(residues, i, riA, print)) {
@@ -6231,54 +6976,74 @@ public class RotamerOptimization implements Terminatable {
      * @return true if a residue is eliminated.
      */
     private boolean goldsteinRotamerPairDriver(Residue[] residues) {
+        return pruningSweep(residues, this::goldsteinRotamerPairDriver, this::goldsteinRotamerPairRecheck);
+    }
+
+    /**
+     * Apply the Goldstein pair criteria to the rotamer pairs of residue i.
+     *
+     * @param residues The residues being optimized.
+     * @param i Residue i.
+     * @param candidates If not null, eliminations are added to this list as
+     * candidates and no state is changed.
+     * @return true if a rotamer pair was eliminated (or a candidate was
+     * found).
+     */
+    private boolean goldsteinRotamerPairDriver(Residue[] residues, int i, List<PruningCandidate> candidates) {
         int nres = residues.length;
         // A flag to indicate if any more rotamers or rotamer pairs were eliminated.
         boolean eliminated = false;
-        // Loop over residue i.
-        for (int i = 0; i < nres; i++) {
-            Residue resi = residues[i];
-            Rotamer roti[] = resi.getRotamers(library);
-            int nri = roti.length;
-            // Loop over the set of rotamers for residue i.
-            for (int riA = 0; riA < nri; riA++) {
-                if (check(i, riA)) {
+        Residue resi = residues[i];
+        Rotamer roti[] = resi.getRotamers(library);
+        int nri = roti.length;
+        // Loop over the set of rotamers for residue i.
+        for (int riA = 0; riA < nri; riA++) {
+            if (check(i, riA)) {
+                continue;
+            }
+            // Candidate pairs of riA are not searched again.
+            boolean pending[][] = candidates != null ? new boolean[nres][] : null;
+            // A 2nd loop over the set of rotamers for residue i.
+            for (int riB = 0; riB < nri; riB++) {
+                if (riA == riB || check(i, riB)) {
                     continue;
                 }
-                // A 2nd loop over the set of rotamers for residue i.
-                for (int riB = 0; riB < nri; riB++) {
-                    if (riA == riB || check(i, riB)) {
+                // Loop over residue j.
+                for (int j = 0; j < nres; j++) {
+                    if (j == i) {
                         continue;
                     }
-                    // Loop over residue j.
-                    for (int j = 0; j < nres; j++) {
-                        if (j == i) {
+                    Residue resj = residues[j];
+                    Rotamer rotj[] = resj.getRotamers(library);
+                    int nrj = rotj.length;
+                    // Loop over the set of rotamers for residue j.
+                    boolean breakOut = false;
+                    for (int rjC = 0; rjC < nrj; rjC++) {
+                        if (breakOut) {
+                            break;
+                        }
+                        if (check(j, rjC) || check(i, riA, j, rjC)
+                                || (pending != null && pending[j] != null && pending[j][rjC])) {
                             continue;
                         }
-                        Residue resj = residues[j];
-                        Rotamer rotj[] = resj.getRotamers(library);
-                        int nrj = rotj.length;
-                        // Loop over the set of rotamers for residue j.
-                        boolean breakOut = false;
-                        for (int rjC = 0; rjC < nrj; rjC++) {
+                        // A 2nd loop over the set of rotamers for residue j.
+                        for (int rjD = 0; rjD < nrj; rjD++) {
                             if (breakOut) {
                                 break;
                             }
-                            if (check(j, rjC) || check(i, riA, j, rjC)) {
+                            if (rjC == rjD || check(j, rjD) || check(i, riB, j, rjD)) {
                                 continue;
                             }
-                            // A 2nd loop over the set of rotamers for residue j.
-                            for (int rjD = 0; rjD < nrj; rjD++) {
-                                if (breakOut) {
-                                    break;
-                                }
-                                if (rjC == rjD || check(j, rjD) || check(i, riB, j, rjD)) {
-                                    continue;
-                                }
-                                // Try to eliminate R_i(riA) & R_j(rjC) using R_i(riB) & R_j(rjD)
-                                if (goldsteinRotamerPairElimination(residues, i, riA, riB, j, rjC, rjD)) {
-                                    eliminated = true;
-                                    breakOut = true;
+                            // Try to eliminate R_i(riA) & R_j(rjC) using R_i(riB) & R_j(rjD)
+                            if (goldsteinRotamerPairElimination(residues, i, riA, riB, j, rjC, rjD, candidates)) {
+                                if (pending != null) {
+                                    if (pending[j] == null) {
+                                        pending[j] = new boolean[nrj];
+                                    }
+                                    pending[j][rjC] = true;
                                 }
+                                eliminated = true;
+                                breakOut = true;
                             }
                         }
                     }
@@ -6288,8 +7053,28 @@ public class RotamerOptimization implements Terminatable {
         return eliminated;
     }
 
+    /**
+     * Apply a Goldstein pair candidate if it still holds.
+     *
+     * @param residues The residues being optimized.
+     * @param candidate The candidate.
+     * @return true if the rotamer pair was eliminated.
+     */
+    private boolean goldsteinRotamerPairRecheck(Residue[] residues, PruningCandidate candidate) {
+        int i = candidate.i;
+        int j = candidate.j;
+        if (check(i, candidate.ri) || check(i, candidate.rb)
+                || check(j, candidate.rj) || check(j, candidate.rjb)
+                || check(i, candidate.ri, j, candidate.rj)
+                || check(i, candidate.rb, j, candidate.rjb)) {
+            return false;
+        }
+        return goldsteinRotamerPairElimination(residues, i, candidate.ri, candidate.rb,
+                j, candidate.rj, candidate.rjb, null);
+    }
+
     private boolean goldsteinRotamerPairElimination(Residue residues[],
-            int i, int riA, int riB, int j, int rjC, int rjD) {
+            int i, int riA, int riB, int j, int rjC, int rjD, List<PruningCandidate> candidates) {
         int nres = residues.length;
         // Initialize the Goldstein energy.
         double goldsteinEnergy = selfEnergy[i][riA] + selfEnergy[j][rjC] + pair(i, riA, j, rjC)
@@ -6369,6 +7154,13 @@ public class RotamerOptimization implements Terminatable {
         }
         goldsteinEnergy += sumOverK;
         if (goldsteinEnergy > ensembleBuffer) {
+            if (candidates != null) {
+                if (canEliminateRotamerPair(i, riA, j, rjC)) {
+                    candidates.add(new PruningCandidate(i, riA, riB, j, rjC, rjD, goldsteinEnergy));
+                    return true;
+                }
+                return false;
+            }
             logIfMaster(String.format(" Goldstein pair %s %s elimination of %d %d by %d %d: %16.8f > %6.2f",
                     residues[i], residues[j], riA, rjC, riB, rjD, goldsteinEnergy, ensembleBuffer));
             if (eliminateRotamerPair(residues, i, riA, j, rjC, print)) {
@@ -6383,6 +7175,7 @@ public class RotamerOptimization implements Terminatable {
             Residue residue = residues[i];
             logIfMaster(String.format(" Pruning rotamer: %s %d", residue, ri));
             eliminatedSingles[i][ri] = true;
+            eliminationCount[i]++;
             int pruned = eliminateRotamerPairs(residues, i, ri, verbose);
             if (pruned > 0) {
                 logIfMaster(String.format("  Pruned %d rotamer pairs.", pruned));
@@ -6410,6 +7203,8 @@ public class RotamerOptimization implements Terminatable {
                         residuei, ri, residuej, rj));
             }
             eliminatedPairs[i][ri][j][rj] = true;
+            eliminationCount[i]++;
+            eliminationCount[j]++;
             if (threeBodyTerm) {
                 int pruned = eliminateRotamerTriples(residues, i, ri, j, rj, verbose);
                 if (pruned > 0 && verbose) {
@@ -6437,7 +7232,10 @@ public class RotamerOptimization implements Terminatable {
                 logIfMaster(String.format("   Pruning rotamer triple: %s %d, %s %d, %s %d",
                         residues[i], ri, residues[j], rj, residues[k], rk));
             }
-            eliminatedTriples[i][ri][j][rj][k][rk] = true;
+            eliminatedTriples.eliminate(i, ri, j, rj, k, rk);
+            eliminationCount[i]++;
+            eliminationCount[j]++;
+            eliminationCount[k]++;
             return true;
         } else {
             return false;
@@ -6500,6 +7298,24 @@ public class RotamerOptimization implements Terminatable {
         return ret;
     }
 
+    /**
+     * Replace the three-body energy table with an empty table for the given
+     * residues; memory is only allocated as trimer energies are set.
+     *
+     * @param residues Residues whose trimer energies will be stored.
+     */
+    private void resetThreeBodyEnergy(Residue residues[]) {
+        if (threeBodyEnergy != null) {
+            threeBodyEnergy.destroy();
+        }
+        int nRes = residues.length;
+        int nRotamers[] = new int[nRes];
+        for (int i = 0; i < nRes; i++) {
+            nRotamers[i] = residues[i].getRotamers(library).length;
+        }
+        threeBodyEnergy = new ThreeBodyEnergyTable(nRotamers, threeBodyStorage);
+    }
+
     private double triple(int i, int ri, int j, int rj, int k, int rk) {
 
         if (!threeBodyTerm) {
@@ -6530,7 +7346,7 @@ public class RotamerOptimization implements Terminatable {
             rk = jrj;
         }
 
-        return threeBodyEnergy[i][ri][j][rj][k][rk];
+        return threeBodyEnergy.get(i, ri, j, rj, k, rk);
     }
 
     public void setThreeBodyCutoffDist(double dist) {
@@ -6691,7 +7507,7 @@ public class RotamerOptimization implements Terminatable {
             k = jj;
             rk = jrj;
         }
-        return eliminatedTriples[i][ri][j][rj][k][rk];
+        return eliminatedTriples.isEliminated(i, ri, j, rj, k, rk);
     }
     
     /**
@@ -7219,6 +8035,30 @@ public class RotamerOptimization implements Terminatable {
         energyRestartFile = file;
     }
 
+    /**
+     * Load energies from several binary restart files, such as partial files
+     * written by different runs or Comm ranks. New energies are appended to
+     * the first file.
+     *
+     * @param files The binary energy restart files.
+     */
+    public void setEnergyRestartFiles(List<File> files) {
+        setEnergyRestartFile(files.get(0));
+        energyRestartFiles = new ArrayList<>(files);
+    }
+
+    /**
+     * Append the complete sections and records of partial binary restart
+     * files to a single restart file.
+     *
+     * @param target The merged restart file.
+     * @param parts The partial restart files.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static void mergeEnergyRestartFiles(File target, List<File> parts) throws IOException {
+        EnergyRestartFile.merge(target, parts);
+    }
+
     public int nameToNumber(String residueString, Residue residues[]) throws NumberFormatException {
         int ret = -1;
         for (int x = 0; x < residues.length; x++) {
@@ -7265,66 +8105,42 @@ public class RotamerOptimization implements Terminatable {
     public int loadEnergyRestart(File restartFile, Residue residues[], int boxIteration, int[] cellIndices) {
         try {
             int nResidues = residues.length;
-            Path path = Paths.get(restartFile.getCanonicalPath());
-            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
-            List<String> linesThisBox = new ArrayList<>();
-
-            if (usingBoxOptimization && boxIteration >= 0) {
-                boolean foundBox = false;
-                for (int i = 0; i < lines.size(); i++) {
-                    String line = lines.get(i);
-                    if (line.startsWith("Box")) {
-                        String tok[] = line.replaceAll("Box", "").replaceAll(":", ",").replaceAll(" ", "").split(",");
-                        int readIteration = Integer.parseInt(tok[0]);
-                        int readCellIndexX = Integer.parseInt(tok[1]);
-                        int readCellIndexY = Integer.parseInt(tok[2]);
-                        int readCellIndexZ = Integer.parseInt(tok[3]);
-                        if (readIteration == boxIteration
-                                && readCellIndexX == cellIndices[0]
-                                && readCellIndexY == cellIndices[1]
-                                && readCellIndexZ == cellIndices[2]) {
-                            foundBox = true;
-                            for (int j = i + 1; j < lines.size(); j++) {
-                                String l = lines.get(j);
-                                if (l.startsWith("Box")) {
-                                    break;
-                                }
-                                linesThisBox.add(l);
-                            }
-                            break;
-                        }
+            EnergyRestartFile restart;
+            if (EnergyRestartFile.isBinary(restartFile)) {
+                String names[] = new String[nResidues];
+                int nRotamers[] = new int[nResidues];
+                for (int i = 0; i < nResidues; i++) {
+                    names[i] = residues[i].toString();
+                    nRotamers[i] = residues[i].getRotamers(library).length;
+                }
+                List<File> files = new ArrayList<>();
+                for (File file : energyRestartFiles) {
+                    if (file.exists()) {
+                        files.add(file);
                     }
                 }
-                if (!foundBox) {
-                    logIfMaster(String.format(" Didn't find restart energies for Box %d: %d,%d,%d",
-                            boxIteration, cellIndices[0], cellIndices[1], cellIndices[2]));
-                    return 0;
-                } else if (linesThisBox.size() == 0) {
-                    return 0;
-                } else {
-                    lines = linesThisBox;
+                if (!files.contains(restartFile)) {
+                    files.add(0, restartFile);
                 }
-            }
-
-            List<String> singleLines = new ArrayList<>();
-            List<String> pairLines = new ArrayList<>();
-            List<String> tripleLines = new ArrayList<>();
-            for (String line : lines) {
-                String tok[] = line.split("\\s");
-                if (tok[0].startsWith("Self")) {
-                    singleLines.add(line);
-                } else if (tok[0].startsWith("Pair")) {
-                    pairLines.add(line);
-                } else if (tok[0].startsWith("Triple")) {
-                    tripleLines.add(line);
+                if (!usingBoxOptimization) {
+                    boxIteration = -1;
+                }
+                restart = EnergyRestartFile.read(files, names, nRotamers, boxIteration, cellIndices);
+            } else {
+                restart = loadTextEnergyRestart(restartFile, residues, boxIteration, cellIndices);
+                if (restart == null) {
+                    return 0;
                 }
             }
+            int nSelf = restart.size(EnergyRestartFile.Term.SELF);
+            int nPair = restart.size(EnergyRestartFile.Term.PAIR);
+            int nTriple = restart.size(EnergyRestartFile.Term.TRIPLE);
             int loaded = 0;
-            if (tripleLines.size() > 0) {
+            if (nTriple > 0) {
                 loaded = 3;
-            } else if (pairLines.size() > 0) {
+            } else if (nPair > 0) {
                 loaded = 2;
-            } else if (singleLines.size() > 0) {
+            } else if (nSelf > 0) {
                 loaded = 1;
             } else {
                 logger.warning(String.format("Empty or unreadable energy restart file: %s.", restartFile.getCanonicalPath()));
@@ -7351,33 +8167,24 @@ public class RotamerOptimization implements Terminatable {
                     }
                 }
                 // fill in self-energies from file while removing the corresponding jobs from jobMapSingles
-                for (String line : singleLines) {
+                for (int n = 0; n < nSelf; n++) {
+                    int i = restart.residue(EnergyRestartFile.Term.SELF, n, 0);
+                    int ri = restart.rotamer(EnergyRestartFile.Term.SELF, n, 0);
+                    double energy = restart.energy(EnergyRestartFile.Term.SELF, n);
                     try {
-                        String tok[] = line.replace(",", "").replace(":", "").split("\\s+");
-                        int i;
-                        if (tok[1].contains("-")) {
-                            i = nameToNumber(tok[1], residues);
-                        } else {
-                            i = Integer.parseInt(tok[1]);
-                        }
-                        int ri = Integer.parseInt(tok[2]);
-                        double energy = Double.parseDouble(tok[3]);
-                        try {
-                            selfEnergy[i][ri] = energy;
-                        } catch (ArrayIndexOutOfBoundsException ex) {
-                            logger.log(Level.SEVERE, String.format("Restart file contained an out-of-bounds index.  Offending line: %s", line), ex);
-                        }
-                        if (verbose) {
-                            logIfMaster(String.format(" From restart file: Self energy %3d %-2d: %7s %-2d: %16.8f", i, ri, residues[i], ri, energy));
-                        }
-                        // remove that job from the pool
-                        String revKey = String.format("%d %d", i, ri);
-                        Integer ret[] = jobMapSingles.remove(reverseJobMapSingles.get(revKey));
-                        if (ret == null) {
-                            //logIfMaster(String.format("(sdl %d) Restart file contained unnecessary value for %s", BOXNUM, revKey));
-                        }
-                    } catch (NumberFormatException ex) {
-                        logger.log(Level.WARNING, String.format("Unparsable line in energy restart file: \n%s", line), ex);
+                        selfEnergy[i][ri] = energy;
+                    } catch (ArrayIndexOutOfBoundsException ex) {
+                        logger.log(Level.SEVERE, String.format("Restart file contained an out-of-bounds index.  Offending self: %d %d", i, ri), ex);
+                        continue;
+                    }
+                    if (verbose) {
+                        logIfMaster(String.format(" From restart file: Self energy %3d %-2d: %7s %-2d: %16.8f", i, ri, residues[i], ri, energy));
+                    }
+                    // remove that job from the pool
+                    String revKey = String.format("%d %d", i, ri);
+                    Integer ret[] = jobMapSingles.remove(reverseJobMapSingles.get(revKey));
+                    if (ret == null) {
+                        //logIfMaster(String.format("(sdl %d) Restart file contained unnecessary value for %s", BOXNUM, revKey));
                     }
                 }
                 logIfMaster(" Loaded self energies from restart file.");
@@ -7427,40 +8234,26 @@ public class RotamerOptimization implements Terminatable {
                     }
                 }
                 // fill in pair-energies from file while removing the corresponding jobs from jobMapPairs
-                for (String line : pairLines) {
+                for (int n = 0; n < nPair; n++) {
+                    int i = restart.residue(EnergyRestartFile.Term.PAIR, n, 0);
+                    int ri = restart.rotamer(EnergyRestartFile.Term.PAIR, n, 0);
+                    int j = restart.residue(EnergyRestartFile.Term.PAIR, n, 1);
+                    int rj = restart.rotamer(EnergyRestartFile.Term.PAIR, n, 1);
+                    double energy = restart.energy(EnergyRestartFile.Term.PAIR, n);
                     try {
-                        String tok[] = line.replace(",", "").replace(":", "").split("\\s+");
-                        int i;
-                        if (tok[1].contains("-")) {
-                            i = nameToNumber(tok[1], residues);
-                        } else {
-                            i = Integer.parseInt(tok[1]);
-                        }
-                        int ri = Integer.parseInt(tok[2]);
-                        int j;
-                        if (tok[3].contains("-")) {
-                            j = nameToNumber(tok[3], residues);
-                        } else {
-                            j = Integer.parseInt(tok[3]);
-                        }
-                        int rj = Integer.parseInt(tok[4]);
-                        double energy = Double.parseDouble(tok[5]);
-                        try {
-                            twoBodyEnergy[i][ri][j][rj] = energy;
-                        } catch (ArrayIndexOutOfBoundsException ex) {
-                            logger.log(Level.SEVERE, String.format("Restart file contained an out-of-bounds index.  Offending line: %s", line), ex);
-                        }
-                        if (verbose) {
-                            logIfMaster(String.format(" From restart file: Pair energy %3d %-2d, %3d %-2d: %16.8f", i, ri, j, rj, energy));
-                        }
-                        // remove that job from the pool
-                        String revKey = String.format("%d %d %d %d", i, ri, j, rj);
-                        Integer ret[] = jobMapPairs.remove(reverseJobMapPairs.get(revKey));
-                        if (ret == null) {
-                            //logIfMaster(String.format("(sdl %d) Restart file contained unnecessary value for %s", BOXNUM, revKey));
-                        }
-                    } catch (NumberFormatException ex) {
-                        logger.log(Level.WARNING, String.format("Unparsable line in energy restart file: \n%s", line), ex);
+                        twoBodyEnergy[i][ri][j][rj] = energy;
+                    } catch (ArrayIndexOutOfBoundsException ex) {
+                        logger.log(Level.SEVERE, String.format("Restart file contained an out-of-bounds index.  Offending pair: %d %d, %d %d", i, ri, j, rj), ex);
+                        continue;
+                    }
+                    if (verbose) {
+                        logIfMaster(String.format(" From restart file: Pair energy %3d %-2d, %3d %-2d: %16.8f", i, ri, j, rj, energy));
+                    }
+                    // remove that job from the pool
+                    String revKey = String.format("%d %d %d %d", i, ri, j, rj);
+                    Integer ret[] = jobMapPairs.remove(reverseJobMapPairs.get(revKey));
+                    if (ret == null) {
+                        //logIfMaster(String.format("(sdl %d) Restart file contained unnecessary value for %s", BOXNUM, revKey));
                     }
                 }
                 logIfMaster(" Loaded pair energies from restart file.");
@@ -7477,31 +8270,26 @@ public class RotamerOptimization implements Terminatable {
                 }
                 HashMap<String, Integer> reverseJobMapTrimers = new HashMap<>();
                 jobMapTrimers.clear();
-                // allocate threeBodyEnergy array, fill in triple-energies from file
+                // reset threeBodyEnergy, fill in triple-energies from file
                 int trimerJobIndex = 0;
-                threeBodyEnergy = new double[nResidues][][][][][];
+                resetThreeBodyEnergy(residues);
                 for (int i = 0; i < nResidues; i++) {
                     Residue resi = residues[i];
                     Rotamer roti[] = resi.getRotamers(library);
-                    threeBodyEnergy[i] = new double[roti.length][][][][];
                     for (int ri = 0; ri < roti.length; ri++) {
                         if (pruneClashes && check(i, ri)) {
                             continue;
                         }
-                        threeBodyEnergy[i][ri] = new double[nResidues][][][];
                         for (int j = i + 1; j < nResidues; j++) {
                             Residue resj = residues[j];
                             Rotamer rotj[] = resj.getRotamers(library);
-                            threeBodyEnergy[i][ri][j] = new double[rotj.length][][];
                             for (int rj = 0; rj < rotj.length; rj++) {
                                 if ((pruneClashes && check(j, rj)) || (prunePairClashes && check(i, ri, j, rj))) {
                                     continue;
                                 }
-                                threeBodyEnergy[i][ri][j][rj] = new double[nResidues][];
                                 for (int k = j + 1; k < nResidues; k++) {
                                     Residue resk = residues[k];
                                     Rotamer rotk[] = resk.getRotamers(library);
-                                    threeBodyEnergy[i][ri][j][rj][k] = new double[rotk.length];
                                     for (int rk = 0; rk < rotk.length; rk++) {
                                         if ((pruneClashes && check(k, rk)) || (prunePairClashes && (check(i, ri, k, rk) || check(j, rj, k, rk)))) {
                                             continue;
@@ -7521,47 +8309,28 @@ public class RotamerOptimization implements Terminatable {
                     }
                 }
                 // fill in triple-energies from file while removing the corresponding jobs from jobMapTrimers
-                for (String line : tripleLines) {
+                for (int n = 0; n < nTriple; n++) {
+                    int i = restart.residue(EnergyRestartFile.Term.TRIPLE, n, 0);
+                    int ri = restart.rotamer(EnergyRestartFile.Term.TRIPLE, n, 0);
+                    int j = restart.residue(EnergyRestartFile.Term.TRIPLE, n, 1);
+                    int rj = restart.rotamer(EnergyRestartFile.Term.TRIPLE, n, 1);
+                    int k = restart.residue(EnergyRestartFile.Term.TRIPLE, n, 2);
+                    int rk = restart.rotamer(EnergyRestartFile.Term.TRIPLE, n, 2);
+                    double energy = restart.energy(EnergyRestartFile.Term.TRIPLE, n);
                     try {
-                        String tok[] = line.replace(",", "").replace(":", "").split("\\s+");
-                        int i;
-                        if (tok[1].contains("-")) {
-                            i = nameToNumber(tok[1], residues);
-                        } else {
-                            i = Integer.parseInt(tok[1]);
-                        }
-                        int ri = Integer.parseInt(tok[2]);
-                        int j;
-                        if (tok[3].contains("-")) {
-                            j = nameToNumber(tok[3], residues);
-                        } else {
-                            j = Integer.parseInt(tok[3]);
-                        }
-                        int rj = Integer.parseInt(tok[4]);
-                        int k;
-                        if (tok[5].contains("-")) {
-                            k = nameToNumber(tok[5], residues);
-                        } else {
-                            k = Integer.parseInt(tok[5]);
-                        }
-                        int rk = Integer.parseInt(tok[6]);
-                        double energy = Double.parseDouble(tok[7]);
-                        try {
-                            threeBodyEnergy[i][ri][j][rj][k][rk] = energy;
-                        } catch (ArrayIndexOutOfBoundsException ex) {
-                            logger.log(Level.SEVERE, String.format("Restart file contained an out-of-bounds index.  Offending line: %s", line), ex);
-                        }
-                        if (verbose) {
-                            logIfMaster(String.format(" From restart file: Trimer energy %3d %-2d, %3d %-2d, %3d %-2d: %16.8f", i, ri, j, rj, k, rk, energy));
-                        }
-                        // remove that job from the pool
-                        String revKey = String.format("%d %d %d %d %d %d", i, ri, j, rj, k, rk);
-                        Integer ret[] = jobMapTrimers.remove(reverseJobMapTrimers.get(revKey));
-                        if (ret == null) {
-                            //logIfMaster(String.format("(sdl %d) Restart file contained unnecessary value for %s", BOXNUM, revKey));
-                        }
-                    } catch (NumberFormatException ex) {
-                        logger.log(Level.WARNING, String.format("Unparsable line in energy restart file: \n%s", line), ex);
+                        threeBodyEnergy.set(i, ri, j, rj, k, rk, energy);
+                    } catch (ArrayIndexOutOfBoundsException ex) {
+                        logger.log(Level.SEVERE, String.format("Restart file contained an out-of-bounds index.  Offending triple: %d %d, %d %d, %d %d", i, ri, j, rj, k, rk), ex);
+                        continue;
+                    }
+                    if (verbose) {
+                        logIfMaster(String.format(" From restart file: Trimer energy %3d %-2d, %3d %-2d, %3d %-2d: %16.8f", i, ri, j, rj, k, rk, energy));
+                    }
+                    // remove that job from the pool
+                    String revKey = String.format("%d %d %d %d %d %d", i, ri, j, rj, k, rk);
+                    Integer ret[] = jobMapTrimers.remove(reverseJobMapTrimers.get(revKey));
+                    if (ret == null) {
+                        //logIfMaster(String.format("(sdl %d) Restart file contained unnecessary value for %s", BOXNUM, revKey));
                     }
                 }
                 logIfMaster(" Loaded trimer energies from restart file.");
@@ -7573,6 +8342,93 @@ public class RotamerOptimization implements Terminatable {
         return 0;
     }
 
+    /**
+     * Parse a text energy restart file into an index of self, pair and triple
+     * energies.
+     *
+     * @param restartFile The text restart file.
+     * @param residues Residues of the (box) optimization.
+     * @param boxIteration Box iteration, or -1.
+     * @param cellIndices Cell indices of the box.
+     * @return The indexed energies, or null if the box was not found.
+     * @throws IOException If the file cannot be read.
+     */
+    private EnergyRestartFile loadTextEnergyRestart(File restartFile, Residue residues[],
+            int boxIteration, int[] cellIndices) throws IOException {
+        Path path = Paths.get(restartFile.getCanonicalPath());
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        List<String> linesThisBox = new ArrayList<>();
+
+        if (usingBoxOptimization && boxIteration >= 0) {
+            boolean foundBox = false;
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.startsWith("Box")) {
+                    String tok[] = line.replaceAll("Box", "").replaceAll(":", ",").replaceAll(" ", "").split(",");
+                    int readIteration = Integer.parseInt(tok[0]);
+                    int readCellIndexX = Integer.parseInt(tok[1]);
+                    int readCellIndexY = Integer.parseInt(tok[2]);
+                    int readCellIndexZ = Integer.parseInt(tok[3]);
+                    if (readIteration == boxIteration
+                            && readCellIndexX == cellIndices[0]
+                            && readCellIndexY == cellIndices[1]
+                            && readCellIndexZ == cellIndices[2]) {
+                        foundBox = true;
+                        for (int j = i + 1; j < lines.size(); j++) {
+                            String l = lines.get(j);
+                            if (l.startsWith("Box")) {
+                                break;
+                            }
+                            linesThisBox.add(l);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (!foundBox) {
+                logIfMaster(String.format(" Didn't find restart energies for Box %d: %d,%d,%d",
+                        boxIteration, cellIndices[0], cellIndices[1], cellIndices[2]));
+                return null;
+            } else if (linesThisBox.size() == 0) {
+                return null;
+            } else {
+                lines = linesThisBox;
+            }
+        }
+
+        EnergyRestartFile restart = new EnergyRestartFile();
+        int index[] = new int[6];
+        for (String line : lines) {
+            EnergyRestartFile.Term term;
+            if (line.startsWith("Self")) {
+                term = EnergyRestartFile.Term.SELF;
+            } else if (line.startsWith("Pair")) {
+                term = EnergyRestartFile.Term.PAIR;
+            } else if (line.startsWith("Triple")) {
+                term = EnergyRestartFile.Term.TRIPLE;
+            } else {
+                continue;
+            }
+            try {
+                String tok[] = line.replace(",", "").replace(":", "").split("\\s+");
+                for (int b = 0; b < term.type; b++) {
+                    String residue = tok[2 * b + 1];
+                    if (residue.contains("-")) {
+                        index[2 * b] = nameToNumber(residue, residues);
+                    } else {
+                        index[2 * b] = Integer.parseInt(residue);
+                    }
+                    index[2 * b + 1] = Integer.parseInt(tok[2 * b + 2]);
+                }
+                double energy = Double.parseDouble(tok[2 * term.type + 1]);
+                restart.add(term, index, energy);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+                logger.log(Level.WARNING, String.format("Unparsable line in energy restart file: \n%s", line), ex);
+            }
+        }
+        return restart;
+    }
+
     /**
      * Writes files that allow restarting from partially-completed call to
      * rotamerEnergies(). Spawned only in a parallel environment and only by the
@@ -7583,11 +8439,17 @@ public class RotamerOptimization implements Terminatable {
         private ReceiveThread receiveThread;
         private File restartFile;
         private BufferedWriter bw;
+        private EnergyRestartFile.Writer binaryWriter;
         private final int writeFrequency = 100;
         private String boxHeader = null;
+        private boolean sectionHeader = true;
+        private final Residue residues[];
+        private int boxIteration = -1;
+        private int cellIndices[] = null;
 
-        public EnergyWriterThread(ReceiveThread receiveThread) {
+        public EnergyWriterThread(ReceiveThread receiveThread, Residue residues[]) {
             this.receiveThread = receiveThread;
+            this.residues = residues;
             if (loadEnergyRestart) {
                 restartFile = energyRestartFile;
             } else {
@@ -7610,16 +8472,14 @@ public class RotamerOptimization implements Terminatable {
 //                }
                 restartFile = restartPath.toFile();
             }
-            try {
-                bw = new BufferedWriter(new FileWriter(restartFile, true));
-            } catch (IOException ex) {
-                logger.log(Level.SEVERE, "Couldn't open energy restart file.", ex);
-            }
-            logger.info(String.format(" Energy restart file: %s", restartFile.getName()));
+            open();
         }
 
-        public EnergyWriterThread(ReceiveThread receiveThread, int iteration, int[] cellIndices) {
+        public EnergyWriterThread(ReceiveThread receiveThread, Residue residues[], int iteration, int[] cellIndices) {
             this.receiveThread = receiveThread;
+            this.residues = residues;
+            this.boxIteration = iteration;
+            this.cellIndices = cellIndices;
             if (loadEnergyRestart) {
                 restartFile = energyRestartFile;
             } else {
@@ -7628,19 +8488,83 @@ public class RotamerOptimization implements Terminatable {
                 Path restartPath = Paths.get(filename + ".restart");
                 restartFile = restartPath.toFile();
             }
+            boxHeader = String.format("Box %d: %d,%d,%d", iteration, cellIndices[0], cellIndices[1], cellIndices[2]);
+            open();
+        }
+
+        /**
+         * Open the restart file for appending, in the format of an existing
+         * file or else the binaryEnergyRestart format.
+         */
+        private void open() {
+            boolean binary = (restartFile.exists() && restartFile.length() > 0)
+                    ? EnergyRestartFile.isBinary(restartFile) : binaryEnergyRestart;
             try {
-                bw = new BufferedWriter(new FileWriter(restartFile, true));
-                boxHeader = String.format("Box %d: %d,%d,%d", iteration, cellIndices[0], cellIndices[1], cellIndices[2]);
+                if (binary) {
+                    binaryWriter = new EnergyRestartFile.Writer(restartFile);
+                } else {
+                    bw = new BufferedWriter(new FileWriter(restartFile, true));
+                }
             } catch (IOException ex) {
                 logger.log(Level.SEVERE, "Couldn't open energy restart file.", ex);
             }
             logger.info(String.format(" Energy restart file: %s", restartFile.getName()));
         }
 
+        private void write(List<double[]> energies) throws IOException {
+            if (binaryWriter != null) {
+                if (sectionHeader) {
+                    String names[] = new String[residues.length];
+                    int nRotamers[] = new int[residues.length];
+                    for (int i = 0; i < residues.length; i++) {
+                        names[i] = residues[i].toString();
+                        nRotamers[i] = residues[i].getRotamers(library).length;
+                    }
+                    binaryWriter.section(boxIteration, cellIndices, names, nRotamers);
+                    sectionHeader = false;
+                }
+                for (double e[] : energies) {
+                    switch (e.length) {
+                        case 3:
+                            binaryWriter.self((int) e[0], (int) e[1], e[2]);
+                            break;
+                        case 5:
+                            binaryWriter.pair((int) e[0], (int) e[1], (int) e[2], (int) e[3], e[4]);
+                            break;
+                        default:
+                            binaryWriter.triple((int) e[0], (int) e[1], (int) e[2], (int) e[3], (int) e[4], (int) e[5], e[6]);
+                    }
+                }
+                binaryWriter.flush();
+                return;
+            }
+            if (boxHeader != null) {
+                bw.append(boxHeader);
+                bw.newLine();
+                bw.flush();
+                boxHeader = null;
+            }
+            for (double e[] : energies) {
+                switch (e.length) {
+                    case 3:
+                        bw.append(String.format("Self %d %d: %16.8f", (int) e[0], (int) e[1], e[2]));
+                        break;
+                    case 5:
+                        bw.append(String.format("Pair %d %d, %d %d: %16.8f", (int) e[0], (int) e[1], (int) e[2], (int) e[3], e[4]));
+                        break;
+                    default:
+                        bw.append(String.format("Triple %d %d, %d %d, %d %d: %16.8f",
+                                (int) e[0], (int) e[1], (int) e[2], (int) e[3], (int) e[4], (int) e[5], e[6]));
+                }
+                bw.newLine();
+            }
+            bw.flush();
+        }
+
         @Override
         public void run() {
             boolean die = false;
-            List<String> writing = new ArrayList<>();
+            List<double[]> writing = new ArrayList<>();
             while (!die) {
                 if (receiveThread.getState() == java.lang.Thread.State.TERMINATED) {
                     die = true;
@@ -7652,17 +8576,9 @@ public class RotamerOptimization implements Terminatable {
                         energiesToWrite.clear();
                     }
                     try {
-                        if (boxHeader != null && !writing.isEmpty()) {
-                            bw.append(boxHeader);
-                            bw.newLine();
-                            bw.flush();
-                            boxHeader = null;
-                        }
-                        for (String line : writing) {
-                            bw.append(line);
-                            bw.newLine();
+                        if (!writing.isEmpty()) {
+                            write(writing);
                         }
-                        bw.flush();
                     } catch (IOException ex) {
                         logger.log(Level.SEVERE, "Exception writing energy restart file.", ex);
                     }
@@ -7670,7 +8586,11 @@ public class RotamerOptimization implements Terminatable {
                 }
             }
             try {
-                bw.close();
+                if (binaryWriter != null) {
+                    binaryWriter.close();
+                } else {
+                    bw.close();
+                }
             } catch (IOException ex) {
                 logger.log(Level.SEVERE, "Exception while closing energy restart file.", ex);
             }
@@ -7687,11 +8607,12 @@ public class RotamerOptimization implements Terminatable {
         private boolean alive = true;
 
         public ReceiveThread(Residue residues[]) {
-            incSelf = new double[3];
+            // Energies arrive in batches of up to ENERGY_BATCH records.
+            incSelf = new double[3 * ENERGY_BATCH];
             incSelfBuf = DoubleBuf.buffer(incSelf);
-            incPair = new double[5];
+            incPair = new double[5 * ENERGY_BATCH];
             incPairBuf = DoubleBuf.buffer(incPair);
-            incTriple = new double[7];
+            incTriple = new double[7 * ENERGY_BATCH];
             incTripleBuf = DoubleBuf.buffer(incTriple);
         }
 
@@ -7726,17 +8647,17 @@ public class RotamerOptimization implements Terminatable {
             while (alive) {
                 try {
                     CommStatus cs = world.receive(null, incSelfBuf);
-                    if (cs.length > 0) {
-                        int resi = (int) incSelf[0];
-                        int roti = (int) incSelf[1];
-                        double energy = incSelf[2];
+                    for (int n = 0; n + 3 <= cs.length; n += 3) {
+                        int resi = (int) incSelf[n];
+                        int roti = (int) incSelf[n + 1];
+                        double energy = incSelf[n + 2];
                         // check for "process finished" announcements
                         if (resi < 0 && roti < 0) {
                             procsDone++;
                         } else {
                             selfEnergy[resi][roti] = energy;
                             if (writeEnergyRestart && printFiles) {
-                                energiesToWrite.add(String.format("Self %d %d: %16.8f", resi, roti, energy));
+                                energiesToWrite.add(Arrays.copyOfRange(incSelf, n, n + 3));
                             }
                         }
                     }
@@ -7772,19 +8693,19 @@ public class RotamerOptimization implements Terminatable {
             while (alive) {
                 try {
                     CommStatus cs = world.receive(null, incPairBuf);
-                    if (cs.length > 0) {
-                        int resi = (int) incPair[0];
-                        int roti = (int) incPair[1];
-                        int resj = (int) incPair[2];
-                        int rotj = (int) incPair[3];
-                        double energy = incPair[4];
+                    for (int n = 0; n + 5 <= cs.length; n += 5) {
+                        int resi = (int) incPair[n];
+                        int roti = (int) incPair[n + 1];
+                        int resj = (int) incPair[n + 2];
+                        int rotj = (int) incPair[n + 3];
+                        double energy = incPair[n + 4];
                         // check for "process finished" announcements
                         if (resi < 0 && roti < 0 && resj < 0 && rotj < 0) {
                             procsDone++;
                         } else {
                             twoBodyEnergy[resi][roti][resj][rotj] = energy;
                             if (writeEnergyRestart && printFiles) {
-                                energiesToWrite.add(String.format("Pair %d %d, %d %d: %16.8f", resi, roti, resj, rotj, energy));
+                                energiesToWrite.add(Arrays.copyOfRange(incPair, n, n + 5));
                             }
                         }
                     }
@@ -7799,7 +8720,7 @@ public class RotamerOptimization implements Terminatable {
             }
 
             if (threeBodyTerm) {
-                // Barrier; wait for everyone to be done pruning and allocating threeBodyEnergy arrays before computing trimers.
+                // Barrier; wait for everyone to be done pruning and resetting threeBodyEnergy before computing trimers.
                 procsDone = 0;
                 while (alive) {
                     readyForNext = false;
@@ -7822,21 +8743,21 @@ public class RotamerOptimization implements Terminatable {
                 while (alive) {
                     try {
                         CommStatus cs = world.receive(null, incTripleBuf);
-                        if (cs.length > 0) {
-                            int resi = (int) incTriple[0];
-                            int roti = (int) incTriple[1];
-                            int resj = (int) incTriple[2];
-                            int rotj = (int) incTriple[3];
-                            int resk = (int) incTriple[4];
-                            int rotk = (int) incTriple[5];
-                            double energy = incTriple[6];
+                        for (int n = 0; n + 7 <= cs.length; n += 7) {
+                            int resi = (int) incTriple[n];
+                            int roti = (int) incTriple[n + 1];
+                            int resj = (int) incTriple[n + 2];
+                            int rotj = (int) incTriple[n + 3];
+                            int resk = (int) incTriple[n + 4];
+                            int rotk = (int) incTriple[n + 5];
+                            double energy = incTriple[n + 6];
                             // check for "process finished" announcements
                             if (resi < 0 && roti < 0 && resj < 0 && rotj < 0 && resk < 0 && rotk < 0) {
                                 procsDone++;
                             } else {
-                                threeBodyEnergy[resi][roti][resj][rotj][resk][rotk] = energy;
+                                threeBodyEnergy.set(resi, roti, resj, rotj, resk, rotk, energy);
                                 if (writeEnergyRestart && printFiles) {
-                                    energiesToWrite.add(String.format("Triple %d %d, %d %d, %d %d: %16.8f", resi, roti, resj, rotj, resk, rotk, energy));
+                                    energiesToWrite.add(Arrays.copyOfRange(incTriple, n, n + 7));
                                 }
                             }
                         }
@@ -8126,6 +9047,8 @@ public class RotamerOptimization implements Terminatable {
         private final boolean useOrigCoordsRot = library.getUsingOrigCoordsRotamer();
         //private double originalAtomicCoordinates[][][];
 
+        private final EnergyBatch selfBatch = new EnergyBatch(3);
+
         public SinglesEnergyRegion(int nt, Residue residues[]) {
             energyLoop = new SinglesEnergyLoop();
             this.residues = residues;
@@ -8170,19 +9093,14 @@ public class RotamerOptimization implements Terminatable {
 //                    maxJobKey = (jobKeysArray[i] > maxJobKey) ? jobKeysArray[i] : maxJobKey;
 //                }
 //                execute(0, maxJobKey, energyLoop);
-                execute(jobMapSingles.keySet().iterator(), energyLoop);
+                execute(new JobChunks(jobMapSingles.keySet()), energyLoop);
             }
         }
 
         @Override
         public void finish() {
-            // broadcast the "I'm finished" signal
-            double finished[] = new double[3];
-            for (int x = 0; x < finished.length; x++) {
-                finished[x] = -1.0;
-            }
-            DoubleBuf finishedBuf = DoubleBuf.buffer(finished);
-            multicastBuf(finishedBuf);
+            // broadcast any remaining energies and the "I'm finished" signal
+            selfBatch.finish();
 
             // wait for everyone else to send in their self energies
             int waiting = 0;
@@ -8213,13 +9131,13 @@ public class RotamerOptimization implements Terminatable {
             }
         }
 
-        private class SinglesEnergyLoop extends WorkerIteration<Integer> {
+        private class SinglesEnergyLoop extends WorkerIteration<int[]> {
 
             @Override
-            public void run(Integer key) {
+            public void run(int chunk[]) {
                 // Compute the self-energy for each rotamer
                 // Rotamer-level job indexing method
-                for (int jobKey = key; jobKey <= key; jobKey++) {
+                for (int jobKey : chunk) {
                     if (!jobMapSingles.keySet().contains(jobKey)) {
                         //logger.warning(String.format("(sbox %d) Unexpected: singles jobKey not contained in map (key = %d).", BOXNUM, jobKey));
                         //logger.warning(String.format("Unexpected: singles jobKey not contained in map (key = %d).", jobKey));
@@ -8256,13 +9174,7 @@ public class RotamerOptimization implements Terminatable {
                         selfEnergy = currentEnergy(rList) - backboneEnergy;
                     }
 
-                    double anEnergy[] = new double[3];
-                    anEnergy[0] = i;
-                    anEnergy[1] = ri;
-                    anEnergy[2] = selfEnergy;
-                    DoubleBuf anEnergyBuf = DoubleBuf.buffer(anEnergy);
-
-                    multicastBuf(anEnergyBuf);
+                    selfBatch.add(i, ri, selfEnergy);
                     logger.info(String.format(" Self %7s %-2d: %16.8f", resi, ri, selfEnergy));
                     if (resi.getResidueType() == NA) {
                         //revertSingleResidueCoordinates(resi, resiOriginalCoordinates);
@@ -8275,6 +9187,7 @@ public class RotamerOptimization implements Terminatable {
                         algorithmListener.algorithmUpdate(molecularAssembly);
                     }
                 }
+                selfBatch.flush();
             }
         }
     }
@@ -8289,6 +9202,84 @@ public class RotamerOptimization implements Terminatable {
         }
     }
 
+    /**
+     * Hands out energy jobs to the worker team in chunks that shrink as the
+     * remaining work decreases (guided self-scheduling). Large chunks early
+     * amortize the master/worker round trip, while small chunks at the end
+     * keep processes from waiting on a slow final job.
+     */
+    private class JobChunks implements Iterator<int[]> {
+
+        private final int keys[];
+        private final int nWorkers;
+        private int next = 0;
+
+        public JobChunks(Set<Integer> jobKeys) {
+            keys = new int[jobKeys.size()];
+            int n = 0;
+            for (Integer key : jobKeys) {
+                keys[n++] = key;
+            }
+            nWorkers = energyWorkerTeam.getTotalThreadCount();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @Override
+        public int[] next() {
+            int remaining = keys.length - next;
+            int size = Math.max(1, Math.min(MAX_JOB_CHUNK, remaining / (2 * nWorkers)));
+            int chunk[] = Arrays.copyOfRange(keys, next, next + size);
+            next += size;
+            return chunk;
+        }
+    }
+
+    /**
+     * Collects the energies computed by the threads of this process and
+     * multicasts them in batches of up to ENERGY_BATCH records, rather than
+     * as one message per energy. Each record holds residue and rotamer
+     * indices followed by the energy.
+     */
+    private class EnergyBatch {
+
+        private final int width;
+        private final double batch[];
+        private int size = 0;
+
+        public EnergyBatch(int width) {
+            this.width = width;
+            batch = new double[width * ENERGY_BATCH];
+        }
+
+        public synchronized void add(double... record) {
+            System.arraycopy(record, 0, batch, size * width, width);
+            if (++size == ENERGY_BATCH) {
+                flush();
+            }
+        }
+
+        public synchronized void flush() {
+            if (size > 0) {
+                multicastBuf(DoubleBuf.sliceBuffer(batch, new Range(0, size * width - 1)));
+                size = 0;
+            }
+        }
+
+        /**
+         * Flush the batch and send the "I'm finished" record (all -1).
+         */
+        public synchronized void finish() {
+            flush();
+            double finished[] = new double[width];
+            fill(finished, -1.0);
+            multicastBuf(DoubleBuf.buffer(finished));
+        }
+    }
+
     private class PairsEnergyRegion extends WorkerRegion {
 
         private final PairsEnergyLoop energyLoop;
@@ -8297,6 +9288,8 @@ public class RotamerOptimization implements Terminatable {
         private final boolean useOrigCoordsRot = library.getUsingOrigCoordsRotamer();
         //private double originalAtomicCoordinates[][][];
 
+        private final EnergyBatch pairBatch = new EnergyBatch(5);
+
         public PairsEnergyRegion(int nt, Residue residues[]) {
             energyLoop = new PairsEnergyLoop();
             this.residues = residues;
@@ -8306,19 +9299,14 @@ public class RotamerOptimization implements Terminatable {
         @Override
         public void run() throws Exception {
             if (!jobMapPairs.isEmpty()) {
-                execute(jobMapPairs.keySet().iterator(), energyLoop);
+                execute(new JobChunks(jobMapPairs.keySet()), energyLoop);
             }
         }
 
         @Override
         public void finish() {
-            // broadcast the "I'm finished" signal
-            double finished[] = new double[5];
-            for (int x = 0; x < finished.length; x++) {
-                finished[x] = -1.0;
-            }
-            DoubleBuf finishedBuf = DoubleBuf.buffer(finished);
-            multicastBuf(finishedBuf);
+            // broadcast any remaining energies and the "I'm finished" signal
+            pairBatch.finish();
 
             // wait for everyone else to send in their pair energies
             int waiting = 0;
@@ -8362,13 +9350,13 @@ public class RotamerOptimization implements Terminatable {
             }
         }
 
-        private class PairsEnergyLoop extends WorkerIteration<Integer> {
+        private class PairsEnergyLoop extends WorkerIteration<int[]> {
 
             @Override
-            public void run(Integer key) {
+            public void run(int chunk[]) {
                 // Compute the pair-energy for each pair of rotamers
                 // Pair-level job indexing method
-                for (int jobKey = key; jobKey <= key; jobKey++) {
+                for (int jobKey : chunk) {
                     if (!jobMapPairs.keySet().contains(jobKey)) {
                         //logger.warning(String.format("(sbox %d) Unexpected: pairs jobKey not contained in map (key = %d).", BOXNUM, jobKey));
                         //logger.warning(String.format("Unexpected: pairs jobKey not contained in map (key = %d).", jobKey));
@@ -8430,15 +9418,8 @@ public class RotamerOptimization implements Terminatable {
                         logger.info(String.format(" Pair %7s %-2d, %7s %-2d: %16.8f", resi, ri, resj, rj, twoBodyEnergy));
                     }
 
-                    // get energy and broadcast it
-                    double commEnergy[] = new double[5];
-                    commEnergy[0] = i;
-                    commEnergy[1] = ri;
-                    commEnergy[2] = j;
-                    commEnergy[3] = rj;
-                    commEnergy[4] = twoBodyEnergy;
-                    DoubleBuf commEnergyBuf = DoubleBuf.buffer(commEnergy);
-                    multicastBuf(commEnergyBuf);
+                    // broadcast the energy with the next batch
+                    pairBatch.add(i, ri, j, rj, twoBodyEnergy);
 
                     // move back, turn off
                     if (resi.getResidueType() == NA) {
@@ -8459,6 +9440,7 @@ public class RotamerOptimization implements Terminatable {
                         algorithmListener.algorithmUpdate(molecularAssembly);
                     }
                 }
+                pairBatch.flush();
             }
         }
     }
@@ -8472,6 +9454,8 @@ public class RotamerOptimization implements Terminatable {
         //private double originalAtomicCoordinates[][][];
         private double localDistanceMatrix[][][][];
 
+        private final EnergyBatch tripleBatch = new EnergyBatch(7);
+
         public TriplesEnergyRegion(int nt, Residue residues[]) {
             energyLoop = new TriplesEnergyLoop();
             this.residues = residues;
@@ -8491,19 +9475,14 @@ public class RotamerOptimization implements Terminatable {
         @Override
         public void run() throws Exception {
             if (!jobMapTrimers.isEmpty()) {
-                execute(jobMapTrimers.keySet().iterator(), energyLoop);
+                execute(new JobChunks(jobMapTrimers.keySet()), energyLoop);
             }
         }
 
         @Override
         public void finish() {
-            // broadcast the "I'm finished" signal
-            double finished[] = new double[7];
-            for (int x = 0; x < finished.length; x++) {
-                finished[x] = -1.0;
-            }
-            DoubleBuf finishedBuf = DoubleBuf.buffer(finished);
-            multicastBuf(finishedBuf);
+            // broadcast any remaining energies and the "I'm finished" signal
+            tripleBatch.finish();
 
             // wait for everyone else to send in their trimer energies
             int waiting = 0;
@@ -8552,12 +9531,12 @@ public class RotamerOptimization implements Terminatable {
             }
         }
 
-        private class TriplesEnergyLoop extends WorkerIteration<Integer> {
+        private class TriplesEnergyLoop extends WorkerIteration<int[]> {
 
             @Override
-            public void run(Integer key) {
+            public void run(int chunk[]) {
                 // Trimer-level job indexing method
-                for (int jobKey = key; jobKey <= key; jobKey++) {
+                for (int jobKey : chunk) {
                     if (!jobMapTrimers.keySet().contains(jobKey)) {
                         //logger.warning(String.format("(sbox %d) Unexpected: trimers jobKey not contained in map (key = %d).", BOXNUM, jobKey));
                         //logger.warning(String.format("Unexpected: trimers jobKey not contained in map (key = %d).", jobKey));
@@ -8666,16 +9645,7 @@ public class RotamerOptimization implements Terminatable {
                             turnOffAtoms(resj);
                             turnOffAtoms(resk);
                         }
-                        double commEnergy[] = new double[7];
-                        commEnergy[0] = i;
-                        commEnergy[1] = ri;
-                        commEnergy[2] = j;
-                        commEnergy[3] = rj;
-                        commEnergy[4] = k;
-                        commEnergy[5] = rk;
-                        commEnergy[6] = threeBodyEnergy;
-                        DoubleBuf commEnergyBuf = DoubleBuf.buffer(commEnergy);
-                        multicastBuf(commEnergyBuf);
+                        tripleBatch.add(i, ri, j, rj, k, rk, threeBodyEnergy);
                         if (algorithmListener != null) {
                             algorithmListener.algorithmUpdate(molecularAssembly);
                         }
@@ -8684,6 +9654,7 @@ public class RotamerOptimization implements Terminatable {
                                 resi, ri, resj, rj, resk, rk, 0.0, threeBodyCutoffDist));
                     }
                 }
+                tripleBatch.flush();
             }
         }
     }
@@ -8716,7 +9687,7 @@ public class RotamerOptimization implements Terminatable {
         @Override
         public void run() throws Exception {
             if (!jobMapQuads.isEmpty()) {
-                execute(jobMapQuads.keySet().iterator(), energyLoop);
+                execute(new JobChunks(jobMapQuads.keySet()), energyLoop);
             }
         }
 
@@ -8725,12 +9696,12 @@ public class RotamerOptimization implements Terminatable {
             // no "I'm finished" signal for quads
         }
 
-        private class QuadsEnergyLoop extends WorkerIteration<Integer> {
+        private class QuadsEnergyLoop extends WorkerIteration<int[]> {
 
             @Override
-            public void run(Integer key) {
+            public void run(int chunk[]) {
                 // Quad-level job indexing method
-                for (int jobKey = key; jobKey <= key; jobKey++) {
+                for (int jobKey : chunk) {
                     if (!jobMapQuads.keySet().contains(jobKey)) {
                         continue;
                     }
@@ -0,0 +1,351 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.algorithms;
+
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+
+import ffx.crystal.Crystal;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.parsers.DYNFilter;
+import ffx.potential.parsers.PDBFilter;
+import ffx.potential.parsers.TRJFilter;
+import ffx.potential.parsers.XYZFilter;
+
+/**
+ * The SnapshotWriter formats and writes molecular dynamics snapshots and
+ * restart files on a background thread.
+ *
+ * At each save step the integration thread copies coordinates and unit cell
+ * parameters (and for restart files velocities and accelerations) into a
+ * pooled buffer and hands it to the
+ * writer through a bounded queue. If all buffers are in flight, the
+ * integration thread blocks until the writer catches up, which bounds the
+ * memory used by the pipeline. Restart files are written through
+ * {@link DYNFilter#writeDYN}, which replaces the restart file atomically.
+ *
+ * @author Michael J. Schnieders
+ *
+ * @since 1.0
+ */
+class SnapshotWriter extends Thread {
+
+    private static final Logger logger = Logger.getLogger(SnapshotWriter.class.getName());
+
+    /**
+     * Kinds of output handled by the writer.
+     */
+    private enum SnapshotType {
+        ARCHIVE, PDB, TRAJECTORY, RESTART, STOP
+    }
+
+    /**
+     * Buffers that are free to be filled by the integration thread.
+     */
+    private final BlockingQueue<Snapshot> free;
+    /**
+     * Buffers waiting to be written.
+     */
+    private final BlockingQueue<Snapshot> pending;
+    /**
+     * Marker used to shut down the writer.
+     */
+    private final Snapshot stop = new Snapshot();
+
+    /**
+     * Create a SnapshotWriter.
+     *
+     * @param queueSize the number of pooled buffers (at least 1).
+     */
+    SnapshotWriter(int queueSize) {
+        super("SnapshotWriter");
+        if (queueSize < 1) {
+            queueSize = 1;
+        }
+        free = new ArrayBlockingQueue<>(queueSize);
+        pending = new ArrayBlockingQueue<>(queueSize + 1);
+        for (int i = 0; i < queueSize; i++) {
+            free.add(new Snapshot());
+        }
+        stop.type = SnapshotType.STOP;
+        setDaemon(true);
+    }
+
+    /**
+     * Queue an archive snapshot appended by an XYZFilter. The file and name of
+     * the MolecularAssembly are updated here, on the integration thread, since
+     * the background write leaves them unchanged.
+     *
+     * @param xyzFilter the filter that formats the snapshot.
+     * @param archiveFile the archive file to append to.
+     * @return true if the snapshot was queued.
+     */
+    boolean writeArchive(XYZFilter xyzFilter, File archiveFile) {
+        Snapshot snapshot = take();
+        if (snapshot == null) {
+            return false;
+        }
+        snapshot.type = SnapshotType.ARCHIVE;
+        snapshot.file = archiveFile;
+        snapshot.xyzFilter = xyzFilter;
+        snapshot.x = xyzFilter.getCoordinateSnapshot(snapshot.x);
+        MolecularAssembly molecularAssembly = xyzFilter.getActiveMolecularSystem();
+        molecularAssembly.setFile(archiveFile);
+        molecularAssembly.setName(archiveFile.getName());
+        return put(snapshot);
+    }
+
+    /**
+     * Queue a PDB snapshot written by a PDBFilter.
+     *
+     * @param pdbFilter the filter that formats the snapshot.
+     * @param pdbFile the PDB file to write.
+     * @return true if the snapshot was queued.
+     */
+    boolean writePDB(PDBFilter pdbFilter, File pdbFile) {
+        Snapshot snapshot = take();
+        if (snapshot == null) {
+            return false;
+        }
+        snapshot.type = SnapshotType.PDB;
+        snapshot.file = pdbFile;
+        snapshot.pdbFilter = pdbFilter;
+        snapshot.x = pdbFilter.getCoordinateSnapshot(snapshot.x);
+        snapshot.cell = pdbFilter.getUnitCellSnapshot(snapshot.cell);
+        return put(snapshot);
+    }
+
+    /**
+     * Queue a binary trajectory frame appended by a TRJFilter.
+     *
+     * @param trjFilter the filter that encodes the frame.
+     * @param trjFile the trajectory file to append to.
+     * @return true if the frame was queued.
+     */
+    boolean writeTrajectory(TRJFilter trjFilter, File trjFile) {
+        Snapshot snapshot = take();
+        if (snapshot == null) {
+            return false;
+        }
+        snapshot.type = SnapshotType.TRAJECTORY;
+        snapshot.file = trjFile;
+        snapshot.trjFilter = trjFilter;
+        snapshot.lambda = trjFilter.getLambda();
+        snapshot.x = trjFilter.getCoordinateSnapshot(snapshot.x);
+        snapshot.cell = trjFilter.getUnitCellSnapshot(snapshot.cell);
+        return put(snapshot);
+    }
+
+    /**
+     * Queue a dynamics restart file.
+     *
+     * @param dynFilter the filter that formats the restart file.
+     * @param restartFile the restart file.
+     * @param crystal the unit cell.
+     * @param n the number of variables.
+     * @param x the coordinates.
+     * @param v the velocities.
+     * @param a the accelerations.
+     * @param aPrevious the previous accelerations.
+     * @return true if the restart file was queued.
+     */
+    boolean writeRestart(DYNFilter dynFilter, File restartFile, Crystal crystal,
+            int n, double[] x, double[] v, double[] a, double[] aPrevious) {
+        Snapshot snapshot = take();
+        if (snapshot == null) {
+            return false;
+        }
+        snapshot.type = SnapshotType.RESTART;
+        snapshot.file = restartFile;
+        snapshot.dynFilter = dynFilter;
+        if (snapshot.cell == null) {
+            snapshot.cell = new double[6];
+        }
+        snapshot.cell[0] = crystal.a;
+        snapshot.cell[1] = crystal.b;
+        snapshot.cell[2] = crystal.c;
+        snapshot.cell[3] = crystal.alpha;
+        snapshot.cell[4] = crystal.beta;
+        snapshot.cell[5] = crystal.gamma;
+        snapshot.x = copy(x, snapshot.x, n);
+        snapshot.v = copy(v, snapshot.v, n);
+        snapshot.a = copy(a, snapshot.a, n);
+        snapshot.aPrevious = copy(aPrevious, snapshot.aPrevious, n);
+        return put(snapshot);
+    }
+
+    /**
+     * Write all queued snapshots and stop the writer thread. Blocks until the
+     * last file has been written.
+     */
+    void finish() {
+        try {
+            pending.put(stop);
+            join();
+        } catch (InterruptedException e) {
+            logger.log(Level.WARNING, " Interrupted waiting for snapshots to be written.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        while (true) {
+            Snapshot snapshot;
+            try {
+                snapshot = pending.take();
+            } catch (InterruptedException e) {
+                logger.log(Level.WARNING, " Snapshot writer interrupted.", e);
+                return;
+            }
+            if (snapshot == stop) {
+                return;
+            }
+            try {
+                write(snapshot);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, format(" Exception writing %s.", snapshot.file), e);
+            }
+            snapshot.xyzFilter = null;
+            snapshot.pdbFilter = null;
+            snapshot.trjFilter = null;
+            snapshot.dynFilter = null;
+            free.add(snapshot);
+        }
+    }
+
+    private void write(Snapshot snapshot) {
+        File file = snapshot.file;
+        switch (snapshot.type) {
+            case ARCHIVE:
+                if (snapshot.xyzFilter.writeFile(file, true, snapshot.x)) {
+                    logger.info(format(" Appended snap shot to %s", file.getName()));
+                } else {
+                    logger.warning(format(" Appending snap shot to %s failed", file.getName()));
+                }
+                break;
+            case PDB:
+                if (snapshot.pdbFilter.writeFile(file, false, snapshot.x, snapshot.cell)) {
+                    logger.info(format(" Wrote PDB file to %s", file.getName()));
+                } else {
+                    logger.warning(format(" Writing PDB file to %s failed.", file.getName()));
+                }
+                break;
+            case TRAJECTORY:
+                if (!snapshot.trjFilter.writeFile(file, true, snapshot.x, snapshot.lambda, snapshot.cell)) {
+                    logger.warning(format(" Appending frame to %s failed", file.getName()));
+                }
+                break;
+            case RESTART:
+                if (snapshot.dynFilter.writeDYN(file, snapshot.cell,
+                        snapshot.x, snapshot.v, snapshot.a, snapshot.aPrevious)) {
+                    logger.info(format(" Wrote dynamics restart file to %s", file.getName()));
+                } else {
+                    logger.info(format(" Writing dynamics restart file to %s failed", file.getName()));
+                }
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Take a free buffer, blocking until the writer releases one.
+     */
+    private Snapshot take() {
+        if (!isAlive()) {
+            logger.warning(" The snapshot writer is not running.");
+            return null;
+        }
+        try {
+            return free.take();
+        } catch (InterruptedException e) {
+            logger.log(Level.WARNING, " Interrupted waiting for a snapshot buffer.", e);
+            return null;
+        }
+    }
+
+    private boolean put(Snapshot snapshot) {
+        try {
+            pending.put(snapshot);
+            return true;
+        } catch (InterruptedException e) {
+            logger.log(Level.WARNING, " Interrupted queueing a snapshot.", e);
+            free.add(snapshot);
+            return false;
+        }
+    }
+
+    /**
+     * Copy the first n entries of source into a buffer, reallocating only if
+     * the buffer is too small. The buffer length must equal n for the restart
+     * writer, which infers the number of atoms from it.
+     */
+    private static double[] copy(double[] source, double[] buffer, int n) {
+        if (buffer == null || buffer.length != n) {
+            buffer = new double[n];
+        }
+        System.arraycopy(source, 0, buffer, 0, n);
+        return buffer;
+    }
+
+    /**
+     * A pooled buffer holding one pending snapshot.
+     */
+    private static class Snapshot {
+
+        SnapshotType type;
+        File file;
+        XYZFilter xyzFilter;
+        PDBFilter pdbFilter;
+        TRJFilter trjFilter;
+        double lambda;
+        DYNFilter dynFilter;
+        double[] cell;
+        double[] x;
+        double[] v;
+        double[] a;
+        double[] aPrevious;
+    }
+}
@@ -0,0 +1,354 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.algorithms;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * The ThreeBodyEnergyTable stores rotamer three-body energies and eliminated
+ * rotamer triples in blocks, one per residue triple, that are allocated only
+ * when a triple is first given an energy (or eliminated). Triples beyond the
+ * three-body cutoff are never computed, so they neither allocate memory nor
+ * differ from the implicit zero energy.
+ *
+ * Each energy block holds the nRi * nRj * nRk energies of its residue triple,
+ * addressed by a packed rotamer index, and is placed in a large segment that
+ * is backed by the Java heap, direct (off-heap) memory or a memory-mapped
+ * file. Eliminated triples are stored as bits on the heap.
+ *
+ * Residue indices must satisfy i &lt; j &lt; k.
+ *
+ * @author Michael J. Schnieders
+ *
+ * @since 1.0
+ */
+class ThreeBodyEnergyTable {
+
+    private static final Logger logger = Logger.getLogger(ThreeBodyEnergyTable.class.getName());
+
+    /**
+     * Backing memory for energy blocks.
+     */
+    public enum Storage {
+        HEAP, DIRECT, MAPPED
+    }
+
+    /**
+     * Segments grow with the number of energies stored, from 512 KB to at
+     * most 128 MB (unless a single block is larger).
+     */
+    private static final int MIN_SEGMENT_SIZE = 1 << 16;
+    private static final int MAX_SEGMENT_SIZE = 1 << 24;
+    private final int nResidues;
+    private final int nRotamers[];
+    private final Storage storage;
+    /**
+     * Block index of each residue triple [i][j][k], or -1 if unallocated. The
+     * list for residues i and j is allocated with the first of their triples.
+     */
+    private final int blockIndex[][][];
+    /**
+     * Segment and offset of the energies of each block (-1 if the block only
+     * holds eliminated triples), and its eliminated triple bits.
+     */
+    private int blockSegment[] = new int[1024];
+    private int blockOffset[] = new int[1024];
+    private long eliminated[][] = new long[1024][];
+    private int nBlocks = 0;
+    private long nEntries = 0;
+    private long nEliminatedEntries = 0;
+    private final List<DoubleBuffer> segments = new ArrayList<>();
+    private int segmentFill = 0;
+    private File mappedFile = null;
+    private RandomAccessFile mappedAccess = null;
+
+    /**
+     * Constructor.
+     *
+     * @param nRotamers Number of rotamers of each residue.
+     * @param storage Backing memory for energy blocks.
+     */
+    ThreeBodyEnergyTable(int nRotamers[], Storage storage) {
+        this.nRotamers = Arrays.copyOf(nRotamers, nRotamers.length);
+        this.storage = storage;
+        nResidues = nRotamers.length;
+        blockIndex = new int[nResidues][][];
+        for (int i = 0; i < nResidues; i++) {
+            blockIndex[i] = new int[nResidues][];
+        }
+    }
+
+    /**
+     * Get the three-body energy of a rotamer triple (zero if it has not been
+     * set).
+     *
+     * @param i Residue i.
+     * @param ri Rotamer ri.
+     * @param j Residue j (i &lt; j).
+     * @param rj Rotamer rj.
+     * @param k Residue k (j &lt; k).
+     * @param rk Rotamer rk.
+     * @return The three-body energy.
+     */
+    double get(int i, int ri, int j, int rj, int k, int rk) {
+        int block = findBlock(i, j, k);
+        if (block < 0 || blockSegment[block] < 0) {
+            return 0.0;
+        }
+        return segments.get(blockSegment[block]).get(blockOffset[block] + index(ri, j, rj, k, rk));
+    }
+
+    /**
+     * Set the three-body energy of a rotamer triple, allocating the block of
+     * its residue triple if necessary.
+     *
+     * @param i Residue i.
+     * @param ri Rotamer ri.
+     * @param j Residue j (i &lt; j).
+     * @param rj Rotamer rj.
+     * @param k Residue k (j &lt; k).
+     * @param rk Rotamer rk.
+     * @param energy The three-body energy.
+     */
+    synchronized void set(int i, int ri, int j, int rj, int k, int rk, double energy) {
+        int block = allocateBlock(i, j, k);
+        if (blockSegment[block] < 0) {
+            allocateEnergies(block, nRotamers[i] * nRotamers[j] * nRotamers[k]);
+        }
+        segments.get(blockSegment[block]).put(blockOffset[block] + index(ri, j, rj, k, rk), energy);
+    }
+
+    /**
+     * Check if a rotamer triple has been eliminated.
+     *
+     * @param i Residue i.
+     * @param ri Rotamer ri.
+     * @param j Residue j (i &lt; j).
+     * @param rj Rotamer rj.
+     * @param k Residue k (j &lt; k).
+     * @param rk Rotamer rk.
+     * @return true if the triple has been eliminated.
+     */
+    boolean isEliminated(int i, int ri, int j, int rj, int k, int rk) {
+        int block = findBlock(i, j, k);
+        if (block < 0 || eliminated[block] == null) {
+            return false;
+        }
+        int bit = index(ri, j, rj, k, rk);
+        return (eliminated[block][bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Eliminate a rotamer triple.
+     *
+     * @param i Residue i.
+     * @param ri Rotamer ri.
+     * @param j Residue j (i &lt; j).
+     * @param rj Rotamer rj.
+     * @param k Residue k (j &lt; k).
+     * @param rk Rotamer rk.
+     */
+    synchronized void eliminate(int i, int ri, int j, int rj, int k, int rk) {
+        int block = allocateBlock(i, j, k);
+        if (eliminated[block] == null) {
+            int size = nRotamers[i] * nRotamers[j] * nRotamers[k];
+            eliminated[block] = new long[(size + 63) >>> 6];
+            nEliminatedEntries += size;
+        }
+        int bit = index(ri, j, rj, k, rk);
+        eliminated[block][bit >>> 6] |= (1L << bit);
+    }
+
+    /**
+     * Bytes used by energy blocks, eliminated triple bits and block indices.
+     *
+     * @return the memory in use (bytes).
+     */
+    long memoryUsage() {
+        long bytes = 0;
+        for (DoubleBuffer segment : segments) {
+            bytes += 8L * segment.capacity();
+        }
+        bytes += nEliminatedEntries / 8 + 12L * blockSegment.length;
+        for (int i = 0; i < nResidues; i++) {
+            for (int list[] : blockIndex[i]) {
+                if (list != null) {
+                    bytes += 4L * list.length;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Bytes that fully allocated double energy and boolean elimination arrays
+     * for every rotamer triple would require.
+     *
+     * @return the dense memory requirement (bytes).
+     */
+    long denseMemoryUsage() {
+        long triples = 0;
+        for (int i = 0; i < nResidues; i++) {
+            for (int j = i + 1; j < nResidues; j++) {
+                for (int k = j + 1; k < nResidues; k++) {
+                    triples += (long) nRotamers[i] * nRotamers[j] * nRotamers[k];
+                }
+            }
+        }
+        return 9 * triples;
+    }
+
+    /**
+     * Release the energy blocks and delete the memory-mapped file, if any.
+     */
+    void destroy() {
+        segments.clear();
+        if (mappedAccess != null) {
+            try {
+                mappedAccess.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, " Exception closing the three-body energy file.", e);
+            }
+            mappedAccess = null;
+            if (!mappedFile.delete()) {
+                mappedFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Summarize the number of blocks, entries and the memory in use.
+     *
+     * @return a memory usage report.
+     */
+    @Override
+    public String toString() {
+        return format(" Three-body energies (%s): %d residue triples, %d energies, %.2f MB (%.2f MB dense).",
+                storage, nBlocks, nEntries, memoryUsage() / 1.0e6, denseMemoryUsage() / 1.0e6);
+    }
+
+    private int index(int ri, int j, int rj, int k, int rk) {
+        return (ri * nRotamers[j] + rj) * nRotamers[k] + rk;
+    }
+
+    private int findBlock(int i, int j, int k) {
+        int list[] = blockIndex[i][j];
+        if (list == null) {
+            return -1;
+        }
+        return list[k];
+    }
+
+    private int allocateBlock(int i, int j, int k) {
+        if (blockIndex[i][j] == null) {
+            int list[] = new int[nResidues];
+            Arrays.fill(list, -1);
+            blockIndex[i][j] = list;
+        }
+        int block = blockIndex[i][j][k];
+        if (block >= 0) {
+            return block;
+        }
+        if (nBlocks == blockSegment.length) {
+            int size = 2 * nBlocks;
+            blockSegment = Arrays.copyOf(blockSegment, size);
+            blockOffset = Arrays.copyOf(blockOffset, size);
+            eliminated = Arrays.copyOf(eliminated, size);
+        }
+        block = nBlocks++;
+        blockSegment[block] = -1;
+        blockOffset[block] = -1;
+        eliminated[block] = null;
+        blockIndex[i][j][k] = block;
+        return block;
+    }
+
+    /**
+     * Place the energies of a block in the current segment, starting a new
+     * segment if they do not fit.
+     */
+    private void allocateEnergies(int block, int size) {
+        if (segments.isEmpty() || segmentFill + size > segments.get(segments.size() - 1).capacity()) {
+            long grow = Math.max(MIN_SEGMENT_SIZE, Math.min(MAX_SEGMENT_SIZE, nEntries));
+            segments.add(allocateSegment(Math.max((int) grow, size)));
+            segmentFill = 0;
+        }
+        blockSegment[block] = segments.size() - 1;
+        blockOffset[block] = segmentFill;
+        segmentFill += size;
+        nEntries += size;
+    }
+
+    private DoubleBuffer allocateSegment(int size) {
+        switch (storage) {
+            case DIRECT:
+                return ByteBuffer.allocateDirect(size * 8).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+            case MAPPED:
+                try {
+                    if (mappedAccess == null) {
+                        mappedFile = File.createTempFile("ffx-three-body", ".bin");
+                        mappedFile.deleteOnExit();
+                        mappedAccess = new RandomAccessFile(mappedFile, "rw");
+                    }
+                    FileChannel channel = mappedAccess.getChannel();
+                    long position = channel.size();
+                    return channel.map(FileChannel.MapMode.READ_WRITE, position, size * 8L)
+                            .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, " Exception mapping three-body energies to a file; using the heap.", e);
+                    return DoubleBuffer.wrap(new double[size]);
+                }
+            case HEAP:
+            default:
+                return DoubleBuffer.wrap(new double[size]);
+        }
+    }
+}
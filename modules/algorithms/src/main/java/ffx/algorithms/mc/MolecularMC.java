@@ -39,7 +39,9 @@ package ffx.algorithms.mc;
 
 import ffx.numerics.Potential;
 import ffx.potential.AssemblyState;
+import ffx.potential.ForceFieldEnergy;
 import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Atom;
 import java.util.logging.Logger;
 
 /**
@@ -59,6 +61,12 @@ public class MolecularMC extends BoltzmannMC {
     private final Potential potential;
     private double[] x;
     private AssemblyState initialState;
+    /**
+     * Atoms moved by each step; if set, trial energies are computed from the
+     * change in the terms that involve them.
+     */
+    private Atom[] movedAtoms = null;
+    private boolean localStep = false;
 
     /**
      * Constructs a DefaultMC instance with a molecular assembly and its 
@@ -97,6 +105,20 @@ public class MolecularMC extends BoltzmannMC {
         return potential;
     }
     
+    /**
+     * Set the atoms moved by each step, which must include every atom moved
+     * by the MCMoves passed to mcStep. When the Potential is a
+     * ForceFieldEnergy whose active terms support local energies, the trial
+     * energy is the initial energy plus the energy change of the terms that
+     * involve these atoms, rather than a full evaluation.
+     *
+     * @param movedAtoms Atoms moved by each step, or null to always use full
+     * energies.
+     */
+    public void setMovedAtoms(Atom[] movedAtoms) {
+        this.movedAtoms = movedAtoms;
+    }
+
     @Override
     public void revertStep() {
         initialState.revertState();
@@ -111,6 +133,15 @@ public class MolecularMC extends BoltzmannMC {
      */
     @Override
     protected double currentEnergy() {
+        if (localStep) {
+            localStep = false;
+            try {
+                return getE1() + ((ForceFieldEnergy) potential).energyChange();
+            } catch (ArithmeticException ex) {
+                logger.warning(ex.getMessage());
+                return 1e100;
+            }
+        }
         if (x == null) {
             int nVar = potential.getNumberOfVariables();
             x = new double[nVar * 3];
@@ -136,5 +167,13 @@ public class MolecularMC extends BoltzmannMC {
     @Override
     protected void storeState() {
         initialState = new AssemblyState(mola);
+        localStep = false;
+        if (movedAtoms != null && potential instanceof ForceFieldEnergy) {
+            ForceFieldEnergy forceFieldEnergy = (ForceFieldEnergy) potential;
+            if (forceFieldEnergy.localEnergyAvailable()) {
+                forceFieldEnergy.startEnergyChange(movedAtoms);
+                localStep = true;
+            }
+        }
     }
 }
@@ -172,29 +172,30 @@ public class RosenbluthOBMC implements MonteCarloListener {
         MCMove proposal = calculateRosenbluthFactors(target, chi0, 
                 origState, oldTrialSet, origState, newTrialSet);
         
-        /* Calculate the independent portion of the total old-conf energy.
-            Then apply the move and calculate the independent total new-conf energy.
+        /* Calculate the change in the independent portion of the energy.
+            Only terms involving the target residue are evaluated when the
+            force field allows it; otherwise total energies are compared.
         */
         setState(target, origState);
         writeSnapshot("uIndO");
-        double uIndO = getTotalEnergy() - getTorsionEnergy(chi0);
+        List<Atom> atomList = target.getAtomList();
+        double uDepO = getTorsionEnergy(chi0);
+        forceFieldEnergy.startEnergyChange(atomList.toArray(new Atom[atomList.size()]));
         proposal.move();
         writeSnapshot("uIndN");
-        double uIndN = getTotalEnergy() - getTorsionEnergy(chi0);
+        double dInd = forceFieldEnergy.energyChange() - (getTorsionEnergy(chi0) - uDepO);
         
         // Apply acceptance criterion.
         double temperature = thermostat.getCurrentTemperature();
         double beta = 1.0 / (BOLTZMANN * temperature);
-        double dInd = uIndN - uIndO;
         double dIndE = FastMath.exp(-beta*dInd);
-        double criterion = (Wn / Wo) * FastMath.exp(-beta*(uIndN - uIndO));
+        double criterion = (Wn / Wo) * dIndE;
         double metropolis = Math.min(1, criterion);
         double rng = ThreadLocalRandom.current().nextDouble();
         
         report.append(String.format("    theta:     %3.2f\n", ((RosenbluthChi0Move) proposal).theta));
         report.append(String.format("    criterion: %1.4f\n", criterion));
         report.append(String.format("       Wn/Wo:     %.2f\n", Wn/Wo));
-        report.append(String.format("       uIndN,O:  %7.2f\t%7.2f\n", uIndN, uIndO));
         report.append(String.format("       dInd(E):  %7.2f\t%7.2f\n", dInd, dIndE));
         report.append(String.format("    rng:       %1.4f\n", rng));
         if (rng < metropolis) {
@@ -303,12 +304,6 @@ public class RosenbluthOBMC implements MonteCarloListener {
         return proposal;
     }
     
-    private double getTotalEnergy() {
-        double x[] = new double[forceFieldEnergy.getNumberOfVariables() * 3];
-        forceFieldEnergy.getCoordinates(x);
-        return forceFieldEnergy.energy(x);
-    }
-    
     private double getTorsionEnergy(Torsion torsion) {
         return torsion.energy(false);
     }
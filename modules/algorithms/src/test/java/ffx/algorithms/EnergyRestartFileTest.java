@@ -0,0 +1,177 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.algorithms;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+import ffx.algorithms.EnergyRestartFile.Term;
+
+/**
+ * Write binary energy restart files and read them back, including a file
+ * whose last record was cut short.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class EnergyRestartFileTest {
+
+    private static final String NAMES[] = {"A1", "B2", "C3"};
+    private static final int ROTAMERS[] = {3, 2, 4};
+
+    private File file;
+    private File part;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("restart", ".bin");
+        part = File.createTempFile("restart", ".part");
+        file.delete();
+        part.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        part.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        try (EnergyRestartFile.Writer writer = new EnergyRestartFile.Writer(file)) {
+            writer.section(-1, null, NAMES, ROTAMERS);
+            writer.self(0, 2, -1.5);
+            writer.self(2, 3, 2.25);
+            writer.pair(0, 1, 1, 1, 0.125);
+            writer.triple(0, 0, 1, 1, 2, 3, -0.0625);
+            // Sections of a box are not loaded outside of box optimization.
+            writer.section(1, new int[]{0, 0, 0}, NAMES, ROTAMERS);
+            writer.self(1, 0, 100.0);
+        }
+        assertEquals(true, EnergyRestartFile.isBinary(file));
+
+        // Residues are matched by name, so they may be listed in any order.
+        String names[] = {"C3", "A1", "B2"};
+        int nRotamers[] = {4, 3, 2};
+        EnergyRestartFile restart = EnergyRestartFile.read(Collections.singletonList(file),
+                names, nRotamers, -1, null);
+        assertEquals(2, restart.size(Term.SELF));
+        assertEquals(1, restart.size(Term.PAIR));
+        assertEquals(1, restart.size(Term.TRIPLE));
+        assertSelf(restart, 0, 1, 2, -1.5);
+        assertSelf(restart, 1, 0, 3, 2.25);
+        assertEquals(1, restart.residue(Term.PAIR, 0, 0));
+        assertEquals(1, restart.rotamer(Term.PAIR, 0, 0));
+        assertEquals(2, restart.residue(Term.PAIR, 0, 1));
+        assertEquals(1, restart.rotamer(Term.PAIR, 0, 1));
+        assertEquals(0.125, restart.energy(Term.PAIR, 0), 0.0);
+        assertEquals(0, restart.residue(Term.TRIPLE, 0, 2));
+        assertEquals(3, restart.rotamer(Term.TRIPLE, 0, 2));
+        assertEquals(-0.0625, restart.energy(Term.TRIPLE, 0), 0.0);
+
+        // Only the box section is loaded for its box.
+        restart = EnergyRestartFile.read(Collections.singletonList(file), NAMES, ROTAMERS, 1, new int[]{0, 0, 0});
+        assertEquals(1, restart.size(Term.SELF));
+        assertSelf(restart, 0, 1, 0, 100.0);
+    }
+
+    @Test
+    public void testTruncatedRecord() throws IOException {
+        try (EnergyRestartFile.Writer writer = new EnergyRestartFile.Writer(file)) {
+            writer.section(-1, null, NAMES, ROTAMERS);
+            writer.self(0, 0, 1.0);
+            writer.self(0, 1, 2.0);
+            writer.self(0, 2, 3.0);
+        }
+        long length = file.length();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length - 10);
+        }
+
+        // The partial record is ignored.
+        EnergyRestartFile restart = read(file);
+        assertEquals(2, restart.size(Term.SELF));
+        assertSelf(restart, 1, 0, 1, 2.0);
+
+        // Appending first drops the partial record.
+        try (EnergyRestartFile.Writer writer = new EnergyRestartFile.Writer(file)) {
+            writer.self(1, 1, 4.0);
+        }
+        assertEquals(length, file.length());
+        restart = read(file);
+        assertEquals(3, restart.size(Term.SELF));
+        assertSelf(restart, 1, 0, 1, 2.0);
+        assertSelf(restart, 2, 1, 1, 4.0);
+    }
+
+    @Test
+    public void testMerge() throws IOException {
+        try (EnergyRestartFile.Writer writer = new EnergyRestartFile.Writer(file)) {
+            writer.section(-1, null, NAMES, ROTAMERS);
+            writer.self(0, 0, 1.0);
+        }
+        try (EnergyRestartFile.Writer writer = new EnergyRestartFile.Writer(part)) {
+            writer.section(-1, null, new String[]{"B2"}, new int[]{2});
+            writer.self(0, 1, 5.0);
+        }
+        EnergyRestartFile.merge(file, Arrays.asList(part));
+        EnergyRestartFile restart = read(file);
+        assertEquals(2, restart.size(Term.SELF));
+        assertSelf(restart, 0, 0, 0, 1.0);
+        assertSelf(restart, 1, 1, 1, 5.0);
+    }
+
+    private EnergyRestartFile read(File restartFile) throws IOException {
+        return EnergyRestartFile.read(Collections.singletonList(restartFile), NAMES, ROTAMERS, -1, null);
+    }
+
+    private void assertSelf(EnergyRestartFile restart, int record, int residue, int rotamer, double energy) {
+        assertEquals(residue, restart.residue(Term.SELF, record, 0));
+        assertEquals(rotamer, restart.rotamer(Term.SELF, record, 0));
+        assertEquals(energy, restart.energy(Term.SELF, record), 0.0);
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.algorithms;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ffx.numerics.Potential;
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.utils.PotentialsUtils;
+
+/**
+ * Test that RESPA dynamics with reciprocal space on an outer time step
+ * conserves the total energy in the NVE ensemble.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@RunWith(Parameterized.class)
+public class RespaTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {"Water Box 2 Outer Steps", "ffx/potential/structures/watertiny.xyz", 2},
+            {"Water Box 4 Outer Steps", "ffx/potential/structures/watertiny.xyz", 4}
+        });
+    }
+
+    private final String info;
+    private final String filename;
+    private final int outerSteps;
+    private final int nSteps = 200;
+    private final double temperature = 298.15;
+    private final double tolerance = 0.5;
+    private ForceFieldEnergy forceFieldEnergy;
+
+    public RespaTest(String info, String filename, int outerSteps) {
+        this.info = info;
+        this.filename = filename;
+        this.outerSteps = outerSteps;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (forceFieldEnergy != null) {
+            forceFieldEnergy.destroy();
+        }
+    }
+
+    @Test
+    public void testEnergyConservation() {
+        ClassLoader cl = this.getClass().getClassLoader();
+        File structure = new File(cl.getResource(filename).getPath());
+        PotentialsUtils potentialUtils = new PotentialsUtils();
+        MolecularAssembly molecularAssembly = potentialUtils.open(structure.getAbsolutePath())[0];
+        forceFieldEnergy = molecularAssembly.getPotentialEnergy();
+
+        int n = forceFieldEnergy.getNumberOfVariables();
+        double mass[] = forceFieldEnergy.getMass();
+        double x[] = forceFieldEnergy.getCoordinates(null);
+        double v[] = new double[n];
+        double a[] = new double[n];
+        double gradient[] = new double[n];
+        Random random = new Random(1);
+        for (int i = 0; i < n; i++) {
+            v[i] = random.nextGaussian() * Math.sqrt(Thermostat.kB * temperature / mass[i]);
+        }
+
+        Respa respa = new Respa(n, x, v, a, new double[n], mass);
+        respa.setTimeStep(0.001);
+        respa.setOuterSteps(outerSteps);
+        forceFieldEnergy.setEnergyTermState(Potential.STATE.SLOW);
+        forceFieldEnergy.energyAndGradient(x, gradient);
+        for (int i = 0; i < n; i++) {
+            a[i] = -Thermostat.convert * gradient[i] / mass[i];
+        }
+
+        /**
+         * The outer step energy is current only at the end of an outer step,
+         * so the total energy is sampled there.
+         */
+        double initialEnergy = 0.0;
+        double maxDeviation = 0.0;
+        for (int step = 1; step <= nSteps; step++) {
+            respa.preForce(forceFieldEnergy);
+            double potentialEnergy = forceFieldEnergy.energyAndGradient(x, gradient);
+            respa.postForce(gradient);
+            if (step % outerSteps != 0) {
+                continue;
+            }
+            potentialEnergy += respa.getHalfStepEnergy() + respa.getOuterStepEnergy();
+            double kineticEnergy = 0.0;
+            for (int i = 0; i < n; i++) {
+                kineticEnergy += mass[i] * v[i] * v[i];
+            }
+            kineticEnergy *= 0.5 / Thermostat.convert;
+            double totalEnergy = potentialEnergy + kineticEnergy;
+            if (step == outerSteps) {
+                initialEnergy = totalEnergy;
+            }
+            maxDeviation = Math.max(maxDeviation, Math.abs(totalEnergy - initialEnergy));
+        }
+        respa.resetOuterSteps();
+
+        assertTrue(info + " Outer Step Energy", respa.getOuterStepEnergy() != 0.0);
+        assertEquals(info + " Total Energy", 0.0, maxDeviation, tolerance);
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.algorithms;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import edu.rit.pj.Comm;
+import edu.rit.pj.ParallelTeam;
+
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Residue;
+import ffx.potential.bonded.Residue.ResidueType;
+
+/**
+ * Prune rotamers and rotamer pairs for synthetic self and pair energies, and
+ * check that parallel pruning, cached bounds and both together eliminate
+ * exactly the same rotamers and pairs as serial pruning, for both the DEE and
+ * Goldstein criteria.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class RotamerPruningTest {
+
+    private static final String NAMES[] = {"VAL", "LEU", "PHE", "SER", "ILE", "THR", "MET", "ASN", "TYR", "GLN"};
+    private static final int SEEDS[] = {1, 2, 3};
+
+    private static ParallelTeam parallelTeam;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        Comm.init(new String[0]);
+        parallelTeam = new ParallelTeam(4);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        parallelTeam.shutdown();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("ro-parallelPruning");
+        System.clearProperty("ro-cachePruningBounds");
+    }
+
+    @Test
+    public void testDEE() {
+        for (int seed : SEEDS) {
+            comparePruning(false, seed);
+        }
+    }
+
+    @Test
+    public void testGoldstein() {
+        for (int seed : SEEDS) {
+            comparePruning(true, seed);
+        }
+    }
+
+    private void comparePruning(boolean goldstein, int seed) {
+        Residue residues[] = new Residue[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            residues[i] = new Residue(NAMES[i], i + 1, ResidueType.AA);
+        }
+        String criteria = goldstein ? "Goldstein" : "DEE";
+
+        PruningOptimization serial = prune(residues, goldstein, false, false, seed);
+        int nres = residues.length;
+        int singles = 0;
+        int pairs = 0;
+        for (int i = 0; i < nres; i++) {
+            int remaining = 0;
+            int nri = serial.selfEnergy[i].length;
+            for (int ri = 0; ri < nri; ri++) {
+                if (serial.check(i, ri)) {
+                    singles++;
+                } else {
+                    remaining++;
+                }
+                for (int j = i + 1; j < nres; j++) {
+                    for (int rj = 0; rj < serial.selfEnergy[j].length; rj++) {
+                        if (serial.check(i, ri, j, rj)) {
+                            pairs++;
+                        }
+                    }
+                }
+            }
+            assertTrue(criteria + " eliminated every rotamer of residue " + i, remaining > 0);
+        }
+        // The energies give the criteria some, but not all, rotamers to prune.
+        assertTrue(criteria + " eliminated no rotamers", singles > 0);
+
+        boolean options[][] = {{true, false}, {false, true}, {true, true}};
+        for (boolean option[] : options) {
+            PruningOptimization other = prune(residues, goldstein, option[0], option[1], seed);
+            String info = String.format(" %s (seed %d, parallel %b, cached bounds %b)",
+                    criteria, seed, option[0], option[1]);
+            for (int i = 0; i < nres; i++) {
+                for (int ri = 0; ri < serial.selfEnergy[i].length; ri++) {
+                    assertEquals(info + " rotamer " + i + " " + ri,
+                            serial.check(i, ri), other.check(i, ri));
+                    for (int j = i + 1; j < nres; j++) {
+                        for (int rj = 0; rj < serial.selfEnergy[j].length; rj++) {
+                            assertEquals(info + " pair " + i + " " + ri + " " + j + " " + rj,
+                                    serial.check(i, ri, j, rj), other.check(i, ri, j, rj));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Prune to a fixed point with the given options and random self and pair
+     * energies from the given seed.
+     */
+    private PruningOptimization prune(Residue residues[], boolean goldstein,
+            boolean parallel, boolean cache, int seed) {
+        System.setProperty("ro-parallelPruning", Boolean.toString(parallel));
+        System.setProperty("ro-cachePruningBounds", Boolean.toString(cache));
+        PruningOptimization optimization = new PruningOptimization();
+        optimization.setGoldstein(goldstein);
+        optimization.setThreeBodyEnergy(false);
+        optimization.allocateEliminationMemory(residues);
+
+        Random random = new Random(seed);
+        int nres = residues.length;
+        optimization.selfEnergy = new double[nres][];
+        optimization.twoBodyEnergy = new double[nres][][][];
+        for (int i = 0; i < nres; i++) {
+            int nri = residues[i].getRotamers(optimization.library).length;
+            optimization.selfEnergy[i] = new double[nri];
+            optimization.twoBodyEnergy[i] = new double[nri][nres][];
+            for (int ri = 0; ri < nri; ri++) {
+                optimization.selfEnergy[i][ri] = 4.0 * random.nextGaussian();
+                for (int j = i + 1; j < nres; j++) {
+                    int nrj = residues[j].getRotamers(optimization.library).length;
+                    optimization.twoBodyEnergy[i][ri][j] = new double[nrj];
+                    for (int rj = 0; rj < nrj; rj++) {
+                        optimization.twoBodyEnergy[i][ri][j][rj] = random.nextGaussian();
+                    }
+                }
+            }
+        }
+        optimization.pruneToFixedPoint(residues);
+        return optimization;
+    }
+
+    /**
+     * Rotamer optimization without a molecular system, which prunes in
+     * parallel on the test team.
+     */
+    private static class PruningOptimization extends RotamerOptimization {
+
+        PruningOptimization() {
+            super(new MolecularAssembly("Synthetic"), null, null);
+        }
+
+        @Override
+        protected ParallelTeam getPruningTeam() {
+            return parallelTeam;
+        }
+    }
+}
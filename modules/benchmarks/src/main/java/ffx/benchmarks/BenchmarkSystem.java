@@ -0,0 +1,98 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import ffx.potential.MolecularAssembly;
+import ffx.potential.utils.PotentialsUtils;
+
+/**
+ * Loads the structures bundled with the Potential module for benchmarking.
+ * The coordinate and keyword files are copied from the class path into a
+ * temporary directory, so that the benchmarks also run from a shaded jar.
+ *
+ * @author Michael J. Schnieders
+ *
+ * @since 1.0
+ */
+public final class BenchmarkSystem {
+
+    private static final String STRUCTURES = "ffx/potential/structures/";
+
+    private BenchmarkSystem() {
+    }
+
+    /**
+     * Open one of the bundled structures.
+     *
+     * @param name Structure name without an extension (e.g. "dhfr").
+     * @param nThreads Number of threads for the force field energy.
+     * @return the MolecularAssembly.
+     * @throws IOException if the structure could not be copied.
+     */
+    public static MolecularAssembly open(String name, int nThreads) throws IOException {
+        File dir = Files.createTempDirectory("ffx-benchmark").toFile();
+        dir.deleteOnExit();
+        File xyz = copy(name + ".xyz", dir);
+        copy(name + ".key", dir);
+        PotentialsUtils potentialsUtils = new PotentialsUtils();
+        MolecularAssembly assemblies[] = potentialsUtils.open(xyz.getAbsolutePath(), nThreads);
+        if (assemblies == null || assemblies.length == 0) {
+            throw new IOException(String.format(" Structure %s could not be opened.", name));
+        }
+        return assemblies[0];
+    }
+
+    private static File copy(String resource, File dir) throws IOException {
+        ClassLoader cl = BenchmarkSystem.class.getClassLoader();
+        File file = new File(dir, resource);
+        try (InputStream is = cl.getResourceAsStream(STRUCTURES + resource)) {
+            if (is == null) {
+                throw new IOException(String.format(" Resource %s was not found.", STRUCTURES + resource));
+            }
+            Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        file.deleteOnExit();
+        return file;
+    }
+}
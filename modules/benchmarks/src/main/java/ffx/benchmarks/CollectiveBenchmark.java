@@ -0,0 +1,226 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.rit.mp.Buf;
+import edu.rit.mp.DoubleBuf;
+import edu.rit.pj.Comm;
+import edu.rit.pj.reduction.DoubleOp;
+
+/**
+ * Compares the collective algorithms of the PJ communicator (see
+ * {@link Comm.Algorithm}) on a local multi-process launch. Run as
+ * <p>
+ * <code>java ffx.benchmarks.CollectiveBenchmark [processes] [repetitions]</code>
+ * <p>
+ * The launcher starts the requested number of JVMs on this host with the same
+ * class path, connects them into a communicator without a Job Scheduler, and
+ * times broadcast, all-reduce and all-gather of double arrays for each
+ * algorithm and a range of message lengths. The PATTERN column is the original
+ * CommPattern based implementation, which TREE replaced as the default. Rank 0 prints the mean time per call in
+ * microseconds. PJ properties such as -Dpj.transport and -Dpj.shm given to the
+ * launcher are passed on to the benchmark processes.
+ *
+ * @author Michael J. Schnieders
+ *
+ * @since 1.0
+ */
+public class CollectiveBenchmark {
+
+    /**
+     * System property holding the rank of a benchmark process.
+     */
+    private static final String RANK_PROPERTY = "ffx.collective.rank";
+    /**
+     * System property holding the comma separated ports of all processes.
+     */
+    private static final String PORTS_PROPERTY = "ffx.collective.ports";
+    /**
+     * Message lengths (total doubles per collective).
+     */
+    private static final int[] LENGTHS = {16, 1024, 16384, 262144, 1048576};
+
+    /**
+     * <p>
+     * main</p>
+     *
+     * @param args Number of processes (default 4) and repetitions per
+     * measurement (default 20).
+     * @throws java.lang.Exception if any.
+     */
+    public static void main(String[] args) throws Exception {
+        int processes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        String rank = System.getProperty(RANK_PROPERTY);
+        if (rank == null) {
+            launch(processes, repetitions);
+        } else {
+            run(Integer.parseInt(rank), System.getProperty(PORTS_PROPERTY).split(","),
+                    repetitions);
+        }
+    }
+
+    /**
+     * Start one JVM per rank and wait for all of them to finish.
+     */
+    private static void launch(int processes, int repetitions) throws Exception {
+        // Reserve a free port for each process.
+        StringBuilder ports = new StringBuilder();
+        ServerSocket[] sockets = new ServerSocket[processes];
+        for (int i = 0; i < processes; i++) {
+            sockets[i] = new ServerSocket(0);
+            ports.append(i == 0 ? "" : ",").append(sockets[i].getLocalPort());
+        }
+        for (ServerSocket socket : sockets) {
+            socket.close();
+        }
+
+        String java = System.getProperty("java.home") + File.separator + "bin"
+                + File.separator + "java";
+        List<Process> children = new ArrayList<>();
+        for (int i = 0; i < processes; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith("pj.")) {
+                    command.add("-D" + name + "=" + System.getProperty(name));
+                }
+            }
+            command.add("-D" + RANK_PROPERTY + "=" + i);
+            command.add("-D" + PORTS_PROPERTY + "=" + ports);
+            command.add(CollectiveBenchmark.class.getName());
+            command.add(Integer.toString(processes));
+            command.add(Integer.toString(repetitions));
+            children.add(new ProcessBuilder(command).inheritIO().start());
+        }
+        int status = 0;
+        for (Process child : children) {
+            status = Math.max(status, child.waitFor());
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Run the benchmarks in one process.
+     */
+    private static void run(int rank, String[] ports, int repetitions) throws IOException {
+        int processes = ports.length;
+        InetSocketAddress[] address = new InetSocketAddress[processes];
+        for (int i = 0; i < processes; i++) {
+            address[i] = new InetSocketAddress("127.0.0.1", Integer.parseInt(ports[i]));
+        }
+        Comm comm = Comm.create(rank, address);
+        Comm.Algorithm[] algorithms = Comm.Algorithm.values();
+
+        if (rank == 0) {
+            StringBuilder header = new StringBuilder(String.format(" %-10s %9s", "Operation", "Length"));
+            for (Comm.Algorithm algorithm : algorithms) {
+                header.append(String.format(" %10s", algorithm));
+            }
+            System.out.printf(" Collective timings for %d processes (usec per call, %d repetitions)%n",
+                    processes, repetitions);
+            System.out.println(header);
+        }
+
+        String[] operations = {"broadcast", "allReduce", "allGather"};
+        for (String operation : operations) {
+            for (int length : LENGTHS) {
+                StringBuilder row = new StringBuilder(String.format(" %-10s %9d", operation, length));
+                for (Comm.Algorithm algorithm : algorithms) {
+                    comm.setCollectiveAlgorithm(algorithm);
+                    double usec = time(comm, operation, length, repetitions);
+                    row.append(String.format(" %10.1f", usec));
+                }
+                if (rank == 0) {
+                    System.out.println(row);
+                }
+            }
+        }
+        comm.barrier();
+        System.exit(0);
+    }
+
+    /**
+     * Time one collective operation, returning microseconds per call measured
+     * by this process after a warm up.
+     */
+    private static double time(Comm comm, String operation, int length, int repetitions)
+            throws IOException {
+        int processes = comm.size();
+        double[] data = new double[length];
+        Buf buffer = DoubleBuf.buffer(data);
+        // All-gather sends an equal share of the total length from each process.
+        int share = Math.max(1, length / processes);
+        Buf[] gather = new Buf[processes];
+        for (int i = 0; i < processes; i++) {
+            gather[i] = DoubleBuf.buffer(new double[share]);
+        }
+        Buf source = DoubleBuf.buffer(new double[share]);
+
+        long start = 0;
+        int warmup = Math.max(1, repetitions / 4);
+        for (int i = -warmup; i < repetitions; i++) {
+            if (i == 0) {
+                comm.barrier();
+                start = System.nanoTime();
+            }
+            switch (operation) {
+                case "broadcast":
+                    comm.broadcast(Math.floorMod(i, processes), buffer);
+                    break;
+                case "allReduce":
+                    comm.allReduce(buffer, DoubleOp.SUM);
+                    break;
+                default:
+                    comm.allGather(source, gather);
+                    break;
+            }
+        }
+        comm.barrier();
+        return (System.nanoTime() - start) * 1.0e-3 / repetitions;
+    }
+}
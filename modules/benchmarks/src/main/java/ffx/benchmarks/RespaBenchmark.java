@@ -0,0 +1,138 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ffx.algorithms.Respa;
+import ffx.algorithms.Thermostat;
+import ffx.numerics.Potential;
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+
+/**
+ * Times RESPA molecular dynamics with reciprocal space PME evaluated every 1,
+ * 2 or 4 MD time steps (respa-outer-steps).
+ * <p>
+ * Each invocation takes 4 MD steps of 1 fsec, so that every setting completes
+ * whole outer time steps.
+ *
+ * @author Michael J. Schnieders
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RespaBenchmark {
+
+    private static final int STEPS = 4;
+
+    @Param({"dhfr"})
+    public String system;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"1", "2", "4"})
+    public int outerSteps;
+
+    private ForceFieldEnergy forceFieldEnergy;
+    private Respa respa;
+    private double x[];
+    private double gradient[];
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        MolecularAssembly molecularAssembly = BenchmarkSystem.open(system, threads);
+        forceFieldEnergy = molecularAssembly.getPotentialEnergy();
+        int n = forceFieldEnergy.getNumberOfVariables();
+        double mass[] = forceFieldEnergy.getMass();
+        x = forceFieldEnergy.getCoordinates(null);
+        gradient = new double[n];
+        double v[] = new double[n];
+        double a[] = new double[n];
+        Random random = new Random(1);
+        for (int i = 0; i < n; i++) {
+            v[i] = random.nextGaussian() * Math.sqrt(Thermostat.kB * 298.15 / mass[i]);
+        }
+        respa = new Respa(n, x, v, a, new double[n], mass);
+        respa.setTimeStep(0.001);
+        respa.setOuterSteps(outerSteps);
+        forceFieldEnergy.setEnergyTermState(Potential.STATE.SLOW);
+        forceFieldEnergy.energyAndGradient(x, gradient);
+        for (int i = 0; i < n; i++) {
+            a[i] = -Thermostat.convert * gradient[i] / mass[i];
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        respa.resetOuterSteps();
+        forceFieldEnergy.destroy();
+    }
+
+    @Benchmark
+    public double dynamics() {
+        double energy = 0.0;
+        for (int step = 0; step < STEPS; step++) {
+            respa.preForce(forceFieldEnergy);
+            energy = forceFieldEnergy.energyAndGradient(x, gradient);
+            respa.postForce(gradient);
+        }
+        return energy;
+    }
+}
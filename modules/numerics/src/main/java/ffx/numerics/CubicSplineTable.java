@@ -0,0 +1,275 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.numerics;
+
+import static java.lang.String.format;
+
+/**
+ * The CubicSplineTable class tabulates one or more functions of a single
+ * variable on a uniform grid using cubic Hermite splines. Each function is
+ * specified by its value and first derivative at the knots, so that the
+ * interpolant and its first derivative are continuous. The interpolation error
+ * decreases as the fourth power of the knot spacing.
+ * <p>
+ * The coefficients of all functions for a grid interval are stored together,
+ * such that looking up several functions at the same argument touches a
+ * contiguous block of memory.
+ *
+ * @author Michael J. Schnieders
+ *
+ * @see <a href="http://en.wikipedia.org/wiki/Cubic_Hermite_spline"
+ * target="_blank">Cubic Hermite splines at Wikipedia</a>
+ *
+ * @since 1.0
+ */
+public class CubicSplineTable {
+
+    /**
+     * The first knot.
+     */
+    private final double minimum;
+    /**
+     * The last knot.
+     */
+    private final double maximum;
+    /**
+     * The knot spacing.
+     */
+    private final double spacing;
+    /**
+     * The inverse of the knot spacing.
+     */
+    private final double inverseSpacing;
+    /**
+     * The number of grid intervals.
+     */
+    private final int nIntervals;
+    /**
+     * The number of tabulated functions.
+     */
+    private final int nFunctions;
+    /**
+     * Polynomial coefficients [interval][function][4] in powers of the
+     * fractional position within an interval.
+     */
+    private final double coefficients[];
+
+    /**
+     * Construct a table from function values and derivatives at the knots
+     * x[j] = minimum + j * (maximum - minimum) / nIntervals.
+     *
+     * @param minimum The first knot.
+     * @param maximum The last knot.
+     * @param nIntervals The number of grid intervals.
+     * @param values Function values [function][nIntervals + 1].
+     * @param derivatives Function derivatives [function][nIntervals + 1].
+     */
+    public CubicSplineTable(double minimum, double maximum, int nIntervals,
+            double values[][], double derivatives[][]) {
+        if (nIntervals < 1 || !(maximum > minimum)) {
+            throw new IllegalArgumentException(format(" Invalid spline table range [%f, %f] with %d intervals.",
+                    minimum, maximum, nIntervals));
+        }
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.nIntervals = nIntervals;
+        nFunctions = values.length;
+        spacing = (maximum - minimum) / nIntervals;
+        inverseSpacing = 1.0 / spacing;
+        coefficients = new double[nIntervals * nFunctions * 4];
+        for (int f = 0; f < nFunctions; f++) {
+            double v[] = values[f];
+            double d[] = derivatives[f];
+            if (v.length < nIntervals + 1 || d.length < nIntervals + 1) {
+                throw new IllegalArgumentException(format(" Spline table function %d requires %d knots.",
+                        f, nIntervals + 1));
+            }
+            for (int j = 0; j < nIntervals; j++) {
+                /**
+                 * Hermite basis in terms of the fractional position t, with
+                 * derivatives scaled by the knot spacing.
+                 */
+                double y0 = v[j];
+                double y1 = v[j + 1];
+                double m0 = d[j] * spacing;
+                double m1 = d[j + 1] * spacing;
+                int index = (j * nFunctions + f) * 4;
+                coefficients[index] = y0;
+                coefficients[index + 1] = m0;
+                coefficients[index + 2] = 3.0 * (y1 - y0) - 2.0 * m0 - m1;
+                coefficients[index + 3] = 2.0 * (y0 - y1) + m0 + m1;
+            }
+        }
+    }
+
+    /**
+     * Check if an argument is covered by the table.
+     *
+     * @param x The argument.
+     * @return true if minimum &lt;= x &lt;= maximum.
+     */
+    public boolean contains(double x) {
+        return x >= minimum && x <= maximum;
+    }
+
+    /**
+     * Interpolate one function. The argument must be covered by the table.
+     *
+     * @param function The function index.
+     * @param x The argument.
+     * @return The interpolated value.
+     */
+    public double value(int function, double x) {
+        final double u = (x - minimum) * inverseSpacing;
+        final int j = Math.min((int) u, nIntervals - 1);
+        final double t = u - j;
+        final int index = (j * nFunctions + function) * 4;
+        return coefficients[index] + t * (coefficients[index + 1]
+                + t * (coefficients[index + 2] + t * coefficients[index + 3]));
+    }
+
+    /**
+     * Interpolate all functions. The argument must be covered by the table.
+     *
+     * @param x The argument.
+     * @param values The interpolated values [nFunctions].
+     */
+    public void values(double x, double values[]) {
+        final double u = (x - minimum) * inverseSpacing;
+        final int j = Math.min((int) u, nIntervals - 1);
+        final double t = u - j;
+        int index = j * nFunctions * 4;
+        for (int f = 0; f < nFunctions; f++, index += 4) {
+            values[f] = coefficients[index] + t * (coefficients[index + 1]
+                    + t * (coefficients[index + 2] + t * coefficients[index + 3]));
+        }
+    }
+
+    /**
+     * Interpolate the derivative of one function. The argument must be
+     * covered by the table.
+     *
+     * @param function The function index.
+     * @param x The argument.
+     * @return The derivative of the interpolant.
+     */
+    public double derivative(int function, double x) {
+        final double u = (x - minimum) * inverseSpacing;
+        final int j = Math.min((int) u, nIntervals - 1);
+        final double t = u - j;
+        final int index = (j * nFunctions + function) * 4;
+        return (coefficients[index + 1] + t * (2.0 * coefficients[index + 2]
+                + t * 3.0 * coefficients[index + 3])) * inverseSpacing;
+    }
+
+    /**
+     * Interpolate one function and its derivative with a single lookup. Using
+     * the derivative of the interpolant, rather than a separately tabulated
+     * derivative, keeps the two exactly consistent. The argument must be
+     * covered by the table.
+     *
+     * @param function The function index.
+     * @param x The argument.
+     * @param result The value [0] and derivative [1] of the interpolant.
+     */
+    public void valueAndDerivative(int function, double x, double result[]) {
+        final double u = (x - minimum) * inverseSpacing;
+        final int j = Math.min((int) u, nIntervals - 1);
+        final double t = u - j;
+        final int index = (j * nFunctions + function) * 4;
+        final double c1 = coefficients[index + 1];
+        final double c2 = coefficients[index + 2];
+        final double c3 = coefficients[index + 3];
+        result[0] = coefficients[index] + t * (c1 + t * (c2 + t * c3));
+        result[1] = (c1 + t * (2.0 * c2 + t * 3.0 * c3)) * inverseSpacing;
+    }
+
+    /**
+     * Get the first knot.
+     *
+     * @return The minimum argument.
+     */
+    public double getMinimum() {
+        return minimum;
+    }
+
+    /**
+     * Get the last knot.
+     *
+     * @return The maximum argument.
+     */
+    public double getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * Get the knot spacing.
+     *
+     * @return The spacing.
+     */
+    public double getSpacing() {
+        return spacing;
+    }
+
+    /**
+     * Get the number of grid intervals.
+     *
+     * @return The number of intervals.
+     */
+    public int getNumberOfIntervals() {
+        return nIntervals;
+    }
+
+    /**
+     * Get the number of tabulated functions.
+     *
+     * @return The number of functions.
+     */
+    public int getNumberOfFunctions() {
+        return nFunctions;
+    }
+
+    /**
+     * Get the memory used by the coefficients.
+     *
+     * @return The size of the table in bytes.
+     */
+    public long getBytes() {
+        return 8L * coefficients.length;
+    }
+}
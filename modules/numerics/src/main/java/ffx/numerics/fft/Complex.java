@@ -111,6 +111,34 @@ public class Complex {
         scratch = new double[2 * n];
     }
 
+    /**
+     * Construct a Complex instance for data of length n using the given
+     * factorization. The order of the factors determines the order of the
+     * passes, which affects performance but not the result (beyond round off).
+     *
+     * @param n Number of complex numbers (n .GT. 1).
+     * @param factors Factors of n, whose product must equal n. Each factor
+     * must be supported (see isSupportedFactor).
+     */
+    public Complex(int n, int factors[]) {
+        assert (n > 1);
+
+        this.n = n;
+        int product = 1;
+        for (int factor : factors) {
+            if (!isSupportedFactor(factor)) {
+                throw new IllegalArgumentException(" FFT factor " + factor + " is not 2 through 7 or an odd prime.");
+            }
+            product *= factor;
+        }
+        if (product != n) {
+            throw new IllegalArgumentException(" FFT factor product " + product + " does not equal " + n + ".");
+        }
+        this.factors = factors.clone();
+        twiddle = wavetable();
+        scratch = new double[2 * n];
+    }
+
     /**
      * <p>
      * preferredDimension</p>
@@ -217,6 +245,31 @@ public class Complex {
         return factors;
     }
 
+    /**
+     * Check if a factor can be handled by a radix pass: factors 2 through 7
+     * have special methods and larger odd primes are handled by passOdd.
+     *
+     * @param factor a factor of the data length.
+     * @return true if the factor is supported.
+     */
+    public static boolean isSupportedFactor(int factor) {
+        if (factor < 2) {
+            return false;
+        }
+        if (factor <= 7) {
+            return true;
+        }
+        if (factor % 2 == 0) {
+            return false;
+        }
+        for (int i = 3; i * i <= factor; i += 2) {
+            if (factor % i == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Compute the Fast Fourier Transform of data leaving the result in data.
      * The array data must contain the data points in the following locations:
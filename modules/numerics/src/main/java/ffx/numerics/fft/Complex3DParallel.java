@@ -64,6 +64,12 @@ import edu.rit.pj.ParallelTeam;
  * <br>
  * int nextZ = 2*nX*nY
  * <br>
+ * <p>
+ * Z-columns are strided by nextZ, so for large grids each element of a column
+ * falls on a different cache line. When the Z tile width is greater than 1
+ * (set by the FFTPlan or the "fft-z-tile" system property), tiles of adjacent
+ * Z-columns are gathered into contiguous thread local scratch, transformed and
+ * scattered back. The results are identical to the in place Z pass.
  *
  * @author Michal J. Schnieders
  *
@@ -85,6 +91,12 @@ public class Complex3DParallel {
     private final Complex fftY[];
     private final Complex fftZ[];
     private final IntegerSchedule schedule;
+    private final FFTPlan plan;
+    /**
+     * Number of Z-columns gathered into contiguous scratch for each Z
+     * transform. A value of 1 transforms each strided column in place.
+     */
+    private final int zTile;
 
     public double input[];
     public final int nXm1, nYm1, nZm1;
@@ -117,6 +129,23 @@ public class Complex3DParallel {
      */
     public Complex3DParallel(int nX, int nY, int nZ, ParallelTeam parallelTeam,
             IntegerSchedule integerSchedule) {
+        this(nX, nY, nZ, parallelTeam, integerSchedule,
+                FFTPlanner.getPlan(nX, nY, nZ, parallelTeam));
+    }
+
+    /**
+     * Initialize the 3D FFT for complex 3D matrix using an explicit plan.
+     *
+     * @param nX X-dimension.
+     * @param nY Y-dimension.
+     * @param nZ Z-dimension.
+     * @param parallelTeam A ParallelTeam instance.
+     * @param integerSchedule The IntegerSchedule to use.
+     * @param plan The FFTPlan to use (null selects the standard factorization).
+     * @since 1.0
+     */
+    public Complex3DParallel(int nX, int nY, int nZ, ParallelTeam parallelTeam,
+            IntegerSchedule integerSchedule, FFTPlan plan) {
         this.nX = nX;
         this.nY = nY;
         this.nZ = nZ;
@@ -139,10 +168,27 @@ public class Complex3DParallel {
         fftX = new Complex[threadCount];
         fftY = new Complex[threadCount];
         fftZ = new Complex[threadCount];
+        if (plan != null && !plan.matches(nX, nY, nZ, threadCount)) {
+            logger.warning(String.format(" FFT plan %s does not match %s; using the default plan.",
+                    plan.key(), FFTPlan.key(nX, nY, nZ, threadCount)));
+            plan = null;
+        }
+        this.plan = plan;
+        if (plan != null) {
+            zTile = plan.getZTile();
+        } else {
+            zTile = Math.max(1, Integer.getInteger("fft-z-tile", 1));
+        }
         for (int i = 0; i < threadCount; i++) {
-            fftX[i] = new Complex(nX);
-            fftY[i] = new Complex(nY);
-            fftZ[i] = new Complex(nZ);
+            if (plan != null) {
+                fftX[i] = new Complex(nX, plan.getFactorsX());
+                fftY[i] = new Complex(nY, plan.getFactorsY());
+                fftZ[i] = new Complex(nZ, plan.getFactorsZ());
+            } else {
+                fftX[i] = new Complex(nX);
+                fftY[i] = new Complex(nY);
+                fftZ[i] = new Complex(nZ);
+            }
         }
         fftRegion = new FFTRegion();
         ifftRegion = new IFFTRegion();
@@ -150,6 +196,58 @@ public class Complex3DParallel {
         convolutionTime = new long[threadCount];
     }
 
+    /**
+     * Get the plan in use.
+     *
+     * @return the FFTPlan, or null if the standard factorization is used.
+     */
+    public FFTPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Get the number of Z-columns transformed per tile.
+     *
+     * @return the Z tile width.
+     */
+    public int getZTile() {
+        return zTile;
+    }
+
+    /**
+     * Gather a tile of adjacent Z-columns into contiguous scratch. Column t of
+     * the tile is stored at work[t * nZ2] with a stride of 2, so that each
+     * pass over z reads 2 * width consecutive doubles from the input.
+     *
+     * @param work Scratch of size width * nZ2.
+     * @param offset Offset of the first column in the input.
+     * @param width Number of columns in the tile.
+     */
+    private void gatherZ(final double work[], final int offset, final int width) {
+        for (int i = 0, z = offset; i < nZ2; i += 2, z += strideZ) {
+            for (int t = 0, j = i, k = z; t < width; t++, j += nZ2, k += 2) {
+                work[j] = input[k];
+                work[j + 1] = input[k + 1];
+            }
+        }
+    }
+
+    /**
+     * Scatter a tile of Z-columns from contiguous scratch back to the input.
+     *
+     * @param work Scratch of size width * nZ2.
+     * @param offset Offset of the first column in the input.
+     * @param width Number of columns in the tile.
+     */
+    private void scatterZ(final double work[], final int offset, final int width) {
+        for (int i = 0, z = offset; i < nZ2; i += 2, z += strideZ) {
+            for (int t = 0, j = i, k = z; t < width; t++, j += nZ2, k += 2) {
+                input[k] = work[j];
+                input[k + 1] = work[j + 1];
+            }
+        }
+    }
+
     public void initTiming() {
         for (int i = 0; i < threadCount; i++) {
             convolutionTime[i] = 0;
@@ -392,7 +490,7 @@ public class Complex3DParallel {
         private Complex localFFTZ;
 
         private FFTZLoop() {
-            work = new double[nZ2];
+            work = new double[nZ2 * zTile];
         }
 
         @Override
@@ -407,6 +505,18 @@ public class Complex3DParallel {
 
         @Override
         public void run(final int lb, final int ub) {
+            if (zTile > 1) {
+                int end = (ub + 1) * nY;
+                for (int column = lb * nY; column < end; column += zTile) {
+                    int width = Math.min(zTile, end - column);
+                    gatherZ(work, 2 * column, width);
+                    for (int t = 0; t < width; t++) {
+                        localFFTZ.fft(work, t * nZ2, 2);
+                    }
+                    scatterZ(work, 2 * column, width);
+                }
+                return;
+            }
             for (int x = lb, offset = lb * nY2; x <= ub; x++) {
                 for (int y = 0; y < nY; y++, offset += 2) {
                     for (int i = 0, z = offset; i < nZ2; i += 2, z += strideZ) {
@@ -458,7 +568,7 @@ public class Complex3DParallel {
         private Complex localFFTZ;
 
         private IFFTZLoop() {
-            work = new double[nZ2];
+            work = new double[nZ2 * zTile];
         }
 
         @Override
@@ -473,6 +583,18 @@ public class Complex3DParallel {
 
         @Override
         public void run(final int lb, final int ub) {
+            if (zTile > 1) {
+                int end = (ub + 1) * nY;
+                for (int column = lb * nY; column < end; column += zTile) {
+                    int width = Math.min(zTile, end - column);
+                    gatherZ(work, 2 * column, width);
+                    for (int t = 0; t < width; t++) {
+                        localFFTZ.ifft(work, t * nZ2, 2);
+                    }
+                    scatterZ(work, 2 * column, width);
+                }
+                return;
+            }
             for (int offset = lb * nY2, x = lb; x <= ub; x++) {
                 for (int y = 0; y < nY; y++, offset += 2) {
                     for (int i = 0, z = offset; i < nZ2; i += 2, z += strideZ) {
@@ -495,7 +617,7 @@ public class Complex3DParallel {
         private Complex localFFTZ;
 
         private FFTZIZLoop() {
-            work = new double[nZ2];
+            work = new double[nZ2 * zTile];
         }
 
         @Override
@@ -511,6 +633,24 @@ public class Complex3DParallel {
         @Override
         public void run(final int lb, final int ub) {
             int index = nX * nZ * lb;
+            if (zTile > 1) {
+                int end = (ub + 1) * nX;
+                for (int column = lb * nX; column < end; column += zTile) {
+                    int width = Math.min(zTile, end - column);
+                    gatherZ(work, 2 * column, width);
+                    for (int t = 0, w = 0; t < width; t++, w += nZ2) {
+                        localFFTZ.fft(work, w, 2);
+                        for (int i = w; i < w + nZ2; i += 2) {
+                            double r = recip[index++];
+                            work[i] *= r;
+                            work[i + 1] *= r;
+                        }
+                        localFFTZ.ifft(work, w, 2);
+                    }
+                    scatterZ(work, 2 * column, width);
+                }
+                return;
+            }
             for (int offset = lb * strideY, y = lb; y <= ub; y++) {
                 for (int x = 0; x < nX; x++, offset += 2) {
                     for (int i = 0, z = offset; i < nZ2; i += 2, z += strideZ) {
@@ -0,0 +1,258 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.numerics.fft;
+
+import java.util.Arrays;
+
+/**
+ * An FFTPlan records how a 3D FFT of a given size is decomposed: the order of
+ * the radix passes used by the 1D transforms along each axis and the number of
+ * Z-columns that are gathered into a contiguous tile for the Z pass. Plans are
+ * chosen by the {@link FFTPlanner} and stored in its wisdom file as a single
+ * line.
+ *
+ * @author Michael J. Schnieders
+ *
+ * @since 1.0
+ *
+ * @see Complex3DParallel
+ */
+public final class FFTPlan {
+
+    private final int nX, nY, nZ;
+    private final int threadCount;
+    private final int factorsX[];
+    private final int factorsY[];
+    private final int factorsZ[];
+    private final int zTile;
+
+    /**
+     * Create a plan.
+     *
+     * @param nX X-dimension.
+     * @param nY Y-dimension.
+     * @param nZ Z-dimension.
+     * @param threadCount Number of threads the plan was tuned for.
+     * @param factorsX Radix passes along X.
+     * @param factorsY Radix passes along Y.
+     * @param factorsZ Radix passes along Z.
+     */
+    public FFTPlan(int nX, int nY, int nZ, int threadCount,
+            int factorsX[], int factorsY[], int factorsZ[]) {
+        this(nX, nY, nZ, threadCount, factorsX, factorsY, factorsZ, 1);
+    }
+
+    /**
+     * Create a plan.
+     *
+     * @param nX X-dimension.
+     * @param nY Y-dimension.
+     * @param nZ Z-dimension.
+     * @param threadCount Number of threads the plan was tuned for.
+     * @param factorsX Radix passes along X.
+     * @param factorsY Radix passes along Y.
+     * @param factorsZ Radix passes along Z.
+     * @param zTile Number of Z-columns transformed per tile (1 transforms
+     * each column in place).
+     */
+    public FFTPlan(int nX, int nY, int nZ, int threadCount,
+            int factorsX[], int factorsY[], int factorsZ[], int zTile) {
+        this.nX = nX;
+        this.nY = nY;
+        this.nZ = nZ;
+        this.threadCount = threadCount;
+        this.factorsX = factorsX.clone();
+        this.factorsY = factorsY.clone();
+        this.factorsZ = factorsZ.clone();
+        this.zTile = Math.max(1, zTile);
+    }
+
+    public int[] getFactorsX() {
+        return factorsX.clone();
+    }
+
+    public int[] getFactorsY() {
+        return factorsY.clone();
+    }
+
+    public int[] getFactorsZ() {
+        return factorsZ.clone();
+    }
+
+    /**
+     * Number of Z-columns transformed together in a contiguous tile.
+     *
+     * @return the Z tile width.
+     */
+    public int getZTile() {
+        return zTile;
+    }
+
+    /**
+     * Check if this plan applies to a transform.
+     *
+     * @param nX X-dimension.
+     * @param nY Y-dimension.
+     * @param nZ Z-dimension.
+     * @param threadCount Number of threads.
+     * @return true if the plan was made for this size and thread count.
+     */
+    public boolean matches(int nX, int nY, int nZ, int threadCount) {
+        return this.nX == nX && this.nY == nY && this.nZ == nZ
+                && this.threadCount == threadCount;
+    }
+
+    /**
+     * The key used to look up plans in the wisdom file.
+     *
+     * @param nX X-dimension.
+     * @param nY Y-dimension.
+     * @param nZ Z-dimension.
+     * @param threadCount Number of threads.
+     * @return the key.
+     */
+    public static String key(int nX, int nY, int nZ, int threadCount) {
+        return nX + "x" + nY + "x" + nZ + "/" + threadCount;
+    }
+
+    public String key() {
+        return key(nX, nY, nZ, threadCount);
+    }
+
+    /**
+     * Parse a plan written by toString.
+     *
+     * @param line a line of the wisdom file.
+     * @return the plan, or null if the line could not be parsed or holds a
+     * factorization that Complex cannot use.
+     */
+    public static FFTPlan parse(String line) {
+        try {
+            String tokens[] = line.trim().split(" +");
+            if (tokens.length < 4) {
+                return null;
+            }
+            String size[] = tokens[0].split("[x/]");
+            int nX = Integer.parseInt(size[0]);
+            int nY = Integer.parseInt(size[1]);
+            int nZ = Integer.parseInt(size[2]);
+            int threads = Integer.parseInt(size[3]);
+            int zTile = 1;
+            if (tokens.length > 4) {
+                zTile = Integer.parseInt(tokens[4]);
+            }
+            int factorsX[] = parseFactors(tokens[1]);
+            int factorsY[] = parseFactors(tokens[2]);
+            int factorsZ[] = parseFactors(tokens[3]);
+            if (!validFactors(nX, factorsX) || !validFactors(nY, factorsY)
+                    || !validFactors(nZ, factorsZ)) {
+                return null;
+            }
+            return new FFTPlan(nX, nY, nZ, threads, factorsX, factorsY, factorsZ, zTile);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Check that each factor is supported and that their product equals n.
+     */
+    private static boolean validFactors(int n, int factors[]) {
+        int product = 1;
+        for (int factor : factors) {
+            if (!Complex.isSupportedFactor(factor)) {
+                return false;
+            }
+            product *= factor;
+        }
+        return product == n;
+    }
+
+    private static int[] parseFactors(String token) {
+        String values[] = token.split(",");
+        int factors[] = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            factors[i] = Integer.parseInt(values[i]);
+        }
+        return factors;
+    }
+
+    private static String formatFactors(int factors[]) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < factors.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(factors[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return key() + " " + formatFactors(factorsX) + " "
+                + formatFactors(factorsY) + " " + formatFactors(factorsZ) + " " + zTile;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof FFTPlan)) {
+            return false;
+        }
+        FFTPlan other = (FFTPlan) obj;
+        return matches(other.nX, other.nY, other.nZ, other.threadCount)
+                && Arrays.equals(factorsX, other.factorsX)
+                && Arrays.equals(factorsY, other.factorsY)
+                && Arrays.equals(factorsZ, other.factorsZ)
+                && zTile == other.zTile;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+}
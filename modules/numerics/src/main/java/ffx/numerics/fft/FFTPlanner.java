@@ -0,0 +1,334 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.numerics.fft;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+
+import edu.rit.pj.ParallelTeam;
+
+/**
+ * The FFTPlanner chooses an {@link FFTPlan} for each 3D FFT size and thread
+ * count. The first time a size is needed, candidate plans are benchmarked on
+ * the ParallelTeam that will run the transform and the fastest is kept. Plans
+ * are cached for the life of the JVM and persisted to a wisdom file so that
+ * later runs skip the benchmark.
+ *
+ * The behavior is selected with the "fft-plan" system property:
+ * <ul>
+ * <li>default: use the standard factorization (no tuning).</li>
+ * <li>wisdom: use plans from the wisdom file, but never benchmark.</li>
+ * <li>tune: use the wisdom file, benchmarking sizes that are missing.</li>
+ * </ul>
+ * The wisdom file defaults to ~/.ffx/fft-wisdom.txt and can be set with the
+ * "fft-wisdom" system property.
+ *
+ * @author Michael J. Schnieders
+ *
+ * @since 1.0
+ */
+public class FFTPlanner {
+
+    private static final Logger logger = Logger.getLogger(FFTPlanner.class.getName());
+
+    /**
+     * Planning modes.
+     */
+    public enum PlanMode {
+        DEFAULT, WISDOM, TUNE
+    }
+
+    /**
+     * Preferred factor sets used to build candidate plans.
+     */
+    private static final int candidateFactors[][] = {{7, 6, 5, 4, 3, 2}, {5, 3, 2}};
+    private static final int benchmarkRepetitions = 3;
+    /**
+     * Target size in bytes of a tile of Z-columns.
+     */
+    private static final int zTileBytes = 32 * 1024;
+    private static final int maxZTile = 16;
+
+    private static final HashMap<String, FFTPlan> plans = new HashMap<>();
+    private static PlanMode mode = null;
+    private static File wisdomFile = null;
+    private static boolean wisdomLoaded = false;
+
+    private FFTPlanner() {
+    }
+
+    /**
+     * Get the plan for a transform, benchmarking candidate plans if requested.
+     *
+     * @param nX X-dimension.
+     * @param nY Y-dimension.
+     * @param nZ Z-dimension.
+     * @param parallelTeam The ParallelTeam that will execute the transform.
+     * @return the plan, or null to use the standard factorization.
+     */
+    public static synchronized FFTPlan getPlan(int nX, int nY, int nZ, ParallelTeam parallelTeam) {
+        if (getMode() == PlanMode.DEFAULT) {
+            return null;
+        }
+        int threadCount = parallelTeam.getThreadCount();
+        String key = FFTPlan.key(nX, nY, nZ, threadCount);
+        if (!wisdomLoaded) {
+            loadWisdom();
+        }
+        FFTPlan plan = plans.get(key);
+        if (plan == null && mode == PlanMode.TUNE) {
+            plan = tune(nX, nY, nZ, parallelTeam);
+            plans.put(key, plan);
+            saveWisdom(plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Set the planning mode, overriding the "fft-plan" system property.
+     *
+     * @param planMode the planning mode.
+     */
+    public static synchronized void setMode(PlanMode planMode) {
+        mode = planMode;
+    }
+
+    /**
+     * Set the wisdom file, overriding the "fft-wisdom" system property. Plans
+     * already cached remain in use.
+     *
+     * @param file the wisdom file.
+     */
+    public static synchronized void setWisdomFile(File file) {
+        wisdomFile = file;
+        wisdomLoaded = false;
+    }
+
+    private static PlanMode getMode() {
+        if (mode == null) {
+            String value = System.getProperty("fft-plan", "default");
+            try {
+                mode = PlanMode.valueOf(value.trim().toUpperCase());
+            } catch (Exception e) {
+                logger.warning(format(" Unrecognized fft-plan %s; using the default FFT plan.", value));
+                mode = PlanMode.DEFAULT;
+            }
+        }
+        return mode;
+    }
+
+    private static File getWisdomFile() {
+        if (wisdomFile == null) {
+            String defaultFile = System.getProperty("user.home") + File.separator
+                    + ".ffx" + File.separator + "fft-wisdom.txt";
+            wisdomFile = new File(System.getProperty("fft-wisdom", defaultFile));
+        }
+        return wisdomFile;
+    }
+
+    /**
+     * Benchmark candidate plans and return the fastest.
+     */
+    private static FFTPlan tune(int nX, int nY, int nZ, ParallelTeam parallelTeam) {
+        int threadCount = parallelTeam.getThreadCount();
+        List<FFTPlan> candidates = candidates(nX, nY, nZ, threadCount);
+        int n = nX * nY * nZ;
+        double data[] = new double[2 * n];
+        double recip[] = new double[n];
+        Random random = new Random(1);
+        for (int i = 0; i < n; i++) {
+            recip[i] = random.nextDouble();
+        }
+        FFTPlan best = candidates.get(0);
+        long bestTime = Long.MAX_VALUE;
+        for (FFTPlan candidate : candidates) {
+            Complex3DParallel fft = new Complex3DParallel(nX, nY, nZ, parallelTeam, null, candidate);
+            fft.setRecip(recip);
+            long time = Long.MAX_VALUE;
+            // The first convolution warms up the JIT and is not counted.
+            for (int rep = 0; rep <= benchmarkRepetitions; rep++) {
+                for (int i = 0; i < 2 * n; i++) {
+                    data[i] = random.nextDouble();
+                }
+                long start = System.nanoTime();
+                fft.convolution(data);
+                long elapsed = System.nanoTime() - start;
+                if (rep > 0 && elapsed < time) {
+                    time = elapsed;
+                }
+            }
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine(format(" FFT plan %s: %8.3f (msec)", candidate, time * 1.0e-6));
+            }
+            if (time < bestTime) {
+                bestTime = time;
+                best = candidate;
+            }
+        }
+        logger.info(format(" Tuned FFT plan %s (%8.3f msec per convolution).", best, bestTime * 1.0e-6));
+        return best;
+    }
+
+    /**
+     * Build the distinct candidate plans for a transform. The standard
+     * factorization is always first. Each factorization is paired with both
+     * the in place and the tiled Z pass.
+     */
+    static List<FFTPlan> candidates(int nX, int nY, int nZ, int threadCount) {
+        List<FFTPlan> candidates = new ArrayList<>();
+        int defaultX[] = new Complex(nX).getFactors();
+        int defaultY[] = new Complex(nY).getFactors();
+        int defaultZ[] = new Complex(nZ).getFactors();
+        addCandidate(candidates, new FFTPlan(nX, nY, nZ, threadCount, defaultX, defaultY, defaultZ));
+        addCandidate(candidates, new FFTPlan(nX, nY, nZ, threadCount,
+                reverse(defaultX), reverse(defaultY), reverse(defaultZ)));
+        for (int preferred[] : candidateFactors) {
+            addCandidate(candidates, new FFTPlan(nX, nY, nZ, threadCount,
+                    factor(nX, preferred), factor(nY, preferred), factor(nZ, preferred)));
+        }
+        int zTile = zTile(nZ);
+        if (zTile > 1) {
+            int n = candidates.size();
+            for (int i = 0; i < n; i++) {
+                FFTPlan plan = candidates.get(i);
+                addCandidate(candidates, new FFTPlan(nX, nY, nZ, threadCount,
+                        plan.getFactorsX(), plan.getFactorsY(), plan.getFactorsZ(), zTile));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * The number of Z-columns whose complex data fits in zTileBytes.
+     */
+    static int zTile(int nZ) {
+        return Math.max(1, Math.min(maxZTile, zTileBytes / (16 * nZ)));
+    }
+
+    private static void addCandidate(List<FFTPlan> candidates, FFTPlan plan) {
+        if (!candidates.contains(plan)) {
+            candidates.add(plan);
+        }
+    }
+
+    private static int[] reverse(int factors[]) {
+        int n = factors.length;
+        int reversed[] = new int[n];
+        for (int i = 0; i < n; i++) {
+            reversed[i] = factors[n - 1 - i];
+        }
+        return reversed;
+    }
+
+    /**
+     * Factor n using the preferred factors first, followed by any remaining
+     * odd primes.
+     */
+    private static int[] factor(int n, int preferred[]) {
+        List<Integer> factors = new ArrayList<>();
+        int ntest = n;
+        for (int factor : preferred) {
+            while (ntest % factor == 0) {
+                ntest /= factor;
+                factors.add(factor);
+            }
+        }
+        int factor = 3;
+        while (ntest > 1) {
+            while (ntest % factor != 0) {
+                factor += 2;
+            }
+            ntest /= factor;
+            factors.add(factor);
+        }
+        int ret[] = new int[factors.size()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = factors.get(i);
+        }
+        return ret;
+    }
+
+    private static void loadWisdom() {
+        wisdomLoaded = true;
+        File file = getWisdomFile();
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line = br.readLine();
+            while (line != null) {
+                FFTPlan plan = FFTPlan.parse(line);
+                if (plan != null) {
+                    plans.put(plan.key(), plan);
+                } else if (!line.trim().isEmpty()) {
+                    logger.fine(format(" Discarding FFT wisdom entry: %s", line.trim()));
+                }
+                line = br.readLine();
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, format(" Exception reading FFT wisdom from %s.", file), e);
+        }
+    }
+
+    private static void saveWisdom(FFTPlan plan) {
+        File file = getWisdomFile();
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            logger.warning(format(" Could not create directory for FFT wisdom %s.", file));
+            return;
+        }
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, true))) {
+            bw.write(plan.toString());
+            bw.newLine();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, format(" Exception writing FFT wisdom to %s.", file), e);
+        }
+    }
+}
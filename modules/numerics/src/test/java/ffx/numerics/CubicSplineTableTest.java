@@ -0,0 +1,174 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.numerics;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.assertEquals;
+
+import static org.apache.commons.math3.util.FastMath.PI;
+import static org.apache.commons.math3.util.FastMath.exp;
+import static org.apache.commons.math3.util.FastMath.sqrt;
+
+/**
+ * Parameterized test of the CubicSplineTable class using the Ewald damping
+ * functions erfc(a * r) and exp(-a^2 * r^2).
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@RunWith(Parameterized.class)
+public class CubicSplineTableTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {"100 Intervals", 100, 1.0e-6},
+            {"1000 Intervals", 1000, 1.0e-10},
+            {"10000 Intervals", 10000, 1.0e-13}
+        });
+    }
+
+    private static final double aewald = 0.545;
+    private static final double cutoff = 7.0;
+    private final String info;
+    private final int nIntervals;
+    private final double tolerance;
+    private final CubicSplineTable table;
+
+    public CubicSplineTableTest(String info, int nIntervals, double tolerance) {
+        this.info = info;
+        this.nIntervals = nIntervals;
+        this.tolerance = tolerance;
+        double values[][] = new double[2][nIntervals + 1];
+        double derivatives[][] = new double[2][nIntervals + 1];
+        for (int j = 0; j <= nIntervals; j++) {
+            double r = cutoff * j / nIntervals;
+            double ralpha = aewald * r;
+            double exp2a = exp(-ralpha * ralpha);
+            values[0][j] = Erf.erfc(ralpha);
+            derivatives[0][j] = -2.0 * aewald / sqrt(PI) * exp2a;
+            values[1][j] = exp2a;
+            derivatives[1][j] = -2.0 * aewald * ralpha * exp2a;
+        }
+        table = new CubicSplineTable(0.0, cutoff, nIntervals, values, derivatives);
+    }
+
+    /**
+     * The table reproduces the functions at and between the knots.
+     */
+    @Test
+    public void testValues() {
+        double values[] = new double[2];
+        int n = 7919;
+        for (int i = 0; i <= n; i++) {
+            double r = cutoff * i / n;
+            double ralpha = aewald * r;
+            double exp2a = exp(-ralpha * ralpha);
+            assertEquals(info + " erfc at " + r, Erf.erfc(ralpha), table.value(0, r), tolerance);
+            assertEquals(info + " exp at " + r, exp2a, table.value(1, r), tolerance);
+            table.values(r, values);
+            assertEquals(info + " erfc at " + r, Erf.erfc(ralpha), values[0], tolerance);
+            assertEquals(info + " exp at " + r, exp2a, values[1], tolerance);
+        }
+    }
+
+    /**
+     * The derivative of the interpolant approximates the derivative of the
+     * function to one less order of the knot spacing.
+     */
+    @Test
+    public void testDerivatives() {
+        int n = 7919;
+        double derivativeTolerance = tolerance * nIntervals;
+        for (int i = 0; i <= n; i++) {
+            double r = cutoff * i / n;
+            double ralpha = aewald * r;
+            double exp2a = exp(-ralpha * ralpha);
+            assertEquals(info + " d/dr erfc at " + r, -2.0 * aewald / sqrt(PI) * exp2a,
+                    table.derivative(0, r), derivativeTolerance);
+            assertEquals(info + " d/dr exp at " + r, -2.0 * aewald * ralpha * exp2a,
+                    table.derivative(1, r), derivativeTolerance);
+        }
+    }
+
+    /**
+     * A single lookup returns the value and the derivative of the
+     * interpolant, which agrees with finite differences of the interpolated
+     * value away from the knots.
+     */
+    @Test
+    public void testValueAndDerivative() {
+        double result[] = new double[2];
+        double spacing = cutoff / nIntervals;
+        double h = 1.0e-3 * spacing;
+        int n = 7919;
+        for (int i = 1; i < n; i++) {
+            double r = cutoff * i / n;
+            for (int f = 0; f < 2; f++) {
+                table.valueAndDerivative(f, r, result);
+                assertEquals(info + " value at " + r, table.value(f, r), result[0], 0.0);
+                assertEquals(info + " derivative at " + r, table.derivative(f, r), result[1], 1.0e-12);
+                double t = r / spacing - Math.floor(r / spacing);
+                if (t * spacing > h && (1.0 - t) * spacing > h) {
+                    double numeric = (table.value(f, r + h) - table.value(f, r - h)) / (2.0 * h);
+                    assertEquals(info + " finite difference at " + r, numeric, result[1], 1.0e-6);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check the table range.
+     */
+    @Test
+    public void testRange() {
+        assertEquals(info, true, table.contains(0.0));
+        assertEquals(info, true, table.contains(cutoff));
+        assertEquals(info, false, table.contains(cutoff + 1.0e-8));
+        assertEquals(info, false, table.contains(-1.0e-8));
+        assertEquals(info, nIntervals, table.getNumberOfIntervals());
+        assertEquals(info, 2, table.getNumberOfFunctions());
+    }
+}
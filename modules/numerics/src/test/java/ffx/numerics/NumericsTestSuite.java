@@ -46,6 +46,6 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 @RunWith(Suite.class)
 @SuiteClasses({ErfTest.class, SquareRootTest.class,
-    MultipoleTensorTest.class, UniformBSplineTest.class})
+    MultipoleTensorTest.class, UniformBSplineTest.class, CubicSplineTableTest.class})
 public class NumericsTestSuite {
 }
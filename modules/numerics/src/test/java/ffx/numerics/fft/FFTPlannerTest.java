@@ -0,0 +1,195 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.numerics.fft;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import edu.rit.pj.ParallelTeam;
+
+/**
+ *
+ * @author Michael J. Schnieders
+ */
+@RunWith(Parameterized.class)
+public class FFTPlannerTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{{"Test nx=32, ny=32, nz=32, nCPUs=1}", 32, 32, 32, 1},
+        {"Test nx=48, ny=45, nz=21, nCPUs=2}", 48, 45, 21, 2},
+        {"Test nx=60, ny=42, nz=30, nCPUs=2}", 60, 42, 30, 2}
+        });
+    }
+    private final String info;
+    private final int nx;
+    private final int ny;
+    private final int nz;
+    private final int tot;
+    private final double data[];
+    private final double expected[];
+    private final double recip[];
+    private final ParallelTeam parallelTeam;
+    private final double tolerance = 1.0e-12;
+
+    public FFTPlannerTest(String info, int nx, int ny, int nz, int nCPUs) {
+        this.info = info;
+        this.nx = nx;
+        this.ny = ny;
+        this.nz = nz;
+        tot = nx * ny * nz;
+        data = new double[tot * 2];
+        expected = new double[tot];
+        recip = new double[tot];
+        parallelTeam = new ParallelTeam(nCPUs);
+    }
+
+    @Before
+    public void setUp() {
+        Random random = new Random();
+        for (int i = 0; i < tot; i++) {
+            double r = random.nextDouble();
+            expected[i] = r;
+            recip[i] = 1.0e0;
+        }
+    }
+
+    /**
+     * Each candidate plan must reproduce the input after a unit convolution.
+     */
+    @Test
+    public void testCandidatePlans() {
+        int threadCount = parallelTeam.getThreadCount();
+        List<FFTPlan> plans = FFTPlanner.candidates(nx, ny, nz, threadCount);
+        assertTrue(info, plans.size() > 1);
+        for (FFTPlan plan : plans) {
+            for (int i = 0; i < tot; i++) {
+                data[i * 2] = expected[i];
+                data[i * 2 + 1] = 0.0;
+            }
+            Complex3DParallel complex3D = new Complex3DParallel(nx, ny, nz, parallelTeam, null, plan);
+            complex3D.setRecip(recip);
+            complex3D.convolution(data);
+            for (int i = 0; i < tot; i++) {
+                double actual = data[i * 2] / tot;
+                assertEquals(info + " " + plan, expected[i], actual, tolerance);
+            }
+        }
+    }
+
+    /**
+     * The tiled Z pass must give results identical to the in place Z pass.
+     */
+    @Test
+    public void testZTile() {
+        int threadCount = parallelTeam.getThreadCount();
+        int fx[] = new Complex(nx).getFactors();
+        int fy[] = new Complex(ny).getFactors();
+        int fz[] = new Complex(nz).getFactors();
+        FFTPlan inPlace = new FFTPlan(nx, ny, nz, threadCount, fx, fy, fz, 1);
+        FFTPlan tiled = new FFTPlan(nx, ny, nz, threadCount, fx, fy, fz, 5);
+        Complex3DParallel inPlaceFFT = new Complex3DParallel(nx, ny, nz, parallelTeam, null, inPlace);
+        Complex3DParallel tiledFFT = new Complex3DParallel(nx, ny, nz, parallelTeam, null, tiled);
+        Random random = new Random(1);
+        for (int i = 0; i < tot; i++) {
+            recip[i] = random.nextDouble();
+        }
+        inPlaceFFT.setRecip(recip);
+        tiledFFT.setRecip(recip);
+        for (int i = 0; i < 2 * tot; i++) {
+            data[i] = random.nextDouble();
+        }
+        double tiledData[] = data.clone();
+        inPlaceFFT.fft(data);
+        tiledFFT.fft(tiledData);
+        assertArrayEquals(info, data, tiledData, 0.0);
+        inPlaceFFT.ifft(data);
+        tiledFFT.ifft(tiledData);
+        assertArrayEquals(info, data, tiledData, 0.0);
+        inPlaceFFT.convolution(data);
+        tiledFFT.convolution(tiledData);
+        assertArrayEquals(info, data, tiledData, 0.0);
+    }
+
+    /**
+     * Plans must survive a round trip through the wisdom file format.
+     */
+    @Test
+    public void testParse() {
+        int threadCount = parallelTeam.getThreadCount();
+        for (FFTPlan plan : FFTPlanner.candidates(nx, ny, nz, threadCount)) {
+            FFTPlan parsed = FFTPlan.parse(plan.toString());
+            assertEquals(info, plan, parsed);
+            assertArrayEquals(info, plan.getFactorsZ(), parsed.getFactorsZ());
+        }
+    }
+
+    /**
+     * Wisdom entries with factors that have no radix pass must be discarded.
+     */
+    @Test
+    public void testParseUnsupportedFactors() {
+        int threadCount = parallelTeam.getThreadCount();
+        FFTPlan plan = FFTPlanner.candidates(nx, ny, nz, threadCount).get(0);
+        String tokens[] = plan.toString().split(" ");
+        tokens[1] = Integer.toString(nx);
+        assertNull(info, FFTPlan.parse(String.join(" ", tokens)));
+        tokens[1] = "2," + Integer.toString(nx);
+        assertNull(info, FFTPlan.parse(String.join(" ", tokens)));
+        try {
+            new Complex(nx, new int[]{nx});
+            fail(info + " factor " + nx + " should be rejected.");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+}
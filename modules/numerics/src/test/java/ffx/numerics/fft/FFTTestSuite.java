@@ -46,6 +46,6 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 @RunWith(Suite.class)
 @SuiteClasses({ComplexTest.class, Complex3DTest.class, Complex3DParallelTest.class,
-    RealTest.class, Real3DTest.class, Real3DParallelTest.class})
+    FFTPlannerTest.class, RealTest.class, Real3DTest.class, Real3DParallelTest.class})
 public class FFTTestSuite {
 }
@@ -159,6 +159,44 @@ public abstract class Buf {
      */
     public abstract Buf getTemporaryBuf();
 
+    /**
+     * Create a buffer for sending and receiving a contiguous run of this
+     * buffer's items. The slice has <TT>theLength</TT> items, starting with
+     * this buffer's item at index <TT>theOffset</TT>. Items sent from the slice
+     * come from this buffer, and items received into the slice are stored into
+     * this buffer the same way this buffer would store them (so a slice of a
+     * reduction buffer performs the reduction). The slice can only be used to
+     * send and receive messages.
+     *
+     * @param theOffset Index of the slice's first item.
+     * @param theLength Number of items in the slice.
+     * @return Slice buffer.
+     * @exception IndexOutOfBoundsException (unchecked exception) Thrown if the
+     * slice does not lie within this buffer.
+     * @exception UnsupportedOperationException (unchecked exception) Thrown if
+     * this buffer's items are objects.
+     */
+    public Buf getSliceBuf(int theOffset,
+            int theLength) {
+        if (theOffset < 0 || theLength < 0 || theOffset + theLength > myLength) {
+            throw new IndexOutOfBoundsException("Buf.getSliceBuf(): Slice (" + theOffset + "," + theLength + ") out of bounds");
+        }
+        if (myMessageType == Constants.TYPE_OBJECT) {
+            throw new UnsupportedOperationException("Buf.getSliceBuf(): Object buffers cannot be sliced");
+        }
+        return new SliceBuf(this, theOffset, theLength);
+    }
+
+    /**
+     * Determine whether this buffer supports {@link #getSliceBuf(int,int)}.
+     *
+     * @return True if this buffer's items are of a primitive type, false if
+     * they are objects.
+     */
+    public boolean isSliceable() {
+        return myMessageType != Constants.TYPE_OBJECT;
+    }
+
 // Hidden operations.
     /**
      * Called by the I/O thread before sending message items using this buffer.
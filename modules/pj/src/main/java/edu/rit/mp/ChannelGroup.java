@@ -204,6 +204,19 @@ import java.util.List;
  * must call the IORequest object's <TT>waitForFinish()</TT> method, which
  * returns a {@linkplain Status} object giving the results of the receive
  * operation.
+ * <P>
+ * <B>Network Channel Transports</B>
+ * <P>
+ * By default, each network channel has its own thread for sending messages and
+ * its own thread for receiving messages, each performing blocking I/O. After
+ * calling <TT>useSelectors()</TT>, network channels instead perform
+ * non-blocking I/O serviced by a small, fixed number of selector threads that
+ * is independent of the number of channels. The send and receive semantics are
+ * the same either way.
+ * <P>
+ * After calling <TT>useSharedMemory(true)</TT>, network channels between
+ * processes on the same host exchange message bytes through memory-mapped ring
+ * buffers instead of the TCP loopback interface.
  *
  * @author Alan Kaminsky
  * @version 11-Mar-2009
@@ -242,6 +255,17 @@ public class ChannelGroup {
     // For timeouts during channel setup.
     TimerThread myTimerThread;
 
+    // Selector transports for network channels, or null if each network
+    // channel uses its own send and receive threads.
+    volatile SelectorTransport[] mySelectorTransports;
+
+    // Index of the selector transport for the next network channel.
+    int myNextSelectorTransport;
+
+    // True if network channels to processes on the same host use shared
+    // memory.
+    boolean myUseSharedMemory;
+
 // Hidden helper classes.
     /**
      * Class AcceptThread provides a thread that accepts incoming connections.
@@ -439,6 +463,75 @@ public class ChannelGroup {
         return myChannelGroupId;
     }
 
+    /**
+     * Use selector transports for this channel group's network channels. Each
+     * network channel created after this method is called performs its I/O
+     * with non-blocking sockets serviced by one of <TT>theSelectorCount</TT>
+     * selector threads, assigned round robin, instead of with its own send and
+     * receive threads. The message format on the wire is unchanged. Channels
+     * created before this method is called are not affected, so it should be
+     * called before listening for or requesting connections.
+     *
+     * @param theSelectorCount Number of selector threads.
+     * @exception IllegalArgumentException (unchecked exception) Thrown if
+     * <TT>theSelectorCount</TT> &lt; 1.
+     * @exception IllegalStateException (unchecked exception) Thrown if selector
+     * transports are already in use.
+     * @exception IOException Thrown if an I/O error occurred.
+     * @throws java.io.IOException if any.
+     */
+    public synchronized void useSelectors(int theSelectorCount)
+            throws IOException {
+        if (theSelectorCount < 1) {
+            throw new IllegalArgumentException("ChannelGroup.useSelectors(): theSelectorCount = " + theSelectorCount + " illegal");
+        }
+        if (mySelectorTransports != null) {
+            throw new IllegalStateException("ChannelGroup.useSelectors(): Selector transports already in use");
+        }
+        SelectorTransport[] transports = new SelectorTransport[theSelectorCount];
+        for (int i = 0; i < theSelectorCount; ++i) {
+            transports[i] = new SelectorTransport(this, i);
+        }
+        mySelectorTransports = transports;
+    }
+
+    /**
+     * Obtain the number of selector threads used by this channel group's
+     * network channels.
+     *
+     * @return Number of selector threads, or 0 if each network channel uses its
+     * own send and receive threads.
+     */
+    public synchronized int selectorCount() {
+        return mySelectorTransports == null ? 0 : mySelectorTransports.length;
+    }
+
+    /**
+     * Specify whether this channel group's network channels to processes on the
+     * same host use shared memory. If true, when a network channel is set up
+     * and both ends are on the same host and willing, the message bytes are
+     * exchanged through memory-mapped ring buffers rather than the TCP loopback
+     * interface; the TCP connection remains open to signal arrivals and the end
+     * of the connection. Such channels use their own send and receive threads
+     * even if selector transports are in use. Channels created before this
+     * method is called are not affected.
+     *
+     * @param theFlag True to use shared memory, false otherwise.
+     */
+    public synchronized void useSharedMemory(boolean theFlag) {
+        myUseSharedMemory = theFlag;
+    }
+
+    /**
+     * Determine whether this channel group's network channels to processes on
+     * the same host use shared memory.
+     *
+     * @return True if shared memory is used, false otherwise.
+     */
+    public synchronized boolean sharedMemory() {
+        return myUseSharedMemory;
+    }
+
     /**
      * Obtain this channel group's listen address. This is the near end host and
      * port to which this channel group is listening for connection requests. If
@@ -980,6 +1073,14 @@ public class ChannelGroup {
 
         theIORequest.initialize(theChannel, theTagLb, theTagUb, theDst);
         myIORequestList.add(theIORequest);
+
+        // Let selector transports retry channels waiting for a receive request.
+        SelectorTransport[] transports = mySelectorTransports;
+        if (transports != null) {
+            for (SelectorTransport transport : transports) {
+                transport.receivePosted();
+            }
+        }
     }
 
     /**
@@ -1021,6 +1122,13 @@ public class ChannelGroup {
             myIORequestList.reportFailure(new ChannelGroupClosedException("Channel group closed"));
         }
 
+        // Shut down selector transports.
+        if (mySelectorTransports != null) {
+            for (SelectorTransport transport : mySelectorTransports) {
+                transport.shutdown();
+            }
+        }
+
         // Enable garbage collection of fields.
         myServerSocketChannel = null;
         myIORequestList = null;
@@ -1028,6 +1136,7 @@ public class ChannelGroup {
         myLoopbackChannel = null;
         myChannelList = null;
         myAcceptThread = null;
+        mySelectorTransports = null;
     }
 
     /**
@@ -1062,6 +1171,8 @@ public class ChannelGroup {
         out.println(prefix + "myConnectListener = " + myConnectListener);
         out.println(prefix + "myLogger = " + myLogger);
         out.println(prefix + "myTimerThread = " + myTimerThread);
+        out.println(prefix + "mySelectorTransports = " + selectorCount());
+        out.println(prefix + "myUseSharedMemory = " + myUseSharedMemory);
     }
 
 // Hidden operations.
@@ -1105,13 +1216,17 @@ public class ChannelGroup {
         if (theSocketChannel.read(buf) != 4) {
             throw new IOException("ChannelGroup.nearEndConnect(): Cannot receive channel group ID");
         }
-        timer.stop();
         buf.flip();
         int farChannelGroupId = buf.getInt();
 
+        // Set up shared memory if the far end is on the same host.
+        SharedMemoryByteChannel shm
+                = SharedMemoryByteChannel.negotiate(theSocketChannel, sharedMemory());
+        timer.stop();
+
         // Set up channel.
         Channel channel
-                = createNetworkChannel(theSocketChannel, farChannelGroupId);
+                = createNetworkChannel(theSocketChannel, shm, farChannelGroupId);
 
         // Inform listener if any.
         if (myConnectListener != null) {
@@ -1159,7 +1274,6 @@ public class ChannelGroup {
             if (theSocketChannel.read(buf) != 4) {
                 throw new IOException("ChannelGroup.farEndConnect(): Cannot receive channel group ID");
             }
-            timer.stop();
             buf.flip();
             int farChannelGroupId = buf.getInt();
 
@@ -1171,9 +1285,14 @@ public class ChannelGroup {
                 throw new IOException("ChannelGroup.farEndConnect(): Cannot send channel group ID");
             }
 
+            // Set up shared memory if the far end is on the same host.
+            SharedMemoryByteChannel shm
+                    = SharedMemoryByteChannel.negotiate(theSocketChannel, sharedMemory());
+            timer.stop();
+
             // Set up channel.
             Channel channel
-                    = createNetworkChannel(theSocketChannel, farChannelGroupId);
+                    = createNetworkChannel(theSocketChannel, shm, farChannelGroupId);
 
             // Inform listener if any.
             if (myConnectListener != null) {
@@ -1196,6 +1315,8 @@ public class ChannelGroup {
      * channel group is closed, null is returned.
      *
      * @param theSocketChannel Socket channel.
+     * @param theSharedMemory Shared memory byte channel set up over the socket
+     * channel, or null if none.
      * @param theFarChannelGroupId Far end channel group ID.
      *
      * @return New channel, or null.
@@ -1203,12 +1324,25 @@ public class ChannelGroup {
      * @exception IOException Thrown if an I/O error occurred.
      */
     synchronized Channel createNetworkChannel(SocketChannel theSocketChannel,
+            SharedMemoryByteChannel theSharedMemory,
             int theFarChannelGroupId)
             throws IOException {
         Channel channel = null;
         if (myIORequestList != null) {
-            channel
-                    = new NetworkChannel(this, theSocketChannel, theFarChannelGroupId);
+            if (theSharedMemory != null) {
+                channel
+                        = new NetworkChannel(this, theSocketChannel, theSharedMemory, theFarChannelGroupId);
+            } else if (mySelectorTransports != null) {
+                SelectorTransport transport
+                        = mySelectorTransports[myNextSelectorTransport];
+                myNextSelectorTransport
+                        = (myNextSelectorTransport + 1) % mySelectorTransports.length;
+                channel
+                        = new SelectorChannel(this, theSocketChannel, theFarChannelGroupId, transport);
+            } else {
+                channel
+                        = new NetworkChannel(this, theSocketChannel, theFarChannelGroupId);
+            }
             myChannelList.add(channel);
         }
         return channel;
@@ -61,4 +61,8 @@ class Constants {
 // header (20) minus the TCP header (20), times 20.
     static final int BUFFER_SIZE = 29200;
 
+// Shared memory ring buffer size in bytes for channels between processes on the
+// same host. Must be a power of 2.
+    static final int SHM_RING_SIZE = 262144;
+
 }
@@ -29,6 +29,7 @@ import java.io.InterruptedIOException;
 
 import java.net.InetSocketAddress;
 
+import java.nio.channels.ByteChannel;
 import java.nio.channels.SocketChannel;
 
 import java.util.concurrent.LinkedBlockingQueue;
@@ -47,6 +48,10 @@ class NetworkChannel
     // Underlying socket channel.
     private SocketChannel mySocketChannel;
 
+    // Byte channel carrying the messages; either the socket channel or a
+    // shared memory byte channel set up over it.
+    private ByteChannel myByteChannel;
+
     // Far end channel group ID.
     private int myFarChannelGroupId;
 
@@ -68,8 +73,25 @@ class NetworkChannel
     NetworkChannel(ChannelGroup theChannelGroup,
             SocketChannel theSocketChannel,
             int theFarChannelGroupId) {
+        this(theChannelGroup, theSocketChannel, theSocketChannel, theFarChannelGroupId);
+    }
+
+    /**
+     * Construct a new network channel whose messages are carried by the given
+     * byte channel instead of directly by the socket channel.
+     *
+     * @param theChannelGroup Enclosing channel group.
+     * @param theSocketChannel Underlying socket channel.
+     * @param theByteChannel Byte channel carrying the messages.
+     * @param theFarChannelGroupId Far end channel group ID.
+     */
+    NetworkChannel(ChannelGroup theChannelGroup,
+            SocketChannel theSocketChannel,
+            ByteChannel theByteChannel,
+            int theFarChannelGroupId) {
         super(theChannelGroup);
         mySocketChannel = theSocketChannel;
+        myByteChannel = theByteChannel;
         myFarChannelGroupId = theFarChannelGroupId;
         myOutgoingQueue = new LinkedBlockingQueue<IORequest>();
     }
@@ -120,11 +142,11 @@ class NetworkChannel
     void start() {
         myNetworkChannelSendThread
                 = new NetworkChannelSendThread(this,
-                        mySocketChannel,
+                        myByteChannel,
                         myOutgoingQueue);
         myNetworkChannelReceiveThread
                 = new NetworkChannelReceiveThread(this,
-                        mySocketChannel);
+                        myByteChannel);
     }
 
     /**
@@ -154,7 +176,13 @@ class NetworkChannel
      * Perform additional close actions in a subclass.
      */
     void subclassClose() {
-        // Close socket channel.
+        // Close byte channel and socket channel.
+        if (myByteChannel != null) {
+            try {
+                myByteChannel.close();
+            } catch (IOException exc) {
+            }
+        }
         if (mySocketChannel != null) {
             try {
                 mySocketChannel.close();
@@ -173,6 +201,7 @@ class NetworkChannel
 
         // Enable garbage collection of data members.
         mySocketChannel = null;
+        myByteChannel = null;
         myOutgoingQueue = null;
         myNetworkChannelSendThread = null;
         myNetworkChannelReceiveThread = null;
@@ -30,8 +30,8 @@ import java.io.InterruptedIOException;
 
 import java.nio.ByteBuffer;
 
+import java.nio.channels.ByteChannel;
 import java.nio.channels.ClosedChannelException;
-import java.nio.channels.SocketChannel;
 
 /**
  * Class NetworkChannelReceiveThread provides a thread for receiving incoming
@@ -48,8 +48,8 @@ class NetworkChannelReceiveThread
     private NetworkChannel myNetworkChannel;
     private ChannelGroup myChannelGroup;
 
-    // Underlying socket channel.
-    private SocketChannel mySocketChannel;
+    // Underlying byte channel.
+    private ByteChannel myByteChannel;
 
     // Queue of incoming I/O requests.
     private IORequestList myIORequestList;
@@ -62,13 +62,13 @@ class NetworkChannelReceiveThread
      * Construct a new network channel receive thread.
      *
      * @param theNetworkChannel Enclosing network channel.
-     * @param theSocketChannel Underlying socket channel.
+     * @param theByteChannel Underlying byte channel.
      */
     NetworkChannelReceiveThread(NetworkChannel theNetworkChannel,
-            SocketChannel theSocketChannel) {
+            ByteChannel theByteChannel) {
         myNetworkChannel = theNetworkChannel;
         myChannelGroup = theNetworkChannel.myChannelGroup;
-        mySocketChannel = theSocketChannel;
+        myByteChannel = theByteChannel;
         myIORequestList = theNetworkChannel.myIORequestList;
         myByteBuffer = ByteBuffer.allocateDirect(Constants.BUFFER_SIZE);
         setDaemon(true);
@@ -92,7 +92,7 @@ class NetworkChannelReceiveThread
                 // Read the next 13-byte message header.
                 while (myByteBuffer.remaining() < 13) {
                     myByteBuffer.compact();
-                    if (mySocketChannel.read(myByteBuffer) == -1) {
+                    if (myByteChannel.read(myByteBuffer) == -1) {
                         break receiveloop;
                     }
                     myByteBuffer.flip();
@@ -132,7 +132,7 @@ class NetworkChannelReceiveThread
                 num -= n;
                 while (num > 0) {
                     myByteBuffer.compact();
-                    if (mySocketChannel.read(myByteBuffer) == -1) {
+                    if (myByteChannel.read(myByteBuffer) == -1) {
                         throw new EOFException("Unexpected end-of-stream while receiving message");
                     }
                     myByteBuffer.flip();
@@ -148,7 +148,7 @@ class NetworkChannelReceiveThread
                     num -= buf.skipItems(num, myByteBuffer);
                     while (num > 0) {
                         myByteBuffer.compact();
-                        if (mySocketChannel.read(myByteBuffer) == -1) {
+                        if (myByteChannel.read(myByteBuffer) == -1) {
                             throw new EOFException("Unexpected end-of-stream while receiving message");
                         }
                         myByteBuffer.flip();
@@ -201,7 +201,7 @@ class NetworkChannelReceiveThread
         myNetworkChannel.shutdownInput();
         myNetworkChannel = null;
         myChannelGroup = null;
-        mySocketChannel = null;
+        myByteChannel = null;
         myIORequestList = null;
         myByteBuffer = null;
     }
@@ -28,7 +28,7 @@ import java.io.IOException;
 
 import java.nio.ByteBuffer;
 
-import java.nio.channels.SocketChannel;
+import java.nio.channels.ByteChannel;
 
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -46,8 +46,8 @@ class NetworkChannelSendThread
     // Enclosing network channel.
     private NetworkChannel myNetworkChannel;
 
-    // Underlying socket channel.
-    private SocketChannel mySocketChannel;
+    // Underlying byte channel.
+    private ByteChannel myByteChannel;
 
     // Queue of outgoing I/O requests.
     private LinkedBlockingQueue<IORequest> myOutgoingQueue;
@@ -60,14 +60,14 @@ class NetworkChannelSendThread
      * Construct a new network channel send thread.
      *
      * @param theNetworkChannel Enclosing network channel.
-     * @param theSocketChannel Underlying socket channel.
+     * @param theByteChannel Underlying byte channel.
      * @param theOutgoingQueue Queue of outgoing I/O requests.
      */
     NetworkChannelSendThread(NetworkChannel theNetworkChannel,
-            SocketChannel theSocketChannel,
+            ByteChannel theByteChannel,
             LinkedBlockingQueue<IORequest> theOutgoingQueue) {
         myNetworkChannel = theNetworkChannel;
-        mySocketChannel = theSocketChannel;
+        myByteChannel = theByteChannel;
         myOutgoingQueue = theOutgoingQueue;
         myByteBuffer = ByteBuffer.allocateDirect(Constants.BUFFER_SIZE);
         setDaemon(true);
@@ -107,12 +107,12 @@ class NetworkChannelSendThread
                 while (i < msglength) {
                     i += buf.sendItems(i, myByteBuffer);
                     myByteBuffer.flip();
-                    mySocketChannel.write(myByteBuffer);
+                    myByteChannel.write(myByteBuffer);
                     myByteBuffer.compact();
                 }
                 myByteBuffer.flip();
                 while (myByteBuffer.hasRemaining()) {
-                    mySocketChannel.write(myByteBuffer);
+                    myByteChannel.write(myByteBuffer);
                     myByteBuffer.compact();
                     myByteBuffer.flip();
                 }
@@ -162,7 +162,7 @@ class NetworkChannelSendThread
         // This thread is terminating. Enable garbage collection of data
         // members.
         myNetworkChannel = null;
-        mySocketChannel = null;
+        myByteChannel = null;
         myOutgoingQueue = null;
         myByteBuffer = null;
     }
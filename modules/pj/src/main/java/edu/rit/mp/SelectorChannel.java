@@ -0,0 +1,600 @@
+//******************************************************************************
+//
+// File:    SelectorChannel.java
+// Package: edu.rit.mp
+// Unit:    Class edu.rit.mp.SelectorChannel
+//
+// This Java source file is copyright (C) 2009 by Alan Kaminsky. All rights
+// reserved. For further information, contact the author, Alan Kaminsky, at
+// ark@cs.rit.edu.
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+//******************************************************************************
+// Additional file added 10/17/2026 to provide a network channel whose messages
+// are sent and received by a SelectorTransport using non-blocking I/O. The wire
+// format is identical to NetworkChannel, so either kind of channel can talk to
+// the other.
+//******************************************************************************
+package edu.rit.mp;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import java.net.InetSocketAddress;
+
+import java.nio.ByteBuffer;
+
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Class SelectorChannel provides a channel for sending and receiving messages
+ * over the network in the Message Protocol (MP) using non-blocking I/O. All
+ * socket I/O is performed by the channel's {@linkplain SelectorTransport}
+ * thread, which drives the receive and send state machines below whenever the
+ * socket is ready.
+ * <P>
+ * A received message header is matched against the channel group's receive
+ * requests without blocking. If there is no matching request yet, the channel
+ * stops reading from the socket (so TCP flow control applies back pressure to
+ * the sender, as with a blocked receive thread) and is parked until a receive
+ * request is posted.
+ *
+ * @version $Id: $Id
+ */
+class SelectorChannel
+        extends Channel {
+
+// Hidden constants.
+    // Message header length in bytes.
+    private static final int HEADER_LENGTH = 13;
+
+    // Receive states.
+    private static final int RECEIVE_HEADER = 0;
+    private static final int RECEIVE_MATCH = 1;
+    private static final int RECEIVE_ITEMS = 2;
+    private static final int RECEIVE_SKIP = 3;
+    private static final int RECEIVE_CLOSED = 4;
+
+// Hidden data members.
+    // Underlying socket channel.
+    private SocketChannel mySocketChannel;
+
+    // Far end channel group ID.
+    private int myFarChannelGroupId;
+
+    // Transport performing this channel's I/O.
+    private SelectorTransport myTransport;
+
+    // Queue of outgoing I/O requests.
+    private ConcurrentLinkedQueue<IORequest> myOutgoingQueue
+            = new ConcurrentLinkedQueue<IORequest>();
+
+    // The remaining fields are accessed only by the transport thread.
+    // Selection key, or null if not registered yet.
+    private SelectionKey myKey;
+
+    // True once this channel has been cleaned up after closing.
+    private boolean myCleanedUp;
+
+    // Receive state.
+    private int myReceiveState = RECEIVE_HEADER;
+    private ByteBuffer myReceiveBuffer;
+    private IORequest myReceiveRequest;
+    private int myMessageTag;
+    private byte myMessageType;
+    private int myMessageLength;
+    private int myReceiveIndex;
+    private int myReceiveCount;
+
+    // Send state.
+    private ByteBuffer mySendBuffer;
+    private IORequest mySendRequest;
+    private int mySendIndex;
+    private int mySendLength;
+
+// Hidden constructors.
+    /**
+     * Construct a new selector channel.
+     *
+     * @param theChannelGroup Enclosing channel group.
+     * @param theSocketChannel Underlying socket channel.
+     * @param theFarChannelGroupId Far end channel group ID.
+     * @param theTransport Transport performing this channel's I/O.
+     */
+    SelectorChannel(ChannelGroup theChannelGroup,
+            SocketChannel theSocketChannel,
+            int theFarChannelGroupId,
+            SelectorTransport theTransport) {
+        super(theChannelGroup);
+        mySocketChannel = theSocketChannel;
+        myFarChannelGroupId = theFarChannelGroupId;
+        myTransport = theTransport;
+    }
+
+// Exported operations.
+    /**
+     * Obtain the channel group ID of this channel's near end channel group.
+     *
+     * @return Near end channel group ID.
+     */
+    public int nearEndChannelGroupId() {
+        return myChannelGroup.myChannelGroupId;
+    }
+
+    /**
+     * Obtain the channel group ID of this channel's far end channel group.
+     *
+     * @return Far end channel group ID.
+     */
+    public int farEndChannelGroupId() {
+        return myFarChannelGroupId;
+    }
+
+    /**
+     * Obtain this channel's near end address. This is the host and port of the
+     * near end of this channel's connection.
+     *
+     * @return Near end address.
+     */
+    public InetSocketAddress nearEndAddress() {
+        return (InetSocketAddress) mySocketChannel.socket().getLocalSocketAddress();
+    }
+
+    /**
+     * Obtain this channel's far end address. This is the host and port of the
+     * far end of this channel's connection.
+     *
+     * @return Far end address.
+     */
+    public InetSocketAddress farEndAddress() {
+        return (InetSocketAddress) mySocketChannel.socket().getRemoteSocketAddress();
+    }
+
+// Hidden operations.
+    /**
+     * Start sending and receiving messages via this channel.
+     */
+    void start() {
+        try {
+            mySocketChannel.configureBlocking(false);
+        } catch (IOException exc) {
+            myChannelGroup.myLogger.log("edu.rit.mp.SelectorChannel: Cannot configure non-blocking I/O",
+                    exc);
+            close();
+            return;
+        }
+        myTransport.register(this);
+    }
+
+    /**
+     * Send a message via this channel. The I/O request object must be newly
+     * constructed with the message tag and source buffer fields filled in. This
+     * method returns immediately and lets the message be sent by the transport
+     * thread. The calling thread should use the I/O request object to wait for
+     * the message send to complete.
+     *
+     * @param theIORequest I/O request object.
+     *
+     * @exception IOException Thrown if an I/O error occurred.
+     */
+    synchronized void send(IORequest theIORequest)
+            throws IOException {
+        // Check whether channel is closed.
+        if (myWriteState == WRITE_CLOSED) {
+            throw new IOException("SelectorChannel.send(): Channel closed");
+        }
+
+        // Put I/O request in outgoing queue. Transport thread will actually
+        // send the message.
+        myOutgoingQueue.add(theIORequest);
+        myTransport.sendPosted(this);
+    }
+
+    /**
+     * Perform additional close actions in a subclass.
+     */
+    void subclassClose() {
+        // Close socket channel. This also cancels the selection key.
+        try {
+            mySocketChannel.close();
+        } catch (IOException exc) {
+        }
+
+        // Let the transport thread fail any pending I/O requests.
+        myTransport.closed(this);
+    }
+
+    /**
+     * Register this channel with the given selector. Called only by the
+     * transport thread.
+     *
+     * @param theSelector Selector.
+     */
+    void register(Selector theSelector) {
+        if (myCleanedUp) {
+            return;
+        }
+        try {
+            myKey = mySocketChannel.register(theSelector, SelectionKey.OP_READ, this);
+        } catch (ClosedChannelException exc) {
+            close();
+        }
+    }
+
+    /**
+     * Receive as much as possible of the incoming messages without blocking.
+     * Called only by the transport thread.
+     */
+    void read() {
+        if (myKey == null || myCleanedUp) {
+            return;
+        }
+        try {
+            for (;;) {
+                switch (myReceiveState) {
+                    case RECEIVE_HEADER:
+                        // Read the next 13-byte message header.
+                        if (myReceiveBuffer == null) {
+                            myReceiveBuffer = myTransport.takeBuffer();
+                            myReceiveBuffer.limit(0);
+                        }
+                        if (myReceiveBuffer.remaining() < HEADER_LENGTH) {
+                            if (!fill()) {
+                                // Return an idle byte buffer to the pool.
+                                if (myReceiveBuffer != null && !myReceiveBuffer.hasRemaining()) {
+                                    myTransport.releaseBuffer(myReceiveBuffer);
+                                    myReceiveBuffer = null;
+                                }
+                                return;
+                            }
+                            continue;
+                        }
+
+                        // Extract message header fields.
+                        int magic = myReceiveBuffer.getInt();
+                        myMessageTag = myReceiveBuffer.getInt();
+                        myMessageType = myReceiveBuffer.get();
+                        myMessageLength = myReceiveBuffer.getInt();
+
+                        // If the magic number is incorrect, bad error. Close
+                        // the channel.
+                        if (magic != Constants.MAGIC_NUMBER) {
+                            myChannelGroup.myLogger.log("edu.rit.mp.SelectorChannel: Invalid magic number received");
+                            close();
+                            return;
+                        }
+                        myReceiveState = RECEIVE_MATCH;
+                        break;
+
+                    case RECEIVE_MATCH:
+                        // Look for a matching I/O request. If there is none,
+                        // stop reading and wait for one to be posted.
+                        myReceiveRequest = match();
+                        if (myReceiveRequest == null) {
+                            return;
+                        }
+
+                        // Message preprocessing.
+                        Buf buf = myReceiveRequest.myBuf;
+                        buf.preReceive(myMessageLength);
+                        myReceiveIndex = 0;
+                        myReceiveCount = Math.min(myMessageLength, buf.myMessageLength);
+                        myReceiveState = RECEIVE_ITEMS;
+                        break;
+
+                    case RECEIVE_ITEMS:
+                        // Transfer items from byte buffer to destination
+                        // buffer, reading the socket channel as needed.
+                        buf = myReceiveRequest.myBuf;
+                        int n = buf.receiveItems(myReceiveIndex, myReceiveCount, myReceiveBuffer);
+                        myReceiveIndex += n;
+                        myReceiveCount -= n;
+                        if (myReceiveCount > 0) {
+                            if (!fill()) {
+                                return;
+                            }
+                            continue;
+                        }
+
+                        // If there are more items in the message than in the
+                        // destination buffer, suck out the extra message items.
+                        myReceiveCount = myMessageLength - buf.myMessageLength;
+                        myReceiveState = RECEIVE_SKIP;
+                        break;
+
+                    case RECEIVE_SKIP:
+                        buf = myReceiveRequest.myBuf;
+                        if (myReceiveCount > 0) {
+                            myReceiveCount -= buf.skipItems(myReceiveCount, myReceiveBuffer);
+                            if (myReceiveCount > 0) {
+                                if (!fill()) {
+                                    return;
+                                }
+                                continue;
+                            }
+                        }
+
+                        // Message postprocessing.
+                        Status status = new Status(this, myMessageTag, myMessageLength);
+                        buf.postReceive(status, myChannelGroup.myClassLoader);
+                        myReceiveRequest.myStatus = status;
+
+                        // Report success to receiving thread.
+                        IORequest iorequest = myReceiveRequest;
+                        myReceiveRequest = null;
+                        myReceiveState = RECEIVE_HEADER;
+                        iorequest.reportSuccess();
+                        break;
+
+                    default:
+                        return;
+                }
+            }
+        } catch (IOException exc) {
+            // Report failure to receiving thread. Stop receiving.
+            if (myReceiveRequest != null) {
+                myReceiveRequest.reportFailure(exc);
+            }
+            shutdownInput();
+        } catch (RuntimeException exc) {
+            if (myReceiveRequest != null) {
+                myReceiveRequest.reportFailure(exc);
+            }
+            shutdownInput();
+        } catch (Error exc) {
+            if (myReceiveRequest != null) {
+                myReceiveRequest.reportFailure(exc);
+            }
+            shutdownInput();
+        }
+    }
+
+    /**
+     * Send as much as possible of the outgoing messages without blocking.
+     * Called only by the transport thread.
+     */
+    void write() {
+        if (myKey == null || myCleanedUp) {
+            return;
+        }
+        for (;;) {
+            try {
+                // Start the next outgoing message, if any.
+                if (mySendRequest == null) {
+                    mySendRequest = myOutgoingQueue.poll();
+                    if (mySendRequest == null) {
+                        // Nothing left to send. Return the byte buffer to the
+                        // pool and stop waiting for the socket to be writable.
+                        if (mySendBuffer != null) {
+                            myTransport.releaseBuffer(mySendBuffer);
+                            mySendBuffer = null;
+                        }
+                        setInterest(SelectionKey.OP_WRITE, false);
+                        return;
+                    }
+
+                    // Message preprocessing.
+                    Buf buf = mySendRequest.myBuf;
+                    buf.preSend();
+                    if (mySendBuffer == null) {
+                        mySendBuffer = myTransport.takeBuffer();
+                    }
+                    mySendBuffer.clear();
+                    mySendIndex = 0;
+                    mySendLength = buf.myMessageLength;
+
+                    // Write message header.
+                    mySendBuffer.putInt(Constants.MAGIC_NUMBER);
+                    mySendBuffer.putInt(mySendRequest.myTagLb);
+                    mySendBuffer.put(buf.myMessageType);
+                    mySendBuffer.putInt(mySendLength);
+                }
+
+                // Transfer items from source buffer to byte buffer, then from
+                // byte buffer to socket channel.
+                Buf buf = mySendRequest.myBuf;
+                if (mySendIndex < mySendLength) {
+                    mySendIndex += buf.sendItems(mySendIndex, mySendBuffer);
+                }
+                mySendBuffer.flip();
+                int n = mySocketChannel.write(mySendBuffer);
+                mySendBuffer.compact();
+
+                if (mySendIndex == mySendLength && mySendBuffer.position() == 0) {
+                    // Message postprocessing.
+                    buf.postSend();
+
+                    // Report success of current I/O request.
+                    IORequest iorequest = mySendRequest;
+                    mySendRequest = null;
+                    iorequest.reportSuccess();
+                } else if (n == 0) {
+                    // Socket send buffer is full. Wait until it is writable.
+                    setInterest(SelectionKey.OP_WRITE, true);
+                    return;
+                }
+            } catch (IOException exc) {
+                // Report failure of current I/O request.
+                failSend(exc);
+            } catch (RuntimeException exc) {
+                failSend(exc);
+            } catch (Error exc) {
+                failSend(exc);
+            }
+        }
+    }
+
+    /**
+     * Clean up after this channel has been closed. Any pending I/O requests
+     * fail with a {@linkplain ChannelClosedException}. Called only by the
+     * transport thread.
+     */
+    void cleanup() {
+        if (myCleanedUp) {
+            return;
+        }
+        myCleanedUp = true;
+        if (myKey != null) {
+            myKey.cancel();
+        }
+        ChannelClosedException exc
+                = new ChannelClosedException("Channel closed");
+
+        // Report failure of the current receive request.
+        if (myReceiveRequest != null) {
+            myReceiveRequest.reportFailure(exc);
+        }
+
+        // Report failure of the current and pending send requests.
+        IORequest iorequest = mySendRequest;
+        if (iorequest != null) {
+            iorequest.reportFailure(exc);
+        }
+        while ((iorequest = myOutgoingQueue.poll()) != null) {
+            iorequest.reportFailure(exc);
+        }
+
+        // Return byte buffers to the pool and enable garbage collection of
+        // data members.
+        if (myReceiveBuffer != null) {
+            myTransport.releaseBuffer(myReceiveBuffer);
+        }
+        if (mySendBuffer != null) {
+            myTransport.releaseBuffer(mySendBuffer);
+        }
+        myReceiveState = RECEIVE_CLOSED;
+        myKey = null;
+        myReceiveBuffer = null;
+        myReceiveRequest = null;
+        mySendBuffer = null;
+        mySendRequest = null;
+    }
+
+    /**
+     * Read from the socket channel into the receive byte buffer. Called only by
+     * the transport thread.
+     *
+     * @return True if bytes were read, false if none are available yet.
+     *
+     * @exception IOException Thrown if an I/O error occurred. Thrown if the end
+     * of stream is reached.
+     */
+    private boolean fill()
+            throws IOException {
+        myReceiveBuffer.compact();
+        int n = mySocketChannel.read(myReceiveBuffer);
+        myReceiveBuffer.flip();
+        if (n == -1) {
+            if (myReceiveState == RECEIVE_HEADER && !myReceiveBuffer.hasRemaining()) {
+                // Orderly end of stream between messages.
+                shutdownInput();
+                return false;
+            }
+            throw new EOFException("Unexpected end-of-stream while receiving message");
+        }
+        return n > 0;
+    }
+
+    /**
+     * Remove a matching I/O request from the channel group's list without
+     * blocking. If there is none, park this channel with the transport and stop
+     * reading until a receive request is posted. Called only by the transport
+     * thread.
+     *
+     * @return Matching I/O request, or null if there is none yet.
+     */
+    private IORequest match() {
+        IORequestList list = myIORequestList;
+        IORequest iorequest = list.removeMatch(this, myMessageTag, myMessageType);
+        if (iorequest == null) {
+            // Park first, then check again, so a receive request posted in
+            // between is not missed.
+            myTransport.park(this);
+            iorequest = list.removeMatch(this, myMessageTag, myMessageType);
+            if (iorequest == null) {
+                setInterest(SelectionKey.OP_READ, false);
+                return null;
+            }
+        }
+        myTransport.unpark(this);
+        setInterest(SelectionKey.OP_READ, true);
+        return iorequest;
+    }
+
+    /**
+     * Turn the given interest operation on or off. Called only by the transport
+     * thread.
+     *
+     * @param op Interest operation.
+     * @param on True to turn the operation on, false to turn it off.
+     */
+    private void setInterest(int op,
+            boolean on) {
+        if (myKey != null && myKey.isValid()) {
+            int ops = myKey.interestOps();
+            myKey.interestOps(on ? ops | op : ops & ~op);
+        }
+    }
+
+    /**
+     * Report failure of the current send request and discard its partially
+     * sent data. Called only by the transport thread.
+     *
+     * @param exc Exception.
+     */
+    private void failSend(Throwable exc) {
+        IORequest iorequest = mySendRequest;
+        mySendRequest = null;
+        if (mySendBuffer != null) {
+            mySendBuffer.clear();
+        }
+        if (iorequest == null) {
+            return;
+        }
+        if (exc instanceof IOException) {
+            iorequest.reportFailure((IOException) exc);
+        } else if (exc instanceof RuntimeException) {
+            iorequest.reportFailure((RuntimeException) exc);
+        } else {
+            iorequest.reportFailure((Error) exc);
+        }
+    }
+
+    /**
+     * Shut down the input side of this selector channel. Called only by the
+     * transport thread.
+     */
+    private void shutdownInput() {
+        synchronized (this) {
+            myReadState = READ_CLOSED;
+        }
+        myReceiveState = RECEIVE_CLOSED;
+        myReceiveRequest = null;
+        myTransport.unpark(this);
+        setInterest(SelectionKey.OP_READ, false);
+        if (myReceiveBuffer != null) {
+            myTransport.releaseBuffer(myReceiveBuffer);
+            myReceiveBuffer = null;
+        }
+    }
+
+}
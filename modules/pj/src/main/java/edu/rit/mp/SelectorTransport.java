@@ -0,0 +1,299 @@
+//******************************************************************************
+//
+// File:    SelectorTransport.java
+// Package: edu.rit.mp
+// Unit:    Class edu.rit.mp.SelectorTransport
+//
+// This Java source file is copyright (C) 2009 by Alan Kaminsky. All rights
+// reserved. For further information, contact the author, Alan Kaminsky, at
+// ark@cs.rit.edu.
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+//******************************************************************************
+// Additional file added 10/17/2026 to provide a selector-based transport for
+// network channels as an alternative to one send thread and one receive thread
+// per channel. See also SelectorChannel and ChannelGroup.useSelectors().
+//******************************************************************************
+package edu.rit.mp;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Class SelectorTransport provides a thread that performs non-blocking I/O for
+ * any number of {@linkplain SelectorChannel}s using a single selector. It
+ * replaces the per-channel send and receive threads of a {@linkplain
+ * NetworkChannel}, so a process connected to <I>P</I> other processes needs
+ * one transport thread rather than 2<I>P</I> channel threads.
+ * <P>
+ * Byte buffers are taken from a pool owned by the transport while a channel has
+ * a message in flight, and are returned to the pool when the channel goes idle.
+ * <P>
+ * Other threads interact with the transport only by queueing work and waking up
+ * the selector; all socket I/O and all per-channel I/O state is confined to the
+ * transport thread.
+ *
+ * @version $Id: $Id
+ */
+class SelectorTransport
+        extends Thread {
+
+// Hidden data members.
+    // Enclosing channel group.
+    private ChannelGroup myChannelGroup;
+
+    // Selector.
+    private Selector mySelector;
+
+    // Channels waiting to be registered with the selector.
+    private ConcurrentLinkedQueue<SelectorChannel> myRegisterQueue
+            = new ConcurrentLinkedQueue<SelectorChannel>();
+
+    // Channels with newly queued outgoing messages.
+    private ConcurrentLinkedQueue<SelectorChannel> myWriteQueue
+            = new ConcurrentLinkedQueue<SelectorChannel>();
+
+    // Channels that have been closed.
+    private ConcurrentLinkedQueue<SelectorChannel> myCloseQueue
+            = new ConcurrentLinkedQueue<SelectorChannel>();
+
+    // Channels that have read a message header but have no matching receive
+    // request yet. Accessed only by the transport thread.
+    private LinkedHashSet<SelectorChannel> myParkedSet
+            = new LinkedHashSet<SelectorChannel>();
+
+    // Number of parked channels, readable by other threads.
+    private volatile int myParkedCount;
+
+    // True if a receive request was posted since the parked channels were last
+    // examined.
+    private volatile boolean myReceivePosted;
+
+    // True if this transport is shutting down.
+    private volatile boolean myShutdown;
+
+    // Pool of byte buffers. Accessed only by the transport thread.
+    private ArrayList<ByteBuffer> myBufferPool = new ArrayList<ByteBuffer>();
+
+// Hidden constructors.
+    /**
+     * Construct a new selector transport.
+     *
+     * @param theChannelGroup Enclosing channel group.
+     * @param theIndex Index of this transport within the channel group.
+     *
+     * @exception IOException Thrown if an I/O error occurred.
+     */
+    SelectorTransport(ChannelGroup theChannelGroup,
+            int theIndex)
+            throws IOException {
+        myChannelGroup = theChannelGroup;
+        mySelector = Selector.open();
+        setName("SelectorTransport-" + theIndex);
+        setDaemon(true);
+        start();
+    }
+
+// Exported operations.
+    /**
+     * Run this selector transport.
+     */
+    public void run() {
+        SelectorChannel channel;
+        for (;;) {
+            try {
+                mySelector.select();
+            } catch (IOException exc) {
+                myChannelGroup.myLogger.log("edu.rit.mp.SelectorTransport: I/O error in selector",
+                        exc);
+                break;
+            }
+
+            // Clean up closed channels. This is done even when shutting down
+            // so their pending I/O requests are failed.
+            while ((channel = myCloseQueue.poll()) != null) {
+                unpark(channel);
+                channel.cleanup();
+            }
+            if (myShutdown) {
+                break;
+            }
+
+            // Register new channels, then start any sends queued before the
+            // channel was registered.
+            while ((channel = myRegisterQueue.poll()) != null) {
+                channel.register(mySelector);
+                channel.write();
+            }
+
+            // Start sending newly queued outgoing messages.
+            while ((channel = myWriteQueue.poll()) != null) {
+                channel.write();
+            }
+
+            // Service ready channels.
+            Iterator<SelectionKey> iter = mySelector.selectedKeys().iterator();
+            while (iter.hasNext()) {
+                SelectionKey key = iter.next();
+                iter.remove();
+                channel = (SelectorChannel) key.attachment();
+                if (key.isValid() && key.isReadable()) {
+                    channel.read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    channel.write();
+                }
+            }
+
+            // Give parked channels another chance to match a receive request.
+            if (myReceivePosted) {
+                myReceivePosted = false;
+                Object[] parked = myParkedSet.toArray();
+                for (Object p : parked) {
+                    ((SelectorChannel) p).read();
+                }
+            }
+        }
+
+        // This thread is terminating. Enable garbage collection of data
+        // members.
+        try {
+            mySelector.close();
+        } catch (IOException exc) {
+        }
+        myParkedSet.clear();
+        myBufferPool.clear();
+        myChannelGroup = null;
+    }
+
+// Hidden operations.
+    /**
+     * Register the given channel with this transport. May be called by any
+     * thread.
+     *
+     * @param theChannel Channel.
+     */
+    void register(SelectorChannel theChannel) {
+        myRegisterQueue.add(theChannel);
+        mySelector.wakeup();
+    }
+
+    /**
+     * Report that the given channel has queued an outgoing message. May be
+     * called by any thread.
+     *
+     * @param theChannel Channel.
+     */
+    void sendPosted(SelectorChannel theChannel) {
+        myWriteQueue.add(theChannel);
+        mySelector.wakeup();
+    }
+
+    /**
+     * Report that a receive request was added to the channel group's I/O
+     * request list. May be called by any thread. The selector is woken up only
+     * if some channel is waiting for a receive request.
+     */
+    void receivePosted() {
+        if (myParkedCount > 0) {
+            myReceivePosted = true;
+            mySelector.wakeup();
+        }
+    }
+
+    /**
+     * Report that the given channel has been closed. May be called by any
+     * thread.
+     *
+     * @param theChannel Channel.
+     */
+    void closed(SelectorChannel theChannel) {
+        myCloseQueue.add(theChannel);
+        mySelector.wakeup();
+    }
+
+    /**
+     * Shut down this transport. Channels closed before this call have their
+     * pending I/O requests failed before the transport thread terminates.
+     */
+    void shutdown() {
+        myShutdown = true;
+        mySelector.wakeup();
+    }
+
+    /**
+     * Park the given channel until a receive request is posted. Called only by
+     * the transport thread. The parked count is incremented before the caller
+     * checks for a matching request one final time, so a receive request added
+     * concurrently is either matched or wakes up the selector.
+     *
+     * @param theChannel Channel.
+     */
+    void park(SelectorChannel theChannel) {
+        if (myParkedSet.add(theChannel)) {
+            myParkedCount = myParkedSet.size();
+        }
+    }
+
+    /**
+     * Unpark the given channel. Called only by the transport thread.
+     *
+     * @param theChannel Channel.
+     */
+    void unpark(SelectorChannel theChannel) {
+        if (myParkedSet.remove(theChannel)) {
+            myParkedCount = myParkedSet.size();
+        }
+    }
+
+    /**
+     * Take a byte buffer from this transport's pool. Called only by the
+     * transport thread.
+     *
+     * @return Cleared byte buffer.
+     */
+    ByteBuffer takeBuffer() {
+        int n = myBufferPool.size();
+        if (n == 0) {
+            return ByteBuffer.allocateDirect(Constants.BUFFER_SIZE);
+        }
+        ByteBuffer buffer = myBufferPool.remove(n - 1);
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Return a byte buffer to this transport's pool. Called only by the
+     * transport thread.
+     *
+     * @param theBuffer Byte buffer.
+     */
+    void releaseBuffer(ByteBuffer theBuffer) {
+        theBuffer.clear();
+        myBufferPool.add(theBuffer);
+    }
+
+}
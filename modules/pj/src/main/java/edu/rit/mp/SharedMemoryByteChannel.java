@@ -0,0 +1,573 @@
+//******************************************************************************
+//
+// File:    SharedMemoryByteChannel.java
+// Package: edu.rit.mp
+// Unit:    Class edu.rit.mp.SharedMemoryByteChannel
+//
+// This Java source file is copyright (C) 2009 by Alan Kaminsky. All rights
+// reserved. For further information, contact the author, Alan Kaminsky, at
+// ark@cs.rit.edu.
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+//******************************************************************************
+// Additional file added 10/17/2026 to let network channels between processes on
+// the same host exchange message bytes through memory-mapped ring buffers
+// instead of the TCP loopback interface. See also ChannelGroup.useSharedMemory().
+//******************************************************************************
+package edu.rit.mp;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import java.lang.reflect.Field;
+
+import java.net.InetAddress;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class SharedMemoryByteChannel provides a byte stream between two processes
+ * on the same host. Each direction is a single-producer single-consumer ring
+ * buffer in a memory-mapped file, created in <TT>/dev/shm</TT> when available.
+ * The TCP connection that set up the channel is kept only as a doorbell: a
+ * reader that finds its ring empty sets a flag and blocks reading the socket,
+ * and the writer sends one byte on the socket after publishing data if the flag
+ * is set. The end of stream is signaled by closing the socket, as before.
+ * <P>
+ * A writer waiting for space in a full ring also sends a doorbell byte every
+ * 250 msec. The reader discards doorbell bytes, but if the far end has closed
+ * the socket or its process has died, the socket write fails, so the writer
+ * throws an IOException as it would have with TCP rather than waiting forever.
+ * <P>
+ * Because a shared memory byte channel is a {@linkplain ByteChannel}, a
+ * {@linkplain NetworkChannel} uses it with its usual send and receive threads,
+ * so message framing and {@linkplain Buf} semantics are unchanged.
+ * <P>
+ * The ring counters are plain longs in the mapped buffer. Accesses to them are
+ * ordered with the ring data and the doorbell flag by the explicit load, store
+ * and full fences of <TT>sun.misc.Unsafe</TT>, which are hardware barriers on
+ * weakly ordered processors as well. A reader acquires the tail with a load
+ * fence before reading data, and releases the head with a store fence after
+ * reading it; a writer does the reverse. The doorbell handshake (reader: set
+ * flag, check tail; writer: publish tail, check flag) needs a full fence on
+ * each side so that a wakeup cannot be missed. If the fences are unavailable,
+ * this end is unwilling to use shared memory.
+ *
+ * @version $Id: $Id
+ */
+class SharedMemoryByteChannel
+        implements ByteChannel {
+
+// Hidden constants.
+    // Ring header layout. The counters are on separate cache lines.
+    private static final int TAIL = 0;
+    private static final int HEAD = 64;
+    private static final int READER_WAITING = 128;
+    private static final int DATA = 192;
+
+    // Number of times an empty ring is polled before sleeping on the socket.
+    private static final int SPIN = 200;
+
+    // Longest time a writer sleeps while waiting for space in a full ring.
+    private static final long MAX_PARK_NANOS = 1000000L;
+
+    // Interval at which a writer waiting for space in a full ring probes the
+    // socket to find out whether the far end is still there.
+    private static final long PROBE_NANOS = 250000000L;
+
+    // Memory fences of sun.misc.Unsafe, or null if unavailable.
+    private static final MethodHandle LOAD_FENCE;
+    private static final MethodHandle STORE_FENCE;
+    private static final MethodHandle FULL_FENCE;
+
+    static {
+        MethodHandle loadFence = null;
+        MethodHandle storeFence = null;
+        MethodHandle fullFence = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodType type = MethodType.methodType(void.class);
+            loadFence = lookup.findVirtual(unsafeClass, "loadFence", type).bindTo(unsafe);
+            storeFence = lookup.findVirtual(unsafeClass, "storeFence", type).bindTo(unsafe);
+            fullFence = lookup.findVirtual(unsafeClass, "fullFence", type).bindTo(unsafe);
+        } catch (Throwable exc) {
+            loadFence = null;
+            storeFence = null;
+            fullFence = null;
+        }
+        LOAD_FENCE = loadFence;
+        STORE_FENCE = storeFence;
+        FULL_FENCE = fullFence;
+    }
+
+// Hidden data members.
+    // Underlying socket channel, used as a doorbell.
+    private SocketChannel mySocketChannel;
+
+    // Incoming ring header and data.
+    private MappedByteBuffer myInRing;
+    private ByteBuffer myInData;
+
+    // Outgoing ring header and data.
+    private MappedByteBuffer myOutRing;
+    private ByteBuffer myOutData;
+
+    // Ring data capacity in bytes (a power of 2).
+    private int myCapacity;
+
+    // Byte buffers for draining and ringing the doorbell.
+    private ByteBuffer myDoorbellIn = ByteBuffer.allocate(64);
+    private ByteBuffer myDoorbellOut = ByteBuffer.allocate(1);
+
+    // True once the far end has closed the socket.
+    private volatile boolean myPeerClosed;
+
+// Hidden constructors.
+    /**
+     * Construct a new shared memory byte channel.
+     *
+     * @param theSocketChannel Socket channel used as a doorbell.
+     * @param theInRing Incoming ring.
+     * @param theOutRing Outgoing ring.
+     * @param theCapacity Ring data capacity in bytes.
+     */
+    private SharedMemoryByteChannel(SocketChannel theSocketChannel,
+            MappedByteBuffer theInRing,
+            MappedByteBuffer theOutRing,
+            int theCapacity) {
+        mySocketChannel = theSocketChannel;
+        myInRing = theInRing;
+        myOutRing = theOutRing;
+        myCapacity = theCapacity;
+        myInRing.position(DATA);
+        myInData = myInRing.slice();
+        myOutRing.position(DATA);
+        myOutData = myOutRing.slice();
+    }
+
+// Exported operations.
+    /**
+     * Read bytes from the incoming ring into the given buffer, blocking until
+     * at least one byte is available or the end of stream is reached.
+     *
+     * @param dst Destination buffer.
+     *
+     * @return Number of bytes read, or -1 at end of stream.
+     *
+     * @exception IOException Thrown if an I/O error occurred.
+     */
+    public int read(ByteBuffer dst)
+            throws IOException {
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        int spin = 0;
+        for (;;) {
+            long head = myInRing.getLong(HEAD);
+            long available = myInRing.getLong(TAIL) - head;
+            loadFence();
+            if (available > 0) {
+                int n = (int) Math.min(available, dst.remaining());
+                copy(myInData, (int) (head & (myCapacity - 1)), dst, n, false);
+                storeFence();
+                myInRing.putLong(HEAD, head + n);
+                return n;
+            }
+            if (myPeerClosed) {
+                return -1;
+            }
+            if (spin < SPIN) {
+                ++spin;
+                Thread.yield();
+                continue;
+            }
+
+            // Announce that this reader is going to sleep, then check the ring
+            // once more before blocking on the doorbell.
+            myInRing.putInt(READER_WAITING, 1);
+            fullFence();
+            if (myInRing.getLong(TAIL) != head) {
+                myInRing.putInt(READER_WAITING, 0);
+                continue;
+            }
+            myDoorbellIn.clear();
+            if (mySocketChannel.read(myDoorbellIn) == -1) {
+                // Data written before the far end closed is still delivered.
+                myPeerClosed = true;
+            }
+            spin = 0;
+        }
+    }
+
+    /**
+     * Write all bytes in the given buffer to the outgoing ring, blocking while
+     * the ring is full.
+     *
+     * @param src Source buffer.
+     *
+     * @return Number of bytes written.
+     *
+     * @exception IOException Thrown if an I/O error occurred. Thrown if the far
+     * end closed the socket while this end was waiting for space in the ring.
+     */
+    public int write(ByteBuffer src)
+            throws IOException {
+        int total = 0;
+        long park = 0;
+        long probe = 0;
+        while (src.hasRemaining()) {
+            if (!isOpen()) {
+                throw new ClosedChannelException();
+            }
+            if (myPeerClosed) {
+                throw new EOFException("SharedMemoryByteChannel.write(): Far end closed");
+            }
+            long tail = myOutRing.getLong(TAIL);
+            long space = myCapacity - (tail - myOutRing.getLong(HEAD));
+            loadFence();
+            if (space == 0) {
+                // Ring is full. Back off until the far end consumes data, and
+                // make sure from time to time that the far end is alive.
+                if (park == 0) {
+                    park = 1000L;
+                    probe = System.nanoTime() + PROBE_NANOS;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(park);
+                    park = Math.min(2 * park, MAX_PARK_NANOS);
+                    if (System.nanoTime() - probe >= 0) {
+                        ringDoorbell();
+                        probe = System.nanoTime() + PROBE_NANOS;
+                    }
+                }
+                continue;
+            }
+            park = 0;
+            int n = (int) Math.min(space, src.remaining());
+            copy(myOutData, (int) (tail & (myCapacity - 1)), src, n, true);
+            storeFence();
+            myOutRing.putLong(TAIL, tail + n);
+            total += n;
+
+            // Wake up the far end if it is sleeping on the doorbell.
+            fullFence();
+            if (myOutRing.getInt(READER_WAITING) != 0) {
+                myOutRing.putInt(READER_WAITING, 0);
+                ringDoorbell();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Determine whether this channel is open.
+     *
+     * @return True if open, false otherwise.
+     */
+    public boolean isOpen() {
+        return mySocketChannel.isOpen();
+    }
+
+    /**
+     * Close this channel. Closing the socket signals end of stream to the far
+     * end and wakes up a blocked reader. The mapped buffers are released when
+     * they are garbage collected.
+     *
+     * @exception IOException Thrown if an I/O error occurred.
+     */
+    public void close()
+            throws IOException {
+        mySocketChannel.close();
+    }
+
+// Hidden operations.
+    /**
+     * Send one byte on the doorbell socket. Called only by the writer.
+     *
+     * @exception IOException Thrown if the far end closed the socket or is
+     * gone.
+     */
+    private void ringDoorbell()
+            throws IOException {
+        myDoorbellOut.clear();
+        mySocketChannel.write(myDoorbellOut);
+    }
+
+    /**
+     * Set up a shared memory byte channel over the given connected socket
+     * channel. Both ends must call this method right after exchanging channel
+     * group IDs. If the two ends are not on the same host, nothing is exchanged
+     * and null is returned. Otherwise the two ends exchange the names of their
+     * outgoing ring files; if either end is unwilling or unable to map the
+     * rings, both ends return null and keep using the socket for messages.
+     * This end is unwilling if the memory fences are unavailable.
+     *
+     * @param theSocketChannel Connected socket channel in blocking mode.
+     * @param willing True if this end is willing to use shared memory.
+     *
+     * @return Shared memory byte channel, or null.
+     *
+     * @exception IOException Thrown if an I/O error occurred on the socket.
+     */
+    static SharedMemoryByteChannel negotiate(SocketChannel theSocketChannel,
+            boolean willing)
+            throws IOException {
+        InetAddress near = theSocketChannel.socket().getLocalAddress();
+        InetAddress far = theSocketChannel.socket().getInetAddress();
+        if (near == null || far == null || !near.equals(far)) {
+            return null;
+        }
+        willing = willing && FULL_FENCE != null;
+
+        // Exchange willingness.
+        ByteBuffer buf = ByteBuffer.allocate(1);
+        buf.put((byte) (willing ? 1 : 0)).flip();
+        writeFully(theSocketChannel, buf);
+        if (readFully(theSocketChannel, 1).get() == 0 || !willing) {
+            return null;
+        }
+
+        // Create the outgoing ring, and exchange ring file names.
+        int capacity = Constants.SHM_RING_SIZE;
+        File outFile = null;
+        MappedByteBuffer outRing = null;
+        try {
+            outFile = createRingFile();
+            outFile.deleteOnExit();
+            outRing = map(outFile, DATA + capacity, true);
+        } catch (IOException exc) {
+            outRing = null;
+        }
+        byte[] name = outRing == null ? new byte[0] : outFile.getPath().getBytes("UTF-8");
+        buf = ByteBuffer.allocate(4 + name.length);
+        buf.putInt(name.length).put(name).flip();
+        writeFully(theSocketChannel, buf);
+        int length = readFully(theSocketChannel, 4).getInt();
+        byte[] farName = new byte[length];
+        readFully(theSocketChannel, length).get(farName);
+
+        // Map the incoming ring, and exchange success flags.
+        MappedByteBuffer inRing = null;
+        if (outRing != null && length > 0) {
+            try {
+                inRing = map(new File(new String(farName, "UTF-8")), DATA + capacity, false);
+            } catch (IOException exc) {
+                inRing = null;
+            }
+        }
+        buf = ByteBuffer.allocate(1);
+        buf.put((byte) (inRing != null ? 1 : 0)).flip();
+        writeFully(theSocketChannel, buf);
+        boolean farMapped = readFully(theSocketChannel, 1).get() != 0;
+
+        // Both ends have mapped (or given up on) each other's files, so the
+        // names are no longer needed.
+        if (outFile != null) {
+            outFile.delete();
+        }
+        if (inRing == null || !farMapped) {
+            return null;
+        }
+        return new SharedMemoryByteChannel(theSocketChannel, inRing, outRing, capacity);
+    }
+
+    /**
+     * Copy bytes between a ring's data region and a buffer, wrapping around
+     * the end of the ring if necessary.
+     *
+     * @param ring Ring data region.
+     * @param offset Offset of the first byte in the ring.
+     * @param buffer Buffer.
+     * @param n Number of bytes to copy.
+     * @param toRing True to copy from the buffer to the ring, false to copy
+     * from the ring to the buffer.
+     */
+    private void copy(ByteBuffer ring,
+            int offset,
+            ByteBuffer buffer,
+            int n,
+            boolean toRing) {
+        int first = Math.min(n, myCapacity - offset);
+        transfer(ring, offset, buffer, first, toRing);
+        if (first < n) {
+            transfer(ring, 0, buffer, n - first, toRing);
+        }
+    }
+
+    /**
+     * Copy a contiguous run of bytes between a ring's data region and a buffer.
+     */
+    private static void transfer(ByteBuffer ring,
+            int offset,
+            ByteBuffer buffer,
+            int n,
+            boolean toRing) {
+        ring.limit(offset + n);
+        ring.position(offset);
+        if (toRing) {
+            int limit = buffer.limit();
+            buffer.limit(buffer.position() + n);
+            ring.put(buffer);
+            buffer.limit(limit);
+        } else {
+            buffer.put(ring);
+        }
+        ring.clear();
+    }
+
+    /**
+     * Order the preceding loads before the following loads and stores.
+     */
+    private static void loadFence() {
+        try {
+            LOAD_FENCE.invokeExact();
+        } catch (Throwable exc) {
+            throw new Error(exc);
+        }
+    }
+
+    /**
+     * Order the preceding loads and stores before the following stores.
+     */
+    private static void storeFence() {
+        try {
+            STORE_FENCE.invokeExact();
+        } catch (Throwable exc) {
+            throw new Error(exc);
+        }
+    }
+
+    /**
+     * Order the preceding loads and stores before the following loads and
+     * stores.
+     */
+    private static void fullFence() {
+        try {
+            FULL_FENCE.invokeExact();
+        } catch (Throwable exc) {
+            throw new Error(exc);
+        }
+    }
+
+    /**
+     * Determine the directory for ring files.
+     */
+    private static File ringDirectory() {
+        File shm = new File("/dev/shm");
+        if (shm.isDirectory() && shm.canWrite()) {
+            return shm;
+        }
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Create a ring file readable and writable only by its owner, since
+     * another user's process could otherwise read or inject message bytes.
+     */
+    private static File createRingFile()
+            throws IOException {
+        Path dir = ringDirectory().toPath();
+        try {
+            return Files.createTempFile(dir, "pj-shm-", ".ring",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))).toFile();
+        } catch (UnsupportedOperationException exc) {
+            // Not a POSIX file system; restrict access as far as java.io allows.
+            File file = Files.createTempFile(dir, "pj-shm-", ".ring").toFile();
+            file.setReadable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(false, false);
+            file.setWritable(true, true);
+            return file;
+        }
+    }
+
+    /**
+     * Map a ring file into memory.
+     */
+    private static MappedByteBuffer map(File file,
+            int size,
+            boolean create)
+            throws IOException {
+        if (!create && !file.isFile()) {
+            throw new IOException("SharedMemoryByteChannel: Ring file " + file + " does not exist");
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (create) {
+                raf.setLength(size);
+            } else if (raf.length() < size) {
+                throw new IOException("SharedMemoryByteChannel: Ring file " + file + " is too short");
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            // The mapping stays valid after the file is closed.
+            raf.close();
+        }
+    }
+
+    /**
+     * Write all bytes in the given buffer to the socket channel.
+     */
+    private static void writeFully(SocketChannel theSocketChannel,
+            ByteBuffer buf)
+            throws IOException {
+        while (buf.hasRemaining()) {
+            theSocketChannel.write(buf);
+        }
+    }
+
+    /**
+     * Read the given number of bytes from the socket channel.
+     *
+     * @return Flipped byte buffer holding the bytes.
+     */
+    private static ByteBuffer readFully(SocketChannel theSocketChannel,
+            int n)
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(n);
+        while (buf.hasRemaining()) {
+            if (theSocketChannel.read(buf) == -1) {
+                throw new EOFException("SharedMemoryByteChannel: Unexpected end-of-stream during setup");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+}
@@ -0,0 +1,190 @@
+//******************************************************************************
+//
+// File:    SliceBuf.java
+// Package: edu.rit.mp
+// Unit:    Class edu.rit.mp.SliceBuf
+//
+// This Java source file is copyright (C) 2009 by Alan Kaminsky. All rights
+// reserved. For further information, contact the author, Alan Kaminsky, at
+// ark@cs.rit.edu.
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+//******************************************************************************
+// Additional file added 10/17/2026 so collective operations in class Comm can
+// send and receive contiguous pieces of any primitive buffer, for example in
+// ring all-reduce and scatter/all-gather broadcast algorithms.
+//******************************************************************************
+package edu.rit.mp;
+
+import edu.rit.pj.reduction.Op;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Class SliceBuf provides a buffer that sends and receives a contiguous run of
+ * items of an underlying buffer. Items are transferred by the underlying
+ * buffer's own methods, so a slice of a reduction buffer (see {@link
+ * Buf#getReductionBuf(Op)}) combines received items into the underlying
+ * storage with the reduction operation.
+ * <P>
+ * A slice buffer can only be sent and received; the <TT>copy()</TT>,
+ * <TT>fill()</TT>, <TT>getReductionBuf()</TT>, and <TT>getTemporaryBuf()</TT>
+ * methods are not supported. Object buffers cannot be sliced.
+ *
+ * @version $Id: $Id
+ */
+class SliceBuf
+        extends Buf {
+
+// Hidden data members.
+    // Underlying buffer.
+    private Buf myBuf;
+
+    // Index of this slice's first item in the underlying buffer.
+    private int myOffset;
+
+// Hidden constructors.
+    /**
+     * Construct a new slice buffer.
+     *
+     * @param theBuf Underlying buffer.
+     * @param theOffset Index of the first item in the underlying buffer.
+     * @param theLength Number of items.
+     */
+    SliceBuf(Buf theBuf,
+            int theOffset,
+            int theLength) {
+        super(theBuf.myMessageType, theLength);
+        myBuf = theBuf;
+        myOffset = theOffset;
+    }
+
+// Exported operations.
+    /**
+     * Not supported.
+     *
+     * @param theSrc Source of items to copy into this buffer.
+     * @exception UnsupportedOperationException (unchecked exception) Always
+     * thrown.
+     */
+    public void copy(Buf theSrc) {
+        throw new UnsupportedOperationException("SliceBuf.copy(): Not supported");
+    }
+
+    /**
+     * Not supported.
+     *
+     * @param item Item.
+     * @exception UnsupportedOperationException (unchecked exception) Always
+     * thrown.
+     */
+    public void fill(Object item) {
+        throw new UnsupportedOperationException("SliceBuf.fill(): Not supported");
+    }
+
+    /**
+     * Not supported.
+     *
+     * @param op Binary operation.
+     * @return Never returns.
+     * @exception UnsupportedOperationException (unchecked exception) Always
+     * thrown.
+     */
+    public Buf getReductionBuf(Op op) {
+        throw new UnsupportedOperationException("SliceBuf.getReductionBuf(): Not supported");
+    }
+
+    /**
+     * Not supported.
+     *
+     * @return Never returns.
+     * @exception UnsupportedOperationException (unchecked exception) Always
+     * thrown.
+     */
+    public Buf getTemporaryBuf() {
+        throw new UnsupportedOperationException("SliceBuf.getTemporaryBuf(): Not supported");
+    }
+
+// Hidden operations.
+    /**
+     * {@inheritDoc}
+     */
+    protected int sendItems(int i,
+            ByteBuffer buffer) {
+        // The underlying buffer sends items up to its own end, so lower the
+        // byte buffer's limit to stop at this slice's end.
+        int limit = buffer.limit();
+        long room = (long) (myLength - i) * itemSize(myMessageType);
+        if (buffer.remaining() > room) {
+            buffer.limit(buffer.position() + (int) room);
+        }
+        int n = myBuf.sendItems(myOffset + i, buffer);
+        buffer.limit(limit);
+        return n;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected int receiveItems(int i,
+            int num,
+            ByteBuffer buffer) {
+        return myBuf.receiveItems(myOffset + i, Math.min(num, myLength - i), buffer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    int skipItems(int num,
+            ByteBuffer buffer) {
+        return myBuf.skipItems(num, buffer);
+    }
+
+    /**
+     * Determine the number of bytes per item in a message of the given type.
+     *
+     * @param theType Item type.
+     *
+     * @return Bytes per item.
+     *
+     * @exception IllegalArgumentException (unchecked exception) Thrown if
+     * <TT>theType</TT> is not a primitive item type.
+     */
+    static int itemSize(byte theType) {
+        switch (theType) {
+            case Constants.TYPE_BOOLEAN:
+            case Constants.TYPE_BYTE:
+            case Constants.TYPE_SIGNED_8_BIT_INTEGER:
+            case Constants.TYPE_UNSIGNED_8_BIT_INTEGER:
+                return 1;
+            case Constants.TYPE_SHORT:
+            case Constants.TYPE_CHARACTER:
+            case Constants.TYPE_SIGNED_16_BIT_INTEGER:
+            case Constants.TYPE_UNSIGNED_16_BIT_INTEGER:
+                return 2;
+            case Constants.TYPE_INTEGER:
+            case Constants.TYPE_FLOAT:
+                return 4;
+            case Constants.TYPE_LONG:
+            case Constants.TYPE_DOUBLE:
+                return 8;
+            default:
+                throw new IllegalArgumentException("SliceBuf.itemSize(): Type " + theType + " cannot be sliced");
+        }
+    }
+
+}
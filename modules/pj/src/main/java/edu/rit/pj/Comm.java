@@ -1043,12 +1043,56 @@ import java.util.LinkedList;
  * calling thread blocks until all processes in the communicator have called the
  * <TT>barrier()</TT> method. Then the calling thread unblocks and returns from
  * the <TT>barrier()</TT> method call.
+ * <P>
+ * <B>Collective Algorithms</B>
+ * <P>
+ * The message passing pattern used by the broadcast, all-gather, and
+ * all-reduce operations is selected by the communicator's collective algorithm
+ * (see enum {@linkplain Comm.Algorithm}) together with the message length and
+ * the number of processes. Tree algorithms take about log<SUB>2</SUB>(<I>K</I>)
+ * rounds and are best for short messages; ring algorithms take about 2<I>K</I>
+ * rounds but send each process's share of a long message only about twice, and
+ * are best for long messages. The initial algorithm and the length at which
+ * <TT>Algorithm.AUTO</TT> switches to ring algorithms are given by the
+ * <TT>"pj.collectives"</TT> and <TT>"pj.collectives.threshold"</TT> Java system
+ * properties (see class {@linkplain PJProperties}). All processes must use the
+ * same collective algorithm and threshold.
  *
  * @author Alan Kaminsky
  * @version 21-Jan-2009
  */
 public class Comm {
 
+// Exported enumerations.
+    /**
+     * The algorithm used by a communicator's broadcast, all-gather, and
+     * all-reduce operations.
+     */
+    public static enum Algorithm {
+
+        /**
+         * The original communication pattern algorithms: binomial tree
+         * broadcast, butterfly (recursive doubling) all-reduce, and ring
+         * all-gather, regardless of the message length.
+         */
+        PATTERN,
+        /**
+         * Binomial tree broadcast, butterfly (recursive doubling) all-reduce,
+         * and recursive doubling all-gather.
+         */
+        TREE,
+        /**
+         * Scatter/ring all-gather broadcast, ring reduce-scatter/all-gather
+         * all-reduce, and ring all-gather.
+         */
+        RING,
+        /**
+         * Tree algorithms for messages shorter than the communicator's
+         * threshold, ring algorithms otherwise.
+         */
+        AUTO
+    }
+
 // Hidden data members.
     // Predefined communicators.
     private static Comm theWorldCommunicator;
@@ -1076,6 +1120,11 @@ public class Comm {
     // operations, indexed by root.
     private int[][] myBroadcastTree;
 
+    // Algorithm for broadcast, all-gather, and all-reduce operations, and the
+    // message length in items at which AUTO switches to ring algorithms.
+    private Algorithm myAlgorithm;
+    private int myThreshold;
+
 // Hidden constructors.
     /**
      * Construct a new communicator.
@@ -1107,6 +1156,10 @@ public class Comm {
         }
         mySizePowerOf2 = p2 >>> 1;
 
+        // Select collective algorithm.
+        myAlgorithm = PJProperties.getPjCollectives();
+        myThreshold = PJProperties.getPjCollectivesThreshold();
+
         // Set channel group ID equal to rank.
         myChannelGroup.setChannelGroupId(rank);
 
@@ -1214,6 +1267,12 @@ public class Comm {
         } else {
 			// We're running on a backend processor.
 
+            // Select the transport for the world communicator's channels.
+            if (PJProperties.getPjTransport().equals("selector")) {
+                backend.getWorldChannelGroup().useSelectors(PJProperties.getPjSelectors());
+            }
+            backend.getWorldChannelGroup().useSharedMemory(PJProperties.getPjShm());
+
             // Set up world communicator.
             theWorldCommunicator
                     = new Comm(/*size        */backend.getK(),
@@ -1244,6 +1303,53 @@ public class Comm {
         }
     }
 
+    /**
+     * Create a communicator for processes that were started without a Job
+     * Scheduler, for example by a test harness or a batch system. Every
+     * process calls <TT>create()</TT> with its own rank and with the same
+     * array of addresses; the process at rank <I>i</I> listens for connections
+     * at <TT>address[i]</TT>. The channel transport is selected by the
+     * <TT>"pj.transport"</TT>, <TT>"pj.selectors"</TT>, and <TT>"pj.shm"</TT>
+     * Java system properties, as in <TT>Comm.init()</TT>. The returned
+     * communicator does not become the world communicator.
+     *
+     * @param rank Current process's rank in the communicator.
+     * @param address Map from rank (array index) to the address at which that
+     * process listens (array element).
+     *
+     * @return New communicator.
+     *
+     * @exception NullPointerException (unchecked exception) Thrown if
+     * <TT>address</TT> or any element thereof is null.
+     * @exception IndexOutOfBoundsException (unchecked exception) Thrown if
+     * <TT>rank</TT> is not in the range 0 .. <TT>address.length</TT>-1.
+     * @exception IOException Thrown if an I/O error occurred.
+     */
+    public static Comm create(int rank,
+            InetSocketAddress[] address)
+            throws IOException {
+        // Verify preconditions.
+        if (address == null) {
+            throw new NullPointerException("Comm.create(): address is null");
+        }
+        if (0 > rank || rank >= address.length) {
+            throw new IndexOutOfBoundsException("Comm.create(): rank = " + rank + " out of bounds");
+        }
+        for (int i = 0; i < address.length; ++i) {
+            if (address[i] == null) {
+                throw new NullPointerException("Comm.create(): address[" + i + "] is null");
+            }
+        }
+
+        ChannelGroup channelgroup = new ChannelGroup(address[rank]);
+        if (PJProperties.getPjTransport().equals("selector")) {
+            channelgroup.useSelectors(PJProperties.getPjSelectors());
+        }
+        channelgroup.useSharedMemory(PJProperties.getPjShm());
+        return new Comm(address.length, rank, address[rank].getHostName(),
+                channelgroup, address.clone());
+    }
+
     /**
      * Obtain the number of processes in this communicator.
      *
@@ -1273,6 +1379,61 @@ public class Comm {
         return myHost;
     }
 
+    /**
+     * Obtain the algorithm used by this communicator's broadcast, all-gather,
+     * and all-reduce operations.
+     *
+     * @return Collective algorithm.
+     */
+    public Algorithm getCollectiveAlgorithm() {
+        return myAlgorithm;
+    }
+
+    /**
+     * Set the algorithm used by this communicator's broadcast, all-gather, and
+     * all-reduce operations. All processes must use the same algorithm.
+     *
+     * @param algorithm Collective algorithm.
+     *
+     * @exception NullPointerException (unchecked exception) Thrown if
+     * <TT>algorithm</TT> is null.
+     */
+    public void setCollectiveAlgorithm(Algorithm algorithm) {
+        if (algorithm == null) {
+            throw new NullPointerException("Comm.setCollectiveAlgorithm(): algorithm is null");
+        }
+        myAlgorithm = algorithm;
+    }
+
+    /**
+     * Obtain the message length, in items, at which this communicator's
+     * collective operations switch to ring algorithms when the collective
+     * algorithm is <TT>Algorithm.AUTO</TT>.
+     *
+     * @return Threshold.
+     */
+    public int getCollectiveThreshold() {
+        return myThreshold;
+    }
+
+    /**
+     * Set the message length, in items, at which this communicator's
+     * collective operations switch to ring algorithms when the collective
+     * algorithm is <TT>Algorithm.AUTO</TT>. All processes must use the same
+     * threshold.
+     *
+     * @param threshold Threshold.
+     *
+     * @exception IllegalArgumentException (unchecked exception) Thrown if
+     * <TT>threshold</TT> &lt; 1.
+     */
+    public void setCollectiveThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Comm.setCollectiveThreshold(): threshold = " + threshold + " illegal");
+        }
+        myThreshold = threshold;
+    }
+
     /**
      * Create a new communicator. <I>Every</I> process in this communicator must
      * call the <TT>createComm()</TT> method. Each process passes true or false
@@ -1344,6 +1505,11 @@ public class Comm {
         if (participate) {
             channelgroup
                     = new ChannelGroup(new InetSocketAddress(myChannelGroup.listenAddress().getAddress(), 0));
+            int selectors = myChannelGroup.selectorCount();
+            if (selectors > 0) {
+                channelgroup.useSelectors(selectors);
+            }
+            channelgroup.useSharedMemory(myChannelGroup.sharedMemory());
             myaddress = channelgroup.listenAddress();
             address[myRank] = myaddress;
         }
@@ -1374,7 +1540,10 @@ public class Comm {
 
         // Return new communicator if participating.
         if (participate) {
-            return new Comm(newsize, newrank, myHost, channelgroup, address);
+            Comm comm = new Comm(newsize, newrank, myHost, channelgroup, address);
+            comm.myAlgorithm = myAlgorithm;
+            comm.myThreshold = myThreshold;
+            return comm;
         } // Return null if not participating.
         else {
             return null;
@@ -2546,6 +2715,12 @@ public class Comm {
             return;
         }
 
+        // Long messages are scattered and then all-gathered around a ring.
+        if (useRing(buffer)) {
+            ringBroadcast(root, tag, buffer);
+            return;
+        }
+
         // A broadcast is done as a series of point-to-point messages. The
         // messages are organized into rounds. The number of rounds is
         // ceil(log_2(mySize)). In each round, processes send messages to other
@@ -2951,6 +3126,12 @@ public class Comm {
             Buf src,
             Buf[] dstarray)
             throws IOException {
+        // Short messages are all-gathered by recursive doubling.
+        if (useTree(dstarray)) {
+            treeAllGather(tag, src, dstarray);
+            return;
+        }
+
         // Get ranks of predecessor and successor processes.
         int pred = (myRank - 1 + mySize) % mySize;
         int succ = (myRank + 1) % mySize;
@@ -3284,6 +3465,13 @@ public class Comm {
             return;
         }
 
+        // Long messages are reduce-scattered and then all-gathered around a
+        // ring.
+        if (useRing(buffer)) {
+            ringAllReduce(tag, buffer, op);
+            return;
+        }
+
         // Determine the highest power of 2 less than or equal to this
         // communicator's size. Processes at this rank and above will be outside
         // the butterfly message passing pattern.
@@ -3971,4 +4159,235 @@ public class Comm {
         return broadcasttree;
     }
 
+    /**
+     * Determine whether a broadcast or all-reduce of the given buffer uses a
+     * ring algorithm.
+     *
+     * @param buffer Buffer.
+     *
+     * @return True to use a ring algorithm, false to use a tree algorithm.
+     */
+    private boolean useRing(Buf buffer) {
+        int n = buffer.length();
+        if (mySize < 3 || n < mySize || !buffer.isSliceable()) {
+            return false;
+        }
+        switch (myAlgorithm) {
+            case RING:
+                return true;
+            case AUTO:
+                return n >= myThreshold;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Determine whether an all-gather into the given destination buffers uses
+     * recursive doubling.
+     *
+     * @param dstarray Array of destination buffers.
+     *
+     * @return True to use recursive doubling, false to use a ring.
+     */
+    private boolean useTree(Buf[] dstarray) {
+        if (mySize < 3) {
+            return false;
+        }
+        switch (myAlgorithm) {
+            case TREE:
+                return true;
+            case AUTO:
+                // Every process has the same destination buffer lengths, so
+                // every process makes the same choice.
+                int n = 0;
+                for (Buf dst : dstarray) {
+                    n = Math.max(n, dst.length());
+                }
+                return n < myThreshold;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Get the given piece of a buffer divided into one piece per process.
+     *
+     * @param buffer Buffer.
+     * @param n Buffer length.
+     * @param piece Piece index.
+     *
+     * @return Slice buffer for the piece.
+     */
+    private Buf getPiece(Buf buffer,
+            int n,
+            int piece) {
+        int lb = (int) ((long) piece * n / mySize);
+        int ub = (int) ((long) (piece + 1) * n / mySize);
+        return buffer.getSliceBuf(lb, ub - lb);
+    }
+
+    /**
+     * Broadcast a long message. The root process sends one piece of the
+     * buffer to each process; then the pieces are passed around a ring until
+     * every process has every piece. Each link carries about one buffer's worth
+     * of data, instead of log<SUB>2</SUB>(<I>K</I>) buffers' worth from the
+     * root of a tree.
+     *
+     * @param root Root process's rank in this communicator.
+     * @param tag Message tag.
+     * @param buffer Buffer of data items to be sent or received.
+     *
+     * @exception IOException Thrown if an I/O error occurred.
+     */
+    private void ringBroadcast(int root,
+            int tag,
+            Buf buffer)
+            throws IOException {
+        int n = buffer.length();
+        int pred = (myRank - 1 + mySize) % mySize;
+        int succ = (myRank + 1) % mySize;
+
+        // Scatter piece i to process i (non-blocking in the root).
+        IORequest[] iorequest = null;
+        if (myRank == root) {
+            iorequest = new IORequest[mySize];
+            for (int i = 0; i < mySize; ++i) {
+                if (i != root) {
+                    iorequest[i] = new IORequest();
+                    myChannelGroup.sendNoWait(getChannel(i), tag,
+                            getPiece(buffer, n, i), iorequest[i]);
+                }
+            }
+        } else {
+            myChannelGroup.receive(getChannel(root), tag,
+                    getPiece(buffer, n, myRank));
+        }
+
+        // Do (mySize-1) ring rounds. In round s each process passes piece
+        // (rank-s) to its successor. The root already has every piece, so it
+        // does not receive, and its predecessor does not send to it.
+        for (int s = 0; s < mySize - 1; ++s) {
+            Buf sendBuf = succ == root ? null
+                    : getPiece(buffer, n, (myRank - s + mySize) % mySize);
+            Buf recvBuf = myRank == root ? null
+                    : getPiece(buffer, n, (myRank - s - 1 + mySize) % mySize);
+            if (sendBuf != null && recvBuf != null) {
+                sendReceive(succ, tag, sendBuf, pred, tag, recvBuf);
+            } else if (sendBuf != null) {
+                send(succ, tag, sendBuf);
+            } else {
+                receive(pred, tag, recvBuf);
+            }
+        }
+
+        // Wait for scatter sends to finish if any.
+        if (iorequest != null) {
+            for (int i = 0; i < mySize; ++i) {
+                if (iorequest[i] != null) {
+                    iorequest[i].waitForFinish();
+                }
+            }
+        }
+    }
+
+    /**
+     * All-reduce a long message. In the reduce-scatter phase, pieces of the
+     * buffer are passed around a ring and accumulated, so that after
+     * (<I>K</I>-1) rounds each process holds the full reduction of one piece.
+     * In the all-gather phase the reduced pieces are passed around the ring
+     * for another (<I>K</I>-1) rounds. Each process sends and receives about
+     * two buffers' worth of data in total, instead of log<SUB>2</SUB>(<I>K</I>)
+     * buffers' worth for the butterfly pattern, and every process ends up with
+     * an identical result.
+     *
+     * @param tag Message tag.
+     * @param buffer Buffer of data items to be reduced.
+     * @param op Binary operation.
+     *
+     * @exception IOException Thrown if an I/O error occurred.
+     */
+    private void ringAllReduce(int tag,
+            Buf buffer,
+            Op op)
+            throws IOException {
+        int n = buffer.length();
+        int pred = (myRank - 1 + mySize) % mySize;
+        int succ = (myRank + 1) % mySize;
+
+        // Set up reduction buffer on top of data buffer.
+        Buf reductionBuf = buffer.getReductionBuf(op);
+
+        // Reduce-scatter. In round s, send piece (rank-s) and accumulate piece
+        // (rank-s-1). Afterwards piece (rank+1) is fully reduced.
+        for (int s = 0; s < mySize - 1; ++s) {
+            sendReceive(/*toRank  */succ,
+                    /*sendTag */ tag,
+                    /*sendBuf */ getPiece(buffer, n, (myRank - s + mySize) % mySize),
+                    /*fromRank*/ pred,
+                    /*recvTag */ tag,
+                    /*recvBuf */ getPiece(reductionBuf, n, (myRank - s - 1 + mySize) % mySize));
+        }
+
+        // All-gather. In round s, send piece (rank-s+1) and receive piece
+        // (rank-s).
+        for (int s = 0; s < mySize - 1; ++s) {
+            sendReceive(/*toRank  */succ,
+                    /*sendTag */ tag,
+                    /*sendBuf */ getPiece(buffer, n, (myRank - s + 1 + mySize) % mySize),
+                    /*fromRank*/ pred,
+                    /*recvTag */ tag,
+                    /*recvBuf */ getPiece(buffer, n, (myRank - s + mySize) % mySize));
+        }
+    }
+
+    /**
+     * All-gather short messages by recursive doubling. Before the round with
+     * distance <I>d</I>, each process holds the source buffers of the
+     * <I>d</I> processes starting at its own rank; in the round it sends these
+     * to the process <I>d</I> ranks below and receives the next <I>d</I> from
+     * the process <I>d</I> ranks above. This takes
+     * ceil(log<SUB>2</SUB>(<I>K</I>)) rounds for any number of processes,
+     * instead of (<I>K</I>-1) rounds for a ring.
+     *
+     * @param tag Message tag.
+     * @param src Source buffer to be sent.
+     * @param dstarray Array of destination buffers to be received.
+     *
+     * @exception IOException Thrown if an I/O error occurred.
+     */
+    private void treeAllGather(int tag,
+            Buf src,
+            Buf[] dstarray)
+            throws IOException {
+        // Copy source buffer into destination buffer at my own rank.
+        dstarray[myRank].copy(src);
+
+        for (int dist = 1; dist < mySize; dist <<= 1) {
+            int count = Math.min(dist, mySize - dist);
+            Channel toChannel = getChannel((myRank - dist + mySize) % mySize);
+            Channel fromChannel = getChannel((myRank + dist) % mySize);
+
+            // Post receives, then sends, in the same order as the far end.
+            IORequest[] recvRequest = new IORequest[count];
+            IORequest[] sendRequest = new IORequest[count];
+            for (int j = 0; j < count; ++j) {
+                recvRequest[j] = new IORequest();
+                myChannelGroup.receiveNoWait(fromChannel, tag,
+                        dstarray[(myRank + dist + j) % mySize], recvRequest[j]);
+            }
+            for (int j = 0; j < count; ++j) {
+                sendRequest[j] = new IORequest();
+                myChannelGroup.sendNoWait(toChannel, tag,
+                        dstarray[(myRank + j) % mySize], sendRequest[j]);
+            }
+
+            // Wait for this round to finish.
+            for (int j = 0; j < count; ++j) {
+                recvRequest[j].waitForFinish();
+                sendRequest[j].waitForFinish();
+            }
+        }
+    }
+
 }
@@ -91,6 +91,28 @@ package edu.rit.pj;
  * <LI>
  * <B>pj.prng</B> -- The fully-qualified class name of the default pseudorandom
  * number generator (PRNG) class. ({@link #getPjPrng()})
+ * <P>
+ * <LI>
+ * <B>pj.transport</B> -- The transport used by message passing channels
+ * between processes, either <TT>"threads"</TT> or <TT>"selector"</TT>. ({@link
+ *#getPjTransport()})
+ * <P>
+ * <LI>
+ * <B>pj.selectors</B> -- The number of selector threads per process when the
+ * selector transport is used. ({@link #getPjSelectors()})
+ * <P>
+ * <LI>
+ * <B>pj.shm</B> -- Whether message passing channels between processes on the
+ * same host use shared memory. ({@link #getPjShm()})
+ * <P>
+ * <LI>
+ * <B>pj.collectives</B> -- The algorithm used by collective communication
+ * operations. ({@link #getPjCollectives()})
+ * <P>
+ * <LI>
+ * <B>pj.collectives.threshold</B> -- The message length, in items, at which
+ * collective communication operations switch to algorithms for large messages.
+ * ({@link #getPjCollectivesThreshold()})
  * </UL>
  * <P>
  * You can specify a PJ property on the Java command line like this:
@@ -426,4 +448,161 @@ public class PJProperties {
         return System.getProperty("pj.prng", "edu.rit.util.DefaultRandom");
     }
 
+    /**
+     * Determine the transport used by the message passing channels between the
+     * processes of a cluster parallel program. The transport is set up when the
+     * <TT>Comm.init()</TT> method is executed (see class {@linkplain Comm}).
+     * <P>
+     * If the <TT>"pj.transport"</TT> Java system property is
+     * <TT>"threads"</TT>, each channel has its own send and receive threads
+     * performing blocking I/O. If it is <TT>"selector"</TT>, all channels
+     * perform non-blocking I/O serviced by a small number of selector threads
+     * (see {@link #getPjSelectors()}), which scales better when a process is
+     * connected to many other processes. To use the selector transport in the
+     * job backend processes, include <TT>-Dpj.transport=selector</TT> in the
+     * <TT>"pj.jvmflags"</TT> property.
+     * <P>
+     * If the <TT>"pj.transport"</TT> Java system property is not specified,
+     * <TT>"threads"</TT> is returned.
+     *
+     * @return Transport, either <TT>"threads"</TT> or <TT>"selector"</TT>.
+     * @exception IllegalArgumentException (unchecked exception) Thrown if the
+     * <TT>"pj.transport"</TT> property value is not <TT>"threads"</TT> or
+     * <TT>"selector"</TT>.
+     */
+    public static String getPjTransport() {
+        String pj_transport = System.getProperty("pj.transport", "threads").trim().toLowerCase();
+        if (!pj_transport.equals("threads") && !pj_transport.equals("selector")) {
+            throw new IllegalArgumentException("pj.transport system property is not \"threads\" or \"selector\"");
+        }
+        return pj_transport;
+    }
+
+    /**
+     * Determine the number of selector threads per process when the selector
+     * transport is used (see {@link #getPjTransport()}).
+     * <P>
+     * If the <TT>"pj.selectors"</TT> Java system property is specified, it must
+     * be an integer greater than or equal to 1.
+     * <P>
+     * If the <TT>"pj.selectors"</TT> Java system property is not specified, 1
+     * is returned.
+     *
+     * @return Number of selector threads.
+     * @exception IllegalArgumentException (unchecked exception) Thrown if the
+     * <TT>"pj.selectors"</TT> property value is not an integer greater than or
+     * equal to 1.
+     */
+    public static int getPjSelectors() {
+        int k = 1;
+        String pj_selectors = System.getProperty("pj.selectors");
+        if (pj_selectors != null) {
+            try {
+                k = Integer.parseInt(pj_selectors);
+            } catch (NumberFormatException exc) {
+                throw new IllegalArgumentException("pj.selectors system property is not an integer >= 1");
+            }
+            if (k < 1) {
+                throw new IllegalArgumentException("pj.selectors system property is not an integer >= 1");
+            }
+        }
+        return k;
+    }
+
+    /**
+     * Determine whether the message passing channels between processes of a
+     * cluster parallel program that run on the same host use shared memory.
+     * The setting takes effect when the <TT>Comm.init()</TT> method is executed
+     * (see class {@linkplain Comm}).
+     * <P>
+     * If the <TT>"pj.shm"</TT> Java system property is <TT>"true"</TT>, a
+     * channel whose two ends are on the same host exchanges message bytes
+     * through memory-mapped ring buffers (in <TT>/dev/shm</TT> when available)
+     * instead of the TCP loopback interface. If it is <TT>"false"</TT>, all
+     * channels use TCP.
+     * <P>
+     * If the <TT>"pj.shm"</TT> Java system property is not specified, false
+     * is returned.
+     *
+     * @return True if shared memory is used, false otherwise.
+     * @exception IllegalArgumentException (unchecked exception) Thrown if the
+     * <TT>"pj.shm"</TT> property value is not <TT>"true"</TT> or
+     * <TT>"false"</TT>.
+     */
+    public static boolean getPjShm() {
+        String pj_shm = System.getProperty("pj.shm", "false").trim().toLowerCase();
+        if (pj_shm.equals("true")) {
+            return true;
+        } else if (pj_shm.equals("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("pj.shm system property is not \"true\" or \"false\"");
+    }
+
+    /**
+     * Determine the algorithm used by the collective communication operations
+     * of the communicators in a cluster parallel program (see {@link
+     * Comm.Algorithm}). The setting takes effect when a communicator is
+     * created, and can be changed later by calling the communicator's
+     * <TT>setCollectiveAlgorithm()</TT> method.
+     * <P>
+     * If the <TT>"pj.collectives"</TT> Java system property is specified, it
+     * must be <TT>"pattern"</TT>, <TT>"tree"</TT>, <TT>"ring"</TT>, or
+     * <TT>"auto"</TT>.
+     * <P>
+     * If the <TT>"pj.collectives"</TT> Java system property is not specified,
+     * <TT>Comm.Algorithm.TREE</TT> is returned. Communicators previously used
+     * the <TT>Comm.Algorithm.PATTERN</TT> algorithms, which differ from
+     * <TT>TREE</TT> only in the all-gather: with three or more processes,
+     * <TT>allGather()</TT> callers (for example the recursion weight exchange of
+     * <TT>TransitionTemperedOSRW</TT>) now use recursive doubling rather than a
+     * ring. Specify <TT>"pattern"</TT> to keep the ring all-gather.
+     *
+     * @return Collective algorithm.
+     * @exception IllegalArgumentException (unchecked exception) Thrown if the
+     * <TT>"pj.collectives"</TT> property value is not <TT>"pattern"</TT>,
+     * <TT>"tree"</TT>, <TT>"ring"</TT>, or <TT>"auto"</TT>.
+     */
+    public static Comm.Algorithm getPjCollectives() {
+        String pj_collectives = System.getProperty("pj.collectives", "tree").trim().toUpperCase();
+        try {
+            return Comm.Algorithm.valueOf(pj_collectives);
+        } catch (IllegalArgumentException exc) {
+            throw new IllegalArgumentException("pj.collectives system property is not \"pattern\", \"tree\", \"ring\", or \"auto\"");
+        }
+    }
+
+    /**
+     * Determine the message length, in items, at which the collective
+     * communication operations switch to algorithms for large messages when
+     * the collective algorithm is <TT>Comm.Algorithm.AUTO</TT> (see {@link
+     * #getPjCollectives()}).
+     * <P>
+     * If the <TT>"pj.collectives.threshold"</TT> Java system property is
+     * specified, it must be an integer greater than or equal to 1.
+     * <P>
+     * If the <TT>"pj.collectives.threshold"</TT> Java system property is not
+     * specified, 65536 is returned.
+     *
+     * @return Large message threshold.
+     * @exception IllegalArgumentException (unchecked exception) Thrown if the
+     * <TT>"pj.collectives.threshold"</TT> property value is not an integer
+     * greater than or equal to 1.
+     */
+    public static int getPjCollectivesThreshold() {
+        int k = 65536;
+        String pj_threshold = System.getProperty("pj.collectives.threshold");
+        if (pj_threshold != null) {
+            try {
+                k = Integer.parseInt(pj_threshold);
+            } catch (NumberFormatException exc) {
+                throw new IllegalArgumentException("pj.collectives.threshold system property is not an integer >= 1");
+            }
+            if (k < 1) {
+                throw new IllegalArgumentException("pj.collectives.threshold system property is not an integer >= 1");
+            }
+        }
+        return k;
+    }
+
 }
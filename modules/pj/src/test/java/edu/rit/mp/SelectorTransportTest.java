@@ -0,0 +1,219 @@
+//******************************************************************************
+//
+// File:    SelectorTransportTest.java
+// Package: edu.rit.mp
+// Unit:    Class edu.rit.mp.SelectorTransportTest
+//
+// This Java source file is copyright (C) 2009 by Alan Kaminsky. All rights
+// reserved. For further information, contact the author, Alan Kaminsky, at
+// ark@cs.rit.edu.
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+package edu.rit.mp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exchange messages between channel groups that use selector transports. Each
+ * channel group stands in for one process and is connected to the others
+ * through the TCP loopback interface, so each selector thread services several
+ * channels.
+ *
+ * @version $Id: $Id
+ */
+public class SelectorTransportTest {
+
+    private static final int PROCESSES = 8;
+    private static final int SELECTORS = 2;
+
+    /**
+     * Long messages span several transport buffers.
+     */
+    private static final int LENGTH = 3 * Constants.BUFFER_SIZE + 17;
+
+    private ChannelGroup[] groups;
+    private Channel[][] channels;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        groups = new ChannelGroup[PROCESSES];
+        channels = new Channel[PROCESSES][PROCESSES];
+        final CountDownLatch farEnds = new CountDownLatch(PROCESSES * (PROCESSES - 1) / 2);
+        for (int i = 0; i < PROCESSES; i++) {
+            final int rank = i;
+            groups[i] = new ChannelGroup(new InetSocketAddress("localhost", 0));
+            groups[i].setChannelGroupId(rank);
+            groups[i].useSelectors(SELECTORS);
+            groups[i].setConnectListener(new ConnectListener() {
+                public void nearEndConnected(ChannelGroup theChannelGroup,
+                        Channel theChannel) {
+                }
+
+                public void farEndConnected(ChannelGroup theChannelGroup,
+                        Channel theChannel) {
+                    channels[rank][theChannel.farEndChannelGroupId()] = theChannel;
+                    farEnds.countDown();
+                }
+            });
+            groups[i].startListening();
+        }
+        for (int i = 0; i < PROCESSES; i++) {
+            channels[i][i] = groups[i].loopbackChannel();
+            for (int j = i + 1; j < PROCESSES; j++) {
+                channels[i][j] = groups[i].connect(groups[j].listenAddress());
+            }
+        }
+        assertTrue("Channels did not connect", farEnds.await(30, TimeUnit.SECONDS));
+        executor = Executors.newFixedThreadPool(PROCESSES);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        for (ChannelGroup group : groups) {
+            if (group != null) {
+                group.close();
+            }
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testAllToAll() throws Exception {
+        for (int i = 0; i < PROCESSES; i++) {
+            assertEquals(SELECTORS, groups[i].selectorCount());
+            for (int j = 0; j < PROCESSES; j++) {
+                if (i != j) {
+                    assertTrue(channels[i][j] instanceof SelectorChannel);
+                }
+            }
+        }
+        run(new Process() {
+            public void run(int rank) throws IOException {
+                // Post the receives in the reverse order of the sends.
+                byte[][] received = new byte[PROCESSES][LENGTH];
+                IORequest[] requests = new IORequest[PROCESSES];
+                for (int j = PROCESSES - 1; j >= 0; j--) {
+                    if (j != rank) {
+                        requests[j] = new IORequest();
+                        groups[rank].receiveNoWait(channels[rank][j], j,
+                                ByteBuf.buffer(received[j]), requests[j]);
+                    }
+                }
+                for (int k = 1; k < PROCESSES; k++) {
+                    int j = (rank + k) % PROCESSES;
+                    groups[rank].send(channels[rank][j], rank,
+                            ByteBuf.buffer(message(rank, j)));
+                }
+                for (int j = 0; j < PROCESSES; j++) {
+                    if (j != rank) {
+                        Status status = requests[j].waitForFinish();
+                        assertEquals(j, status.tag);
+                        assertEquals(LENGTH, status.length);
+                        assertMessage(message(j, rank), received[j]);
+                    }
+                }
+            }
+        });
+    }
+
+    @Test(timeout = 60000)
+    public void testMessageOrder() throws Exception {
+        final int count = 200;
+        run(new Process() {
+            public void run(int rank) throws IOException {
+                int right = (rank + 1) % PROCESSES;
+                int left = (rank + PROCESSES - 1) % PROCESSES;
+                IORequest[] sends = new IORequest[count];
+                for (int m = 0; m < count; m++) {
+                    sends[m] = new IORequest();
+                    groups[rank].sendNoWait(channels[rank][right], 0,
+                            IntegerBuf.buffer(new int[]{rank, m}), sends[m]);
+                }
+                // Messages on one channel with the same tag arrive in order.
+                int[] item = new int[2];
+                for (int m = 0; m < count; m++) {
+                    groups[rank].receive(channels[rank][left], 0, IntegerBuf.buffer(item));
+                    assertEquals(left, item[0]);
+                    assertEquals(m, item[1]);
+                }
+                for (int m = 0; m < count; m++) {
+                    sends[m].waitForFinish();
+                }
+            }
+        });
+    }
+
+    /**
+     * The body of one process.
+     */
+    private interface Process {
+
+        void run(int rank) throws Exception;
+    }
+
+    /**
+     * Run the process body for every rank concurrently and rethrow the first
+     * failure.
+     */
+    private void run(final Process process) throws Exception {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < PROCESSES; i++) {
+            final int rank = i;
+            futures.add(executor.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    process.run(rank);
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+    }
+
+    private static byte[] message(int from, int to) {
+        byte[] message = new byte[LENGTH];
+        for (int k = 0; k < LENGTH; k++) {
+            message[k] = (byte) (31 * from + 7 * to + k);
+        }
+        return message;
+    }
+
+    private static void assertMessage(byte[] expected, byte[] actual) {
+        for (int k = 0; k < expected.length; k++) {
+            if (expected[k] != actual[k]) {
+                assertEquals("Byte " + k, expected[k], actual[k]);
+            }
+        }
+    }
+}
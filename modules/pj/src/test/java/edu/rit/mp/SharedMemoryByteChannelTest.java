@@ -0,0 +1,222 @@
+//******************************************************************************
+//
+// File:    SharedMemoryByteChannelTest.java
+// Package: edu.rit.mp
+// Unit:    Class edu.rit.mp.SharedMemoryByteChannelTest
+//
+// This Java source file is copyright (C) 2009 by Alan Kaminsky. All rights
+// reserved. For further information, contact the author, Alan Kaminsky, at
+// ark@cs.rit.edu.
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+package edu.rit.mp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Exchange bytes through a pair of shared memory byte channels set up over a
+ * TCP loopback connection.
+ *
+ * @version $Id: $Id
+ */
+public class SharedMemoryByteChannelTest {
+
+    private static final int CAPACITY = Constants.SHM_RING_SIZE;
+
+    private ServerSocketChannel server;
+    private SharedMemoryByteChannel near;
+    private SharedMemoryByteChannel far;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(2);
+        server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress("localhost", 0));
+        final SocketChannel nearSocket = SocketChannel.open(server.socket().getLocalSocketAddress());
+        final SocketChannel farSocket = server.accept();
+
+        // Both ends negotiate at the same time.
+        Future<SharedMemoryByteChannel> nearEnd = executor.submit(new Callable<SharedMemoryByteChannel>() {
+            public SharedMemoryByteChannel call() throws IOException {
+                return SharedMemoryByteChannel.negotiate(nearSocket, true);
+            }
+        });
+        far = SharedMemoryByteChannel.negotiate(farSocket, true);
+        near = nearEnd.get(30, TimeUnit.SECONDS);
+        assertNotNull(near);
+        assertNotNull(far);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        if (near != null) {
+            near.close();
+        }
+        if (far != null) {
+            far.close();
+        }
+        server.close();
+    }
+
+    @Test(timeout = 60000)
+    public void testRoundTrip() throws Exception {
+        final int trips = 200;
+        final int length = 3001;
+
+        // The far end echoes every message.
+        Future<Void> echo = executor.submit(new Callable<Void>() {
+            public Void call() throws IOException {
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                for (int t = 0; t < trips; t++) {
+                    buffer.clear();
+                    readFully(far, buffer);
+                    buffer.flip();
+                    far.write(buffer);
+                }
+                return null;
+            }
+        });
+        ByteBuffer message = ByteBuffer.allocate(length);
+        ByteBuffer reply = ByteBuffer.allocate(length);
+        for (int t = 0; t < trips; t++) {
+            fill(message, t);
+            message.flip();
+            assertEquals(length, near.write(message));
+            reply.clear();
+            readFully(near, reply);
+            reply.flip();
+            check(reply, t);
+        }
+        echo.get();
+        // The rings wrapped around.
+        assertTrue(trips * length > CAPACITY);
+    }
+
+    @Test(timeout = 60000)
+    public void testWrapAround() throws Exception {
+        final int total = 5 * CAPACITY + 12345;
+
+        // Odd sized writes fill the ring and wrap past its end.
+        Future<Void> writer = executor.submit(new Callable<Void>() {
+            public Void call() throws IOException {
+                ByteBuffer chunk = ByteBuffer.allocate(9973);
+                int sent = 0;
+                while (sent < total) {
+                    chunk.clear();
+                    chunk.limit(Math.min(chunk.capacity(), total - sent));
+                    while (chunk.hasRemaining()) {
+                        chunk.put((byte) (sent + chunk.position()));
+                    }
+                    chunk.flip();
+                    sent += near.write(chunk);
+                }
+                return null;
+            }
+        });
+        ByteBuffer chunk = ByteBuffer.allocate(7919);
+        int received = 0;
+        while (received < total) {
+            chunk.clear();
+            chunk.limit(Math.min(chunk.capacity(), total - received));
+            int n = far.read(chunk);
+            assertTrue(n > 0);
+            for (int k = 0; k < n; k++) {
+                assertEquals((byte) (received + k), chunk.get(k));
+            }
+            received += n;
+        }
+        writer.get();
+    }
+
+    @Test(timeout = 60000)
+    public void testPeerClose() throws Exception {
+        ByteBuffer message = ByteBuffer.allocate(1000);
+        fill(message, 7);
+        message.flip();
+        near.write(message);
+        near.close();
+
+        // Bytes written before the close are still delivered.
+        ByteBuffer received = ByteBuffer.allocate(1000);
+        readFully(far, received);
+        received.flip();
+        check(received, 7);
+        received.clear();
+        assertEquals(-1, far.read(received));
+    }
+
+    @Test(timeout = 60000)
+    public void testWriterDetectsClosedPeer() throws Exception {
+        // More than the ring holds, so the writer waits for space.
+        Future<Integer> writer = executor.submit(new Callable<Integer>() {
+            public Integer call() throws IOException {
+                return near.write(ByteBuffer.allocate(CAPACITY + 1));
+            }
+        });
+        Thread.sleep(500);
+        assertTrue(!writer.isDone());
+        far.close();
+        try {
+            writer.get(30, TimeUnit.SECONDS);
+            fail("Write to a closed far end did not fail");
+        } catch (ExecutionException exc) {
+            assertTrue(exc.getCause() instanceof IOException);
+        }
+    }
+
+    private static void readFully(SharedMemoryByteChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                throw new IOException("Unexpected end of stream");
+            }
+        }
+    }
+
+    private static void fill(ByteBuffer buffer, int seed) {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) (31 * seed + buffer.position()));
+        }
+    }
+
+    private static void check(ByteBuffer buffer, int seed) {
+        for (int k = 0; k < buffer.limit(); k++) {
+            assertEquals((byte) (31 * seed + k), buffer.get(k));
+        }
+    }
+}
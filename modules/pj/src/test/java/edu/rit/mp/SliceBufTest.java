@@ -0,0 +1,185 @@
+//******************************************************************************
+//
+// File:    SliceBufTest.java
+// Package: edu.rit.mp
+// Unit:    Class edu.rit.mp.SliceBufTest
+//
+// This Java source file is copyright (C) 2009 by Alan Kaminsky. All rights
+// reserved. For further information, contact the author, Alan Kaminsky, at
+// ark@cs.rit.edu.
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+package edu.rit.mp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import edu.rit.pj.reduction.DoubleOp;
+import edu.rit.util.Range;
+
+/**
+ * Send and receive slices of buffers between two channel groups connected
+ * through the TCP loopback interface.
+ *
+ * @version $Id: $Id
+ */
+public class SliceBufTest {
+
+    private ChannelGroup near;
+    private ChannelGroup far;
+    private Channel nearChannel;
+    private Channel farChannel;
+
+    @Before
+    public void setUp() throws Exception {
+        near = new ChannelGroup(new InetSocketAddress("localhost", 0));
+        far = new ChannelGroup(new InetSocketAddress("localhost", 0));
+        final CountDownLatch connected = new CountDownLatch(1);
+        far.setConnectListener(new ConnectListener() {
+            public void nearEndConnected(ChannelGroup theChannelGroup,
+                    Channel theChannel) {
+            }
+
+            public void farEndConnected(ChannelGroup theChannelGroup,
+                    Channel theChannel) {
+                farChannel = theChannel;
+                connected.countDown();
+            }
+        });
+        far.startListening();
+        nearChannel = near.connect(far.listenAddress());
+        assertTrue("Channel did not connect", connected.await(30, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        near.close();
+        far.close();
+    }
+
+    @Test(timeout = 60000)
+    public void testSlice() throws IOException {
+        double[] src = values(20, 0);
+        double[] dst = new double[20];
+        transfer(DoubleBuf.buffer(src).getSliceBuf(3, 10),
+                DoubleBuf.buffer(dst).getSliceBuf(5, 10));
+        for (int k = 0; k < 20; k++) {
+            double expected = k >= 5 && k < 15 ? src[k - 2] : 0.0;
+            assertEquals("Item " + k, expected, dst[k], 0.0);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testLongSlice() throws IOException {
+        // The slices span several transport buffers and end short of the
+        // underlying buffers.
+        int n = 3 * Constants.BUFFER_SIZE / 8 + 101;
+        double[] src = values(n + 50, 1);
+        double[] dst = new double[n + 50];
+        transfer(DoubleBuf.buffer(src).getSliceBuf(7, n),
+                DoubleBuf.buffer(dst).getSliceBuf(11, n));
+        for (int k = 0; k < n + 50; k++) {
+            double expected = k >= 11 && k < 11 + n ? src[k - 4] : 0.0;
+            assertEquals("Item " + k, expected, dst[k], 0.0);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testReductionSlice() throws IOException {
+        double[] src = values(12, 2);
+        double[] dst = values(12, 3);
+        double[] before = dst.clone();
+        Buf reduction = DoubleBuf.buffer(dst).getReductionBuf(DoubleOp.SUM);
+        transfer(DoubleBuf.buffer(src).getSliceBuf(4, 5), reduction.getSliceBuf(4, 5));
+        for (int k = 0; k < 12; k++) {
+            double expected = k >= 4 && k < 9 ? before[k] + src[k] : before[k];
+            assertEquals("Item " + k, expected, dst[k], 0.0);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testStridedSlice() throws IOException {
+        // Every other item of the arrays.
+        double[] src = values(40, 4);
+        double[] dst = new double[40];
+        Buf srcBuf = DoubleBuf.sliceBuffer(src, new Range(0, 39, 2));
+        Buf dstBuf = DoubleBuf.sliceBuffer(dst, new Range(1, 39, 2));
+        transfer(srcBuf.getSliceBuf(2, 15), dstBuf.getSliceBuf(3, 15));
+        for (int k = 0; k < 40; k++) {
+            double expected = 0.0;
+            if (k % 2 == 1 && k >= 7 && k < 37) {
+                expected = src[(k - 7) + 4];
+            }
+            assertEquals("Item " + k, expected, dst[k], 0.0);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testIntegerSlice() throws IOException {
+        int[] src = new int[30];
+        for (int k = 0; k < 30; k++) {
+            src[k] = 3 * k - 40;
+        }
+        int[] dst = new int[30];
+        transfer(IntegerBuf.buffer(src).getSliceBuf(0, 30),
+                IntegerBuf.buffer(dst).getSliceBuf(0, 30));
+        for (int k = 0; k < 30; k++) {
+            assertEquals(src[k], dst[k]);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() {
+        DoubleBuf.buffer(new double[10]).getSliceBuf(5, 6);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testObjectBuffer() {
+        Buf buf = ObjectBuf.buffer(new String[4]);
+        assertFalse(buf.isSliceable());
+        buf.getSliceBuf(0, 2);
+    }
+
+    /**
+     * Send one buffer from the near group and receive it into another at the
+     * far group.
+     */
+    private void transfer(Buf src, Buf dst) throws IOException {
+        IORequest send = new IORequest();
+        near.sendNoWait(nearChannel, src, send);
+        Status status = far.receive(farChannel, dst);
+        send.waitForFinish();
+        assertEquals(src.length(), status.length);
+    }
+
+    private static double[] values(int n, int seed) {
+        double[] values = new double[n];
+        for (int k = 0; k < n; k++) {
+            values[k] = seed + k / 7.0;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,281 @@
+//******************************************************************************
+//
+// File:    CommCollectivesTest.java
+// Package: edu.rit.pj
+// Unit:    Class edu.rit.pj.CommCollectivesTest
+//
+// This Java source file is copyright (C) 2009 by Alan Kaminsky. All rights
+// reserved. For further information, contact the author, Alan Kaminsky, at
+// ark@cs.rit.edu.
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+package edu.rit.pj;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import edu.rit.mp.Buf;
+import edu.rit.mp.DoubleBuf;
+import edu.rit.mp.IntegerBuf;
+import edu.rit.pj.reduction.DoubleOp;
+import edu.rit.pj.reduction.IntegerOp;
+import edu.rit.util.Range;
+
+/**
+ * Compare the ring and recursive doubling collective algorithms of class Comm
+ * against the tree algorithms. Each communicator stands in for one process and
+ * is connected to the others through the TCP loopback interface. There are 5
+ * processes, so the process count is not a power of 2 and does not divide the
+ * message lengths.
+ *
+ * @version $Id: $Id
+ */
+public class CommCollectivesTest {
+
+    private static final int PROCESSES = 5;
+
+    /**
+     * Message lengths, including lengths not divisible by the process count and
+     * a length shorter than the process count, which falls back to the tree.
+     */
+    private static final int[] LENGTHS = {4, 5, 7, 1003, 20011};
+
+    private static Comm[] comms;
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        InetSocketAddress[] address = new InetSocketAddress[PROCESSES];
+        ServerSocket[] sockets = new ServerSocket[PROCESSES];
+        for (int i = 0; i < PROCESSES; i++) {
+            sockets[i] = new ServerSocket(0);
+            address[i] = new InetSocketAddress("localhost", sockets[i].getLocalPort());
+        }
+        for (ServerSocket socket : sockets) {
+            socket.close();
+        }
+        comms = new Comm[PROCESSES];
+        for (int i = 0; i < PROCESSES; i++) {
+            comms[i] = Comm.create(i, address);
+        }
+        executor = Executors.newFixedThreadPool(PROCESSES);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 120000)
+    public void testBroadcast() throws Exception {
+        for (final int n : LENGTHS) {
+            for (int r = 0; r < PROCESSES; r++) {
+                final int root = r;
+                Process broadcast = new Process() {
+                    public double[] run(Comm comm) throws Exception {
+                        double[] data = comm.rank() == root ? values(root, n) : new double[n];
+                        comm.broadcast(root, DoubleBuf.buffer(data));
+                        return data;
+                    }
+                };
+                double[][] tree = collect(Comm.Algorithm.TREE, broadcast);
+                double[][] ring = collect(Comm.Algorithm.RING, broadcast);
+                for (int i = 0; i < PROCESSES; i++) {
+                    String message = "Broadcast of " + n + " items from root " + root + " to rank " + i;
+                    assertArrayEquals(message, values(root, n), tree[i], 0.0);
+                    assertArrayEquals(message, tree[i], ring[i], 0.0);
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void testAllReduce() throws Exception {
+        for (final int n : LENGTHS) {
+            Process sum = new Process() {
+                public double[] run(Comm comm) throws Exception {
+                    double[] data = values(comm.rank(), n);
+                    comm.allReduce(DoubleBuf.buffer(data), DoubleOp.SUM);
+                    return data;
+                }
+            };
+            double[][] tree = collect(Comm.Algorithm.TREE, sum);
+            double[][] ring = collect(Comm.Algorithm.RING, sum);
+            double[] expected = new double[n];
+            for (int i = 0; i < PROCESSES; i++) {
+                double[] v = values(i, n);
+                for (int k = 0; k < n; k++) {
+                    expected[k] += v[k];
+                }
+            }
+            for (int i = 0; i < PROCESSES; i++) {
+                String message = "All-reduce of " + n + " items at rank " + i;
+                assertArrayEquals(message, expected, tree[i], 1.0e-8);
+                assertArrayEquals(message, tree[i], ring[i], 1.0e-8);
+                // The ring gives the same bits on every process.
+                assertArrayEquals(message, ring[0], ring[i], 0.0);
+            }
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void testIntegerAllReduce() throws Exception {
+        for (final int n : LENGTHS) {
+            final int[][][] results = new int[2][PROCESSES][];
+            final Comm.Algorithm[] algorithms = {Comm.Algorithm.TREE, Comm.Algorithm.RING};
+            for (int a = 0; a < algorithms.length; a++) {
+                final int[][] result = results[a];
+                collect(algorithms[a], new Process() {
+                    public double[] run(Comm comm) throws Exception {
+                        int[] data = new int[n];
+                        for (int k = 0; k < n; k++) {
+                            data[k] = (comm.rank() + 1) * (k % 13 - 6);
+                        }
+                        comm.allReduce(IntegerBuf.buffer(data), IntegerOp.MAXIMUM);
+                        result[comm.rank()] = data;
+                        return null;
+                    }
+                });
+            }
+            int[] expected = new int[n];
+            for (int k = 0; k < n; k++) {
+                expected[k] = k % 13 - 6 < 0 ? k % 13 - 6 : PROCESSES * (k % 13 - 6);
+            }
+            for (int i = 0; i < PROCESSES; i++) {
+                assertArrayEquals("Tree maximum at rank " + i, expected, results[0][i]);
+                assertArrayEquals("Ring maximum at rank " + i, expected, results[1][i]);
+            }
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void testAllGather() throws Exception {
+        for (final int n : LENGTHS) {
+            Process gather = new Process() {
+                public double[] run(Comm comm) throws Exception {
+                    double[] data = new double[PROCESSES * n];
+                    Buf[] dst = new Buf[PROCESSES];
+                    for (int i = 0; i < PROCESSES; i++) {
+                        dst[i] = DoubleBuf.sliceBuffer(data, new Range(i * n, (i + 1) * n - 1));
+                    }
+                    comm.allGather(DoubleBuf.buffer(values(comm.rank(), n)), dst);
+                    return data;
+                }
+            };
+            // TREE gathers by recursive doubling, PATTERN around the ring.
+            double[][] doubling = collect(Comm.Algorithm.TREE, gather);
+            double[][] ring = collect(Comm.Algorithm.PATTERN, gather);
+            double[] expected = new double[PROCESSES * n];
+            for (int i = 0; i < PROCESSES; i++) {
+                System.arraycopy(values(i, n), 0, expected, i * n, n);
+            }
+            for (int i = 0; i < PROCESSES; i++) {
+                String message = "All-gather of " + n + " items at rank " + i;
+                assertArrayEquals(message, expected, doubling[i], 0.0);
+                assertArrayEquals(message, expected, ring[i], 0.0);
+            }
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void testAuto() throws Exception {
+        for (Comm comm : comms) {
+            comm.setCollectiveThreshold(100);
+        }
+        try {
+            for (final int n : LENGTHS) {
+                Process sum = new Process() {
+                    public double[] run(Comm comm) throws Exception {
+                        double[] data = values(comm.rank(), n);
+                        comm.broadcast(2, DoubleBuf.buffer(data));
+                        comm.allReduce(DoubleBuf.buffer(data), DoubleOp.SUM);
+                        return data;
+                    }
+                };
+                double[][] tree = collect(Comm.Algorithm.TREE, sum);
+                double[][] auto = collect(Comm.Algorithm.AUTO, sum);
+                for (int i = 0; i < PROCESSES; i++) {
+                    assertArrayEquals("AUTO with " + n + " items at rank " + i, tree[i], auto[i], 1.0e-8);
+                }
+            }
+        } finally {
+            for (Comm comm : comms) {
+                comm.setCollectiveThreshold(PJProperties.getPjCollectivesThreshold());
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultAlgorithm() {
+        if (System.getProperty("pj.collectives") == null) {
+            assertEquals(Comm.Algorithm.TREE, PJProperties.getPjCollectives());
+        }
+    }
+
+    /**
+     * The body of one process, returning its result.
+     */
+    private interface Process {
+
+        double[] run(Comm comm) throws Exception;
+    }
+
+    /**
+     * Run the process body on every communicator concurrently with the given
+     * algorithm, and return the results by rank. The first failure is
+     * rethrown.
+     */
+    private static double[][] collect(Comm.Algorithm algorithm, final Process process) throws Exception {
+        List<Future<double[]>> futures = new ArrayList<>();
+        for (final Comm comm : comms) {
+            comm.setCollectiveAlgorithm(algorithm);
+            futures.add(executor.submit(new Callable<double[]>() {
+                public double[] call() throws Exception {
+                    return process.run(comm);
+                }
+            }));
+        }
+        double[][] results = new double[PROCESSES][];
+        for (int i = 0; i < PROCESSES; i++) {
+            results[i] = futures.get(i).get();
+        }
+        return results;
+    }
+
+    /**
+     * Values that differ by rank and are not exactly representable sums.
+     */
+    private static double[] values(int rank, int n) {
+        double[] values = new double[n];
+        for (int k = 0; k < n; k++) {
+            values[k] = (rank + 1) * 0.1 + k / 3.0;
+        }
+        return values;
+    }
+}
@@ -273,15 +273,11 @@ class TestLambdaGradient extends Script {
         int nArgs = arguments ? arguments.size() : 1;
         nArgs = (nArgs < 1) ? 1 : nArgs;
         
+        // Threads are partitioned between parallel topologies by setParallel.
         int numParallel = options.nPar;
-        if (threadsAvail % numParallel != 0) {
-            logger.warning(String.format(" Number of threads available %d not evenly divisible by np %d; reverting to sequential", threadsAvail, numParallel));
-            numParallel = 1;
-        } else if (nArgs % numParallel != 0) {
+        if (nArgs % numParallel != 0) {
             logger.warning(String.format(" Number of topologies %d not evenly divisible by np %d; reverting to sequential", arguments.size(), numParallel));
             numParallel = 1;
-        } else {
-            threadsPer = threadsAvail / numParallel;
         }
 
         if (options.qi) {
@@ -203,16 +203,11 @@ if (options.l) {
 
 if (options.np) {
     numParallel = Integer.parseInt(options.np);
-    if (threadsAvail % numParallel != 0) {
-        logger.warning(String.format(" Number of threads available %d not evenly divisible by np %d; reverting to sequential", threadsAvail, numParallel));
-        numParallel = 1;
-    } else if (arguments.size() % numParallel != 0) {
+    // Threads are partitioned between parallel topologies by setParallel.
+    if (arguments.size() % numParallel != 0) {
         logger.warning(String.format(" Number of topologies %d not evenly divisible by np %d; reverting to sequential", arguments.size(), numParallel));
         numParallel = 1;
-    } else {
-        threadsPer = threadsAvail / numParallel;
     }
-    //logger.severe("" + threadsPer);
 }
 
 if (options.la1) {
@@ -491,6 +486,6 @@ double rmsTime = Math.sqrt(sumTime2/halfnEvals);
 logger.info(String.format(" Minimum time: %14.5f (sec)", minTime * 1.0E-9));
 logger.info(String.format(" RMS time (latter half): %14.5f (sec)", rmsTime));
 for (int i = 0; i < energies.size(); i++) {
-    int numt = ((ForceFieldEnergy) energies[i]).parallelTeam.getThreadCount();
+    int numt = topologies[i].getPotentialEnergy().getParallelTeam().getThreadCount();
     logger.info(String.format(" Number of threads for topology %d: %d", i, numt));
 }
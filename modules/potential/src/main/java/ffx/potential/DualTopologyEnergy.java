@@ -43,6 +43,7 @@ import edu.rit.pj.ParallelSection;
 import edu.rit.pj.ParallelTeam;
 
 // Java Imports
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import static java.util.Arrays.fill;
@@ -55,6 +56,7 @@ import static org.apache.commons.math3.util.FastMath.pow;
 import ffx.numerics.Potential;
 import ffx.potential.bonded.Atom;
 import ffx.potential.bonded.LambdaInterface;
+import ffx.potential.nonbonded.CoordRestraint;
 import ffx.potential.parameters.ForceField;
 import ffx.potential.utils.EnergyException;
 
@@ -120,6 +122,12 @@ public class DualTopologyEnergy implements Potential, LambdaInterface {
      * ParallelTeam to execute the EnergyRegion.
      */
     private ParallelTeam team;
+    /**
+     * Number of threads available to evaluate both topologies. In parallel
+     * mode they are divided between the topologies in proportion to atom
+     * count; otherwise each topology uses all of them.
+     */
+    private int threadCount;
     /**
      * Include a valence restaint energy for atoms being "disappeared."
      */
@@ -287,27 +295,35 @@ public class DualTopologyEnergy implements Potential, LambdaInterface {
     /**
      * Topology 1 Potential.
      */
-    private final Potential potential1;
+    private Potential potential1;
     /**
      * Topology 2 Potential.
      */
-    private final Potential potential2;
+    private Potential potential2;
     /**
      * Topology 1 LambdaInterface.
      */
-    private final LambdaInterface lambdaInterface1;
+    private LambdaInterface lambdaInterface1;
     /**
      * Topology 2 LambdaInterface.
      */
-    private final LambdaInterface lambdaInterface2;
+    private LambdaInterface lambdaInterface2;
     /**
      * Topology 1 ForceFieldEnergy.
      */
-    private final ForceFieldEnergy forceFieldEnergy1;
+    private ForceFieldEnergy forceFieldEnergy1;
+    /**
+     * Topology 1 MolecularAssembly (null if constructed from a Potential).
+     */
+    private final MolecularAssembly topology1;
     /**
      * Topology 2 ForceFieldEnergy.
      */
-    private final ForceFieldEnergy forceFieldEnergy2;
+    private ForceFieldEnergy forceFieldEnergy2;
+    /**
+     * Topology 2 MolecularAssembly (null if constructed from a Potential).
+     */
+    private final MolecularAssembly topology2;
 
     private STATE state = STATE.BOTH;
 
@@ -328,6 +344,9 @@ public class DualTopologyEnergy implements Potential, LambdaInterface {
         nAtoms2 = atoms2.length;
         forceFieldEnergy1 = null;
         forceFieldEnergy2 = null;
+        this.topology1 = null;
+        this.topology2 = null;
+        threadCount = ParallelTeam.getDefaultThreadCount();
         doValenceRestraint1 = false;
         doValenceRestraint2 = false;
 
@@ -460,8 +479,12 @@ public class DualTopologyEnergy implements Potential, LambdaInterface {
     }
 
     public DualTopologyEnergy(MolecularAssembly topology1, MolecularAssembly topology2) {
+        this.topology1 = topology1;
+        this.topology2 = topology2;
         forceFieldEnergy1 = topology1.getPotentialEnergy();
         forceFieldEnergy2 = topology2.getPotentialEnergy();
+        threadCount = Math.max(forceFieldEnergy1.getParallelTeam().getThreadCount(),
+                forceFieldEnergy2.getParallelTeam().getThreadCount());
         potential1 = forceFieldEnergy1;
         potential2 = forceFieldEnergy2;
         lambdaInterface1 = forceFieldEnergy1;
@@ -1037,6 +1060,13 @@ public class DualTopologyEnergy implements Potential, LambdaInterface {
         }
     }
     
+    /**
+     * Evaluate the two topologies concurrently or sequentially. In parallel
+     * mode, the available threads are partitioned between the topologies in
+     * proportion to their atom counts.
+     *
+     * @param parallel true to evaluate the topologies concurrently.
+     */
     public void setParallel(boolean parallel) {
         this.inParallel = parallel;
         if (team != null) {
@@ -1047,6 +1077,109 @@ public class DualTopologyEnergy implements Potential, LambdaInterface {
             }
         }
         team = parallel ? new ParallelTeam(2) : new ParallelTeam(1);
+        setThreadCount(threadCount);
+    }
+
+    /**
+     * Set the number of threads available to evaluate both topologies. The
+     * ForceFieldEnergy of each topology is rebuilt with its share of the
+     * threads if its thread count changes, so this should be called before a
+     * simulation rather than during one. The threads need not divide evenly
+     * (e.g. 5 threads for topologies of equal size become 3 and 2), and each
+     * topology keeps at least one thread.
+     *
+     * @param nThreads the number of threads.
+     */
+    public void setThreadCount(int nThreads) {
+        threadCount = nThreads;
+        int nThreads1 = nThreads;
+        int nThreads2 = nThreads;
+        if (inParallel && nThreads > 1) {
+            nThreads1 = partitionThreads(nThreads, nAtoms1, nAtoms2);
+            nThreads2 = nThreads - nThreads1;
+        }
+        if (topology1 == null || topology2 == null) {
+            return;
+        }
+        forceFieldEnergy1 = setThreadCount(topology1, forceFieldEnergy1, nThreads1);
+        forceFieldEnergy2 = setThreadCount(topology2, forceFieldEnergy2, nThreads2);
+        potential1 = forceFieldEnergy1;
+        potential2 = forceFieldEnergy2;
+        lambdaInterface1 = forceFieldEnergy1;
+        lambdaInterface2 = forceFieldEnergy2;
+        if (inParallel) {
+            logger.info(String.format(" Dual topology threads: %3d (%d atoms) and %3d (%d atoms).",
+                    forceFieldEnergy1.getParallelTeam().getThreadCount(), nAtoms1,
+                    forceFieldEnergy2.getParallelTeam().getThreadCount(), nAtoms2));
+        }
+    }
+
+    /**
+     * Rebuild the ForceFieldEnergy of a topology with the given number of
+     * threads, preserving its coordinate restraints and the state set on it
+     * after construction (see ForceFieldEnergy.copyStateTo). A topology with
+     * an attached ExtendedSystem keeps its current ForceFieldEnergy and
+     * thread count.
+     *
+     * @param topology the MolecularAssembly.
+     * @param energy its current ForceFieldEnergy.
+     * @param nThreads the number of threads.
+     * @return the ForceFieldEnergy to use.
+     */
+    private ForceFieldEnergy setThreadCount(MolecularAssembly topology,
+            ForceFieldEnergy energy, int nThreads) {
+        if (energy.getParallelTeam().getThreadCount() == nThreads) {
+            return energy;
+        }
+        if (energy.getExtendedSystem() != null) {
+            logger.warning(String.format(" Topology %s keeps %d threads, since its extended system cannot be moved to %d threads.",
+                    topology.toString(), energy.getParallelTeam().getThreadCount(), nThreads));
+            return energy;
+        }
+        List<CoordRestraint> restraints = energy.getCoordRestraints();
+        ForceFieldEnergy newEnergy = new ForceFieldEnergy(topology, restraints, nThreads);
+        energy.copyStateTo(newEnergy);
+        topology.setPotential(newEnergy);
+        try {
+            energy.destroy();
+        } catch (Exception e) {
+            logger.warning(String.format(" Exception in destroying a ForceFieldEnergy: %s", e.toString()));
+        }
+        return newEnergy;
+    }
+
+    /**
+     * Return the number of threads available to evaluate both topologies.
+     *
+     * @return the number of threads.
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Return the number of atoms summed over both topologies, which is used
+     * to partition threads between concurrently evaluated topologies.
+     *
+     * @return the number of atoms.
+     */
+    public int getNumberOfAtoms() {
+        return nAtoms1 + nAtoms2;
+    }
+
+    /**
+     * Partition threads between two concurrently evaluated systems in
+     * proportion to their atom counts.
+     *
+     * @param nThreads the number of threads (at least 2).
+     * @param nAtoms1 the number of atoms in the first system.
+     * @param nAtoms2 the number of atoms in the second system.
+     * @return the number of threads for the first system (the second system
+     * receives the rest).
+     */
+    static int partitionThreads(int nThreads, int nAtoms1, int nAtoms2) {
+        int nThreads1 = (int) FastMath.round((double) nThreads * nAtoms1 / (nAtoms1 + nAtoms2));
+        return Math.max(1, Math.min(nThreads - 1, nThreads1));
     }
 
     @Override
@@ -58,6 +58,7 @@ import static org.apache.commons.math3.util.FastMath.sqrt;
 
 import edu.rit.pj.IntegerForLoop;
 import edu.rit.pj.ParallelRegion;
+import edu.rit.pj.ParallelSection;
 import edu.rit.pj.ParallelTeam;
 import edu.rit.pj.reduction.SharedDouble;
 
@@ -80,6 +81,7 @@ import ffx.potential.bonded.MSNode;
 import ffx.potential.bonded.Molecule;
 import ffx.potential.bonded.MultiResidue;
 import ffx.potential.bonded.OutOfPlaneBend;
+import ffx.potential.bonded.PackedBondedTerms;
 import ffx.potential.bonded.PiOrbitalTorsion;
 import ffx.potential.bonded.Polymer;
 import ffx.potential.bonded.ROLS;
@@ -105,6 +107,7 @@ import ffx.potential.parameters.ForceField.ForceFieldBoolean;
 import ffx.potential.parameters.ForceField.ForceFieldDouble;
 import ffx.potential.parameters.ForceField.ForceFieldString;
 import ffx.potential.utils.EnergyException;
+import ffx.potential.utils.EnergyMetrics;
 import ffx.potential.utils.PotentialsFunctions;
 import ffx.potential.utils.PotentialsUtils;
 
@@ -131,6 +134,11 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
     private Crystal crystal;
     private final ParallelTeam parallelTeam;
     private final BondedRegion bondedRegion;
+    /**
+     * Computes the bonded and van der Waals terms on the PME real space team
+     * while reciprocal space runs concurrently on the remaining threads.
+     */
+    private final OverlapSection overlapSection;
     private STATE state = STATE.BOTH;
     private Bond bonds[];
     private Angle angles[];
@@ -233,12 +241,38 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
     private long torsionTorsionTime, vanDerWaalsTime, electrostaticTime;
     private long restraintBondTime, ncsTime, coordRestraintTime, comRestraintTime;
     private long totalTime;
+    /**
+     * Optional timings and counters collected for each energy evaluation.
+     */
+    private EnergyMetrics metrics = null;
+    private long neighborListRebuilds = 0;
+    /**
+     * Real space only and full electrostatic gradients of the RESPA outer
+     * time step [3][nAtoms].
+     */
+    private double realSpaceGradient[][] = null;
+    private double fullGradient[][] = null;
     private double lambda = 1.0;
     private double[] optimizationScaling = null;
     private VARIABLE_TYPE[] variableTypes = null;
     private double xyz[] = null;
     private boolean printCompact = prop("ffe-combineBonded", false);
     private boolean printOverride = prop("ffe-printOverride", false);
+    /**
+     * Evaluate bonds, angles, Urey-Bradley terms and torsions from packed
+     * arrays rather than through the BondedTerm objects.
+     */
+    private final boolean packedBonded = prop("ffe-packedBonded", false);
+    /**
+     * Local energy variables: the bonded terms that involve each atom
+     * [nAtoms][nTerms], flags for the atoms of a local energy, and the state
+     * of the energy change in progress.
+     */
+    private BondedTerm localTerms[][] = null;
+    private boolean localFlag[] = null;
+    private Atom localMoveAtoms[] = null;
+    private boolean localMove = false;
+    private double localMoveEnergy = 0.0;
     private boolean printOnFailure;
     /**
      * *************************************
@@ -674,6 +708,10 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
             particleMeshEwald = null;
         }
 
+        if (forceField.getBoolean(ForceFieldBoolean.ENERGY_METRICS, false)) {
+            setMetrics(new EnergyMetrics());
+        }
+
         if (ncsTerm) {
             String sg = forceField.getString(ForceFieldString.NCSGROUP, "P 1");
             Crystal ncsCrystal = new Crystal(a, b, c, alpha, beta, gamma, sg);
@@ -709,6 +747,7 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
         }
 
         bondedRegion = new BondedRegion();
+        overlapSection = new OverlapSection();
 
         molecularAssembly.setPotential(this);
     }
@@ -784,6 +823,8 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
 
     public void reInit() {
 
+        localTerms = null;
+
         atoms = (esvTerm) ? esvSystem.getAtomsExtAll() : molecularAssembly.getAtomArray();
         int[] molecule = (esvTerm) ? esvSystem.getMoleculeExtAll() : molecularAssembly.getMoleculeNumbers();
         nAtoms = atoms.length;
@@ -1209,42 +1250,45 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
                 }
             }
 
+            /**
+             * If reciprocal space PME runs on its own subset of threads, the
+             * bonded and van der Waals terms are computed by the real space
+             * team concurrently with the permanent reciprocal space potential.
+             */
+            boolean overlap = false;
+            if (multipoleTerm && !lambdaBondedTerms) {
+                ParallelTeam overlapTeam = particleMeshEwald.getOverlapTeam();
+                if (overlapTeam != null) {
+                    overlapSection.set(overlapTeam, gradient, print);
+                    overlap = particleMeshEwald.setOverlapSection(overlapSection);
+                }
+            }
+
             /**
              * Computed the bonded energy terms in parallel.
              */
-            try {
-                bondedRegion.setGradient(gradient);
-                parallelTeam.execute(bondedRegion);
-            } catch (Exception e) {
-                e.printStackTrace();
-                logger.severe(e.toString());
+            if (!overlap) {
+                try {
+                    overlapSection.setTeam(parallelTeam);
+                    bondedRegion.setGradient(gradient);
+                    parallelTeam.execute(bondedRegion);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    logger.severe(e.toString());
+                }
             }
 
             if (!lambdaBondedTerms) {
                 /**
                  * Compute restraint terms.
                  */
-                if (ncsTerm) {
-                    ncsTime = -System.nanoTime();
-                    ncsEnergy = ncsRestraint.residual(gradient, print);
-                    ncsTime += System.nanoTime();
-                }
-                if (restrainTerm && !coordRestraints.isEmpty()) {
-                    coordRestraintTime = -System.nanoTime();
-                    for (CoordRestraint restraint : coordRestraints) {
-                        restrainEnergy += restraint.residual(gradient, print);
-                    }
-                    coordRestraintTime += System.nanoTime();
-                }
-                if (comTerm) {
-                    comRestraintTime = -System.nanoTime();
-                    comRestraintEnergy = comRestraint.residual(gradient, print);
-                    comRestraintTime += System.nanoTime();
+                if (!overlap) {
+                    restraintEnergy(gradient, print);
                 }
                 /**
                  * Compute non-bonded terms.
                  */
-                if (vanderWaalsTerm) {
+                if (vanderWaalsTerm && !overlap) {
                     vanDerWaalsTime = -System.nanoTime();
                     vanDerWaalsEnergy = vanderWaals.energy(gradient, print);
                     nVanDerWaalInteractions = this.vanderWaals.getInteractions();
@@ -1285,6 +1329,10 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
 
             totalTime = System.nanoTime() - totalTime;
 
+            if (metrics != null) {
+                recordMetrics();
+            }
+
             totalBondedEnergy = bondEnergy + restraintBondEnergy + angleEnergy
                     + stretchBendEnergy + ureyBradleyEnergy + outOfPlaneBendEnergy
                     + torsionEnergy + piOrbitalTorsionEnergy + improperTorsionEnergy
@@ -1334,6 +1382,177 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
         return totalEnergy;
     }
 
+    /**
+     * Check if energy changes of localized moves can be computed from the
+     * terms that involve the moved atoms. This requires that every active
+     * term is local: bonded terms, van der Waals pairs of the asymmetric unit
+     * and real space permanent electrostatics. Reciprocal space and induced
+     * dipoles (which couple all atoms), implicit solvent, NCS, coordinate and
+     * COM restraints, relative solvation, lambda and ESV terms all require a
+     * full evaluation.
+     *
+     * @return true if localEnergy may be called.
+     */
+    public boolean localEnergyAvailable() {
+        return (!multipoleTerm || particleMeshEwald.localEnergyAvailable())
+                && !generalizedKirkwoodTerm
+                && !ncsTerm && !restrainTerm && !comTerm && !relativeSolvationTerm
+                && !lambdaTerm && !lambdaBondedTerms && !esvTerm
+                && (!vanderWaalsTerm || vanderWaals.localEnergyAvailable());
+    }
+
+    /**
+     * Compute the energy of all bonded terms, van der Waals pairs and
+     * electrostatic pairs that involve at least one of the given atoms. Since
+     * no other term depends on their coordinates or use flags, the change in
+     * this energy across a move of the atoms (or a change in which of them
+     * are used) equals the change in the total energy. Stored energy
+     * components (i.e. getTotalEnergy) are not updated.
+     *
+     * @param localAtoms the atoms.
+     * @return the local energy (kcal/mol).
+     */
+    public double localEnergy(Atom localAtoms[]) {
+        if (!localEnergyAvailable()) {
+            throw new IllegalStateException(" Local energies are not available for the active energy terms.");
+        }
+        if (localTerms == null) {
+            buildLocalTerms();
+        }
+        int n = 0;
+        int indices[] = new int[localAtoms.length];
+        for (Atom atom : localAtoms) {
+            int i = atom.getXYZIndex() - 1;
+            if (!localFlag[i]) {
+                localFlag[i] = true;
+                indices[n++] = i;
+            }
+        }
+        indices = Arrays.copyOf(indices, n);
+
+        /**
+         * Each bonded term is counted from its first local atom.
+         */
+        double e = 0.0;
+        for (int i : indices) {
+            for (BondedTerm term : localTerms[i]) {
+                for (Atom atom : term.getAtomArray(false)) {
+                    int k = atom.getXYZIndex() - 1;
+                    if (localFlag[k]) {
+                        if (k == i) {
+                            e += term.energy(false);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        for (int i : indices) {
+            localFlag[i] = false;
+        }
+        if (vanderWaalsTerm) {
+            e += vanderWaals.localEnergy(indices);
+        }
+        if (multipoleTerm) {
+            e += particleMeshEwald.localEnergy(indices);
+        }
+        return e;
+    }
+
+    /**
+     * Begin computing the energy change of a move of the given atoms; call
+     * before the atoms are moved, then call energyChange after the move. If
+     * localEnergyAvailable is false, the change is computed from two full
+     * energy evaluations.
+     *
+     * @param movedAtoms the atoms that will be moved.
+     */
+    public void startEnergyChange(Atom movedAtoms[]) {
+        localMoveAtoms = movedAtoms;
+        localMove = localEnergyAvailable();
+        if (localMove) {
+            localMoveEnergy = localEnergy(movedAtoms);
+        } else {
+            localMoveEnergy = energy(false, false);
+        }
+    }
+
+    /**
+     * Return the energy change since startEnergyChange was called.
+     *
+     * @return the change in total energy (kcal/mol).
+     */
+    public double energyChange() {
+        if (localMoveAtoms == null) {
+            throw new IllegalStateException(" startEnergyChange must be called before energyChange.");
+        }
+        double e;
+        if (localMove) {
+            e = localEnergy(localMoveAtoms);
+        } else {
+            e = energy(false, false);
+        }
+        localMoveAtoms = null;
+        return e - localMoveEnergy;
+    }
+
+    /**
+     * Collect the active bonded terms that involve each atom.
+     */
+    private void buildLocalTerms() {
+        List<BondedTerm> terms = new ArrayList<>();
+        if (bondTerm) {
+            terms.addAll(Arrays.asList(bonds).subList(0, nBonds));
+        }
+        if (angleTerm) {
+            terms.addAll(Arrays.asList(angles).subList(0, nAngles));
+        }
+        if (stretchBendTerm) {
+            terms.addAll(Arrays.asList(stretchBends).subList(0, nStretchBends));
+        }
+        if (ureyBradleyTerm) {
+            terms.addAll(Arrays.asList(ureyBradleys).subList(0, nUreyBradleys));
+        }
+        if (outOfPlaneBendTerm) {
+            terms.addAll(Arrays.asList(outOfPlaneBends).subList(0, nOutOfPlaneBends));
+        }
+        if (torsionTerm) {
+            terms.addAll(Arrays.asList(torsions).subList(0, nTorsions));
+        }
+        if (piOrbitalTorsionTerm) {
+            terms.addAll(Arrays.asList(piOrbitalTorsions).subList(0, nPiOrbitalTorsions));
+        }
+        if (torsionTorsionTerm) {
+            terms.addAll(Arrays.asList(torsionTorsions).subList(0, nTorsionTorsions));
+        }
+        if (improperTorsionTerm) {
+            terms.addAll(Arrays.asList(improperTorsions).subList(0, nImproperTorsions));
+        }
+        if (restraintBondTerm) {
+            terms.addAll(Arrays.asList(restraintBonds).subList(0, nRestraintBonds));
+        }
+        int counts[] = new int[nAtoms];
+        for (BondedTerm term : terms) {
+            for (Atom atom : term.getAtomArray(false)) {
+                counts[atom.getXYZIndex() - 1]++;
+            }
+        }
+        localTerms = new BondedTerm[nAtoms][];
+        for (int i = 0; i < nAtoms; i++) {
+            localTerms[i] = new BondedTerm[counts[i]];
+            counts[i] = 0;
+        }
+        for (BondedTerm term : terms) {
+            for (Atom atom : term.getAtomArray(false)) {
+                int i = atom.getXYZIndex() - 1;
+                localTerms[i][counts[i]++] = term;
+            }
+        }
+        if (localFlag == null || localFlag.length < nAtoms) {
+            localFlag = new boolean[nAtoms];
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1609,6 +1828,47 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
         return parallelTeam;
     }
 
+    /**
+     * Return the coordinate restraints supplied at construction, excluding
+     * the restraint defined by force field keywords.
+     *
+     * @return a List of CoordRestraint instances.
+     */
+    public List<CoordRestraint> getCoordRestraints() {
+        List<CoordRestraint> restraints = new ArrayList<>(coordRestraints);
+        if (autoCoordRestraint != null) {
+            restraints.remove(autoCoordRestraint);
+        }
+        return restraints;
+    }
+
+    /**
+     * Copy the state set on this ForceFieldEnergy after construction to a new
+     * ForceFieldEnergy for the same MolecularAssembly (i.e. one built with a
+     * different number of threads). This includes the crystal, resolution,
+     * energy term state, restraint bonds, lambda, optimization scaling,
+     * metrics and print options. An attached ExtendedSystem is not copied.
+     *
+     * @param energy the new ForceFieldEnergy.
+     */
+    void copyStateTo(ForceFieldEnergy energy) {
+        energy.setCrystal(crystal);
+        if (resolution != energy.resolution) {
+            energy.setResolution(resolution);
+        }
+        energy.setEnergyTermState(state);
+        energy.restraintBondTerm = restraintBondTerm;
+        energy.restraintBonds = restraintBonds;
+        energy.nRestraintBonds = nRestraintBonds;
+        energy.setLambda(lambda);
+        energy.setLambdaBondedTerms(lambdaBondedTerms);
+        energy.setScaling(optimizationScaling);
+        energy.setMetrics(metrics);
+        energy.printOnFailure = printOnFailure;
+        energy.printOverride = printOverride;
+        energy.printCompact = printCompact;
+    }
+
     /**
      * <p>
      * Getter for the field <code>crystal</code>.</p>
@@ -2165,6 +2425,7 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
     @Override
     public void setEnergyTermState(STATE state) {
         this.state = state;
+        localTerms = null;
         switch (state) {
             case FAST:
                 bondTerm = bondTermOrig;
@@ -2227,6 +2488,150 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
         }
     }
 
+    /**
+     * Get the timings and counters collected for each energy evaluation.
+     *
+     * @return the EnergyMetrics, or null if metrics are not being collected.
+     */
+    public EnergyMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Collect timings and counters for each energy evaluation. Metrics can
+     * also be enabled with the "energy-metrics" keyword.
+     *
+     * @param metrics the EnergyMetrics to record into, or null to stop
+     * collecting metrics.
+     */
+    public void setMetrics(EnergyMetrics metrics) {
+        this.metrics = metrics;
+        if (particleMeshEwald != null) {
+            particleMeshEwald.setMetrics(metrics);
+        }
+        if (vanderWaals != null) {
+            neighborListRebuilds = vanderWaals.getNeighborList().getRebuildCount();
+        }
+    }
+
+    /**
+     * Record the timings of the terms that were evaluated.
+     */
+    private void recordMetrics() {
+        if (bondTerm) {
+            metrics.recordTime("Bond", bondTime);
+        }
+        if (angleTerm) {
+            metrics.recordTime("Angle", angleTime);
+        }
+        if (stretchBendTerm) {
+            metrics.recordTime("StretchBend", stretchBendTime);
+        }
+        if (ureyBradleyTerm) {
+            metrics.recordTime("UreyBradley", ureyBradleyTime);
+        }
+        if (outOfPlaneBendTerm) {
+            metrics.recordTime("OutOfPlaneBend", outOfPlaneBendTime);
+        }
+        if (torsionTerm) {
+            metrics.recordTime("Torsion", torsionTime);
+        }
+        if (piOrbitalTorsionTerm) {
+            metrics.recordTime("PiOrbitalTorsion", piOrbitalTorsionTime);
+        }
+        if (torsionTorsionTerm) {
+            metrics.recordTime("TorsionTorsion", torsionTorsionTime);
+        }
+        if (improperTorsionTerm) {
+            metrics.recordTime("ImproperTorsion", improperTorsionTime);
+        }
+        if (restraintBondTerm) {
+            metrics.recordTime("RestraintBond", restraintBondTime);
+        }
+        if (ncsTerm) {
+            metrics.recordTime("NCSRestraint", ncsTime);
+        }
+        if (restrainTerm) {
+            metrics.recordTime("CoordinateRestraint", coordRestraintTime);
+        }
+        if (comTerm) {
+            metrics.recordTime("COMRestraint", comRestraintTime);
+        }
+        if (vanderWaalsTerm) {
+            metrics.recordTime("VanDerWaals", vanDerWaalsTime);
+            long rebuilds = vanderWaals.getNeighborList().getRebuildCount();
+            metrics.addCount(EnergyMetrics.NEIGHBOR_LIST_REBUILDS, rebuilds - neighborListRebuilds);
+            neighborListRebuilds = rebuilds;
+        }
+        if (multipoleTerm) {
+            metrics.recordTime("Electrostatics", electrostaticTime);
+        }
+        metrics.recordTime(EnergyMetrics.TOTAL, totalTime);
+    }
+
+    /**
+     * Restrict electrostatics to real space PME (plus the real space SCF), so
+     * that the reciprocal space contribution can be evaluated by a multiple
+     * time step integrator on an outer time step. This is for the RESPA
+     * integrator only.
+     *
+     * @param realSpaceOnly true to skip reciprocal space electrostatics.
+     * @return true if the electrostatics support the split.
+     */
+    public boolean setRealSpaceOnly(boolean realSpaceOnly) {
+        if (particleMeshEwald == null || !multipoleTermOrig) {
+            return false;
+        }
+        return particleMeshEwald.setRealSpaceOnly(realSpaceOnly);
+    }
+
+    /**
+     * Compute the outer time step energy and gradient of the RESPA split: full
+     * minus real space only electrostatics, at the coordinates of the last
+     * evaluation. That evaluation must have been real space only and computed
+     * the gradient. Only the electrostatics are evaluated again, since the
+     * bonded and van der Waals terms cancel in the difference; the atomic
+     * gradients are left as the last evaluation computed them.
+     *
+     * @param g The outer step gradient of the active atoms (output).
+     * @return The outer step energy.
+     */
+    public double outerStepEnergyAndGradient(double g[]) {
+        if (particleMeshEwald == null || !multipoleTerm) {
+            fill(g, 0.0);
+            return 0.0;
+        }
+        if (realSpaceGradient == null || realSpaceGradient[0].length < nAtoms) {
+            realSpaceGradient = new double[3][nAtoms];
+            fullGradient = new double[3][nAtoms];
+        }
+        double eReal = totalElectrostaticEnergy;
+        particleMeshEwald.getGradients(realSpaceGradient);
+        particleMeshEwald.setRealSpaceOnly(false);
+        double eFull = particleMeshEwald.energy(true, false);
+        particleMeshEwald.getGradients(fullGradient);
+        particleMeshEwald.setRealSpaceOnly(true);
+        int index = 0;
+        for (int i = 0; i < nAtoms; i++) {
+            double gx = fullGradient[0][i];
+            double gy = fullGradient[1][i];
+            double gz = fullGradient[2][i];
+            // Remove the full electrostatic gradient added to each atom.
+            atoms[i].addToXYZGradient(-gx, -gy, -gz);
+            if (atoms[i].isActive()) {
+                g[index++] = gx - realSpaceGradient[0][i];
+                g[index++] = gy - realSpaceGradient[1][i];
+                g[index++] = gz - realSpaceGradient[2][i];
+            }
+        }
+        if (optimizationScaling != null) {
+            for (int i = 0; i < index; i++) {
+                g[i] /= optimizationScaling[i];
+            }
+        }
+        return eFull - eReal;
+    }
+
     /**
      * Set the boundary conditions for this calculation.
      *
@@ -2427,6 +2832,17 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
         return particleMeshEwald;
     }
 
+    /**
+     * Discard the induced dipole history used by SCF predictors and the
+     * extended Lagrangian, e.g. when the coordinates are changed by a move
+     * that is not part of a continuous trajectory.
+     */
+    public void clearInducedDipoleHistory() {
+        if (particleMeshEwald != null) {
+            particleMeshEwald.clearInducedDipoleHistory();
+        }
+    }
+
     public int getSolvationInteractions() {
         return nGKInteractions;
     }
@@ -2585,6 +3001,82 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
         return bonds;
     }
 
+    /**
+     * Compute the NCS, coordinate and center of mass restraint terms.
+     *
+     * @param gradient if true, the gradient is computed.
+     * @param print if true, extra logging is enabled.
+     */
+    private void restraintEnergy(boolean gradient, boolean print) {
+        if (ncsTerm) {
+            ncsTime = -System.nanoTime();
+            ncsEnergy = ncsRestraint.residual(gradient, print);
+            ncsTime += System.nanoTime();
+        }
+        if (restrainTerm && !coordRestraints.isEmpty()) {
+            coordRestraintTime = -System.nanoTime();
+            for (CoordRestraint restraint : coordRestraints) {
+                restrainEnergy += restraint.residual(gradient, print);
+            }
+            coordRestraintTime += System.nanoTime();
+        }
+        if (comTerm) {
+            comRestraintTime = -System.nanoTime();
+            comRestraintEnergy = comRestraint.residual(gradient, print);
+            comRestraintTime += System.nanoTime();
+        }
+    }
+
+    /**
+     * The OverlapSection computes the bonded, restraint and van der Waals
+     * terms. It is executed by PME alongside its reciprocal space section.
+     */
+    private class OverlapSection extends ParallelSection {
+
+        private ParallelTeam team = null;
+        private boolean gradient = false;
+        private boolean print = false;
+
+        public void set(ParallelTeam team, boolean gradient, boolean print) {
+            this.gradient = gradient;
+            this.print = print;
+            setTeam(team);
+        }
+
+        /**
+         * Assign the team used for the bonded and van der Waals terms. Per
+         * thread gradient contributions are cleared when the team changes,
+         * since a smaller team does not overwrite all of them.
+         *
+         * @param team the ParallelTeam to use.
+         */
+        public void setTeam(ParallelTeam team) {
+            if (team == this.team) {
+                return;
+            }
+            if (this.team != null) {
+                bondedRegion.clearGradient();
+            }
+            this.team = team;
+            if (vanderWaalsTerm) {
+                vanderWaals.setParallelTeam(team);
+            }
+        }
+
+        @Override
+        public void run() throws Exception {
+            bondedRegion.setGradient(gradient);
+            team.execute(bondedRegion);
+            restraintEnergy(gradient, print);
+            if (vanderWaalsTerm) {
+                vanDerWaalsTime = -System.nanoTime();
+                vanDerWaalsEnergy = vanderWaals.energy(gradient, print);
+                nVanDerWaalInteractions = vanderWaals.getInteractions();
+                vanDerWaalsTime += System.nanoTime();
+            }
+        }
+    }
+
     private class BondedRegion extends ParallelRegion {
 
         // Flag to indicate gradient computation.
@@ -2654,6 +3146,22 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
         // Retraint energy parallel loops.
         private final BondedTermLoop[] restraintBondLoops;
 
+        // Packed bonded terms, the term arrays they were compiled from, and
+        // packed coordinates.
+        private boolean usePacked;
+        private PackedBondedTerms packedTerms;
+        private Bond[] packedBonds;
+        private Angle[] packedAngles;
+        private UreyBradley[] packedUreyBradleys;
+        private Torsion[] packedTorsions;
+        private double[] packedXYZ;
+        private final PackCoordinatesLoop[] packLoops;
+        private final PackedTermLoop[] packedBondLoops;
+        private final PackedTermLoop[] packedAngleLoops;
+        private final PackedTermLoop[] packedUreyBradleyLoops;
+        private final PackedTermLoop[] packedTorsionLoops;
+        private final BondedTermLoop[] inPlaneAngleLoops;
+
         public BondedRegion() {
 
             // Allocate shared RMSD variables.
@@ -2694,6 +3202,14 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
             // Allocate memory for restrain energy terms.
             restraintBondLoops = new BondedTermLoop[nThreads];
 
+            // Allocate memory for packed bonded term loops.
+            packLoops = new PackCoordinatesLoop[nThreads];
+            packedBondLoops = new PackedTermLoop[nThreads];
+            packedAngleLoops = new PackedTermLoop[nThreads];
+            packedUreyBradleyLoops = new PackedTermLoop[nThreads];
+            packedTorsionLoops = new PackedTermLoop[nThreads];
+            inPlaneAngleLoops = new BondedTermLoop[nThreads];
+
             /**
              * Define how the gradient will be accumulated.
              */
@@ -2756,6 +3272,24 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
             this.gradient = gradient;
         }
 
+        /**
+         * Zero the gradient contributions of every thread.
+         */
+        public void clearGradient() {
+            for (int i = 0; i < nThreads; i++) {
+                if (gradX != null) {
+                    gradX.reset(i, 0, nAtoms - 1);
+                    gradY.reset(i, 0, nAtoms - 1);
+                    gradZ.reset(i, 0, nAtoms - 1);
+                }
+                if (lambdaGradX != null) {
+                    lambdaGradX.reset(i, 0, nAtoms - 1);
+                    lambdaGradY.reset(i, 0, nAtoms - 1);
+                    lambdaGradZ.reset(i, 0, nAtoms - 1);
+                }
+            }
+        }
+
         @Override
         public void start() {
             // Zero out shared RMSD values.
@@ -2780,6 +3314,22 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
                 esvSystem.updateBondedEsvLambda();
             }
 
+            // Compile packed bonded terms if needed; terms scaled by lambda or
+            // by extended system variables use the BondedTerm objects.
+            usePacked = packedBonded && !lambdaTerm && !lambdaBondedTerms && !esvTerm;
+            if (usePacked && (packedTerms == null || packedBonds != bonds
+                    || packedAngles != angles || packedUreyBradleys != ureyBradleys
+                    || packedTorsions != torsions || packedXYZ.length != nAtoms * 3)) {
+                packedBonds = bonds;
+                packedAngles = angles;
+                packedUreyBradleys = ureyBradleys;
+                packedTorsions = torsions;
+                packedTerms = new PackedBondedTerms(bonds, angles, ureyBradleys,
+                        lambdaTorsions ? null : torsions);
+                packedXYZ = new double[nAtoms * 3];
+                fill(inPlaneAngleLoops, null);
+            }
+
             // Assure capacity of the gradient arrays.
             if (gradient) {
                 gradX.alloc(nAtoms);
@@ -2884,8 +3434,39 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
                 execute(0, nAtoms - 1, gradInitLoops[threadID]);
             }
 
+            // Load coordinates for the packed bonded terms.
+            if (usePacked) {
+                if (packLoops[threadID] == null) {
+                    packLoops[threadID] = new PackCoordinatesLoop();
+                }
+                execute(0, nAtoms - 1, packLoops[threadID]);
+            }
+
             // Evaluate force field bonded energy terms in parallel.
-            if (angleTerm) {
+            if (angleTerm && usePacked) {
+                if (packedAngleLoops[threadID] == null) {
+                    packedAngleLoops[threadID] = new PackedTermLoop(PackedTerm.ANGLE,
+                            sharedAngleEnergy, sharedAngleRMSD);
+                }
+                if (threadID == 0) {
+                    angleTime = -System.nanoTime();
+                }
+                int nPacked = packedTerms.getAngleCount();
+                if (nPacked > 0) {
+                    execute(0, nPacked - 1, packedAngleLoops[threadID]);
+                }
+                Angle[] inPlaneAngles = packedTerms.getInPlaneAngles();
+                if (inPlaneAngles.length > 0) {
+                    if (inPlaneAngleLoops[threadID] == null) {
+                        inPlaneAngleLoops[threadID]
+                                = new BondedTermLoop(inPlaneAngles, sharedAngleEnergy, sharedAngleRMSD);
+                    }
+                    execute(0, inPlaneAngles.length - 1, inPlaneAngleLoops[threadID]);
+                }
+                if (threadID == 0) {
+                    angleTime += System.nanoTime();
+                }
+            } else if (angleTerm) {
                 if (angleLoops[threadID] == null) {
                     angleLoops[threadID] = 
                             new BondedTermLoop(angles, sharedAngleEnergy, sharedAngleRMSD);
@@ -2899,7 +3480,19 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
                 }
             }
 
-            if (bondTerm) {
+            if (bondTerm && usePacked) {
+                if (packedBondLoops[threadID] == null) {
+                    packedBondLoops[threadID] = new PackedTermLoop(PackedTerm.BOND,
+                            sharedBondEnergy, sharedBondRMSD);
+                }
+                if (threadID == 0) {
+                    bondTime = -System.nanoTime();
+                }
+                execute(0, nBonds - 1, packedBondLoops[threadID]);
+                if (threadID == 0) {
+                    bondTime += System.nanoTime();
+                }
+            } else if (bondTerm) {
                 if (bondLoops[threadID] == null) {
                     bondLoops[threadID] = 
                             new BondedTermLoop(bonds, sharedBondEnergy, sharedBondRMSD);
@@ -2969,7 +3562,19 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
                 }
             }
 
-            if (torsionTerm) {
+            if (torsionTerm && usePacked && !lambdaTorsions) {
+                if (packedTorsionLoops[threadID] == null) {
+                    packedTorsionLoops[threadID] = new PackedTermLoop(PackedTerm.TORSION,
+                            sharedTorsionEnergy, null);
+                }
+                if (threadID == 0) {
+                    torsionTime = -System.nanoTime();
+                }
+                execute(0, nTorsions - 1, packedTorsionLoops[threadID]);
+                if (threadID == 0) {
+                    torsionTime += System.nanoTime();
+                }
+            } else if (torsionTerm) {
                 if (torsionLoops[threadID] == null) {
                     torsionLoops[threadID] = 
                             new BondedTermLoop(torsions, sharedTorsionEnergy);
@@ -2997,7 +3602,19 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
                 }
             }
 
-            if (ureyBradleyTerm) {
+            if (ureyBradleyTerm && usePacked) {
+                if (packedUreyBradleyLoops[threadID] == null) {
+                    packedUreyBradleyLoops[threadID] = new PackedTermLoop(PackedTerm.UREY_BRADLEY,
+                            sharedUreyBradleyEnergy, null);
+                }
+                if (threadID == 0) {
+                    ureyBradleyTime = -System.nanoTime();
+                }
+                execute(0, nUreyBradleys - 1, packedUreyBradleyLoops[threadID]);
+                if (threadID == 0) {
+                    ureyBradleyTime += System.nanoTime();
+                }
+            } else if (ureyBradleyTerm) {
                 if (ureyBradleyLoops[threadID] == null) {
                     ureyBradleyLoops[threadID] = 
                             new BondedTermLoop(ureyBradleys, sharedUreyBradleyEnergy);
@@ -3079,6 +3696,80 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
             }
         }
         
+        private class PackCoordinatesLoop extends IntegerForLoop {
+
+            @Override
+            public void run(int first, int last) throws Exception {
+                PackedBondedTerms.pack(atoms, first, last, packedXYZ);
+            }
+        }
+
+        /**
+         * Evaluates one type of packed bonded term.
+         */
+        private class PackedTermLoop extends IntegerForLoop {
+
+            private final PackedTerm type;
+            private final SharedDouble sharedEnergy;
+            private final SharedDouble sharedRMSD;
+            private double localEnergy;
+            private double localRMSD;
+            private int threadID;
+
+            public PackedTermLoop(PackedTerm type,
+                    SharedDouble sharedEnergy, SharedDouble sharedRMSD) {
+                this.type = type;
+                this.sharedEnergy = sharedEnergy;
+                this.sharedRMSD = sharedRMSD;
+            }
+
+            @Override
+            public void start() {
+                localEnergy = 0.0;
+                localRMSD = 0.0;
+                threadID = getThreadIndex();
+            }
+
+            @Override
+            public void finish() {
+                sharedEnergy.addAndGet(localEnergy);
+                if (sharedRMSD != null) {
+                    sharedRMSD.addAndGet(localRMSD);
+                }
+            }
+
+            @Override
+            public void run(int first, int last) throws Exception {
+                switch (type) {
+                    case BOND:
+                        localEnergy += packedTerms.bondEnergy(first, last, packedXYZ,
+                                gradient, threadID, gradX, gradY, gradZ);
+                        for (int i = first; i <= last; i++) {
+                            double value = packedTerms.getBondValue(i);
+                            localRMSD += value * value;
+                        }
+                        break;
+                    case ANGLE:
+                        localEnergy += packedTerms.angleEnergy(first, last, packedXYZ,
+                                gradient, threadID, gradX, gradY, gradZ);
+                        for (int i = first; i <= last; i++) {
+                            double value = packedTerms.getAngleValue(i);
+                            localRMSD += value * value;
+                        }
+                        break;
+                    case UREY_BRADLEY:
+                        localEnergy += packedTerms.ureyBradleyEnergy(first, last, packedXYZ,
+                                gradient, threadID, gradX, gradY, gradZ);
+                        break;
+                    case TORSION:
+                    default:
+                        localEnergy += packedTerms.torsionEnergy(first, last, packedXYZ,
+                                gradient, threadID, gradX, gradY, gradZ);
+                        break;
+                }
+            }
+        }
+
         private class BondedTermLoop extends IntegerForLoop {
 
             private final BondedTerm[] terms;
@@ -3134,4 +3825,10 @@ public class ForceFieldEnergy implements Potential, LambdaInterface {
         }
     }
 
+    /**
+     * Bonded term types evaluated by the packed bonded engine.
+     */
+    private enum PackedTerm {
+        BOND, ANGLE, UREY_BRADLEY, TORSION
+    }
 }
@@ -104,6 +104,11 @@ public class OctTopologyEnergy implements Potential, LambdaInterface {
     
     private boolean inParallel = false;
     private ParallelTeam team;
+    /**
+     * Number of threads available to evaluate both quad topologies. In
+     * parallel mode they are divided in proportion to atom count.
+     */
+    private int threadCount;
     private final EnergyRegion region;
     
     /**
@@ -305,6 +310,7 @@ public class OctTopologyEnergy implements Potential, LambdaInterface {
         
         region = new EnergyRegion();
         team = new ParallelTeam(1);
+        threadCount = Math.max(quadTopGamma.getThreadCount(), quadTopDelta.getThreadCount());
     }
     
     /**
@@ -663,6 +669,13 @@ public class OctTopologyEnergy implements Potential, LambdaInterface {
         subtractDoublesFrom(g, tempG, tempD, 0.5);
     }
     
+    /**
+     * Evaluate the two quad topologies concurrently or sequentially. In
+     * parallel mode, the available threads are partitioned between them in
+     * proportion to their atom counts.
+     *
+     * @param parallel true to evaluate the quad topologies concurrently.
+     */
     public void setParallel(boolean parallel) {
         this.inParallel = parallel;
         if (team != null) {
@@ -673,6 +686,46 @@ public class OctTopologyEnergy implements Potential, LambdaInterface {
             }
         }
         team = parallel ? new ParallelTeam(2) : new ParallelTeam(1);
+        setThreadCount(threadCount);
+    }
+
+    /**
+     * Set the number of threads available to evaluate both quad topologies,
+     * which pass their share on to their own topologies.
+     *
+     * @param nThreads the number of threads.
+     */
+    public void setThreadCount(int nThreads) {
+        threadCount = nThreads;
+        int nThreadsGamma = nThreads;
+        int nThreadsDelta = nThreads;
+        if (inParallel && nThreads > 1) {
+            nThreadsGamma = DualTopologyEnergy.partitionThreads(nThreads,
+                    quadTopGamma.getNumberOfAtoms(), quadTopDelta.getNumberOfAtoms());
+            nThreadsDelta = nThreads - nThreadsGamma;
+        }
+        quadTopGamma.setThreadCount(nThreadsGamma);
+        quadTopDelta.setThreadCount(nThreadsDelta);
+    }
+
+    /**
+     * Return the number of threads available to evaluate both quad
+     * topologies.
+     *
+     * @return the number of threads.
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Return the number of atoms summed over all topologies, which is used to
+     * partition threads between concurrently evaluated topologies.
+     *
+     * @return the number of atoms.
+     */
+    public int getNumberOfAtoms() {
+        return quadTopGamma.getNumberOfAtoms() + quadTopDelta.getNumberOfAtoms();
     }
     
     private class EnergyRegion extends ParallelRegion {
@@ -110,6 +110,11 @@ public class QuadTopologyEnergy implements Potential, LambdaInterface {
     
     private boolean inParallel = false;
     private ParallelTeam team;
+    /**
+     * Number of threads available to evaluate both dual topologies. In
+     * parallel mode they are divided in proportion to atom count.
+     */
+    private int threadCount;
     private final EnergyRegion region;
     
     /**
@@ -296,6 +301,7 @@ public class QuadTopologyEnergy implements Potential, LambdaInterface {
         
         region = new EnergyRegion();
         team = new ParallelTeam(1);
+        threadCount = Math.max(dualTopA.getThreadCount(), dualTopB.getThreadCount());
     }
     
     /**
@@ -627,6 +633,13 @@ public class QuadTopologyEnergy implements Potential, LambdaInterface {
         addDoublesFrom(g, tempA, tempB);
     }
     
+    /**
+     * Evaluate the two dual topologies concurrently or sequentially. In
+     * parallel mode, the available threads are partitioned between them in
+     * proportion to their atom counts.
+     *
+     * @param parallel true to evaluate the dual topologies concurrently.
+     */
     public void setParallel(boolean parallel) {
         this.inParallel = parallel;
         if (team != null) {
@@ -637,6 +650,46 @@ public class QuadTopologyEnergy implements Potential, LambdaInterface {
             }
         }
         team = parallel ? new ParallelTeam(2) : new ParallelTeam(1);
+        setThreadCount(threadCount);
+    }
+
+    /**
+     * Set the number of threads available to evaluate both dual topologies,
+     * which pass their share on to their own topologies.
+     *
+     * @param nThreads the number of threads.
+     */
+    public void setThreadCount(int nThreads) {
+        threadCount = nThreads;
+        int nThreadsA = nThreads;
+        int nThreadsB = nThreads;
+        if (inParallel && nThreads > 1) {
+            nThreadsA = DualTopologyEnergy.partitionThreads(nThreads,
+                    dualTopA.getNumberOfAtoms(), dualTopB.getNumberOfAtoms());
+            nThreadsB = nThreads - nThreadsA;
+        }
+        dualTopA.setThreadCount(nThreadsA);
+        dualTopB.setThreadCount(nThreadsB);
+    }
+
+    /**
+     * Return the number of threads available to evaluate both dual
+     * topologies.
+     *
+     * @return the number of threads.
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Return the number of atoms summed over all topologies, which is used to
+     * partition threads between concurrently evaluated topologies.
+     *
+     * @return the number of atoms.
+     */
+    public int getNumberOfAtoms() {
+        return dualTopA.getNumberOfAtoms() + dualTopB.getNumberOfAtoms();
     }
     
     private class EnergyRegion extends ParallelRegion {
@@ -67,7 +67,7 @@ public final class Utilities {
      */
     public enum FileType {
 
-        XYZ, INT, ARC, PDB, ANY, SIM, UNK
+        XYZ, INT, ARC, PDB, TRJ, ANY, SIM, UNK
     }
     
     public enum DataType {
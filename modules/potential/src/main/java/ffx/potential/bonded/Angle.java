@@ -188,6 +188,26 @@ public class Angle extends BondedTerm implements BondedEnergy {
         this.rigidScale = rigidScale;
     }
 
+    /**
+     * <p>
+     * Getter for the field <code>rigidScale</code>.</p>
+     *
+     * @return a double.
+     */
+    public double getRigidScale() {
+        return rigidScale;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>angleMode</code>.</p>
+     *
+     * @return a {@link ffx.potential.bonded.Angle.AngleMode} object.
+     */
+    public AngleMode getAngleMode() {
+        return angleMode;
+    }
+
     /**
      * Get the AngleType for this angle.
      *
@@ -218,6 +218,16 @@ public class Bond extends BondedTerm {
         this.rigidScale = rigidScale;
     }
 
+    /**
+     * <p>
+     * Getter for the field <code>rigidScale</code>.</p>
+     *
+     * @return a double.
+     */
+    public double getRigidScale() {
+        return rigidScale;
+    }
+
     /**
      * Check to see if <b>this</b> Bond and another combine to form an angle
      *
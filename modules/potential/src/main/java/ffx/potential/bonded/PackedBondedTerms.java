@@ -0,0 +1,567 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.bonded;
+
+import ffx.numerics.AtomicDoubleArray;
+import ffx.potential.parameters.AngleType;
+import ffx.potential.parameters.BondType;
+import ffx.potential.parameters.TorsionType;
+import ffx.potential.parameters.UreyBradleyType;
+
+import static org.apache.commons.math3.util.FastMath.acos;
+import static org.apache.commons.math3.util.FastMath.max;
+import static org.apache.commons.math3.util.FastMath.min;
+import static org.apache.commons.math3.util.FastMath.sqrt;
+import static org.apache.commons.math3.util.FastMath.toDegrees;
+
+/**
+ * The PackedBondedTerms class compiles bonds, angles, Urey-Bradley terms and
+ * torsions into flat primitive arrays (atom indices, force constants and
+ * equilibrium values) and evaluates them over a packed coordinate array.
+ * <p>
+ * The evaluation loops allocate no memory and do not touch the term objects, so
+ * the energy and gradient are the same as the BondedTerm energy methods give
+ * for the same coordinates, but the per-term <code>value</code> and
+ * <code>energy</code> fields of the objects are not updated. Packed
+ * coordinates are stored as x, y, z triples indexed by (xyzIndex - 1).
+ * <p>
+ * Angles that use the in-plane mode are not packed; they are returned by
+ * {@link #getInPlaneAngles()} for evaluation by the object path. Terms scaled
+ * by lambda or by extended system variables are not supported.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class PackedBondedTerms {
+
+    private static final double DEGREES_2 = toDegrees(2.0);
+
+    private final int nBonds;
+    private final int bondAtoms[];
+    private final double bondForceConstant[];
+    private final double bondDistance[];
+    private final boolean bondQuartic[];
+    private final double bondValue[];
+
+    private final int nAngles;
+    private final int angleAtoms[];
+    private final double angleForceConstant[];
+    private final double angleEquilibrium[];
+    private final boolean angleSextic[];
+    private final double angleValue[];
+    private final Angle inPlaneAngles[];
+
+    private final int nUreyBradleys;
+    private final int ureyBradleyAtoms[];
+    private final double ureyBradleyForceConstant[];
+    private final double ureyBradleyDistance[];
+
+    private final int nTorsions;
+    private final int torsionAtoms[];
+    private final double torsionUnits[];
+    /**
+     * Fourier terms of torsion i are at torsionTerm[i] .. torsionTerm[i + 1] - 1.
+     */
+    private final int torsionTerm[];
+    private final double torsionAmplitude[];
+    private final double torsionCosine[];
+    private final double torsionSine[];
+
+    /**
+     * Compile the given terms. Any of the arrays may be null.
+     *
+     * @param bonds an array of {@link ffx.potential.bonded.Bond} objects.
+     * @param angles an array of {@link ffx.potential.bonded.Angle} objects.
+     * @param ureyBradleys an array of
+     * {@link ffx.potential.bonded.UreyBradley} objects.
+     * @param torsions an array of {@link ffx.potential.bonded.Torsion}
+     * objects.
+     */
+    public PackedBondedTerms(Bond bonds[], Angle angles[],
+            UreyBradley ureyBradleys[], Torsion torsions[]) {
+
+        nBonds = (bonds == null) ? 0 : bonds.length;
+        bondAtoms = new int[2 * nBonds];
+        bondForceConstant = new double[nBonds];
+        bondDistance = new double[nBonds];
+        bondQuartic = new boolean[nBonds];
+        bondValue = new double[nBonds];
+        for (int i = 0; i < nBonds; i++) {
+            Bond bond = bonds[i];
+            BondType bondType = bond.bondType;
+            bondAtoms[2 * i] = bond.atoms[0].getXYZIndex() - 1;
+            bondAtoms[2 * i + 1] = bond.atoms[1].getXYZIndex() - 1;
+            bondForceConstant[i] = BondType.units * bond.getRigidScale() * bondType.forceConstant;
+            bondDistance[i] = bondType.distance;
+            bondQuartic[i] = (bondType.bondFunction == BondType.BondFunction.QUARTIC);
+        }
+
+        int nNormal = 0;
+        int nInPlane = 0;
+        int nAll = (angles == null) ? 0 : angles.length;
+        for (int i = 0; i < nAll; i++) {
+            if (angles[i].getAngleMode() == Angle.AngleMode.NORMAL) {
+                nNormal++;
+            } else {
+                nInPlane++;
+            }
+        }
+        nAngles = nNormal;
+        angleAtoms = new int[3 * nAngles];
+        angleForceConstant = new double[nAngles];
+        angleEquilibrium = new double[nAngles];
+        angleSextic = new boolean[nAngles];
+        angleValue = new double[nAngles];
+        inPlaneAngles = new Angle[nInPlane];
+        nNormal = 0;
+        nInPlane = 0;
+        for (int i = 0; i < nAll; i++) {
+            Angle angle = angles[i];
+            if (angle.getAngleMode() != Angle.AngleMode.NORMAL) {
+                inPlaneAngles[nInPlane++] = angle;
+                continue;
+            }
+            AngleType angleType = angle.angleType;
+            int j = nNormal++;
+            angleAtoms[3 * j] = angle.atoms[0].getXYZIndex() - 1;
+            angleAtoms[3 * j + 1] = angle.atoms[1].getXYZIndex() - 1;
+            angleAtoms[3 * j + 2] = angle.atoms[2].getXYZIndex() - 1;
+            angleForceConstant[j] = AngleType.units * angle.getRigidScale() * angleType.forceConstant;
+            angleEquilibrium[j] = angleType.angle[angle.nh];
+            angleSextic[j] = (angleType.angleFunction == AngleType.AngleFunction.SEXTIC);
+        }
+
+        nUreyBradleys = (ureyBradleys == null) ? 0 : ureyBradleys.length;
+        ureyBradleyAtoms = new int[2 * nUreyBradleys];
+        ureyBradleyForceConstant = new double[nUreyBradleys];
+        ureyBradleyDistance = new double[nUreyBradleys];
+        for (int i = 0; i < nUreyBradleys; i++) {
+            UreyBradley ureyBradley = ureyBradleys[i];
+            UreyBradleyType ureyBradleyType = ureyBradley.ureyBradleyType;
+            ureyBradleyAtoms[2 * i] = ureyBradley.atoms[0].getXYZIndex() - 1;
+            ureyBradleyAtoms[2 * i + 1] = ureyBradley.atoms[2].getXYZIndex() - 1;
+            ureyBradleyForceConstant[i] = UreyBradleyType.units * ureyBradley.rigidScale * ureyBradleyType.forceConstant;
+            ureyBradleyDistance[i] = ureyBradleyType.distance;
+        }
+
+        nTorsions = (torsions == null) ? 0 : torsions.length;
+        torsionAtoms = new int[4 * nTorsions];
+        torsionUnits = new double[nTorsions];
+        torsionTerm = new int[nTorsions + 1];
+        int nTerms = 0;
+        for (int i = 0; i < nTorsions; i++) {
+            torsionTerm[i] = nTerms;
+            nTerms += torsions[i].torsionType.terms;
+        }
+        torsionTerm[nTorsions] = nTerms;
+        torsionAmplitude = new double[nTerms];
+        torsionCosine = new double[nTerms];
+        torsionSine = new double[nTerms];
+        for (int i = 0; i < nTorsions; i++) {
+            Torsion torsion = torsions[i];
+            TorsionType torsionType = torsion.torsionType;
+            for (int k = 0; k < 4; k++) {
+                torsionAtoms[4 * i + k] = torsion.atoms[k].getXYZIndex() - 1;
+            }
+            torsionUnits[i] = torsion.units;
+            int t = torsionTerm[i];
+            for (int k = 0; k < torsionType.terms; k++) {
+                torsionAmplitude[t + k] = torsionType.amplitude[k];
+                torsionCosine[t + k] = torsionType.cosine[k];
+                torsionSine[t + k] = torsionType.sine[k];
+            }
+        }
+    }
+
+    /**
+     * Load the coordinates of the given atoms into a packed array.
+     *
+     * @param atoms the atoms, indexed by (xyzIndex - 1).
+     * @param first the first atom to load.
+     * @param last the last atom to load.
+     * @param xyz the packed coordinate array.
+     */
+    public static void pack(Atom atoms[], int first, int last, double xyz[]) {
+        for (int i = first; i <= last; i++) {
+            Atom atom = atoms[i];
+            int i3 = 3 * i;
+            xyz[i3] = atom.getX();
+            xyz[i3 + 1] = atom.getY();
+            xyz[i3 + 2] = atom.getZ();
+        }
+    }
+
+    public int getBondCount() {
+        return nBonds;
+    }
+
+    public int getAngleCount() {
+        return nAngles;
+    }
+
+    public int getUreyBradleyCount() {
+        return nUreyBradleys;
+    }
+
+    public int getTorsionCount() {
+        return nTorsions;
+    }
+
+    /**
+     * Angles that were not packed because they use the in-plane mode.
+     *
+     * @return an array of {@link ffx.potential.bonded.Angle} objects.
+     */
+    public Angle[] getInPlaneAngles() {
+        return inPlaneAngles;
+    }
+
+    /**
+     * Deviation of bond i from its equilibrium length at the last evaluation.
+     *
+     * @param i the bond index.
+     * @return the deviation in Angstroms.
+     */
+    public double getBondValue(int i) {
+        return bondValue[i];
+    }
+
+    /**
+     * Deviation of packed angle i from its equilibrium value at the last
+     * evaluation.
+     *
+     * @param i the packed angle index.
+     * @return the deviation in degrees.
+     */
+    public double getAngleValue(int i) {
+        return angleValue[i];
+    }
+
+    /**
+     * Evaluate bonds first through last.
+     *
+     * @param first the first bond.
+     * @param last the last bond.
+     * @param xyz packed coordinates.
+     * @param gradient if true, accumulate the gradient.
+     * @param threadID the thread index for gradient accumulation.
+     * @param gradX the x-component of the gradient.
+     * @param gradY the y-component of the gradient.
+     * @param gradZ the z-component of the gradient.
+     * @return the bond energy.
+     */
+    public double bondEnergy(int first, int last, double xyz[], boolean gradient,
+            int threadID, AtomicDoubleArray gradX, AtomicDoubleArray gradY,
+            AtomicDoubleArray gradZ) {
+        final double cubic = BondType.cubic;
+        final double quartic = BondType.quartic;
+        double energy = 0.0;
+        for (int i = first; i <= last; i++) {
+            int i0 = bondAtoms[2 * i];
+            int i1 = bondAtoms[2 * i + 1];
+            double dx = xyz[3 * i0] - xyz[3 * i1];
+            double dy = xyz[3 * i0 + 1] - xyz[3 * i1 + 1];
+            double dz = xyz[3 * i0 + 2] - xyz[3 * i1 + 2];
+            double value = sqrt((dx * dx + dy * dy + dz * dz));
+            double dv = value - bondDistance[i];
+            double dv2 = dv * dv;
+            double prefactor = bondForceConstant[i];
+            double deddt;
+            if (bondQuartic[i]) {
+                energy += prefactor * dv2 * (1.0 + cubic * dv + quartic * dv2);
+                deddt = 2.0 * prefactor * dv * (1.0 + 1.5 * cubic * dv + 2.0 * quartic * dv2);
+            } else {
+                energy += prefactor * dv2;
+                deddt = 2.0 * prefactor * dv;
+            }
+            bondValue[i] = dv;
+            if (gradient) {
+                double de = 0.0;
+                if (value > 0.0) {
+                    de = deddt / value;
+                }
+                double gx = dx * de;
+                double gy = dy * de;
+                double gz = dz * de;
+                gradX.add(threadID, i0, gx);
+                gradY.add(threadID, i0, gy);
+                gradZ.add(threadID, i0, gz);
+                gradX.sub(threadID, i1, gx);
+                gradY.sub(threadID, i1, gy);
+                gradZ.sub(threadID, i1, gz);
+            }
+        }
+        return energy;
+    }
+
+    /**
+     * Evaluate packed angles first through last.
+     *
+     * @param first the first packed angle.
+     * @param last the last packed angle.
+     * @param xyz packed coordinates.
+     * @param gradient if true, accumulate the gradient.
+     * @param threadID the thread index for gradient accumulation.
+     * @param gradX the x-component of the gradient.
+     * @param gradY the y-component of the gradient.
+     * @param gradZ the z-component of the gradient.
+     * @return the angle energy.
+     */
+    public double angleEnergy(int first, int last, double xyz[], boolean gradient,
+            int threadID, AtomicDoubleArray gradX, AtomicDoubleArray gradY,
+            AtomicDoubleArray gradZ) {
+        final double cubic = AngleType.cubic;
+        final double quartic = AngleType.quartic;
+        final double quintic = AngleType.quintic;
+        final double sextic = AngleType.sextic;
+        double energy = 0.0;
+        for (int i = first; i <= last; i++) {
+            angleValue[i] = 0.0;
+            int i0 = angleAtoms[3 * i];
+            int i1 = angleAtoms[3 * i + 1];
+            int i2 = angleAtoms[3 * i + 2];
+            double x1 = xyz[3 * i1];
+            double y1 = xyz[3 * i1 + 1];
+            double z1 = xyz[3 * i1 + 2];
+            // Vectors from atom 1 to atoms 0 and 2.
+            double ax = xyz[3 * i0] - x1;
+            double ay = xyz[3 * i0 + 1] - y1;
+            double az = xyz[3 * i0 + 2] - z1;
+            double cx = xyz[3 * i2] - x1;
+            double cy = xyz[3 * i2 + 1] - y1;
+            double cz = xyz[3 * i2 + 2] - z1;
+            double rab2 = ((ax * ax) + (ay * ay) + (az * az));
+            double rcb2 = ((cx * cx) + (cy * cy) + (cz * cz));
+            if (rab2 == 0.0 || rcb2 == 0.0) {
+                continue;
+            }
+            double cosine = ((ax * cx) + (ay * cy) + (az * cz)) / sqrt(rab2 * rcb2);
+            cosine = min(1.0, max(-1.0, cosine));
+            double dv = toDegrees(acos(cosine)) - angleEquilibrium[i];
+            double dv2 = dv * dv;
+            double prefactor = angleForceConstant[i];
+            double deddt;
+            if (angleSextic[i]) {
+                double dv3 = dv2 * dv;
+                double dv4 = dv2 * dv2;
+                energy += prefactor * dv2 * (1.0
+                        + cubic * dv + quartic * dv2
+                        + quintic * dv3 + sextic * dv4);
+                deddt = prefactor * dv * toDegrees(2.0
+                        + 3.0 * cubic * dv + 4.0 * quartic * dv2
+                        + 5.0 * quintic * dv3 + 6.0 * sextic * dv4);
+            } else {
+                energy += prefactor * dv2;
+                deddt = prefactor * dv * DEGREES_2;
+            }
+            angleValue[i] = dv;
+            if (gradient) {
+                // p = v12 x v10.
+                double px = cy * az - cz * ay;
+                double py = cz * ax - cx * az;
+                double pz = cx * ay - cy * ax;
+                double rp = sqrt((px * px + py * py + pz * pz));
+                rp = max(rp, 0.000001);
+                double terma = -deddt / (rab2 * rp);
+                double termc = deddt / (rcb2 * rp);
+                double g0x = (ay * pz - az * py) * terma;
+                double g0y = (az * px - ax * pz) * terma;
+                double g0z = (ax * py - ay * px) * terma;
+                double g2x = (cy * pz - cz * py) * termc;
+                double g2y = (cz * px - cx * pz) * termc;
+                double g2z = (cx * py - cy * px) * termc;
+                gradX.add(threadID, i0, g0x);
+                gradY.add(threadID, i0, g0y);
+                gradZ.add(threadID, i0, g0z);
+                gradX.add(threadID, i1, (g0x + g2x) * -1.0);
+                gradY.add(threadID, i1, (g0y + g2y) * -1.0);
+                gradZ.add(threadID, i1, (g0z + g2z) * -1.0);
+                gradX.add(threadID, i2, g2x);
+                gradY.add(threadID, i2, g2y);
+                gradZ.add(threadID, i2, g2z);
+            }
+        }
+        return energy;
+    }
+
+    /**
+     * Evaluate Urey-Bradley terms first through last.
+     *
+     * @param first the first Urey-Bradley term.
+     * @param last the last Urey-Bradley term.
+     * @param xyz packed coordinates.
+     * @param gradient if true, accumulate the gradient.
+     * @param threadID the thread index for gradient accumulation.
+     * @param gradX the x-component of the gradient.
+     * @param gradY the y-component of the gradient.
+     * @param gradZ the z-component of the gradient.
+     * @return the Urey-Bradley energy.
+     */
+    public double ureyBradleyEnergy(int first, int last, double xyz[], boolean gradient,
+            int threadID, AtomicDoubleArray gradX, AtomicDoubleArray gradY,
+            AtomicDoubleArray gradZ) {
+        final double cubic = UreyBradleyType.cubic;
+        final double quartic = UreyBradleyType.quartic;
+        double energy = 0.0;
+        for (int i = first; i <= last; i++) {
+            int i0 = ureyBradleyAtoms[2 * i];
+            int i2 = ureyBradleyAtoms[2 * i + 1];
+            double dx = xyz[3 * i0] - xyz[3 * i2];
+            double dy = xyz[3 * i0 + 1] - xyz[3 * i2 + 1];
+            double dz = xyz[3 * i0 + 2] - xyz[3 * i2 + 2];
+            double value = sqrt((dx * dx + dy * dy + dz * dz));
+            double dv = value - ureyBradleyDistance[i];
+            double dv2 = dv * dv;
+            double prefactor = ureyBradleyForceConstant[i];
+            energy += prefactor * dv2 * (1.0 + cubic * dv + quartic * dv2);
+            if (gradient) {
+                double deddt = 2.0 * prefactor * dv * (1.0 + 1.5 * cubic * dv + 2.0 * quartic * dv2);
+                double de = 0.0;
+                if (value > 0.0) {
+                    de = deddt / value;
+                }
+                gradX.add(threadID, i0, dx * de);
+                gradY.add(threadID, i0, dy * de);
+                gradZ.add(threadID, i0, dz * de);
+                gradX.add(threadID, i2, dx * -de);
+                gradY.add(threadID, i2, dy * -de);
+                gradZ.add(threadID, i2, dz * -de);
+            }
+        }
+        return energy;
+    }
+
+    /**
+     * Evaluate torsions first through last.
+     *
+     * @param first the first torsion.
+     * @param last the last torsion.
+     * @param xyz packed coordinates.
+     * @param gradient if true, accumulate the gradient.
+     * @param threadID the thread index for gradient accumulation.
+     * @param gradX the x-component of the gradient.
+     * @param gradY the y-component of the gradient.
+     * @param gradZ the z-component of the gradient.
+     * @return the torsion energy.
+     */
+    public double torsionEnergy(int first, int last, double xyz[], boolean gradient,
+            int threadID, AtomicDoubleArray gradX, AtomicDoubleArray gradY,
+            AtomicDoubleArray gradZ) {
+        double energy = 0.0;
+        for (int i = first; i <= last; i++) {
+            int i0 = torsionAtoms[4 * i];
+            int i1 = torsionAtoms[4 * i + 1];
+            int i2 = torsionAtoms[4 * i + 2];
+            int i3 = torsionAtoms[4 * i + 3];
+            double x0 = xyz[3 * i0], y0 = xyz[3 * i0 + 1], z0 = xyz[3 * i0 + 2];
+            double x1 = xyz[3 * i1], y1 = xyz[3 * i1 + 1], z1 = xyz[3 * i1 + 2];
+            double x2 = xyz[3 * i2], y2 = xyz[3 * i2 + 1], z2 = xyz[3 * i2 + 2];
+            double x3 = xyz[3 * i3], y3 = xyz[3 * i3 + 1], z3 = xyz[3 * i3 + 2];
+            // v01, v12 and v23.
+            double ax = x1 - x0, ay = y1 - y0, az = z1 - z0;
+            double bx = x2 - x1, by = y2 - y1, bz = z2 - z1;
+            double cx = x3 - x2, cy = y3 - y2, cz = z3 - z2;
+            // x0112 = v01 x v12 and x1223 = v12 x v23.
+            double tx = ay * bz - az * by;
+            double ty = az * bx - ax * bz;
+            double tz = ax * by - ay * bx;
+            double ux = by * cz - bz * cy;
+            double uy = bz * cx - bx * cz;
+            double uz = bx * cy - by * cx;
+            double r01_12 = ((tx * tx) + (ty * ty) + (tz * tz));
+            double r12_23 = ((ux * ux) + (uy * uy) + (uz * uz));
+            double rr = sqrt(r01_12 * r12_23);
+            if (rr == 0.0) {
+                continue;
+            }
+            // x = x0112 x x1223.
+            double xx = ty * uz - tz * uy;
+            double xy = tz * ux - tx * uz;
+            double xz = tx * uy - ty * ux;
+            double r12 = sqrt((bx * bx + by * by + bz * bz));
+            double cosine = ((tx * ux) + (ty * uy) + (tz * uz)) / rr;
+            double sine = ((bx * xx) + (by * xy) + (bz * xz)) / (r12 * rr);
+            int t = torsionTerm[i];
+            int n = torsionTerm[i + 1] - t;
+            double e = torsionAmplitude[t] * (1.0 + cosine * torsionCosine[t] + sine * torsionSine[t]);
+            double dedphi = torsionAmplitude[t] * (cosine * torsionSine[t] - sine * torsionCosine[t]);
+            double cosprev = cosine;
+            double sinprev = sine;
+            for (int k = 1; k < n; k++) {
+                double cosn = cosine * cosprev - sine * sinprev;
+                double sinn = sine * cosprev + cosine * sinprev;
+                double phi = 1.0 + cosn * torsionCosine[t + k] + sinn * torsionSine[t + k];
+                double dphi = (1.0 + k) * (cosn * torsionSine[t + k] - sinn * torsionCosine[t + k]);
+                e = e + torsionAmplitude[t + k] * phi;
+                dedphi = dedphi + torsionAmplitude[t + k] * dphi;
+                cosprev = cosn;
+                sinprev = sinn;
+            }
+            double units = torsionUnits[i];
+            energy += units * e;
+            if (gradient) {
+                dedphi = units * dedphi;
+                // v02 and v13.
+                double dx = x2 - x0, dy = y2 - y0, dz = z2 - z0;
+                double ex = x3 - x1, ey = y3 - y1, ez = z3 - z1;
+                double s1 = dedphi / (r01_12 * r12);
+                double s2 = -dedphi / (r12_23 * r12);
+                // x1 = (x0112 x v12) * s1 and x2 = (x1223 x v12) * s2.
+                double px = (ty * bz - tz * by) * s1;
+                double py = (tz * bx - tx * bz) * s1;
+                double pz = (tx * by - ty * bx) * s1;
+                double qx = (uy * bz - uz * by) * s2;
+                double qy = (uz * bx - ux * bz) * s2;
+                double qz = (ux * by - uy * bx) * s2;
+                gradX.add(threadID, i0, py * bz - pz * by);
+                gradY.add(threadID, i0, pz * bx - px * bz);
+                gradZ.add(threadID, i0, px * by - py * bx);
+                gradX.add(threadID, i1, (dy * pz - dz * py) + (qy * cz - qz * cy));
+                gradY.add(threadID, i1, (dz * px - dx * pz) + (qz * cx - qx * cz));
+                gradZ.add(threadID, i1, (dx * py - dy * px) + (qx * cy - qy * cx));
+                gradX.add(threadID, i2, (py * az - pz * ay) + (ey * qz - ez * qy));
+                gradY.add(threadID, i2, (pz * ax - px * az) + (ez * qx - ex * qz));
+                gradZ.add(threadID, i2, (px * ay - py * ax) + (ex * qy - ey * qx));
+                gradX.add(threadID, i3, qy * bz - qz * by);
+                gradY.add(threadID, i3, qz * bx - qx * bz);
+                gradZ.add(threadID, i3, qx * by - qy * bx);
+            }
+        }
+        return energy;
+    }
+}
@@ -0,0 +1,554 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.nonbonded;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.fill;
+
+import static org.apache.commons.math3.util.FastMath.exp;
+import static org.apache.commons.math3.util.FastMath.floor;
+import static org.apache.commons.math3.util.FastMath.max;
+import static org.apache.commons.math3.util.FastMath.min;
+import static org.apache.commons.math3.util.FastMath.sqrt;
+
+import edu.rit.pj.IntegerForLoop;
+import edu.rit.pj.IntegerSchedule;
+import edu.rit.pj.ParallelRegion;
+import edu.rit.pj.ParallelTeam;
+
+import ffx.crystal.Crystal;
+
+/**
+ * The BlockJacobiPreconditioner class groups the polarizable atoms of the
+ * asymmetric unit into spatial cells and factors the mutual polarization
+ * matrix of each cell,
+ * <br>
+ * A = 1 / alpha - T
+ * <br>
+ * where T is the Thole damped dipole field tensor between the atoms of the
+ * cell. Solving each block against the residual field of the preconditioned
+ * conjugate gradient SCF gives the preconditioned residual (induced dipoles).
+ * <br>
+ * The blocks are factored once per SCF by Cholesky decomposition, since the
+ * coordinates do not change between SCF iterations. A block that is not
+ * positive definite falls back to the diagonal (polarizability) preconditioner.
+ * Interactions with symmetry mates are not included.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class BlockJacobiPreconditioner {
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(BlockJacobiPreconditioner.class.getName());
+    /**
+     * Requested edge length of a cell (A).
+     */
+    private final double cellSize;
+    private final FactorRegion factorRegion;
+    private final ApplyRegion applyRegion;
+    private int nAtoms;
+    /**
+     * Fractional coordinates of each atom. [nAtoms]
+     */
+    private double xf[], yf[], zf[];
+    /**
+     * The cell of each atom, or -1 for atoms that are not polarizable.
+     * [nAtoms]
+     */
+    private int cell[];
+    /**
+     * Number of non-empty blocks.
+     */
+    private int nBlocks;
+    /**
+     * The atoms of each block are blockAtoms[blockStart[b]] to
+     * blockAtoms[blockStart[b + 1] - 1].
+     */
+    private int blockStart[];
+    private int blockAtoms[];
+    /**
+     * Atoms that are not polarizable.
+     */
+    private int nInactive;
+    private int inactiveAtoms[];
+    /**
+     * The lower triangular Cholesky factor of each block, stored by row, or
+     * null if the block is not positive definite. [nBlocks][(3 * n)^2]
+     */
+    private double factors[][];
+    /**
+     * The largest block (number of atoms).
+     */
+    private int maxBlockSize;
+    /**
+     * Factorization inputs.
+     */
+    private Crystal crystal;
+    private double x[], y[], z[];
+    private double polarizability[];
+    private double ipdamp[];
+    private double thole[];
+
+    /**
+     * <p>
+     * Constructor for BlockJacobiPreconditioner.</p>
+     *
+     * @param cellSize the requested edge length of a cell (A).
+     * @param nThreads the number of threads.
+     */
+    public BlockJacobiPreconditioner(double cellSize, int nThreads) {
+        this.cellSize = cellSize;
+        factorRegion = new FactorRegion(nThreads);
+        applyRegion = new ApplyRegion(nThreads);
+    }
+
+    /**
+     * Group the polarizable atoms into cells and factor the block of each
+     * cell.
+     *
+     * @param parallelTeam the ParallelTeam to execute the factorization.
+     * @param crystal the Crystal used to image pair separations.
+     * @param coordinates the Cartesian coordinates [3][nAtoms].
+     * @param polarizability the atomic polarizabilities.
+     * @param ipdamp the inverse Thole damping factors.
+     * @param thole the Thole damping parameters.
+     * @param use flags atoms included in the SCF.
+     */
+    public void factor(ParallelTeam parallelTeam, Crystal crystal, double coordinates[][],
+            double polarizability[], double ipdamp[], double thole[], boolean use[]) {
+        this.crystal = crystal;
+        this.x = coordinates[0];
+        this.y = coordinates[1];
+        this.z = coordinates[2];
+        this.polarizability = polarizability;
+        this.ipdamp = ipdamp;
+        this.thole = thole;
+        partition(use);
+        try {
+            parallelTeam.execute(factorRegion);
+        } catch (Exception e) {
+            String message = " Exception factoring the block-Jacobi preconditioner.";
+            logger.log(Level.SEVERE, message, e);
+        }
+    }
+
+    /**
+     * Apply the factored blocks to the residual fields.
+     *
+     * @param parallelTeam the ParallelTeam to execute the solves.
+     * @param rsd the residual field [3][nAtoms].
+     * @param rsdCR the chain rule residual field [3][nAtoms].
+     * @param rsdPre the preconditioned residual [3][nAtoms].
+     * @param rsdPreCR the preconditioned chain rule residual [3][nAtoms].
+     */
+    public void apply(ParallelTeam parallelTeam, double rsd[][], double rsdCR[][],
+            double rsdPre[][], double rsdPreCR[][]) {
+        for (int n = 0; n < nInactive; n++) {
+            int i = inactiveAtoms[n];
+            for (int j = 0; j < 3; j++) {
+                rsdPre[j][i] = 0.0;
+                rsdPreCR[j][i] = 0.0;
+            }
+        }
+        applyRegion.rsd = rsd;
+        applyRegion.rsdCR = rsdCR;
+        applyRegion.rsdPre = rsdPre;
+        applyRegion.rsdPreCR = rsdPreCR;
+        try {
+            parallelTeam.execute(applyRegion);
+        } catch (Exception e) {
+            String message = " Exception applying the block-Jacobi preconditioner.";
+            logger.log(Level.SEVERE, message, e);
+        }
+    }
+
+    /**
+     * Get the number of blocks.
+     *
+     * @return the number of blocks.
+     */
+    public int getNumberOfBlocks() {
+        return nBlocks;
+    }
+
+    /**
+     * Get the number of atoms in the largest block.
+     *
+     * @return the number of atoms in the largest block.
+     */
+    public int getMaxBlockSize() {
+        return maxBlockSize;
+    }
+
+    /**
+     * Assign each polarizable atom to a cell and collect the atoms of each
+     * non-empty cell into a block.
+     */
+    private void partition(boolean use[]) {
+        nAtoms = x.length;
+        if (cell == null || cell.length < nAtoms) {
+            xf = new double[nAtoms];
+            yf = new double[nAtoms];
+            zf = new double[nAtoms];
+            cell = new int[nAtoms];
+            blockAtoms = new int[nAtoms];
+            inactiveAtoms = new int[nAtoms];
+        }
+
+        int nActive = 0;
+        for (int i = 0; i < nAtoms; i++) {
+            if (use[i] && polarizability[i] > 0.0) {
+                nActive++;
+            }
+        }
+
+        /**
+         * Find fractional coordinates and the number of cells along each axis.
+         */
+        int nA, nB, nC;
+        if (crystal.aperiodic()) {
+            double min[] = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+            double max[] = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+            for (int i = 0; i < nAtoms; i++) {
+                min[0] = min(min[0], x[i]);
+                min[1] = min(min[1], y[i]);
+                min[2] = min(min[2], z[i]);
+                max[0] = max(max[0], x[i]);
+                max[1] = max(max[1], y[i]);
+                max[2] = max(max[2], z[i]);
+            }
+            double lengths[] = new double[3];
+            for (int j = 0; j < 3; j++) {
+                // Pad the box so that the fractional coordinates are below 1.
+                lengths[j] = max(max[j] - min[j], 0.0) + 1.0e-3;
+            }
+            for (int i = 0; i < nAtoms; i++) {
+                xf[i] = (x[i] - min[0]) / lengths[0];
+                yf[i] = (y[i] - min[1]) / lengths[1];
+                zf[i] = (z[i] - min[2]) / lengths[2];
+            }
+            nA = max(1, (int) floor(lengths[0] / cellSize));
+            nB = max(1, (int) floor(lengths[1] / cellSize));
+            nC = max(1, (int) floor(lengths[2] / cellSize));
+        } else {
+            crystal.toFractionalCoordinates(nAtoms, x, y, z, xf, yf, zf);
+            for (int i = 0; i < nAtoms; i++) {
+                xf[i] -= floor(xf[i]);
+                yf[i] -= floor(yf[i]);
+                zf[i] -= floor(zf[i]);
+            }
+            nA = max(1, (int) floor(crystal.a / cellSize));
+            nB = max(1, (int) floor(crystal.b / cellSize));
+            nC = max(1, (int) floor(crystal.c / cellSize));
+        }
+        // Avoid more cells than polarizable atoms for sparse systems.
+        while ((long) nA * nB * nC > max(1, nActive) && (nA > 1 || nB > 1 || nC > 1)) {
+            nA = max(1, nA / 2);
+            nB = max(1, nB / 2);
+            nC = max(1, nC / 2);
+        }
+        int nCells = nA * nB * nC;
+
+        /**
+         * Count the atoms in each cell.
+         */
+        int count[] = new int[nCells + 1];
+        nInactive = 0;
+        for (int i = 0; i < nAtoms; i++) {
+            if (!use[i] || polarizability[i] <= 0.0) {
+                cell[i] = -1;
+                inactiveAtoms[nInactive++] = i;
+                continue;
+            }
+            int a = min(nA - 1, (int) (xf[i] * nA));
+            int b = min(nB - 1, (int) (yf[i] * nB));
+            int c = min(nC - 1, (int) (zf[i] * nC));
+            cell[i] = (a * nB + b) * nC + c;
+            count[cell[i] + 1]++;
+        }
+
+        /**
+         * Collect the atoms of each non-empty cell.
+         */
+        for (int n = 0; n < nCells; n++) {
+            count[n + 1] += count[n];
+        }
+        int next[] = copyOf(count, nCells);
+        for (int i = 0; i < nAtoms; i++) {
+            if (cell[i] >= 0) {
+                blockAtoms[next[cell[i]]++] = i;
+            }
+        }
+        nBlocks = 0;
+        if (blockStart == null || blockStart.length < nCells + 1) {
+            blockStart = new int[nCells + 1];
+        }
+        maxBlockSize = 0;
+        for (int n = 0; n < nCells; n++) {
+            int size = count[n + 1] - count[n];
+            if (size > 0) {
+                blockStart[nBlocks++] = count[n];
+                maxBlockSize = max(maxBlockSize, size);
+            }
+        }
+        blockStart[nBlocks] = count[nCells];
+        if (factors == null || factors.length < nBlocks) {
+            factors = new double[nBlocks][];
+        }
+    }
+
+    /**
+     * Factor the blocks in parallel.
+     */
+    private class FactorRegion extends ParallelRegion {
+
+        private final FactorLoop factorLoop[];
+
+        public FactorRegion(int nThreads) {
+            factorLoop = new FactorLoop[nThreads];
+            for (int i = 0; i < nThreads; i++) {
+                factorLoop[i] = new FactorLoop();
+            }
+        }
+
+        @Override
+        public void run() throws Exception {
+            execute(0, nBlocks - 1, factorLoop[getThreadIndex()]);
+        }
+
+        private class FactorLoop extends IntegerForLoop {
+
+            private final double dx[] = new double[3];
+
+            @Override
+            public IntegerSchedule schedule() {
+                return IntegerSchedule.dynamic();
+            }
+
+            @Override
+            public void run(int lb, int ub) throws Exception {
+                for (int b = lb; b <= ub; b++) {
+                    int start = blockStart[b];
+                    int size = blockStart[b + 1] - start;
+                    int n = 3 * size;
+                    double m[] = factors[b];
+                    if (m == null || m.length < n * n) {
+                        m = new double[n * n];
+                    } else {
+                        fill(m, 0.0);
+                    }
+                    /**
+                     * Load the lower triangle of 1 / alpha - T.
+                     */
+                    for (int p = 0; p < size; p++) {
+                        final int i = blockAtoms[start + p];
+                        final double ipolar = 1.0 / polarizability[i];
+                        final double pdi = ipdamp[i];
+                        final double pti = thole[i];
+                        for (int j = 0; j < 3; j++) {
+                            m[(3 * p + j) * n + 3 * p + j] = ipolar;
+                        }
+                        for (int q = 0; q < p; q++) {
+                            final int k = blockAtoms[start + q];
+                            dx[0] = x[k] - x[i];
+                            dx[1] = y[k] - y[i];
+                            dx[2] = z[k] - z[i];
+                            final double r2 = crystal.image(dx);
+                            final double r = sqrt(r2);
+                            final double rr3 = 1.0 / (r * r2);
+                            final double rr5 = 3.0 * rr3 / r2;
+                            double scale3 = 1.0;
+                            double scale5 = 1.0;
+                            double damp = pdi * ipdamp[k];
+                            final double pgamma = min(pti, thole[k]);
+                            final double rdamp = r * damp;
+                            damp = -pgamma * rdamp * rdamp * rdamp;
+                            if (damp > -50.0) {
+                                final double expdamp = exp(damp);
+                                scale3 = 1.0 - expdamp;
+                                scale5 = 1.0 - expdamp * (1.0 - damp);
+                            }
+                            for (int a = 0; a < 3; a++) {
+                                for (int c = 0; c < 3; c++) {
+                                    double t = scale5 * rr5 * dx[a] * dx[c];
+                                    if (a == c) {
+                                        t -= scale3 * rr3;
+                                    }
+                                    m[(3 * p + a) * n + 3 * q + c] = -t;
+                                }
+                            }
+                        }
+                    }
+                    factors[b] = cholesky(m, n) ? m : null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the factored blocks in parallel.
+     */
+    private class ApplyRegion extends ParallelRegion {
+
+        private final ApplyLoop applyLoop[];
+        private double rsd[][], rsdCR[][];
+        private double rsdPre[][], rsdPreCR[][];
+
+        public ApplyRegion(int nThreads) {
+            applyLoop = new ApplyLoop[nThreads];
+            for (int i = 0; i < nThreads; i++) {
+                applyLoop[i] = new ApplyLoop();
+            }
+        }
+
+        @Override
+        public void run() throws Exception {
+            execute(0, nBlocks - 1, applyLoop[getThreadIndex()]);
+        }
+
+        private class ApplyLoop extends IntegerForLoop {
+
+            private double v[];
+
+            @Override
+            public IntegerSchedule schedule() {
+                return IntegerSchedule.dynamic();
+            }
+
+            @Override
+            public void start() {
+                if (v == null || v.length < 3 * maxBlockSize) {
+                    v = new double[3 * maxBlockSize];
+                }
+            }
+
+            @Override
+            public void run(int lb, int ub) throws Exception {
+                for (int b = lb; b <= ub; b++) {
+                    solve(b, rsd, rsdPre);
+                    solve(b, rsdCR, rsdPreCR);
+                }
+            }
+
+            private void solve(int b, double r[][], double z[][]) {
+                int start = blockStart[b];
+                int size = blockStart[b + 1] - start;
+                double m[] = factors[b];
+                if (m == null) {
+                    for (int p = 0; p < size; p++) {
+                        int i = blockAtoms[start + p];
+                        double polar = polarizability[i];
+                        z[0][i] = polar * r[0][i];
+                        z[1][i] = polar * r[1][i];
+                        z[2][i] = polar * r[2][i];
+                    }
+                    return;
+                }
+                int n = 3 * size;
+                for (int p = 0; p < size; p++) {
+                    int i = blockAtoms[start + p];
+                    v[3 * p] = r[0][i];
+                    v[3 * p + 1] = r[1][i];
+                    v[3 * p + 2] = r[2][i];
+                }
+                // Forward substitution with L.
+                for (int row = 0; row < n; row++) {
+                    double sum = v[row];
+                    int offset = row * n;
+                    for (int col = 0; col < row; col++) {
+                        sum -= m[offset + col] * v[col];
+                    }
+                    v[row] = sum / m[offset + row];
+                }
+                // Back substitution with the transpose of L.
+                for (int row = n - 1; row >= 0; row--) {
+                    double sum = v[row];
+                    for (int col = row + 1; col < n; col++) {
+                        sum -= m[col * n + row] * v[col];
+                    }
+                    v[row] = sum / m[row * n + row];
+                }
+                for (int p = 0; p < size; p++) {
+                    int i = blockAtoms[start + p];
+                    z[0][i] = v[3 * p];
+                    z[1][i] = v[3 * p + 1];
+                    z[2][i] = v[3 * p + 2];
+                }
+            }
+        }
+    }
+
+    /**
+     * In place Cholesky decomposition of a symmetric matrix, of which only the
+     * lower triangle is referenced.
+     *
+     * @param m the matrix, stored by row, overwritten by the lower triangular
+     * factor.
+     * @param n the dimension.
+     * @return true if the matrix is positive definite.
+     */
+    private static boolean cholesky(double m[], int n) {
+        for (int j = 0; j < n; j++) {
+            int rowJ = j * n;
+            double d = m[rowJ + j];
+            for (int k = 0; k < j; k++) {
+                d -= m[rowJ + k] * m[rowJ + k];
+            }
+            if (d <= 0.0) {
+                return false;
+            }
+            d = sqrt(d);
+            m[rowJ + j] = d;
+            for (int i = j + 1; i < n; i++) {
+                int rowI = i * n;
+                double s = m[rowI + j];
+                for (int k = 0; k < j; k++) {
+                    s -= m[rowI + k] * m[rowJ + k];
+                }
+                m[rowI + j] = s / d;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,641 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.nonbonded;
+
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.fill;
+
+import static org.apache.commons.math3.util.FastMath.abs;
+
+import ffx.crystal.Crystal;
+import ffx.potential.bonded.Atom;
+
+/**
+ * The ClusterPairList class groups the atoms of the asymmetric unit into
+ * clusters of a fixed size and pairs clusters that have at least one atom pair
+ * within the cutoff + buffer distance.
+ * <br>
+ * <ol>
+ * <li>
+ * Clusters are formed from consecutive atoms of each {@link NeighborList}
+ * cell, so that the atoms of a cluster are spatially close. The last cluster of
+ * a cell is padded with slots that never interact.
+ * </li>
+ * <li>
+ * Cluster pairs are found by searching the same half-shell of cells used by the
+ * NeighborList. Each pair of clusters is stored as a tile of
+ * <code>clusterSize * clusterSize</code> scale factors, which hold the
+ * {@link MaskingInterface} scale for atom pairs within the cutoff + buffer and
+ * zero otherwise. An inner kernel can therefore evaluate every slot of a tile
+ * and multiply by its scale factor instead of branching.
+ * </li>
+ * <li>
+ * The minimum image translation of each tile is found when the list is built.
+ * It remains valid until the next rebuild as long as no atom moves more than
+ * half the buffer. Tiles whose atom pairs require different translations (only
+ * possible for very small cells) are flagged, and their pairs must be imaged
+ * individually.
+ * </li>
+ * <li>
+ * Coordinates are gathered into a contiguous cluster ordered array, with the
+ * x, y and z coordinates of each cluster stored in separate blocks. Each atom
+ * is translated into the periodic image closest to the first atom of its
+ * cluster, so that the atoms of a cluster are also close in Cartesian space.
+ * </li>
+ * </ol>
+ * Only interactions within the asymmetric unit are described.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class ClusterPairList {
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = Logger.getLogger(ClusterPairList.class.getName());
+    /**
+     * The number of atoms per cluster.
+     */
+    private final int clusterSize;
+    /**
+     * The number of atom pairs per tile (clusterSize^2).
+     */
+    private final int tileSize;
+    /**
+     * The number of clusters.
+     */
+    private int nClusters;
+    /**
+     * The atom in each cluster slot. Padding slots repeat the first atom of the
+     * cluster. [nClusters * clusterSize]
+     */
+    private int clusterAtoms[];
+    /**
+     * 1.0 for slots that hold an atom and 0.0 for padding slots. [nClusters *
+     * clusterSize]
+     */
+    private double clusterWeight[];
+    /**
+     * Cluster ordered coordinates. [nClusters][x block, y block, z block]
+     */
+    private double clusterXYZ[];
+    /**
+     * The lattice translation of each slot into the image of its cluster.
+     * [nClusters * clusterSize * 3]
+     */
+    private double slotShift[];
+    /**
+     * The number of tiles.
+     */
+    private int nTiles;
+    /**
+     * The index of the first tile of each cluster. [nClusters + 1]
+     */
+    private int tileStart[];
+    /**
+     * The paired cluster of each tile. [nTiles]
+     */
+    private int tileCluster[];
+    /**
+     * The scale factor of each atom pair of a tile. [nTiles * tileSize]
+     */
+    private double tileScale[];
+    /**
+     * The minimum image translation of each tile. [nTiles * 3]
+     */
+    private double tileShift[];
+    /**
+     * True for tiles whose atom pairs must be imaged individually. [nTiles]
+     */
+    private boolean tileImage[];
+    /**
+     * The number of atom pairs within the cutoff + buffer.
+     */
+    private int pairCount;
+    /**
+     * The number of tiles that must be imaged per pair.
+     */
+    private int imageCount;
+    /**
+     * The cell of each cluster.
+     */
+    private int clusterCell[];
+    /**
+     * The first cluster of each cell. [nCells + 1]
+     */
+    private int cellClusterStart[];
+    /**
+     * Scratch space for the candidate tiles of one cluster.
+     */
+    private int candidates[];
+    private double candidateScale[];
+    private double candidateShift[];
+    private boolean candidateImage[];
+    private boolean candidateSet[];
+    private double mask[];
+    private final double dx[] = new double[3];
+
+    /**
+     * Constructor for the ClusterPairList class.
+     *
+     * @param clusterSize The number of atoms per cluster.
+     */
+    public ClusterPairList(int clusterSize) {
+        this.clusterSize = clusterSize;
+        tileSize = clusterSize * clusterSize;
+    }
+
+    /**
+     * Build the cluster pair list from the cell decomposition of the last
+     * NeighborList rebuild.
+     *
+     * @param neighborList The NeighborList that assigned atoms to cells.
+     * @param crystal The crystal used to build the NeighborList.
+     * @param atoms The atoms of the asymmetric unit.
+     * @param xyz The coordinates used to build the NeighborList [nAtoms * 3].
+     * @param maskingRules Masking rules to apply (may be null).
+     * @param total The cutoff + buffer distance.
+     */
+    public void build(NeighborList neighborList, Crystal crystal, Atom atoms[],
+            double xyz[], MaskingInterface maskingRules, double total) {
+        final int nAtoms = atoms.length;
+        final int divisions[] = neighborList.getCellDivisions();
+        final int edges[] = neighborList.getCellEdges();
+        final int nA = divisions[0];
+        final int nB = divisions[1];
+        final int nC = divisions[2];
+        final int nAB = nA * nB;
+        final int nCells = nAB * nC;
+        final int cellList[] = neighborList.getCellList();
+        final int cellStart[] = neighborList.getCellStart();
+        final int cellCount[] = neighborList.getCellCount();
+        final boolean inactiveInteractions = neighborList.getInactiveInteractions();
+        final double total2 = total * total;
+
+        /**
+         * Form clusters from consecutive atoms of each cell.
+         */
+        if (cellClusterStart == null || cellClusterStart.length < nCells + 1) {
+            cellClusterStart = new int[nCells + 1];
+        }
+        nClusters = 0;
+        for (int cell = 0; cell < nCells; cell++) {
+            cellClusterStart[cell] = nClusters;
+            nClusters += (cellCount[cell] + clusterSize - 1) / clusterSize;
+        }
+        cellClusterStart[nCells] = nClusters;
+        int nSlots = nClusters * clusterSize;
+        if (clusterAtoms == null || clusterAtoms.length < nSlots) {
+            clusterAtoms = new int[nSlots];
+            clusterWeight = new double[nSlots];
+            clusterXYZ = new double[nSlots * 3];
+            slotShift = new double[nSlots * 3];
+            clusterCell = new int[nClusters];
+            tileStart = new int[nClusters + 1];
+        }
+        for (int cell = 0; cell < nCells; cell++) {
+            int start = cellStart[cell];
+            int count = cellCount[cell];
+            int first = cellClusterStart[cell];
+            int last = cellClusterStart[cell + 1];
+            for (int c = first; c < last; c++) {
+                clusterCell[c] = cell;
+                int offset = (c - first) * clusterSize;
+                for (int s = 0; s < clusterSize; s++) {
+                    int slot = c * clusterSize + s;
+                    int m = offset + s;
+                    if (m < count) {
+                        clusterAtoms[slot] = cellList[start + m];
+                        clusterWeight[slot] = 1.0;
+                    } else {
+                        clusterAtoms[slot] = cellList[start + offset];
+                        clusterWeight[slot] = 0.0;
+                    }
+                    /**
+                     * Translate the atom into the image closest to the first
+                     * atom of the cluster.
+                     */
+                    final int i3 = clusterAtoms[slot] * 3;
+                    final int f3 = cellList[start + offset] * 3;
+                    final double xr = xyz[i3] - xyz[f3];
+                    final double yr = xyz[i3 + 1] - xyz[f3 + 1];
+                    final double zr = xyz[i3 + 2] - xyz[f3 + 2];
+                    dx[0] = xr;
+                    dx[1] = yr;
+                    dx[2] = zr;
+                    crystal.image(dx);
+                    final int s3 = slot * 3;
+                    slotShift[s3] = dx[0] - xr;
+                    slotShift[s3 + 1] = dx[1] - yr;
+                    slotShift[s3 + 2] = dx[2] - zr;
+                }
+            }
+        }
+        updateCoordinates(xyz);
+
+        if (mask == null || mask.length < nAtoms) {
+            mask = new double[nAtoms];
+            fill(mask, 1.0);
+        }
+        if (tileCluster == null) {
+            int n = nClusters * 8 + 1;
+            tileCluster = new int[n];
+            tileImage = new boolean[n];
+            tileShift = new double[n * 3];
+            tileScale = new double[n * tileSize];
+        }
+
+        /**
+         * Pair each cluster with clusters of the same cell and the half-shell
+         * of neighboring cells.
+         */
+        nTiles = 0;
+        pairCount = 0;
+        imageCount = 0;
+        for (int ci = 0; ci < nClusters; ci++) {
+            tileStart[ci] = nTiles;
+            final int cell = clusterCell[ci];
+            final int a = cell % nA;
+            final int b = (cell / nA) % nB;
+            final int c = cell / nAB;
+            int a1 = a + 1;
+            int aStop = a + edges[0];
+            int b1 = b + 1;
+            int bStart = b - edges[1];
+            int bStop = b + edges[1];
+            int c1 = c + 1;
+            int cStart = c - edges[2];
+            int cStop = c + edges[2];
+            if (nA == 1) {
+                aStop = a;
+            }
+            if (nB == 1) {
+                bStart = b;
+                bStop = b;
+            }
+            if (nC == 1) {
+                cStart = c;
+                cStop = c;
+            }
+
+            /**
+             * Collect candidate clusters.
+             */
+            int nCandidates = 0;
+            for (int cj = ci; cj < cellClusterStart[cell + 1]; cj++) {
+                nCandidates = addCandidate(nCandidates, cj);
+            }
+            for (int bi = b1; bi <= bStop; bi++) {
+                nCandidates = addCell(nCandidates, image(a, bi, c, nA, nB, nC));
+            }
+            for (int bi = bStart; bi <= bStop; bi++) {
+                for (int cc = c1; cc <= cStop; cc++) {
+                    nCandidates = addCell(nCandidates, image(a, bi, cc, nA, nB, nC));
+                }
+            }
+            for (int bi = bStart; bi <= bStop; bi++) {
+                for (int cc = cStart; cc <= cStop; cc++) {
+                    for (int ai = a1; ai <= aStop; ai++) {
+                        nCandidates = addCell(nCandidates, image(ai, bi, cc, nA, nB, nC));
+                    }
+                }
+            }
+            fill(candidateScale, 0, nCandidates * tileSize, 0.0);
+            fill(candidateImage, 0, nCandidates, false);
+            fill(candidateSet, 0, nCandidates, false);
+
+            /**
+             * Fill the candidate tiles one atom of this cluster at a time, so
+             * that the masking rules are applied once per atom.
+             */
+            for (int s = 0; s < clusterSize; s++) {
+                final int si = ci * clusterSize + s;
+                if (clusterWeight[si] == 0.0) {
+                    continue;
+                }
+                final int i = clusterAtoms[si];
+                final boolean iactive = atoms[i].isActive();
+                final int ix = ci * clusterSize * 3 + s;
+                final double xi = clusterXYZ[ix];
+                final double yi = clusterXYZ[ix + clusterSize];
+                final double zi = clusterXYZ[ix + 2 * clusterSize];
+                if (maskingRules != null) {
+                    maskingRules.applyMask(mask, i);
+                }
+                for (int n = 0; n < nCandidates; n++) {
+                    final int cj = candidates[n];
+                    // Within a cluster, only pairs with t > s are included.
+                    final int tStart = (cj == ci) ? s + 1 : 0;
+                    for (int t = tStart; t < clusterSize; t++) {
+                        final int sk = cj * clusterSize + t;
+                        if (clusterWeight[sk] == 0.0) {
+                            continue;
+                        }
+                        final int k = clusterAtoms[sk];
+                        if (mask[k] <= 0.0) {
+                            continue;
+                        }
+                        if (!iactive && !atoms[k].isActive() && !inactiveInteractions) {
+                            continue;
+                        }
+                        final int kx = cj * clusterSize * 3 + t;
+                        final double xr = xi - clusterXYZ[kx];
+                        final double yr = yi - clusterXYZ[kx + clusterSize];
+                        final double zr = zi - clusterXYZ[kx + 2 * clusterSize];
+                        dx[0] = xr;
+                        dx[1] = yr;
+                        dx[2] = zr;
+                        final double d2 = crystal.image(dx);
+                        if (d2 > total2) {
+                            continue;
+                        }
+                        candidateScale[n * tileSize + s * clusterSize + t] = mask[k];
+                        pairCount++;
+                        /**
+                         * The translation that maps this pair to its minimum
+                         * image must agree with the rest of the tile.
+                         */
+                        final int n3 = n * 3;
+                        final double sx = xr - dx[0];
+                        final double sy = yr - dx[1];
+                        final double sz = zr - dx[2];
+                        if (!candidateSet[n]) {
+                            candidateSet[n] = true;
+                            candidateShift[n3] = sx;
+                            candidateShift[n3 + 1] = sy;
+                            candidateShift[n3 + 2] = sz;
+                        } else if (abs(candidateShift[n3] - sx) > SHIFT_TOLERANCE
+                                || abs(candidateShift[n3 + 1] - sy) > SHIFT_TOLERANCE
+                                || abs(candidateShift[n3 + 2] - sz) > SHIFT_TOLERANCE) {
+                            candidateImage[n] = true;
+                        }
+                    }
+                }
+                if (maskingRules != null) {
+                    maskingRules.removeMask(mask, i);
+                }
+            }
+
+            /**
+             * Keep candidates with at least one pair.
+             */
+            for (int n = 0; n < nCandidates; n++) {
+                if (!candidateSet[n]) {
+                    continue;
+                }
+                if (nTiles == tileCluster.length) {
+                    int newSize = nTiles + nTiles / 2 + 1;
+                    tileCluster = copyOf(tileCluster, newSize);
+                    tileImage = copyOf(tileImage, newSize);
+                    tileShift = copyOf(tileShift, newSize * 3);
+                    tileScale = copyOf(tileScale, newSize * tileSize);
+                }
+                tileCluster[nTiles] = candidates[n];
+                tileImage[nTiles] = candidateImage[n];
+                if (candidateImage[n]) {
+                    imageCount++;
+                }
+                System.arraycopy(candidateShift, n * 3, tileShift, nTiles * 3, 3);
+                System.arraycopy(candidateScale, n * tileSize, tileScale, nTiles * tileSize, tileSize);
+                nTiles++;
+            }
+        }
+        tileStart[nClusters] = nTiles;
+    }
+
+    /**
+     * Gather coordinates into cluster order. This should be called before each
+     * evaluation that uses the tiles.
+     *
+     * @param xyz The coordinates of the asymmetric unit [nAtoms * 3].
+     */
+    public void updateCoordinates(double xyz[]) {
+        for (int c = 0; c < nClusters; c++) {
+            final int slot = c * clusterSize;
+            final int x = slot * 3;
+            final int y = x + clusterSize;
+            final int z = y + clusterSize;
+            for (int s = 0; s < clusterSize; s++) {
+                final int i3 = clusterAtoms[slot + s] * 3;
+                final int s3 = (slot + s) * 3;
+                clusterXYZ[x + s] = xyz[i3] + slotShift[s3];
+                clusterXYZ[y + s] = xyz[i3 + 1] + slotShift[s3 + 1];
+                clusterXYZ[z + s] = xyz[i3 + 2] + slotShift[s3 + 2];
+            }
+        }
+    }
+
+    /**
+     * Log a summary of the cluster pair list.
+     */
+    public void print() {
+        StringBuilder sb = new StringBuilder("  Cluster Pair List\n");
+        sb.append(format("   Cluster Size:                       %8d\n", clusterSize));
+        sb.append(format("   Clusters:                           %8d\n", nClusters));
+        sb.append(format("   Tiles:                              %8d\n", nTiles));
+        sb.append(format("   Tiles Imaged Per Pair:              %8d\n", imageCount));
+        double occupancy = nTiles > 0 ? (double) pairCount / ((double) nTiles * tileSize) : 0.0;
+        sb.append(format("   Tile Occupancy:                     %8.3f", occupancy));
+        logger.info(sb.toString());
+    }
+
+    /**
+     * The number of atoms per cluster.
+     *
+     * @return the cluster size.
+     */
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    /**
+     * The number of clusters.
+     *
+     * @return the number of clusters.
+     */
+    public int getNumberOfClusters() {
+        return nClusters;
+    }
+
+    /**
+     * The number of tiles.
+     *
+     * @return the number of tiles.
+     */
+    public int getNumberOfTiles() {
+        return nTiles;
+    }
+
+    /**
+     * The number of atom pairs within the cutoff + buffer.
+     *
+     * @return the number of pairs.
+     */
+    public int getPairCount() {
+        return pairCount;
+    }
+
+    /**
+     * The atom in each cluster slot. Padding slots repeat the first atom of
+     * their cluster.
+     *
+     * @return the cluster atoms [nClusters * clusterSize].
+     */
+    public int[] getClusterAtoms() {
+        return clusterAtoms;
+    }
+
+    /**
+     * The weight of each cluster slot: 1.0 for atoms and 0.0 for padding.
+     *
+     * @return the slot weights [nClusters * clusterSize].
+     */
+    public double[] getClusterWeight() {
+        return clusterWeight;
+    }
+
+    /**
+     * Cluster ordered coordinates, with the x, y and z coordinates of each
+     * cluster in consecutive blocks of size clusterSize.
+     *
+     * @return the cluster coordinates [nClusters * clusterSize * 3].
+     */
+    public double[] getClusterXYZ() {
+        return clusterXYZ;
+    }
+
+    /**
+     * The index of the first tile of each cluster; the tiles of cluster i are
+     * tileStart[i] to tileStart[i + 1] - 1.
+     *
+     * @return the tile starting indices [nClusters + 1].
+     */
+    public int[] getTileStart() {
+        return tileStart;
+    }
+
+    /**
+     * The paired cluster of each tile.
+     *
+     * @return the tile clusters [nTiles].
+     */
+    public int[] getTileCluster() {
+        return tileCluster;
+    }
+
+    /**
+     * The scale factor of each atom pair of a tile, ordered by slot of the
+     * first cluster and then by slot of the paired cluster.
+     *
+     * @return the tile scale factors [nTiles * clusterSize * clusterSize].
+     */
+    public double[] getTileScale() {
+        return tileScale;
+    }
+
+    /**
+     * The translation to subtract from the separation vector of each tile to
+     * give the minimum image.
+     *
+     * @return the tile translations [nTiles * 3].
+     */
+    public double[] getTileShift() {
+        return tileShift;
+    }
+
+    /**
+     * Tiles whose atom pairs must be imaged individually.
+     *
+     * @return the tile image flags [nTiles].
+     */
+    public boolean[] getTileImage() {
+        return tileImage;
+    }
+
+    private int addCell(int nCandidates, int cell) {
+        for (int cj = cellClusterStart[cell]; cj < cellClusterStart[cell + 1]; cj++) {
+            nCandidates = addCandidate(nCandidates, cj);
+        }
+        return nCandidates;
+    }
+
+    private int addCandidate(int nCandidates, int cj) {
+        if (candidates == null || nCandidates == candidates.length) {
+            int n = (candidates == null) ? 64 : nCandidates * 2;
+            candidates = (candidates == null) ? new int[n] : copyOf(candidates, n);
+            candidateScale = (candidateScale == null) ? new double[n * tileSize] : copyOf(candidateScale, n * tileSize);
+            candidateShift = (candidateShift == null) ? new double[n * 3] : copyOf(candidateShift, n * 3);
+            candidateImage = (candidateImage == null) ? new boolean[n] : copyOf(candidateImage, n);
+            candidateSet = (candidateSet == null) ? new boolean[n] : copyOf(candidateSet, n);
+        }
+        candidates[nCandidates] = cj;
+        return nCandidates + 1;
+    }
+
+    /**
+     * Map cell indices back into the periodic unit cell.
+     */
+    private static int image(int i, int j, int k, int nA, int nB, int nC) {
+        if (i >= nA) {
+            i -= nA;
+        } else if (i < 0) {
+            i += nA;
+        }
+        if (j >= nB) {
+            j -= nB;
+        } else if (j < 0) {
+            j += nB;
+        }
+        if (k >= nC) {
+            k -= nC;
+        } else if (k < 0) {
+            k += nC;
+        }
+        return i + j * nA + k * nA * nB;
+    }
+
+    /**
+     * Minimum image translations of a tile that differ by more than this are
+     * considered distinct.
+     */
+    private static final double SHIFT_TOLERANCE = 1.0e-6;
+}
@@ -241,6 +241,56 @@ public class GeneralizedKirkwood implements LambdaInterface {
      * Forces all atoms to be considered during Born radius updates.
      */
     private boolean bornUseAll = false;
+    /**
+     * If true, the descreening contribution of each neighbor list pair is
+     * cached and only pairs that include an atom displaced by more than the
+     * Born tolerance are recomputed.
+     */
+    private final boolean bornIncremental;
+    /**
+     * Squared displacement (A^2) beyond which the pairs of an atom are
+     * recomputed by the incremental Born radii update.
+     */
+    private final double bornTolerance2;
+    /**
+     * Number of incremental Born radii updates between full recomputations.
+     */
+    private final int bornRefreshInterval;
+    /**
+     * Number of incremental Born radii updates since the last full
+     * recomputation.
+     */
+    private int bornUpdates = 0;
+    /**
+     * If true, the next Born radii update recomputes all pairs.
+     */
+    private boolean bornRefresh = true;
+    /**
+     * Descreening integral of each atom for the incremental update [nAtoms].
+     */
+    private double bornIntegral[];
+    /**
+     * Coordinates of each atom when its pairs were last computed [nAtoms].
+     */
+    private double bornX[], bornY[], bornZ[];
+    /**
+     * Flags atoms whose pairs are recomputed during this update [nAtoms].
+     */
+    private boolean bornMoved[];
+    /**
+     * Use flags at the last full recomputation [nAtoms].
+     */
+    private boolean bornUse[];
+    /**
+     * Neighbor lists at the last full recomputation [nAtoms][nPairs].
+     */
+    private int bornLists[][];
+    /**
+     * Cached pair terms of each atom [nAtoms][4 * nPairs]: the descreening of
+     * atom i by atom k, the descreening of atom k by atom i, and the chain rule
+     * factors of both Born radii with respect to the separation.
+     */
+    private double bornPairs[][];
     /**
      * Provides maps from atomtypes or biotypes to fitted GK radii (by
      * forcefield).
@@ -420,6 +470,10 @@ public class GeneralizedKirkwood implements LambdaInterface {
         sharedGKFieldCR = new SharedDoubleArray[3];
 
         bornUseAll = forceField.getBoolean(ForceField.ForceFieldBoolean.BORN_USE_ALL, false);
+        bornIncremental = forceField.getBoolean(ForceField.ForceFieldBoolean.BORN_INCREMENTAL, false);
+        double bornTolerance = forceField.getDouble(ForceField.ForceFieldDouble.BORN_TOLERANCE, 0.01);
+        bornTolerance2 = bornTolerance * bornTolerance;
+        bornRefreshInterval = forceField.getInteger(ForceField.ForceFieldInteger.BORN_REFRESH_INTERVAL, 100);
 
         probe = forceField.getDouble(ForceField.ForceFieldDouble.PROBE_RADIUS, 1.4);
 
@@ -479,6 +533,10 @@ public class GeneralizedKirkwood implements LambdaInterface {
         logger.info(format("  Solvent Dielectric:                  %8.3f", epsilon));
         logger.info(format("  Non-Polar Model:                     %8s",
                 nonPolar.toString().replace('_', '-')));
+        if (bornIncremental) {
+            logger.info(format("  Incremental Born Radii Tolerance:    %8.3f (A)", bornTolerance));
+            logger.info(format("  Born Radii Refresh Interval:         %8d", bornRefreshInterval));
+        }
 
         if (cavitationRegion != null) {
             logger.info(format("  Cavitation Probe Radius:             %8.3f (A)", probe));
@@ -741,6 +799,9 @@ public class GeneralizedKirkwood implements LambdaInterface {
         // Resets verboseRadii; reduces logging messages when mutating MultiResidues.
         verboseRadii = false;
 
+        // Cached descreening pairs are no longer valid.
+        bornRefresh = true;
+
         if (dispersionRegion != null) {
             dispersionRegion.init();
         }
@@ -1066,6 +1127,133 @@ public class GeneralizedKirkwood implements LambdaInterface {
         CAV, CAV_DISP, HYDROPHOBIC_PMF, BORN_CAV_DISP, BORN_SOLV, NONE
     }
 
+    /**
+     * Flag the atoms whose descreening pairs must be recomputed by the
+     * incremental Born radii update. All atoms are flagged on the first update,
+     * every bornRefreshInterval updates, and whenever the neighbor list or use
+     * flags have changed.
+     */
+    private void flagBornMoves() {
+        if (bornIntegral == null || bornIntegral.length < nAtoms) {
+            bornIntegral = new double[nAtoms];
+            bornX = new double[nAtoms];
+            bornY = new double[nAtoms];
+            bornZ = new double[nAtoms];
+            bornMoved = new boolean[nAtoms];
+            bornUse = new boolean[nAtoms];
+            bornLists = new int[nAtoms][];
+            bornPairs = new double[nAtoms][];
+            bornRefresh = true;
+        }
+        int lists[][] = neighborLists[0];
+        if (!bornRefresh && ++bornUpdates >= bornRefreshInterval) {
+            bornRefresh = true;
+        }
+        if (!bornRefresh) {
+            for (int i = 0; i < nAtoms; i++) {
+                if (bornLists[i] != lists[i] || bornUse[i] != use[i]) {
+                    bornRefresh = true;
+                    break;
+                }
+            }
+        }
+        if (bornRefresh) {
+            bornUpdates = 0;
+            for (int i = 0; i < nAtoms; i++) {
+                int nPair = lists[i].length;
+                if (bornPairs[i] == null || bornPairs[i].length != 4 * nPair) {
+                    bornPairs[i] = new double[4 * nPair];
+                } else {
+                    fill(bornPairs[i], 0.0);
+                }
+                bornLists[i] = lists[i];
+                bornUse[i] = use[i];
+                bornIntegral[i] = 0.0;
+                bornMoved[i] = true;
+            }
+            return;
+        }
+        for (int i = 0; i < nAtoms; i++) {
+            double dx = x[i] - bornX[i];
+            double dy = y[i] - bornY[i];
+            double dz = z[i] - bornZ[i];
+            bornMoved[i] = (dx * dx + dy * dy + dz * dz > bornTolerance2);
+        }
+    }
+
+    /**
+     * Descreening of an atom with base radius ri by a neighbor with scaled
+     * radius sk at separation r.
+     *
+     * @param ri the base radius of the descreened atom.
+     * @param sk the scaled radius of the descreening atom.
+     * @param r the separation.
+     * @param r2 the squared separation.
+     * @return the contribution to the descreening integral.
+     */
+    private static double descreen(double ri, double sk, double r, double r2) {
+        final double sk2 = sk * sk;
+        double sum = 0.0;
+        // Atom i is engulfed by atom k.
+        if (ri + r < sk) {
+            final double lower = ri;
+            final double upper = sk - r;
+            sum += (PI4_3 * (1.0 / (upper * upper * upper) - 1.0 / (lower * lower * lower)));
+        }
+        // Upper integration bound is always the same.
+        final double upper = r + sk;
+        // Lower integration bound depends on atoms sizes and separation.
+        final double lower;
+        if (ri + r < sk) {
+            lower = sk - r;
+        } else if (r < ri + sk) {
+            lower = ri;
+        } else {
+            lower = r - sk;
+        }
+        final double l2 = lower * lower;
+        final double l4r = l2 * l2 * r;
+        final double u2 = upper * upper;
+        final double u4r = u2 * u2 * r;
+        final double term = (3.0 * (r2 - sk2) + 6.0 * u2 - 8.0 * upper * r) / u4r
+                - (3.0 * (r2 - sk2) + 6.0 * l2 - 8.0 * lower * r) / l4r;
+        sum -= PI_12 * term;
+        return sum;
+    }
+
+    /**
+     * Derivative of the descreening of an atom with base radius ri by a
+     * neighbor with scaled radius sk with respect to their separation r.
+     *
+     * @param ri the base radius of the descreened atom.
+     * @param sk the scaled radius of the descreening atom.
+     * @param r the separation.
+     * @param r2 the squared separation.
+     * @return the derivative of the descreening integral.
+     */
+    private static double descreenDerivative(double ri, double sk, double r, double r2) {
+        final double sk2 = sk * sk;
+        double de = 0.0;
+        if (ri + r < sk) {
+            // Atom i is engulfed by atom k.
+            final double uik = sk - r;
+            de = -4.0 * PI / pow(uik, 4);
+            final double lik = sk - r;
+            de += 0.25 * PI * (sk2 - 4.0 * sk * r + 17.0 * r2) / (r2 * pow(lik, 4));
+        } else if (r < ri + sk) {
+            // Atoms are overlapped, begin integration from ri.
+            de += 0.25 * PI * (2.0 * ri * ri - sk2 - r2) / (r2 * pow(ri, 4));
+        } else {
+            // No overlap between atoms.
+            final double lik = r - sk;
+            de += 0.25 * PI * (sk2 - 4.0 * sk * r + r2) / (r2 * pow(lik, 4));
+        }
+        // Upper integration bound is always the same.
+        final double uik = r + sk;
+        de -= 0.25 * PI * (sk2 + 4.0 * sk * r + r2) / (r2 * pow(uik, 4));
+        return de;
+    }
+
     /**
      * Compute Born radii in parallel via the Grycuk method.
      *
@@ -1093,6 +1281,9 @@ public class GeneralizedKirkwood implements LambdaInterface {
             for (int i = 0; i < nAtoms; i++) {
                 sharedBorn.set(i, 0.0);
             }
+            if (bornIncremental) {
+                flagBornMoves();
+            }
         }
 
         @Override
@@ -1107,12 +1298,23 @@ public class GeneralizedKirkwood implements LambdaInterface {
 
         @Override
         public void finish() {
+            if (bornIncremental) {
+                for (int i = 0; i < nAtoms; i++) {
+                    bornIntegral[i] += sharedBorn.get(i);
+                    if (bornMoved[i]) {
+                        bornX[i] = x[i];
+                        bornY[i] = y[i];
+                        bornZ[i] = z[i];
+                    }
+                }
+                bornRefresh = false;
+            }
             for (int i = 0; i < nAtoms; i++) {
                 final double baseRi = baseRadiusWithBondi[i];
                 if (!use[i]) {
                     born[i] = baseRi;
                 } else {
-                    double sum = sharedBorn.get(i);
+                    double sum = bornIncremental ? bornIntegral[i] : sharedBorn.get(i);
                     if (sum <= 0.0) {
                         sum = 0.001;
                     }
@@ -1162,6 +1364,10 @@ public class GeneralizedKirkwood implements LambdaInterface {
 
             @Override
             public void run(int lb, int ub) {
+                if (bornIncremental) {
+                    incremental(lb, ub);
+                    return;
+                }
                 for (int i = lb; i <= ub; i++) {
                     if (!bornUseAll && !use[i]) {
                         continue;
@@ -1271,6 +1477,66 @@ public class GeneralizedKirkwood implements LambdaInterface {
                     }
                 }
             }
+
+            /**
+             * Recompute the descreening pairs that include a moved atom, and
+             * accumulate the change relative to their cached contributions.
+             *
+             * @param lb the lower bound.
+             * @param ub the upper bound.
+             */
+            private void incremental(int lb, int ub) {
+                for (int i = lb; i <= ub; i++) {
+                    if (!bornUseAll && !use[i]) {
+                        continue;
+                    }
+                    final double baseRi = baseRadiusWithBondi[i];
+                    assert (baseRi > 0.0);
+                    if (bornRefresh) {
+                        localBorn[i] += PI4_3 / (baseRi * baseRi * baseRi);
+                    }
+                    final double scaledRi = baseRi * overlapScale[i];
+                    final boolean movedi = bornMoved[i];
+                    final double xi = x[i];
+                    final double yi = y[i];
+                    final double zi = z[i];
+                    final int list[] = bornLists[i];
+                    final double pairs[] = bornPairs[i];
+                    final int npair = list.length;
+                    for (int l = 0; l < npair; l++) {
+                        final int k = list[l];
+                        if (!movedi && !bornMoved[k]) {
+                            continue;
+                        }
+                        final int p = 4 * l;
+                        double descreenI = 0.0;
+                        double descreenK = 0.0;
+                        double dI = 0.0;
+                        double dK = 0.0;
+                        final double baseRk = baseRadiusWithBondi[k];
+                        if (i != k && baseRk > 0.0 && (bornUseAll || use[k])) {
+                            final double xr = x[k] - xi;
+                            final double yr = y[k] - yi;
+                            final double zr = z[k] - zi;
+                            final double r2 = crystal.image(xr, yr, zr);
+                            if (r2 <= cut2) {
+                                final double r = sqrt(r2);
+                                final double scaledRk = baseRk * overlapScale[k];
+                                descreenI = descreen(baseRi, scaledRk, r, r2);
+                                descreenK = descreen(baseRk, scaledRi, r, r2);
+                                dI = descreenDerivative(baseRi, scaledRk, r, r2) / r;
+                                dK = descreenDerivative(baseRk, scaledRi, r, r2) / r;
+                            }
+                        }
+                        localBorn[i] += descreenI - pairs[p];
+                        localBorn[k] += descreenK - pairs[p + 1];
+                        pairs[p] = descreenI;
+                        pairs[p + 1] = descreenK;
+                        pairs[p + 2] = dI;
+                        pairs[p + 3] = dK;
+                    }
+                }
+            }
         }
     }
 
@@ -4063,6 +4329,11 @@ public class GeneralizedKirkwood implements LambdaInterface {
         private class BornCRLoop extends IntegerForLoop {
 
             private final double factor = -pow(PI, THIRD) * pow(6.0, (2.0 * THIRD)) / 9.0;
+            /**
+             * factor / (PI4_3 / rb^3)^(4/3) = rbFactor * rb^4, which avoids
+             * pow() for each cached pair.
+             */
+            private final double rbFactor = factor / pow(PI4_3, (4.0 * THIRD));
             private final double dx_local[];
             private double gX[];
             private double gY[];
@@ -4107,6 +4378,10 @@ public class GeneralizedKirkwood implements LambdaInterface {
                     final double rbi = born[i];
                     double termi = PI4_3 / (rbi * rbi * rbi);
                     termi = factor / pow(termi, (4.0 * THIRD));
+                    if (bornIncremental && !fixedRadii) {
+                        cachedPairs(i, termi);
+                        continue;
+                    }
                     int list[] = neighborLists[0][i];
                     int nPair = list.length;
                     for (int l = 0; l < nPair; l++) {
@@ -4241,6 +4516,60 @@ public class GeneralizedKirkwood implements LambdaInterface {
                     }
                 }
             }
+
+            /**
+             * Apply the chain rule factors cached by the incremental Born radii
+             * update to the pairs of atom i.
+             *
+             * @param i the atom index.
+             * @param termi the derivative of the Born radius of atom i with
+             * respect to its descreening integral.
+             */
+            private void cachedPairs(int i, double termi) {
+                final double xi = x[i];
+                final double yi = y[i];
+                final double zi = z[i];
+                final double bornGradi = sharedBornGrad.get(i);
+                final int list[] = bornLists[i];
+                final double pairs[] = bornPairs[i];
+                final int nPair = list.length;
+                for (int l = 0; l < nPair; l++) {
+                    final int k = list[l];
+                    final int p = 4 * l;
+                    final double dI = pairs[p + 2];
+                    final double dK = pairs[p + 3];
+                    if (!use[k] || (dI == 0.0 && dK == 0.0)) {
+                        continue;
+                    }
+                    final double rbk2 = born[k] * born[k];
+                    final double termk = rbFactor * rbk2 * rbk2;
+                    dx_local[0] = x[k] - xi;
+                    dx_local[1] = y[k] - yi;
+                    dx_local[2] = z[k] - zi;
+                    crystal.image(dx_local);
+                    final double de = termi * dI * bornGradi + termk * dK * sharedBornGrad.get(k);
+                    /**
+                     * Increment the overall derivatives.
+                     */
+                    final double dedx = de * dx_local[0];
+                    final double dedy = de * dx_local[1];
+                    final double dedz = de * dx_local[2];
+                    gX[i] += lambda * dedx;
+                    gY[i] += lambda * dedy;
+                    gZ[i] += lambda * dedz;
+                    gX[k] -= lambda * dedx;
+                    gY[k] -= lambda * dedy;
+                    gZ[k] -= lambda * dedz;
+                    if (lambdaTerm) {
+                        lgX[i] += dedx;
+                        lgY[i] += dedy;
+                        lgZ[i] += dedz;
+                        lgX[k] -= dedx;
+                        lgY[k] -= dedy;
+                        lgZ[k] -= dedz;
+                    }
+                }
+            }
         }
     }
 
@@ -50,7 +50,9 @@ import static java.lang.String.format;
 import static java.util.Arrays.copyOf;
 import static java.util.Arrays.fill;
 
+import static org.apache.commons.math3.util.FastMath.abs;
 import static org.apache.commons.math3.util.FastMath.floor;
+import static org.apache.commons.math3.util.FastMath.max;
 import static org.apache.commons.math3.util.FastMath.min;
 import static org.apache.commons.math3.util.FastMath.sqrt;
 
@@ -247,19 +249,58 @@ public class NeighborList extends ParallelRegion {
      * A buffer, which is added to the cutoff distance, such that the Verlet
      * lists do not need to be calculated for all coordinate changes.
      */
-    private final double buffer;
+    private double buffer;
     /**
      * The maximum squared displacement allowed before list rebuild.
      */
-    private final double motion2;
+    private double motion2;
     /**
      * The sum of the cutoff + buffer.
      */
-    private final double total;
+    private double total;
     /**
      * Total^2 for distance comparisons without taking a sqrt.
      */
-    private final double total2;
+    private double total2;
+    /**
+     * *************************************************************************
+     * Adaptive buffer variables.
+     */
+    /**
+     * If true, the buffer is tuned at each rebuild to minimize the estimated
+     * time per energy evaluation.
+     */
+    private boolean adaptiveBuffer = false;
+    /**
+     * The smallest buffer the adaptive mode may choose.
+     */
+    private double minBuffer;
+    /**
+     * The largest buffer the adaptive mode may choose.
+     */
+    private double maxBuffer;
+    /**
+     * The number of calls to buildList since the last rebuild.
+     */
+    private long listSteps = 0;
+    /**
+     * Time spent by consumers evaluating pairs from the lists since the last
+     * rebuild (nsec).
+     */
+    private long pairTime = 0;
+    /**
+     * The largest squared displacement found by the last motion check.
+     */
+    private double maxMotion2 = 0.0;
+    /**
+     * Rebuild statistics: rebuilds triggered by motion, the calls to
+     * buildList covered by those lists, the total rebuild time (nsec) and (in
+     * adaptive mode) the sum of the maximum displacement per call.
+     */
+    private long motionRebuilds = 0;
+    private long motionSteps = 0;
+    private long rebuildTime = 0;
+    private double displacementSum = 0.0;
     /**
      * The array of fractional "a", "b", and "c" coordinates.
      */
@@ -291,6 +332,16 @@ public class NeighborList extends ParallelRegion {
     private final NeighborListLoop verletListLoop[];
     private long time;
     private long cellTime, verletTime;
+    /**
+     * Number of times the list has been rebuilt.
+     */
+    private long rebuildCount = 0;
+    /**
+     * Symmetric copy of the asymmetric unit lists (see getPartnerLists) and
+     * the rebuild it was made from.
+     */
+    private int partnerLists[][] = null;
+    private long partnerListRebuild = -1;
     private final int len = 1000;
     /**
      * Include intermolecular interactions.
@@ -322,7 +373,6 @@ public class NeighborList extends ParallelRegion {
         this.maskingRules = maskingRules;
         this.crystal = crystal;
         this.cutoff = cutoff;
-        this.buffer = buffer;
         this.parallelTeam = new ParallelTeam(parallelTeam.getThreadCount());
         this.atoms = atoms;
         nAtoms = atoms.length;
@@ -330,9 +380,7 @@ public class NeighborList extends ParallelRegion {
         /**
          * Configure the neighbor cutoff and list rebuilding criteria.
          */
-        total = cutoff + buffer;
-        total2 = total * total;
-        motion2 = (buffer / 2.0) * (buffer / 2.0);
+        setBufferDistance(buffer);
 
         /**
          * Initialize parallel constructs.
@@ -352,6 +400,106 @@ public class NeighborList extends ParallelRegion {
         initNeighborList(true);
     }
 
+    /**
+     * Configure the neighbor cutoff and list rebuilding criteria for a new
+     * buffer.
+     */
+    private void setBufferDistance(double buffer) {
+        this.buffer = buffer;
+        total = cutoff + buffer;
+        total2 = total * total;
+        motion2 = (buffer / 2.0) * (buffer / 2.0);
+    }
+
+    /**
+     * Turn on adaptive tuning of the buffer. At each rebuild triggered by
+     * atomic motion, the time per energy evaluation is estimated for buffers
+     * between the limits as the sum of:
+     * <ul>
+     * <li>the rebuild time, divided by the number of evaluations until the
+     * fastest atom moves half the buffer (assuming its speed is unchanged),
+     * and</li>
+     * <li>the time consumers spend on list pairs per evaluation (reported via
+     * {@link #addPairTime(long)}).</li>
+     * </ul>
+     * Both times are scaled by the change in list volume
+     * <code>((cutoff + buffer) / (cutoff + current))^3</code>. The buffer that
+     * minimizes the estimate is used for the new list, moving at most
+     * <code>0.5</code> Angstroms per rebuild.
+     *
+     * @param adaptiveBuffer If true, tune the buffer.
+     * @param minBuffer The smallest allowed buffer.
+     * @param maxBuffer The largest allowed buffer.
+     */
+    public void setAdaptiveBuffer(boolean adaptiveBuffer, double minBuffer, double maxBuffer) {
+        this.adaptiveBuffer = adaptiveBuffer;
+        this.minBuffer = min(minBuffer, maxBuffer);
+        this.maxBuffer = max(minBuffer, maxBuffer);
+        if (adaptiveBuffer) {
+            logger.info(format("   Adaptive Buffer:              %5.2f to %5.2f (A)",
+                    this.minBuffer, this.maxBuffer));
+            // Start from a buffer within the limits.
+            double start = max(this.minBuffer, min(this.maxBuffer, buffer));
+            if (start != buffer) {
+                setBufferDistance(start);
+                initNeighborList(false);
+            }
+        }
+    }
+
+    /**
+     * Report time spent evaluating pairs from the current lists. Consumers of
+     * the lists (e.g. van der Waals, real space PME and generalized Kirkwood)
+     * should call this once per energy evaluation.
+     *
+     * @param time Time spent on pairwise loops (nsec).
+     */
+    public void addPairTime(long time) {
+        pairTime += time;
+    }
+
+    /**
+     * Get the cutoff distance.
+     *
+     * @return The cutoff.
+     */
+    public double getCutoff() {
+        return cutoff;
+    }
+
+    /**
+     * Get the current buffer distance.
+     *
+     * @return The buffer.
+     */
+    public double getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Summarize rebuilds triggered by atomic motion.
+     *
+     * @return A description of the rebuild statistics.
+     */
+    public String getRebuildStatistics() {
+        StringBuilder sb = new StringBuilder("  Neighbor List Rebuilds\n");
+        sb.append(format("   Buffer:                                %5.2f (A)\n", buffer));
+        sb.append(format("   Rebuilds (Total / Motion):   %8d / %8d\n", rebuildCount, motionRebuilds));
+        if (motionRebuilds > 0) {
+            sb.append(format("   Evaluations Per Rebuild:           %9.2f\n",
+                    (double) motionSteps / motionRebuilds));
+            if (adaptiveBuffer) {
+                sb.append(format("   Max Displacement Per Evaluation:   %9.5f (A)\n",
+                        displacementSum / motionRebuilds));
+            }
+        }
+        if (rebuildCount > 0) {
+            sb.append(format("   Mean Rebuild Time:                 %9.5f (sec)",
+                    rebuildTime * 1.0e-9 / rebuildCount));
+        }
+        return sb.toString();
+    }
+
     public void setIntermolecular(boolean intermolecular, int molecules[]) {
         this.intermolecular = intermolecular;
         this.molecules = molecules;
@@ -514,6 +662,22 @@ public class NeighborList extends ParallelRegion {
         this.lists = lists;
         this.use = use;
         if (forceRebuild || motion()) {
+            rebuildCount++;
+            if (!forceRebuild && listSteps > 0) {
+                motionRebuilds++;
+                motionSteps += listSteps;
+                if (adaptiveBuffer) {
+                    /**
+                     * Record the displacement rate that triggered this
+                     * rebuild, then tune the buffer.
+                     */
+                    double displacement = sqrt(maxMotion2) / listSteps;
+                    displacementSum += displacement;
+                    tuneBuffer(displacement);
+                }
+            }
+            listSteps = 0;
+            pairTime = 0;
             /**
              * Save the current coordinates.
              */
@@ -535,6 +699,7 @@ public class NeighborList extends ParallelRegion {
             verletTime = -System.nanoTime();
             createNeighborList();
             verletTime += System.nanoTime();
+            rebuildTime += cellTime + verletTime;
 
             if (print) {
                 print();
@@ -542,6 +707,172 @@ public class NeighborList extends ParallelRegion {
 
             pairwiseSchedule.updateRanges(sharedCount.get(), atomsWithIteractions, listCount);
         }
+        listSteps++;
+    }
+
+    /**
+     * Choose the buffer that minimizes the estimated time per evaluation.
+     *
+     * @param displacement The maximum displacement per evaluation.
+     */
+    private void tuneBuffer(double displacement) {
+        double rebuild = cellTime + verletTime;
+        double pairs = (double) pairTime / listSteps;
+        double upper = maxBuffer;
+        if (!crystal.aperiodic()) {
+            double sphere = min(min(crystal.interfacialRadiusA,
+                    crystal.interfacialRadiusB), crystal.interfacialRadiusC);
+            upper = min(upper, sphere - cutoff - 0.05);
+        }
+        double lower = min(minBuffer, upper);
+        double current = cutoff + buffer;
+        double best = buffer;
+        double bestCost = Double.MAX_VALUE;
+        for (double b = lower; b <= upper + 1.0e-8; b += 0.05) {
+            double ratio = (cutoff + b) / current;
+            double volume = ratio * ratio * ratio;
+            double steps = displacement > 0.0 ? max(1.0, 0.5 * b / displacement) : Double.MAX_VALUE;
+            double cost = volume * (rebuild / steps + pairs);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = b;
+            }
+        }
+        // Limit the change per rebuild.
+        best = max(buffer - 0.5, min(buffer + 0.5, best));
+        if (abs(best - buffer) > 0.01) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine(format(" Neighbor list buffer %5.2f -> %5.2f (A) after %d evaluations.",
+                        buffer, best, listSteps));
+            }
+            setBufferDistance(best);
+            initNeighborList(false);
+        }
+    }
+
+    /**
+     * The number of times the neighbor list has been rebuilt.
+     *
+     * @return the rebuild count.
+     */
+    public long getRebuildCount() {
+        return rebuildCount;
+    }
+
+    /**
+     * A symmetric copy of the asymmetric unit list, in which each atom lists
+     * all of its neighbors rather than only those assigned to it. Consumers
+     * that evaluate the pairs of a few atoms (i.e. local energies) need every
+     * partner of those atoms. The copy is reused until the next rebuild.
+     *
+     * @return The partner lists [nAtoms][nPartners].
+     */
+    public int[][] getPartnerLists() {
+        if (partnerListRebuild == rebuildCount) {
+            return partnerLists;
+        }
+        int list[][] = lists[0];
+        int counts[] = new int[nAtoms];
+        for (int i = 0; i < nAtoms; i++) {
+            for (int k : list[i]) {
+                counts[i]++;
+                counts[k]++;
+            }
+        }
+        partnerLists = new int[nAtoms][];
+        for (int i = 0; i < nAtoms; i++) {
+            partnerLists[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < nAtoms; i++) {
+            for (int k : list[i]) {
+                partnerLists[i][counts[i]++] = k;
+                partnerLists[k][counts[k]++] = i;
+            }
+        }
+        partnerListRebuild = rebuildCount;
+        return partnerLists;
+    }
+
+    /**
+     * Flag atoms that have moved more than half the buffer size since the
+     * last rebuild. Pairs within the cutoff that involve a flagged atom may be
+     * missing from the list.
+     *
+     * @param coordinates Current coordinates of the asymmetric unit [nAtoms *
+     * 3].
+     * @param displaced Set to true for each displaced atom [nAtoms].
+     * @return The number of displaced atoms.
+     */
+    public int getDisplacedAtoms(double coordinates[], boolean displaced[]) {
+        int count = 0;
+        for (int i = 0; i < nAtoms; i++) {
+            int i3 = i * 3;
+            double dx = previous[i3 + XX] - coordinates[i3 + XX];
+            double dy = previous[i3 + YY] - coordinates[i3 + YY];
+            double dz = previous[i3 + ZZ] - coordinates[i3 + ZZ];
+            displaced[i] = crystal.image(dx, dy, dz) > motion2;
+            if (displaced[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The number of cell divisions along each axis of the unit cell.
+     *
+     * @return {nA, nB, nC}.
+     */
+    int[] getCellDivisions() {
+        return new int[]{nA, nB, nC};
+    }
+
+    /**
+     * The number of cells that must be searched along each axis to find all
+     * neighbors within the cutoff + buffer distance.
+     *
+     * @return {nEdgeA, nEdgeB, nEdgeC}.
+     */
+    int[] getCellEdges() {
+        return new int[]{nEdgeA, nEdgeB, nEdgeC};
+    }
+
+    /**
+     * Atoms of the asymmetric unit ordered by cell, as assigned during the last
+     * rebuild.
+     *
+     * @return The cell ordered atom list [nAtoms].
+     */
+    int[] getCellList() {
+        return cellList[0];
+    }
+
+    /**
+     * The index of the first atom of each cell in the cell ordered list.
+     *
+     * @return The cell starting indices [nCells].
+     */
+    int[] getCellStart() {
+        return cellStart[0];
+    }
+
+    /**
+     * The number of asymmetric unit atoms in each cell.
+     *
+     * @return The cell counts [nCells].
+     */
+    int[] getCellCount() {
+        return cellCount[0];
+    }
+
+    /**
+     * Check if interactions between two inactive atoms are included.
+     *
+     * @return true if inactive pairs are included.
+     */
+    boolean getInactiveInteractions() {
+        return inactiveInteractions;
     }
 
     /**
@@ -860,6 +1191,21 @@ public class NeighborList extends ParallelRegion {
      */
     private boolean motion() {
         double current[] = coordinates[0];
+        if (adaptiveBuffer) {
+            /**
+             * Find the largest displacement, which is used to estimate how
+             * quickly atoms move.
+             */
+            maxMotion2 = 0.0;
+            for (int i = 0; i < nAtoms; i++) {
+                int i3 = i * 3;
+                double dx = previous[i3 + XX] - current[i3 + XX];
+                double dy = previous[i3 + YY] - current[i3 + YY];
+                double dz = previous[i3 + ZZ] - current[i3 + ZZ];
+                maxMotion2 = max(maxMotion2, crystal.image(dx, dy, dz));
+            }
+            return maxMotion2 > motion2;
+        }
         for (int i = 0; i < nAtoms; i++) {
             int i3 = i * 3;
             int iX = i3 + XX;
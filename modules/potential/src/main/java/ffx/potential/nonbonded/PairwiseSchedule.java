@@ -56,7 +56,8 @@ public class PairwiseSchedule extends IntegerSchedule {
     private int threadOffset;
     private final int nThreads;
     private final Range ranges[];
-    private final boolean threadDone[];
+    private final int nextRange[];
+    private int teamSize;
 
     /**
      * <p>
@@ -71,7 +72,8 @@ public class PairwiseSchedule extends IntegerSchedule {
         this.nThreads = nThreads;
         threadOffset = 0;
         this.ranges = ranges;
-        threadDone = new boolean[nThreads];
+        nextRange = new int[nThreads];
+        teamSize = nThreads;
     }
 
     public void setAtoms(int nAtoms) {
@@ -90,15 +92,20 @@ public class PairwiseSchedule extends IntegerSchedule {
 
     /**
      * {@inheritDoc}
+     *
+     * A team with fewer threads than the number of ranges (i.e. a real space
+     * team that shares the machine with reciprocal space) is supported by
+     * having each thread process every nThreads-th range.
      */
     @Override
     public void start(int nThreads, Range chunkRange) {
-        assert (nThreads == this.nThreads);
+        assert (nThreads <= this.nThreads);
         assert (chunkRange.lb() == 0);
         assert (chunkRange.ub() == nAtoms - 1);
 
+        teamSize = nThreads;
         for (int i = 0; i < nThreads; i++) {
-            threadDone[i] = false;
+            nextRange[i] = i;
         }
     }
 
@@ -107,9 +114,12 @@ public class PairwiseSchedule extends IntegerSchedule {
      */
     @Override
     public Range next(int threadID) {
-        if (!threadDone[threadID]) {
-            threadDone[threadID] = true;
-            return ranges[threadID];
+        while (nextRange[threadID] < nThreads) {
+            Range range = ranges[nextRange[threadID]];
+            nextRange[threadID] += teamSize;
+            if (range != null) {
+                return range;
+            }
         }
         return null;
     }
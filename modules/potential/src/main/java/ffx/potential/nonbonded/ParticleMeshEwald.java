@@ -39,9 +39,13 @@ package ffx.potential.nonbonded;
 
 import java.util.List;
 
+import edu.rit.pj.ParallelSection;
+import edu.rit.pj.ParallelTeam;
+
 import ffx.crystal.Crystal;
 import ffx.potential.bonded.Atom;
 import ffx.potential.extended.ExtendedVariable;
+import ffx.potential.utils.EnergyMetrics;
 
 /**
  * This Particle Mesh Ewald class implements PME for the AMOEBA polarizable
@@ -95,6 +99,76 @@ public abstract class ParticleMeshEwald {
     protected double inducedDipole[][][];
     protected double inducedDipoleCR[][][];
 
+    /**
+     * Optional timings and counters (null unless requested).
+     */
+    protected EnergyMetrics metrics = null;
+
+    /**
+     * Record region load imbalance, FFT time and SCF iterations into the
+     * given metrics.
+     *
+     * @param metrics the EnergyMetrics, or null to stop collecting metrics.
+     */
+    public void setMetrics(EnergyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * If reciprocal space runs on its own subset of threads for the whole
+     * step, return the team that executes real space work. Other terms that
+     * should overlap with reciprocal space must use this team.
+     *
+     * @return the real space team, or null if reciprocal space overlap is not
+     * active.
+     */
+    public ParallelTeam getOverlapTeam() {
+        return null;
+    }
+
+    /**
+     * Provide work (e.g. the bonded and van der Waals terms) to be executed
+     * on the real space team while the permanent reciprocal space potential
+     * is computed during the next call to energy. The section is run once and
+     * then discarded.
+     *
+     * @param overlapSection the work to overlap with reciprocal space.
+     * @return true if the work will be executed by the next energy call.
+     */
+    public boolean setOverlapSection(ParallelSection overlapSection) {
+        return false;
+    }
+
+    /**
+     * Discard the induced dipoles from previous steps used to predict (or
+     * propagate) the self-consistent field, e.g. after a discontinuous change
+     * of the coordinates.
+     */
+    public void clearInducedDipoleHistory() {
+    }
+
+    /**
+     * Check if the electrostatic energy is a sum of real space pairs that can
+     * be evaluated locally (see localEnergy).
+     *
+     * @return true if localEnergy may be called.
+     */
+    public boolean localEnergyAvailable() {
+        return false;
+    }
+
+    /**
+     * Compute the electrostatic energy of all pairs that involve at least one
+     * of the given atoms, or an atom whose multipole frame is defined by one
+     * of them, at the current coordinates.
+     *
+     * @param localAtoms Indices of the atoms.
+     * @return The local electrostatic energy (kcal/mol).
+     */
+    public double localEnergy(int localAtoms[]) {
+        throw new UnsupportedOperationException(" Local electrostatic energies are not supported.");
+    }
+
     public abstract double getEwaldCutoff();
 
     /**
@@ -143,6 +217,24 @@ public abstract class ParticleMeshEwald {
     
     public abstract double[] getdEdEsv();
 
+    /**
+     * Skip the reciprocal space and self contributions, so that only the real
+     * space (short-range) electrostatics, including a real space SCF for the
+     * induced dipoles, are computed. This supports multiple time step
+     * integrators that evaluate reciprocal space on an outer time step.
+     *
+     * @param realSpaceOnly true to compute real space electrostatics only.
+     * @return true if the mode is supported.
+     */
+    public abstract boolean setRealSpaceOnly(boolean realSpaceOnly);
+
+    /**
+     * Copy the Cartesian electrostatic gradient of the last evaluation.
+     *
+     * @param grad the gradient [3][nAtoms] (output).
+     */
+    public abstract void getGradients(double grad[][]);
+
     public abstract void destroy() throws Exception;
 
     public abstract void setCrystal(Crystal crystal);
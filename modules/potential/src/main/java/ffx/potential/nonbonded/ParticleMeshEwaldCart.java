@@ -53,10 +53,13 @@ import org.apache.commons.math3.optimization.PointVectorValuePair;
 import org.apache.commons.math3.optimization.SimpleVectorValueChecker;
 import org.apache.commons.math3.optimization.general.LevenbergMarquardtOptimizer;
 
+import static org.apache.commons.math3.util.FastMath.abs;
+import static org.apache.commons.math3.util.FastMath.ceil;
 import static org.apache.commons.math3.util.FastMath.exp;
 import static org.apache.commons.math3.util.FastMath.max;
 import static org.apache.commons.math3.util.FastMath.min;
 import static org.apache.commons.math3.util.FastMath.pow;
+import static org.apache.commons.math3.util.FastMath.round;
 import static org.apache.commons.math3.util.FastMath.sqrt;
 
 import edu.rit.pj.IntegerForLoop;
@@ -72,6 +75,7 @@ import edu.rit.util.Range;
 
 import ffx.crystal.Crystal;
 import ffx.crystal.SymOp;
+import ffx.numerics.CubicSplineTable;
 import ffx.numerics.MultipoleTensor;
 import ffx.numerics.VectorMath;
 import ffx.potential.bonded.Angle;
@@ -122,6 +126,7 @@ import static ffx.potential.parameters.MultipoleType.t201;
 import static ffx.potential.parameters.MultipoleType.t210;
 import static ffx.potential.parameters.MultipoleType.t300;
 import ffx.potential.utils.EnergyException;
+import ffx.potential.utils.EnergyMetrics;
 
 /**
  * This Particle Mesh Ewald class implements PME for the AMOEBA polarizable
@@ -239,6 +244,12 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
     /**
      * Neighbor lists, without atoms beyond the real space cutoff.
      * [nSymm][nAtoms][nIncludedNeighbors]
+     *
+     * The permanent field and energy loops stay on these per-atom lists,
+     * since each pair needs the m, p and d masking factors (a tile carries one
+     * scale) and the lists span every symmetry operator. The induced field SCF
+     * iterations of P1 systems can use ClusterPairList tiles instead (see
+     * EWALD-CLUSTER-PAIRS).
      */
     private int[][][] realSpaceLists;
     /**
@@ -265,6 +276,10 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
     private int[][] preconditionerCounts;
     private double preconditionerCutoff = 4.5;
     private double preconditionerEwald = 0.0;
+    /**
+     * Edge length (A) of the spatial cells of the block-Jacobi preconditioner.
+     */
+    private double preconditionerCellSize = 4.0;
     private final int preconditionerListSize = 50;
 
     /**
@@ -452,7 +467,7 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
 
     public enum SCFPredictor {
 
-        NONE, LS, POLY, ASPC
+        NONE, LS, POLY, ASPC, XL
     }
     /**
      * Specify an SCF predictor algorithm.
@@ -480,12 +495,85 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
     private double predictorInducedDipoleCR[][][][];
     private LeastSquaresPredictor leastSquaresPredictor;
     private LevenbergMarquardtOptimizer leastSquaresOptimizer;
+    /**
+     * Dissipation order K of the extended Lagrangian auxiliary dipole
+     * integrator.
+     */
+    private int xlOrder;
+    /**
+     * Number of SOR iterations applied to the auxiliary dipoles each step.
+     */
+    private int xlIterations;
+    /**
+     * Auxiliary induced dipoles (relative to the direct dipoles) of the
+     * extended Lagrangian. Dimensions of [mode][xlOrder + 1][nAtoms][3]
+     */
+    private double xlAuxiliary[][][][];
+    /**
+     * Dimensions of [mode][xlOrder + 1][nAtoms][3]
+     */
+    private double xlAuxiliaryCR[][][][];
+    /**
+     * Index of the most recent auxiliary dipoles for each mode.
+     */
+    private int xlIndex[];
+    /**
+     * Number of auxiliary dipoles stored for each mode.
+     */
+    private int xlCount[];
+    /**
+     * Integrator coefficients (kappa, alpha and c_0 to c_K) for the
+     * auxiliary dipoles with dissipation orders K = 3 to 7, from Niklasson et
+     * al., J. Chem. Phys. 130, 214109 (2009).
+     */
+    private static final double XL_KAPPA[] = {1.69, 1.75, 1.82, 1.84, 1.86};
+    private static final double XL_ALPHA[] = {0.150, 0.057, 0.018, 0.0055, 0.0016};
+    private static final double XL_COEFFICIENTS[][] = {
+        {-2.0, 3.0, 0.0, -1.0},
+        {-3.0, 6.0, -2.0, -2.0, 1.0},
+        {-6.0, 14.0, -8.0, -3.0, 4.0, -1.0},
+        {-14.0, 36.0, -27.0, -2.0, 12.0, -6.0, 1.0},
+        {-36.0, 99.0, -88.0, 11.0, 32.0, -25.0, 8.0, -1.0}};
 
     public enum SCFAlgorithm {
 
-        SOR, CG
+        SOR, CG, DIIS
     }
     private SCFAlgorithm scfAlgorithm = SCFAlgorithm.CG;
+
+    /**
+     * Preconditioners for the CG SCF: the real space field of the residual
+     * within a short cutoff (LOCAL), exact solves within spatial cells
+     * (BLOCK) or the polarizability alone (NONE).
+     */
+    public enum SCFPreconditioner {
+
+        NONE, LOCAL, BLOCK
+    }
+    private SCFPreconditioner scfPreconditioner = SCFPreconditioner.LOCAL;
+    /**
+     * The block-Jacobi preconditioner (null unless selected).
+     */
+    private BlockJacobiPreconditioner blockJacobiPreconditioner = null;
+    /**
+     * Number of previous iterates used by DIIS (Anderson) acceleration.
+     */
+    private int diisSize = 6;
+    /**
+     * DIIS differences of the SOR residual and update for each previous
+     * iterate. [diisSize][3 * nAtoms]
+     */
+    private double diisResidual[][], diisUpdate[][];
+    private double diisResidualCR[][], diisUpdateCR[][];
+    /**
+     * The most recent DIIS iterate, residual and update. [3 * nAtoms]
+     */
+    private double diisDipole[], diisLastResidual[], diisLastUpdate[];
+    private double diisDipoleCR[], diisLastResidualCR[], diisLastUpdateCR[];
+    /**
+     * If true, log the SCF algorithm, iterations and time of each step.
+     */
+    private boolean scfLog = false;
     /**
      * Direct induced dipoles.
      */
@@ -512,6 +600,24 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
     private double aewald3;
     private double off;
     private double off2;
+    /**
+     * Optional cubic spline table of the Ewald damping function erfc(a * r),
+     * the Ewald coefficient it was built for, and the factor that converts its
+     * derivative to exp(-a^2 * r^2).
+     */
+    private CubicSplineTable ewaldTable = null;
+    private double ewaldTableCoefficient = 0.0;
+    private double ewaldTableExpScale = 0.0;
+    private static final int ERFC = 0;
+    /**
+     * Optional cluster pair list for the real space induced dipole field, the
+     * neighbor-list rebuild it was built for and its cluster ordered
+     * coordinates [nAtoms * 3].
+     */
+    private ClusterPairList clusterPairList = null;
+    private long clusterPairRebuild = -1;
+    private boolean useClusterPairs = false;
+    private double clusterPairXYZ[];
 
     /**
      * PCG Variables.
@@ -542,13 +648,13 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
      * then realSpaceThreads == maxThreads. Otherwise the number of
      * realSpaceThreads is set to ffx.realSpaceThreads.
      */
-    private final int realSpaceThreads;
+    private int realSpaceThreads;
     /**
      * If real and reciprocal space are done sequentially then reciprocalThreads
      * == maxThreads If CUDA is used, reciprocalThreads == 1 Otherwise,
      * reciprocalThreads = maxThreads - realSpaceThreads
      */
-    private final int reciprocalThreads;
+    private int reciprocalThreads;
     /**
      * Gradient array for each thread. [threadID][X/Y/Z][atomID]
      */
@@ -605,7 +711,7 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
      * If the real and reciprocal space parts of PME are done concurrently, then
      * the realSpaceTeam will have fewer threads than the default parallelTeam.
      */
-    private final ParallelTeam realSpaceTeam;
+    private ParallelTeam realSpaceTeam;
     /**
      * If the real and reciprocal space parts of PME are done sequentially, then
      * the reciprocalSpaceTeam is equal parallalTeam.
@@ -614,13 +720,38 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
      * the reciprocalSpaceTeam will have fewer threads than the default
      * parallelTeam.
      */
-    private final ParallelTeam fftTeam;
+    private ParallelTeam fftTeam;
     private final boolean gpuFFT;
+    /**
+     * If true, reciprocal space (b-Splines, spreading, FFTs and potential
+     * interpolation) runs on the fftTeam for the whole step, concurrently with
+     * real space work on the realSpaceTeam. The first real space section also
+     * executes the overlapSection (i.e. the bonded and van der Waals terms).
+     */
+    private boolean reciprocalOverlap = false;
+    /**
+     * If true, the division of threads between the real and reciprocal space
+     * teams has yet to be set from measured timings.
+     */
+    private boolean balanceThreads = false;
+    /**
+     * Number of warm-up energy evaluations timed before the threads are
+     * balanced.
+     */
+    private int balanceInterval = 10;
+    private int balanceCount = 0;
+    /**
+     * Wall clock time of the real and reciprocal space sections during the
+     * warm-up evaluations.
+     */
+    private long overlapRealTime = 0;
+    private long overlapReciprocalTime = 0;
+    private ParallelSection overlapSection = null;
     private IntegerSchedule permanentSchedule;
     private NeighborList neighborList;
     private final InitializationRegion initializationRegion;
-    private final PermanentFieldRegion permanentFieldRegion;
-    private final InducedDipoleFieldRegion inducedDipoleFieldRegion;
+    private PermanentFieldRegion permanentFieldRegion;
+    private InducedDipoleFieldRegion inducedDipoleFieldRegion;
     private final ExpandInducedDipolesRegion expandInducedDipolesRegion;
     private final DirectRegion directRegion;
     private final SORRegion sorRegion;
@@ -631,8 +762,25 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
     private final PCGIterRegion1 pcgIterRegion1;
     private final PCGIterRegion2 pcgIterRegion2;
 
-    private final boolean reciprocalSpaceTerm;
-    private final ReciprocalSpace reciprocalSpace;
+    private boolean reciprocalSpaceTerm;
+    private final boolean reciprocalSpaceTermOrig;
+    /**
+     * If true, the reciprocal space and self contributions are skipped and
+     * only the real space electrostatics are computed (see setRealSpaceOnly).
+     */
+    private boolean realSpaceOnly = false;
+    /**
+     * Local energy variables: the atoms whose multipole frame is defined by
+     * each atom [nAtoms][nDependents], flags for local and displaced atoms,
+     * and the atoms visited by the real space energy loop (null unless a
+     * local energy is being computed).
+     */
+    private int frameDependents[][] = null;
+    private boolean localAtom[] = null;
+    private boolean displaced[] = null;
+    private double localXYZ[] = null;
+    private int localOrder[] = null;
+    private ReciprocalSpace reciprocalSpace;
     private final ReciprocalEnergyRegion reciprocalEnergyRegion;
     private final RealSpaceEnergyRegion realSpaceEnergyRegion;
     private final ReduceRegion reduceRegion;
@@ -714,8 +862,25 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
         double ewaldPrecision = forceField.getDouble(ForceFieldDouble.EWALD_PRECISION, 1.0e-8);
         aewald = forceField.getDouble(ForceFieldDouble.EWALD_ALPHA, ewaldCoefficient(off, ewaldPrecision));
         setEwaldParameters(off, aewald);
+        if (forceField.getBoolean(ForceFieldBoolean.EWALD_TABLE, false)) {
+            if (!crystal.aperiodic() && aewald > 0.0) {
+                double density = forceField.getDouble(ForceFieldDouble.EWALD_TABLE_DENSITY, 100.0);
+                buildEwaldTable(density);
+            } else {
+                logger.info(" Ewald damping tables require periodic boundary conditions.");
+            }
+        }
+        if (forceField.getBoolean(ForceFieldBoolean.EWALD_CLUSTER_PAIRS, false)) {
+            int clusterSize = forceField.getInteger(ForceFieldInteger.EWALD_CLUSTER_SIZE, 4);
+            if (clusterSize != 4 && clusterSize != 8) {
+                logger.info(format(" Unsupported EWALD-CLUSTER-SIZE %d; defaulting to 4", clusterSize));
+                clusterSize = 4;
+            }
+            clusterPairList = new ClusterPairList(clusterSize);
+        }
 
         reciprocalSpaceTerm = forceField.getBoolean(ForceFieldBoolean.RECIPTERM, true);
+        reciprocalSpaceTermOrig = reciprocalSpaceTerm;
 
         String predictor = forceField.getString(ForceFieldString.SCF_PREDICTOR, "NONE");
         try {
@@ -735,6 +900,14 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                 leastSquaresOptimizer = new LevenbergMarquardtOptimizer(new SimpleVectorValueChecker(eps, eps));
             } else if (scfPredictor == SCFPredictor.ASPC) {
                 predictorOrder = 6;
+            } else if (scfPredictor == SCFPredictor.XL) {
+                /**
+                 * The predictor order sets the dissipation order, while only
+                 * the most recent corrected dipoles are retained.
+                 */
+                xlOrder = max(3, min(7, forceField.getInteger(ForceFieldInteger.SCF_PREDICTOR_ORDER, 5)));
+                xlIterations = max(1, forceField.getInteger(ForceFieldInteger.SCF_XL_ITERATIONS, 1));
+                predictorOrder = 1;
             }
             predictorStartIndex = 0;
         }
@@ -746,6 +919,10 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
         } catch (Exception e) {
             scfAlgorithm = SCFAlgorithm.CG;
         }
+        if (scfAlgorithm == SCFAlgorithm.DIIS) {
+            diisSize = max(1, forceField.getInteger(ForceFieldInteger.SCF_DIIS_SIZE, 6));
+        }
+        scfLog = forceField.getBoolean(ForceFieldBoolean.SCF_LOG, false);
 
         /**
          * The size of the preconditioner neighbor list depends on the size of
@@ -759,13 +936,29 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
             pcgIterRegion1 = new PCGIterRegion1(maxThreads);
             pcgIterRegion2 = new PCGIterRegion2(maxThreads);
             boolean preconditioner = forceField.getBoolean(ForceFieldBoolean.USE_SCF_PRECONDITIONER, true);
-            if (preconditioner) {
+            String type = forceField.getString(ForceFieldString.CG_PRECONDITIONER, "LOCAL");
+            try {
+                type = type.replaceAll("-", "_").toUpperCase();
+                scfPreconditioner = SCFPreconditioner.valueOf(type);
+            } catch (Exception e) {
+                scfPreconditioner = SCFPreconditioner.LOCAL;
+            }
+            if (!preconditioner) {
+                scfPreconditioner = SCFPreconditioner.NONE;
+            }
+            if (scfPreconditioner == SCFPreconditioner.LOCAL) {
                 preconditionerCutoff = forceField.getDouble(
                         ForceFieldDouble.CG_PRECONDITIONER_CUTOFF, 4.5);
                 preconditionerEwald = forceField.getDouble(
                         ForceFieldDouble.CG_PRECONDITIONER_EWALD, 0.0);
             } else {
                 preconditionerCutoff = 0.0;
+                if (scfPreconditioner == SCFPreconditioner.BLOCK) {
+                    preconditionerCellSize = forceField.getDouble(
+                            ForceFieldDouble.CG_PRECONDITIONER_CELL, 4.0);
+                    blockJacobiPreconditioner = new BlockJacobiPreconditioner(
+                            preconditionerCellSize, maxThreads);
+                }
             }
         } else {
             preconditionerCutoff = 0.0;
@@ -890,18 +1083,36 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
             if (polarization == Polarization.MUTUAL) {
                 sb.append(format("   SCF Convergence Criteria:          %8.3e\n", poleps));
                 sb.append(format("   SCF Predictor:                      %8s\n", scfPredictor));
+                if (scfPredictor == SCFPredictor.XL) {
+                    sb.append(format("   XL Dissipation Order:               %8d\n", xlOrder));
+                    sb.append(format("   XL SOR Iterations:                  %8d\n", xlIterations));
+                }
                 sb.append(format("   SCF Algorithm:                      %8s\n", scfAlgorithm));
-                if (scfAlgorithm == SCFAlgorithm.SOR) {
+                if (scfAlgorithm == SCFAlgorithm.SOR || scfAlgorithm == SCFAlgorithm.DIIS) {
                     sb.append(format("   SOR Parameter:                      %8.3f\n", polsor));
+                    if (scfAlgorithm == SCFAlgorithm.DIIS) {
+                        sb.append(format("   DIIS Subspace Size:                 %8d\n", diisSize));
+                    }
                 } else {
-                    sb.append(format("   CG Preconditioner Cut-Off:          %8.3f\n", preconditionerCutoff));
-                    sb.append(format("   CG Preconditioner Ewald Coefficient:%8.3f\n", preconditionerEwald));
+                    sb.append(format("   CG Preconditioner:                  %8s\n", scfPreconditioner));
+                    if (scfPreconditioner == SCFPreconditioner.LOCAL) {
+                        sb.append(format("   CG Preconditioner Cut-Off:          %8.3f\n", preconditionerCutoff));
+                        sb.append(format("   CG Preconditioner Ewald Coefficient:%8.3f\n", preconditionerEwald));
+                    } else if (scfPreconditioner == SCFPreconditioner.BLOCK) {
+                        sb.append(format("   CG Preconditioner Cell Size:        %8.3f (A)\n", preconditionerCellSize));
+                    }
                 }
             }
             if (aewald > 0.0) {
                 sb.append("  Particle-mesh Ewald\n");
                 sb.append(format("   Ewald Coefficient:                  %8.3f\n", aewald));
                 sb.append(format("   Particle Cut-Off:                   %8.3f (A)", off));
+                if (ewaldTable != null) {
+                    sb.append(format("\n   Damping Table Intervals:            %8d", ewaldTable.getNumberOfIntervals()));
+                }
+                if (clusterPairList != null) {
+                    sb.append(format("\n   Induced Field Cluster Size:         %8d", clusterPairList.getClusterSize()));
+                }
             } else {
                 sb.append(format("   Electrostatics Cut-Off:             %8.3f (A)\n", off));
             }
@@ -927,6 +1138,20 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
             } catch (Exception e) {
                 concurrent = false;
             }
+            /**
+             * Reciprocal space overlap runs reciprocal space on its own subset
+             * of threads for the whole step. Without pme-real-threads, the
+             * threads are first split evenly and then balanced once from the
+             * timings of the first pme-balance-interval evaluations.
+             */
+            reciprocalOverlap = forceField.getBoolean(ForceFieldBoolean.PME_OVERLAP, false)
+                    && aewald > 0.0 && reciprocalSpaceTerm && maxThreads > 1;
+            if (reciprocalOverlap && !concurrent) {
+                realThreads = maxThreads / 2;
+                concurrent = true;
+                balanceThreads = true;
+                balanceInterval = max(1, forceField.getInteger(ForceFieldInteger.PME_BALANCE_INTERVAL, 10));
+            }
             if (concurrent) {
                 sectionThreads = 2;
                 realSpaceThreads = realThreads;
@@ -948,6 +1173,11 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
             }
         }
 
+        if (reciprocalOverlap) {
+            logger.info(format("   Real / Reciprocal Space Threads:    %4d /%3d%s",
+                    realSpaceThreads, reciprocalThreads, balanceThreads ? " (balanced)" : ""));
+        }
+
         realSpaceRanges = new Range[maxThreads];
         initializationRegion = new InitializationRegion(maxThreads);
         expandInducedDipolesRegion = new ExpandInducedDipolesRegion(maxThreads);
@@ -960,7 +1190,7 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
          */
         if (aewald > 0.0 && reciprocalSpaceTerm) {
             reciprocalSpace = new ReciprocalSpace(this, crystal.getUnitCell(), forceField,
-                    atoms, aewald, fftTeam, parallelTeam);
+                    atoms, aewald, fftTeam, reciprocalOverlap ? fftTeam : parallelTeam);
             reciprocalEnergyRegion = new ReciprocalEnergyRegion(maxThreads);
         } else {
             reciprocalSpace = null;
@@ -1038,6 +1268,13 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                     predictorInducedDipole = new double[1][predictorOrder][nAtoms][3];
                     predictorInducedDipoleCR = new double[1][predictorOrder][nAtoms][3];
                 }
+                if (scfPredictor == SCFPredictor.XL) {
+                    int modes = predictorInducedDipole.length;
+                    xlAuxiliary = new double[modes][xlOrder + 1][nAtoms][3];
+                    xlAuxiliaryCR = new double[modes][xlOrder + 1][nAtoms][3];
+                    xlIndex = new int[modes];
+                    xlCount = new int[modes];
+                }
             }
             /**
              * Initialize per-thread memory for collecting the gradient, torque,
@@ -1080,6 +1317,7 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
          * Assign multipole parameters.
          */
         assignMultipoles();
+        frameDependents = null;
         /**
          * Assign polarization groups.
          */
@@ -1219,6 +1457,7 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
         this.atoms = atoms;
         this.molecule = molecule;
         nAtoms = atoms.length;
+        clusterPairRebuild = -1;
         initAtomArrays();
 
         if (reciprocalSpace != null) {
@@ -1248,6 +1487,7 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
         nSymm = nSymmNew;
         neighborLists = neighborList.getNeighborList();
         this.crystal = crystal;
+        clusterPairRebuild = -1;
         /**
          * Production NPT simulations will include reciprocal space
          * contributions, but just in case there is a check for a NP.
@@ -1371,6 +1611,21 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
             }
         }
 
+        if (reciprocalOverlap && balanceThreads) {
+            balanceThreads();
+        }
+
+        if (metrics != null) {
+            metrics.recordRegion("RealSpacePermanentField", realSpacePermTime);
+            metrics.recordRegion("RealSpaceSCF", realSpaceSCFTime);
+            metrics.recordRegion("RealSpaceEnergy", realSpaceEnergyTime);
+            if (aewald > 0.0 && reciprocalSpaceTerm) {
+                metrics.recordTime(EnergyMetrics.FFT, reciprocalSpace.getConvolutionTime());
+                metrics.recordRegion("ReciprocalBSpline", reciprocalSpace.getBSplineThreadTimes());
+                metrics.recordRegion("ReciprocalConvolution", reciprocalSpace.getConvolutionThreadTimes());
+            }
+        }
+
         /**
          * Log some timings.
          */
@@ -1384,6 +1639,98 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
         return permanentMultipoleEnergy + polarizationEnergy;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ParallelTeam getOverlapTeam() {
+        if (reciprocalOverlap && reciprocalSpaceTerm) {
+            return realSpaceTeam;
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean setOverlapSection(ParallelSection overlapSection) {
+        if (reciprocalOverlap && reciprocalSpaceTerm) {
+            this.overlapSection = overlapSection;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Divide threads between the real and reciprocal space teams in proportion
+     * to the thread time each side required over the first balanceInterval
+     * evaluations. This is done once; the teams, the ReciprocalSpace instance
+     * and the regions that depend on them are rebuilt only if the division
+     * changes, and the split is then kept for the rest of the run.
+     */
+    private void balanceThreads() {
+        if (++balanceCount < balanceInterval) {
+            return;
+        }
+        double realWork = (double) overlapRealTime * realSpaceThreads;
+        double reciprocalWork = (double) overlapReciprocalTime * reciprocalThreads;
+        balanceCount = 0;
+        overlapRealTime = 0;
+        overlapReciprocalTime = 0;
+        if (realWork <= 0.0 || reciprocalWork <= 0.0) {
+            return;
+        }
+        balanceThreads = false;
+        int realThreads = (int) round(maxThreads * realWork / (realWork + reciprocalWork));
+        realThreads = max(1, min(maxThreads - 1, realThreads));
+        if (realThreads == realSpaceThreads) {
+            return;
+        }
+
+        logger.info(format(" PME threads balanced from %d / %d to %d / %d (real / reciprocal space).",
+                realSpaceThreads, reciprocalThreads, realThreads, maxThreads - realThreads));
+        try {
+            realSpaceTeam.shutdown();
+            fftTeam.shutdown();
+        } catch (Exception e) {
+            logger.warning(" Exception in shutting down the real and reciprocal space teams.");
+        }
+        realSpaceThreads = realThreads;
+        reciprocalThreads = maxThreads - realThreads;
+        realSpaceTeam = new ParallelTeam(realSpaceThreads);
+        fftTeam = new ParallelTeam(reciprocalThreads);
+        reciprocalSpace = new ReciprocalSpace(this, crystal.getUnitCell(), forceField,
+                atoms, aewald, fftTeam, fftTeam);
+        permanentFieldRegion = new PermanentFieldRegion(realSpaceTeam);
+        inducedDipoleFieldRegion = new InducedDipoleFieldRegion(realSpaceTeam);
+
+        /**
+         * Clear ranges and field contributions of threads that no longer
+         * belong to the real space team.
+         */
+        fill(realSpaceRanges, null);
+        for (int i = realSpaceThreads; i < maxThreads; i++) {
+            for (int j = 0; j < 3; j++) {
+                fill(field[i][j], 0.0);
+                fill(fieldCR[i][j], 0.0);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * While real space only mode is active, the SCF predictor is neither used
+     * nor updated, so that its history contains only full solutions.
+     */
+    @Override
+    public boolean setRealSpaceOnly(boolean realSpaceOnly) {
+        this.realSpaceOnly = realSpaceOnly;
+        reciprocalSpaceTerm = reciprocalSpaceTermOrig && !realSpaceOnly;
+        return true;
+    }
+
     private void printRealSpaceTimings() {
 
         double total = (realSpacePermTotal + realSpaceSCFTotal + realSpaceEnergyTotal) * TO_SECONDS;
@@ -1641,14 +1988,21 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
         double erecipi = 0.0;
         double ereali = 0.0;
 
+        /**
+         * Time spent on neighbor list pairs, which is reported to the
+         * neighbor list to tune its buffer.
+         */
+        long pairTime = -(realSpacePermTotal + realSpaceSCFTotal + realSpaceEnergyTotal + bornRadiiTotal);
+
         /**
          * Find the permanent multipole potential, field, etc.
          */
         try {
             /**
-             * Compute b-Splines and permanent density.
+             * Compute b-Splines and permanent density (unless this is done by
+             * the reciprocal space team concurrently with real space).
              */
-            if (reciprocalSpaceTerm && aewald > 0.0) {
+            if (reciprocalSpaceTerm && aewald > 0.0 && !reciprocalOverlap) {
                 reciprocalSpace.computeBSplines();
                 reciprocalSpace.splinePermanentMultipoles(globalMultipole, use);
             }
@@ -1662,7 +2016,7 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
             /**
              * Collect the reciprocal space field.
              */
-            if (reciprocalSpaceTerm && aewald > 0.0) {
+            if (reciprocalSpaceTerm && aewald > 0.0 && !reciprocalOverlap) {
                 reciprocalSpace.computePermanentPhi(cartMultipolePhi);
             }
         } catch (Exception e) {
@@ -1684,13 +2038,18 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
          * Do the self-consistent field calculation.
          */
         if (polarization != Polarization.NONE && doPolarization) {
+            updateClusterPairs();
             selfConsistentField(logger.isLoggable(Level.FINE));
             if (reciprocalSpaceTerm && aewald > 0.0) {
                 if (gradient && polarization == Polarization.DIRECT) {
                     try {
-                        reciprocalSpace.splineInducedDipoles(inducedDipole, inducedDipoleCR, use);
+                        if (!reciprocalOverlap) {
+                            reciprocalSpace.splineInducedDipoles(inducedDipole, inducedDipoleCR, use);
+                        }
                         sectionTeam.execute(inducedDipoleFieldRegion);
-                        reciprocalSpace.computeInducedPhi(cartesianDipolePhi, cartesianDipolePhiCR);
+                        if (!reciprocalOverlap) {
+                            reciprocalSpace.computeInducedPhi(cartesianDipolePhi, cartesianDipolePhiCR);
+                        }
                     } catch (Exception ex) {
                         String message = "Fatal exception computing the induced reciprocal space field.\n";
                         logger.log(Level.SEVERE, message, ex);
@@ -1699,7 +2058,7 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                     reciprocalSpace.cartToFracInducedDipoles(inducedDipole, inducedDipoleCR);
                 }
             }
-            if (scfPredictor != SCFPredictor.NONE) {
+            if (scfPredictor != SCFPredictor.NONE && !realSpaceOnly) {
                 saveMutualInducedDipoles();
             }
         }
@@ -1735,11 +2094,15 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
          * Compute the generalized Kirkwood solvation free energy.
          */
         if (generalizedKirkwoodTerm) {
-            gkEnergyTotal -= System.nanoTime();
+            long gkTime = -System.nanoTime();
             generalizedKirkwoodEnergy += generalizedKirkwood.solvationEnergy(gradient, print);
             gkInteractions += generalizedKirkwood.getInteractions();
-            gkEnergyTotal += System.nanoTime();
+            gkTime += System.nanoTime();
+            gkEnergyTotal += gkTime;
+            pairTime += gkTime;
         }
+        pairTime += realSpacePermTotal + realSpaceSCFTotal + realSpaceEnergyTotal + bornRadiiTotal;
+        neighborList.addPairTime(pairTime);
 
         /**
          * Collect energy terms.
@@ -1881,6 +2244,38 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
         return lambdaTorque;
     }
 
+    /**
+     * Rebuild the induced dipole cluster pair list after each neighbor-list
+     * rebuild, then gather coordinates into cluster order. Tiles hold every
+     * pair within the real space cutoff + buffer; the permanent field and
+     * energy loops keep the per-atom lists, which carry masking factors.
+     */
+    private void updateClusterPairs() {
+        useClusterPairs = clusterPairList != null && nSymm == 1 && !lambdaTerm;
+        if (!useClusterPairs) {
+            return;
+        }
+        if (clusterPairXYZ == null || clusterPairXYZ.length < nAtoms * 3) {
+            clusterPairXYZ = new double[nAtoms * 3];
+        }
+        final double x[] = coordinates[0][0];
+        final double y[] = coordinates[0][1];
+        final double z[] = coordinates[0][2];
+        for (int i = 0; i < nAtoms; i++) {
+            final int i3 = i * 3;
+            clusterPairXYZ[i3] = x[i];
+            clusterPairXYZ[i3 + 1] = y[i];
+            clusterPairXYZ[i3 + 2] = z[i];
+        }
+        long rebuildCount = neighborList.getRebuildCount();
+        if (rebuildCount != clusterPairRebuild) {
+            clusterPairList.build(neighborList, crystal, atoms, clusterPairXYZ, null,
+                    off + neighborList.getBuffer());
+            clusterPairRebuild = rebuildCount;
+        }
+        clusterPairList.updateCoordinates(clusterPairXYZ);
+    }
+
     /**
      * Apply the selected polarization model (NONE, Direct or Mutual).
      */
@@ -1925,8 +2320,12 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
          * Predict the current self-consistent induced dipoles using information
          * from previous steps.
          */
-        if (scfPredictor != SCFPredictor.NONE) {
+        boolean extendedLagrangian = false;
+        if (scfPredictor != SCFPredictor.NONE && !realSpaceOnly) {
             switch (scfPredictor) {
+                case XL:
+                    extendedLagrangian = extendedLagrangianPredictor();
+                    break;
                 case ASPC:
                     aspcPredictor();
                     break;
@@ -1958,15 +2357,36 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
          * Converge the self-consistent field.
          */
         int iterations;
-        switch (scfAlgorithm) {
-            case SOR:
-                iterations = scfBySOR(print, startTime);
-                break;
-            case CG:
-            default:
-                //iterations = scfByCG();
-                iterations = scfByPCG(print, startTime);
-                break;
+        String solver;
+        if (extendedLagrangian) {
+            iterations = scfByXL(print, startTime);
+            solver = "XL";
+        } else {
+            switch (scfAlgorithm) {
+                case SOR:
+                    iterations = scfBySOR(print, startTime);
+                    solver = "SOR";
+                    break;
+                case DIIS:
+                    iterations = scfByDIIS(print, startTime);
+                    solver = "DIIS";
+                    break;
+                case CG:
+                default:
+                    //iterations = scfByCG();
+                    iterations = scfByPCG(print, startTime);
+                    solver = "CG/" + scfPreconditioner;
+                    break;
+            }
+        }
+        long scfTime = System.nanoTime() - startTime;
+        if (metrics != null) {
+            metrics.addCount(EnergyMetrics.SCF_ITERATIONS, iterations);
+            metrics.recordTime(EnergyMetrics.SCF, scfTime);
+        }
+        if (scfLog) {
+            logger.info(format(" SCF %-9s %4d iterations to %8.2e (Debye) in %8.4f (sec)",
+                    solver, iterations, poleps, scfTime * TO_SECONDS));
         }
 
         if (System.getProperty("printInducedDipoles") != null) {
@@ -1997,85 +2417,520 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                     "\n Self-Consistent Field\n"
                     + " Iter  RMS Change (Debye)  Time\n");
         }
-        int completedSCFCycles = 0;
-        int maxSCFCycles = 1000;
-        double eps = 100.0;
-        double previousEps;
-        boolean done = false;
-        while (!done) {
-            long cycleTime = -System.nanoTime();
-            try {
-                if (reciprocalSpaceTerm && aewald > 0.0) {
-                    reciprocalSpace.splineInducedDipoles(inducedDipole, inducedDipoleCR, use);
-                }
-                sectionTeam.execute(inducedDipoleFieldRegion);
-                if (reciprocalSpaceTerm && aewald > 0.0) {
-                    reciprocalSpace.computeInducedPhi(cartesianDipolePhi, cartesianDipolePhiCR);
+        int completedSCFCycles = 0;
+        int maxSCFCycles = 1000;
+        double eps = 100.0;
+        double previousEps;
+        boolean done = false;
+        while (!done) {
+            long cycleTime = -System.nanoTime();
+            completedSCFCycles++;
+            previousEps = eps;
+            eps = sorCycle();
+            cycleTime += System.nanoTime();
+            if (print) {
+                sb.append(format(
+                        " %4d     %15.10f %7.4f\n", completedSCFCycles, eps, cycleTime * TO_SECONDS));
+            }
+            /**
+             * If the RMS Debye change increases, fail the SCF process.
+             */
+            if (eps > previousEps) {
+                if (sb != null) {
+                    logger.warning(sb.toString());
+                }
+                String message = format("Fatal SCF convergence failure: (%10.5f > %10.5f)\n", eps, previousEps);
+                throw new EnergyException(message, false);
+            }
+            /**
+             * The SCF should converge well before the max iteration check.
+             * Otherwise, fail the SCF process.
+             */
+            if (completedSCFCycles >= maxSCFCycles) {
+                if (sb != null) {
+                    logger.warning(sb.toString());
+                }
+                String message = format("Maximum SCF iterations reached: (%d)\n", completedSCFCycles);
+                throw new EnergyException(message, false);
+            }
+            /**
+             * Check if the convergence criteria has been achieved.
+             */
+            if (eps < poleps) {
+                done = true;
+            }
+        }
+        if (print) {
+            sb.append(format(" Direct:                  %7.4f\n",
+                    TO_SECONDS * directTime));
+            startTime = System.nanoTime() - startTime;
+            sb.append(format(" Total:                   %7.4f",
+                    startTime * TO_SECONDS));
+            logger.info(sb.toString());
+        }
+        return completedSCFCycles;
+    }
+
+    /**
+     * Apply one SOR update to the induced dipoles.
+     *
+     * @return the RMS change of the induced dipoles (Debye).
+     */
+    private double sorCycle() {
+        try {
+            if (reciprocalSpaceTerm && aewald > 0.0 && !reciprocalOverlap) {
+                reciprocalSpace.splineInducedDipoles(inducedDipole, inducedDipoleCR, use);
+            }
+            sectionTeam.execute(inducedDipoleFieldRegion);
+            if (reciprocalSpaceTerm && aewald > 0.0 && !reciprocalOverlap) {
+                reciprocalSpace.computeInducedPhi(cartesianDipolePhi, cartesianDipolePhiCR);
+            }
+
+            if (generalizedKirkwoodTerm) {
+                /**
+                 * GK field.
+                 */
+                gkEnergyTotal = -System.nanoTime();
+                generalizedKirkwood.computeInducedGKField();
+                gkEnergyTotal += System.nanoTime();
+                logger.fine(String.format(" Computed GK induced field %8.3f (sec)", gkEnergyTotal * 1.0e-9));
+            }
+            parallelTeam.execute(sorRegion);
+            if (nSymm > 1) {
+                parallelTeam.execute(expandInducedDipolesRegion);
+            }
+        } catch (Exception e) {
+            String message = "Exception computing mutual induced dipoles.";
+            logger.log(Level.SEVERE, message, e);
+        }
+        double eps = sorRegion.getEps();
+        return MultipoleType.DEBYE * sqrt(eps / (double) nAtoms);
+    }
+
+    /**
+     * Converge the SCF by DIIS (Anderson) acceleration of SOR. Each SOR update
+     * g(u) of the induced dipoles u is replaced by the combination of the
+     * current and previous updates whose residuals g(u) - u have the smallest
+     * norm.
+     */
+    private int scfByDIIS(boolean print, long startTime) {
+        long directTime = System.nanoTime() - startTime;
+        StringBuilder sb = null;
+        if (print) {
+            sb = new StringBuilder(
+                    "\n Self-Consistent Field (DIIS)\n"
+                    + " Iter  RMS Change (Debye)  Time\n");
+        }
+        int n3 = 3 * nAtoms;
+        if (diisDipole == null || diisDipole.length != n3 || diisResidual.length != diisSize) {
+            diisResidual = new double[diisSize][n3];
+            diisUpdate = new double[diisSize][n3];
+            diisResidualCR = new double[diisSize][n3];
+            diisUpdateCR = new double[diisSize][n3];
+            diisDipole = new double[n3];
+            diisLastResidual = new double[n3];
+            diisLastUpdate = new double[n3];
+            diisDipoleCR = new double[n3];
+            diisLastResidualCR = new double[n3];
+            diisLastUpdateCR = new double[n3];
+        }
+        int completedSCFCycles = 0;
+        int maxSCFCycles = 1000;
+        int history = 0;
+        int slot = 0;
+        double eps;
+        boolean done = false;
+        while (!done) {
+            long cycleTime = -System.nanoTime();
+            for (int i = 0; i < nAtoms; i++) {
+                for (int j = 0; j < 3; j++) {
+                    diisDipole[3 * i + j] = inducedDipole[0][i][j];
+                    diisDipoleCR[3 * i + j] = inducedDipoleCR[0][i][j];
+                }
+            }
+            eps = sorCycle();
+            completedSCFCycles++;
+            /**
+             * Store the differences of the residual and update relative to the
+             * previous iteration.
+             */
+            for (int i = 0; i < nAtoms; i++) {
+                for (int j = 0; j < 3; j++) {
+                    int index = 3 * i + j;
+                    double update = inducedDipole[0][i][j];
+                    double residual = update - diisDipole[index];
+                    double updateCR = inducedDipoleCR[0][i][j];
+                    double residualCR = updateCR - diisDipoleCR[index];
+                    if (completedSCFCycles > 1) {
+                        diisResidual[slot][index] = residual - diisLastResidual[index];
+                        diisUpdate[slot][index] = update - diisLastUpdate[index];
+                        diisResidualCR[slot][index] = residualCR - diisLastResidualCR[index];
+                        diisUpdateCR[slot][index] = updateCR - diisLastUpdateCR[index];
+                    }
+                    diisLastResidual[index] = residual;
+                    diisLastUpdate[index] = update;
+                    diisLastResidualCR[index] = residualCR;
+                    diisLastUpdateCR[index] = updateCR;
+                }
+            }
+            if (completedSCFCycles > 1) {
+                history = min(history + 1, diisSize);
+                slot = (slot + 1) % diisSize;
+            }
+            /**
+             * Check if the convergence criteria has been achieved.
+             */
+            if (eps < poleps) {
+                done = true;
+            } else if (history > 0) {
+                andersonMixing(history, diisResidual, diisUpdate, diisLastResidual, diisLastUpdate, diisDipole);
+                andersonMixing(history, diisResidualCR, diisUpdateCR, diisLastResidualCR, diisLastUpdateCR, diisDipoleCR);
+                for (int i = 0; i < nAtoms; i++) {
+                    for (int j = 0; j < 3; j++) {
+                        inducedDipole[0][i][j] = diisDipole[3 * i + j];
+                        inducedDipoleCR[0][i][j] = diisDipoleCR[3 * i + j];
+                    }
+                }
+                if (nSymm > 1) {
+                    try {
+                        parallelTeam.execute(expandInducedDipolesRegion);
+                    } catch (Exception e) {
+                        String message = " Exception expanding DIIS induced dipoles.";
+                        logger.log(Level.SEVERE, message, e);
+                    }
+                }
+            }
+            cycleTime += System.nanoTime();
+            if (print) {
+                sb.append(format(
+                        " %4d     %15.10f %7.4f\n", completedSCFCycles, eps, cycleTime * TO_SECONDS));
+            }
+            /**
+             * The SCF should converge well before the max iteration check.
+             * Otherwise, fail the SCF process.
+             */
+            if (!done && completedSCFCycles >= maxSCFCycles) {
+                if (sb != null) {
+                    logger.warning(sb.toString());
+                }
+                String message = format("Maximum SCF iterations reached: (%d)\n", completedSCFCycles);
+                throw new EnergyException(message, false);
+            }
+        }
+        if (print) {
+            sb.append(format(" Direct:                  %7.4f\n",
+                    TO_SECONDS * directTime));
+            startTime = System.nanoTime() - startTime;
+            sb.append(format(" Total:                   %7.4f",
+                    startTime * TO_SECONDS));
+            logger.info(sb.toString());
+        }
+        return completedSCFCycles;
+    }
+
+    /**
+     * Anderson mixing: find the coefficients c that minimize |f - dF c| and
+     * set x = g - dG c.
+     *
+     * @param history the number of stored differences.
+     * @param dF differences of the residual between iterations.
+     * @param dG differences of the update between iterations.
+     * @param f the current residual.
+     * @param g the current update.
+     * @param x the mixed iterate.
+     */
+    private static void andersonMixing(int history, double dF[][], double dG[][],
+            double f[], double g[], double x[]) {
+        int n = f.length;
+        double a[][] = new double[history][history + 1];
+        for (int p = 0; p < history; p++) {
+            for (int q = 0; q <= p; q++) {
+                double dot = 0.0;
+                for (int i = 0; i < n; i++) {
+                    dot += dF[p][i] * dF[q][i];
+                }
+                a[p][q] = dot;
+                a[q][p] = dot;
+            }
+            double dot = 0.0;
+            for (int i = 0; i < n; i++) {
+                dot += dF[p][i] * f[i];
+            }
+            a[p][history] = dot;
+        }
+        double c[] = solveNormalEquations(a, history);
+        System.arraycopy(g, 0, x, 0, n);
+        if (c == null) {
+            return;
+        }
+        for (int p = 0; p < history; p++) {
+            double cp = c[p];
+            for (int i = 0; i < n; i++) {
+                x[i] -= cp * dG[p][i];
+            }
+        }
+    }
+
+    /**
+     * Solve the (slightly regularized) normal equations of the DIIS least
+     * squares problem by Gaussian elimination with partial pivoting.
+     *
+     * @param a the augmented matrix [n][n + 1], which is overwritten.
+     * @param n the dimension.
+     * @return the solution, or null if the matrix is singular.
+     */
+    private static double[] solveNormalEquations(double a[][], int n) {
+        for (int p = 0; p < n; p++) {
+            a[p][p] *= 1.0 + 1.0e-10;
+        }
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (abs(a[row][col]) > abs(a[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            if (a[pivot][col] == 0.0) {
+                return null;
+            }
+            double swap[] = a[col];
+            a[col] = a[pivot];
+            a[pivot] = swap;
+            for (int row = col + 1; row < n; row++) {
+                double factor = a[row][col] / a[col][col];
+                for (int k = col; k <= n; k++) {
+                    a[row][k] -= factor * a[col][k];
+                }
+            }
+        }
+        double c[] = new double[n];
+        for (int row = n - 1; row >= 0; row--) {
+            double sum = a[row][n];
+            for (int k = row + 1; k < n; k++) {
+                sum -= a[row][k] * c[k];
+            }
+            c[row] = sum / a[row][row];
+        }
+        return c;
+    }
+
+    /**
+     * Correct the auxiliary dipoles propagated by the extended Lagrangian with
+     * a fixed number of SOR iterations. The SCF is not iterated to
+     * convergence; the time-reversible auxiliary dipole integrator keeps the
+     * induced dipoles close to the self-consistent solution.
+     */
+    private int scfByXL(boolean print, long startTime) {
+        long directTime = System.nanoTime() - startTime;
+        StringBuilder sb = null;
+        if (print) {
+            sb = new StringBuilder(
+                    "\n Extended Lagrangian Self-Consistent Field\n"
+                    + " Iter  RMS Change (Debye)  Time\n");
+        }
+        for (int cycle = 1; cycle <= xlIterations; cycle++) {
+            long cycleTime = -System.nanoTime();
+            double eps = sorCycle();
+            cycleTime += System.nanoTime();
+            if (print) {
+                sb.append(format(
+                        " %4d     %15.10f %7.4f\n", cycle, eps, cycleTime * TO_SECONDS));
+            }
+        }
+        if (print) {
+            sb.append(format(" Direct:                  %7.4f\n",
+                    TO_SECONDS * directTime));
+            startTime = System.nanoTime() - startTime;
+            sb.append(format(" Total:                   %7.4f",
+                    startTime * TO_SECONDS));
+            logger.info(sb.toString());
+        }
+        return xlIterations;
+    }
+
+    @Override
+    public void clearInducedDipoleHistory() {
+        predictorCount = 0;
+        predictorStartIndex = 0;
+        if (xlCount != null) {
+            fill(xlCount, 0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Without reciprocal space and polarization the energy is a sum of
+     * permanent multipole pairs within the real space cutoff. Symmetry mates,
+     * implicit solvent and lambda dependence require a full evaluation.
+     */
+    @Override
+    public boolean localEnergyAvailable() {
+        return nSymm == 1 && !(reciprocalSpaceTerm && aewald > 0.0)
+                && polarization == Polarization.NONE && !generalizedKirkwoodTerm
+                && !lambdaTerm;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Pairs are found from the partner lists of the shared neighbor list,
+     * with atoms displaced by more than half the buffer since the last
+     * rebuild checked against all atoms, and are then evaluated by the real
+     * space energy loop. Pairs of two local atoms are counted once.
+     */
+    @Override
+    public double localEnergy(int localAtoms[]) {
+        if (!localEnergyAvailable()) {
+            throw new IllegalStateException(" Local electrostatic energies are not available.");
+        }
+        if (localAtom == null || localAtom.length < nAtoms) {
+            localAtom = new boolean[nAtoms];
+            displaced = new boolean[nAtoms];
+            localXYZ = new double[nAtoms * 3];
+        }
+        if (frameDependents == null) {
+            buildFrameDependents();
+        }
+
+        /**
+         * Load the current coordinates and rotate multipoles into the global
+         * frame.
+         */
+        gradient = false;
+        lambdaMode = LambdaMode.OFF;
+        doPermanentRealSpace = true;
+        permanentScale = 1.0;
+        try {
+            parallelTeam.execute(initializationRegion);
+        } catch (Exception e) {
+            String message = "Fatal exception expanding coordinates and rotating multipoles.\n";
+            logger.log(Level.SEVERE, message, e);
+        }
+        final double x[] = coordinates[0][0];
+        final double y[] = coordinates[0][1];
+        final double z[] = coordinates[0][2];
+        for (int i = 0, i3 = 0; i < nAtoms; i++, i3 += 3) {
+            localXYZ[i3] = x[i];
+            localXYZ[i3 + 1] = y[i];
+            localXYZ[i3 + 2] = z[i];
+        }
+        int nDisplaced = neighborList.getDisplacedAtoms(localXYZ, displaced);
+        int displacedList[] = new int[nDisplaced];
+        for (int i = 0, n = 0; n < nDisplaced; i++) {
+            if (displaced[i]) {
+                displacedList[n++] = i;
+            }
+        }
+        int partnerLists[][] = neighborList.getPartnerLists();
+
+        /**
+         * Flag the local atoms and the atoms whose multipoles they rotate.
+         */
+        int nLocal = 0;
+        int local[] = new int[nAtoms];
+        for (int i : localAtoms) {
+            if (!localAtom[i]) {
+                localAtom[i] = true;
+                local[nLocal++] = i;
+            }
+            for (int k : frameDependents[i]) {
+                if (!localAtom[k]) {
+                    localAtom[k] = true;
+                    local[nLocal++] = k;
                 }
+            }
+        }
 
-                if (generalizedKirkwoodTerm) {
-                    /**
-                     * GK field.
-                     */
-                    gkEnergyTotal = -System.nanoTime();
-                    generalizedKirkwood.computeInducedGKField();
-                    gkEnergyTotal += System.nanoTime();
-                    logger.fine(String.format(" Computed GK induced field %8.3f (sec)", gkEnergyTotal * 1.0e-9));
+        /**
+         * Fill the real space lists of the local atoms with their pairs inside
+         * the cutoff.
+         */
+        final int lists[][] = realSpaceLists[0];
+        final int counts[] = realSpaceCounts[0];
+        final double dx[] = new double[3];
+        for (int j = 0; j < nLocal; j++) {
+            int i = local[j];
+            counts[i] = 0;
+            if (!use[i]) {
+                continue;
+            }
+            int candidates[] = displaced[i] ? null : partnerLists[i];
+            int n = displaced[i] ? nAtoms : candidates.length + nDisplaced;
+            for (int m = 0; m < n; m++) {
+                int k;
+                if (candidates == null) {
+                    k = m;
+                } else if (m < candidates.length) {
+                    k = candidates[m];
+                    if (displaced[k]) {
+                        continue;
+                    }
+                } else {
+                    k = displacedList[m - candidates.length];
                 }
-                parallelTeam.execute(sorRegion);
-                if (nSymm > 1) {
-                    parallelTeam.execute(expandInducedDipolesRegion);
+                if (k == i || !use[k] || (localAtom[k] && k < i)) {
+                    continue;
+                }
+                dx[0] = x[k] - x[i];
+                dx[1] = y[k] - y[i];
+                dx[2] = z[k] - z[i];
+                if (crystal.image(dx) <= off2) {
+                    if (lists[i] == null || lists[i].length <= counts[i]) {
+                        lists[i] = copyOf(lists[i] == null ? new int[0] : lists[i], counts[i] + 32);
+                    }
+                    lists[i][counts[i]++] = k;
                 }
-            } catch (Exception e) {
-                String message = "Exception computing mutual induced dipoles.";
-                logger.log(Level.SEVERE, message, e);
             }
-            completedSCFCycles++;
-            previousEps = eps;
-            eps = sorRegion.getEps();
-            eps = MultipoleType.DEBYE * sqrt(eps / (double) nAtoms);
-            cycleTime += System.nanoTime();
-            if (print) {
-                sb.append(format(
-                        " %4d     %15.10f %7.4f\n", completedSCFCycles, eps, cycleTime * TO_SECONDS));
+        }
+
+        /**
+         * The real space lists are refilled by the next full evaluation.
+         */
+        if (nLocal == 0) {
+            return 0.0;
+        }
+        localOrder = copyOf(local, nLocal);
+        double e = 0.0;
+        try {
+            parallelTeam.execute(realSpaceEnergyRegion);
+            e = realSpaceEnergyRegion.getPermanentEnergy();
+        } catch (Exception ex) {
+            String message = "Exception computing the local electrostatic energy.\n";
+            logger.log(Level.SEVERE, message, ex);
+        } finally {
+            localOrder = null;
+            for (int j = 0; j < nLocal; j++) {
+                localAtom[local[j]] = false;
             }
-            /**
-             * If the RMS Debye change increases, fail the SCF process.
-             */
-            if (eps > previousEps) {
-                if (sb != null) {
-                    logger.warning(sb.toString());
+        }
+        return e;
+    }
+
+    /**
+     * Collect the atoms whose multipole frame is defined by each atom.
+     */
+    private void buildFrameDependents() {
+        int counts[] = new int[nAtoms];
+        for (int i = 0; i < nAtoms; i++) {
+            if (axisAtom[i] != null) {
+                for (int a : axisAtom[i]) {
+                    counts[a]++;
                 }
-                String message = format("Fatal SCF convergence failure: (%10.5f > %10.5f)\n", eps, previousEps);
-                throw new EnergyException(message, false);
             }
-            /**
-             * The SCF should converge well before the max iteration check.
-             * Otherwise, fail the SCF process.
-             */
-            if (completedSCFCycles >= maxSCFCycles) {
-                if (sb != null) {
-                    logger.warning(sb.toString());
+        }
+        frameDependents = new int[nAtoms][];
+        for (int i = 0; i < nAtoms; i++) {
+            frameDependents[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < nAtoms; i++) {
+            if (axisAtom[i] != null) {
+                for (int a : axisAtom[i]) {
+                    frameDependents[a][counts[a]++] = i;
                 }
-                String message = format("Maximum SCF iterations reached: (%d)\n", completedSCFCycles);
-                throw new EnergyException(message, false);
-            }
-            /**
-             * Check if the convergence criteria has been achieved.
-             */
-            if (eps < poleps) {
-                done = true;
             }
         }
-        if (print) {
-            sb.append(format(" Direct:                  %7.4f\n",
-                    TO_SECONDS * directTime));
-            startTime = System.nanoTime() - startTime;
-            sb.append(format(" Total:                   %7.4f",
-                    startTime * TO_SECONDS));
-            logger.info(sb.toString());
-        }
-        return completedSCFCycles;
     }
 
     public void destroy() throws Exception {
@@ -2145,9 +3000,19 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
             @Override
             public void run() {
                 try {
+                    long time = -System.nanoTime();
+                    if (overlapSection != null) {
+                        ParallelSection section = overlapSection;
+                        overlapSection = null;
+                        section.run();
+                    }
                     realSpacePermTotal -= System.nanoTime();
                     parallelTeam.execute(permanentRealSpaceFieldRegion);
                     realSpacePermTotal += System.nanoTime();
+                    time += System.nanoTime();
+                    if (reciprocalOverlap) {
+                        overlapRealTime += time;
+                    }
                 } catch (Exception e) {
                     String message = "Fatal exception computing the real space field.\n";
                     logger.log(Level.SEVERE, message, e);
@@ -2165,7 +3030,16 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
             @Override
             public void run() {
                 if (reciprocalSpaceTerm && aewald > 0.0) {
-                    reciprocalSpace.permanentMultipoleConvolution();
+                    if (reciprocalOverlap) {
+                        overlapReciprocalTime -= System.nanoTime();
+                        reciprocalSpace.computeBSplines();
+                        reciprocalSpace.splinePermanentMultipoles(globalMultipole, use);
+                        reciprocalSpace.permanentMultipoleConvolution();
+                        reciprocalSpace.computePermanentPhi(cartMultipolePhi);
+                        overlapReciprocalTime += System.nanoTime();
+                    } else {
+                        reciprocalSpace.permanentMultipoleConvolution();
+                    }
                 }
             }
         }
@@ -2492,10 +3366,10 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                                  * Calculate the error function damping terms.
                                  */
                                 final double ralpha = aewald * r;
-                                final double exp2a = exp(-ralpha * ralpha);
+                                final double exp2a = dampingExp(r, ralpha);
                                 final double rr1 = 1.0 / r;
                                 final double rr2 = rr1 * rr1;
-                                final double bn0 = erfc(ralpha) * rr1;
+                                final double bn0 = dampingErfc(r, ralpha) * rr1;
                                 final double bn1 = (bn0 + an0 * exp2a) * rr2;
                                 final double bn2 = (3.0 * bn1 + an1 * exp2a) * rr2;
                                 final double bn3 = (5.0 * bn2 + an2 * exp2a) * rr2;
@@ -2697,10 +3571,10 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                                      * terms.
                                      */
                                     final double ralpha = aewald * r;
-                                    final double exp2a = exp(-ralpha * ralpha);
+                                    final double exp2a = dampingExp(r, ralpha);
                                     final double rr1 = 1.0 / r;
                                     final double rr2 = rr1 * rr1;
-                                    final double bn0 = erfc(ralpha) * rr1;
+                                    final double bn0 = dampingErfc(r, ralpha) * rr1;
                                     final double bn1 = (bn0 + an0 * exp2a) * rr2;
                                     final double bn2 = (3.0 * bn1 + an1 * exp2a) * rr2;
                                     final double bn3 = (5.0 * bn2 + an2 * exp2a) * rr2;
@@ -2835,9 +3709,13 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
             @Override
             public void run() {
                 try {
-                    realSpaceSCFTotal -= System.nanoTime();
+                    long time = -System.nanoTime();
                     pt.execute(polarizationRealSpaceFieldRegion);
-                    realSpaceSCFTotal += System.nanoTime();
+                    time += System.nanoTime();
+                    realSpaceSCFTotal += time;
+                    if (reciprocalOverlap) {
+                        overlapRealTime += time;
+                    }
                 } catch (Exception e) {
                     String message = "Fatal exception computing the real space field.\n";
                     logger.log(Level.SEVERE, message, e);
@@ -2849,16 +3727,26 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
 
             @Override
             public void run() {
-                reciprocalSpace.inducedDipoleConvolution();
+                if (reciprocalOverlap) {
+                    overlapReciprocalTime -= System.nanoTime();
+                    reciprocalSpace.splineInducedDipoles(inducedDipole, inducedDipoleCR, use);
+                    reciprocalSpace.inducedDipoleConvolution();
+                    reciprocalSpace.computeInducedPhi(cartesianDipolePhi, cartesianDipolePhiCR);
+                    overlapReciprocalTime += System.nanoTime();
+                } else {
+                    reciprocalSpace.inducedDipoleConvolution();
+                }
             }
         }
 
         private class InducedDipoleRealSpaceFieldRegion extends ParallelRegion {
 
             private final InducedRealSpaceFieldLoop inducedRealSpaceFieldLoop[];
+            private final InducedClusterPairFieldLoop inducedClusterPairFieldLoop[];
 
             public InducedDipoleRealSpaceFieldRegion(int threadCount) {
                 inducedRealSpaceFieldLoop = new InducedRealSpaceFieldLoop[threadCount];
+                inducedClusterPairFieldLoop = new InducedClusterPairFieldLoop[threadCount];
             }
 
             @Override
@@ -2867,14 +3755,260 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                 if (inducedRealSpaceFieldLoop[threadIndex] == null) {
                     inducedRealSpaceFieldLoop[threadIndex] = new InducedRealSpaceFieldLoop();
                 }
+                if (clusterPairList != null && inducedClusterPairFieldLoop[threadIndex] == null) {
+                    inducedClusterPairFieldLoop[threadIndex] = new InducedClusterPairFieldLoop();
+                }
                 try {
-                    execute(0, nAtoms - 1, inducedRealSpaceFieldLoop[threadIndex]);
+                    if (useClusterPairs) {
+                        execute(0, clusterPairList.getNumberOfClusters() - 1,
+                                inducedClusterPairFieldLoop[threadIndex]);
+                    } else {
+                        execute(0, nAtoms - 1, inducedRealSpaceFieldLoop[threadIndex]);
+                    }
                 } catch (Exception e) {
                     String message = "Fatal exception computing the induced real space field in thread " + getThreadIndex() + "\n";
                     logger.log(Level.SEVERE, message, e);
                 }
             }
 
+            /**
+             * The cluster pair loop computes the real space induced dipole
+             * field of the asymmetric unit one ClusterPairList tile at a time.
+             * Every pair of a tile is evaluated and weighted by its scale
+             * factor, which is zero for padded, unused and out of range pairs,
+             * so the inner loop does not branch. Fields are summed for each
+             * cluster slot before being added to the thread's field arrays.
+             */
+            private class InducedClusterPairFieldLoop extends IntegerForLoop {
+
+                private double ind[][], indCR[][];
+                private double fX[], fY[], fZ[];
+                private double fXCR[], fYCR[], fZCR[];
+                private double usei[], usek[];
+                private double fi[], fk[], fiCR[], fkCR[];
+                private final double dx[];
+                private final IntegerSchedule schedule;
+
+                public InducedClusterPairFieldLoop() {
+                    dx = new double[3];
+                    schedule = IntegerSchedule.dynamic(16);
+                }
+
+                @Override
+                public IntegerSchedule schedule() {
+                    return schedule;
+                }
+
+                @Override
+                public void start() {
+                    int threadIndex = getThreadIndex();
+                    realSpaceSCFTime[threadIndex] -= System.nanoTime();
+                    fX = field[threadIndex][0];
+                    fY = field[threadIndex][1];
+                    fZ = field[threadIndex][2];
+                    fXCR = fieldCR[threadIndex][0];
+                    fYCR = fieldCR[threadIndex][1];
+                    fZCR = fieldCR[threadIndex][2];
+                    fill(fX, 0.0);
+                    fill(fY, 0.0);
+                    fill(fZ, 0.0);
+                    fill(fXCR, 0.0);
+                    fill(fYCR, 0.0);
+                    fill(fZCR, 0.0);
+                    ind = inducedDipole[0];
+                    indCR = inducedDipoleCR[0];
+                    int clusterSize = clusterPairList.getClusterSize();
+                    if (fi == null || fi.length < 3 * clusterSize) {
+                        fi = new double[3 * clusterSize];
+                        fk = new double[3 * clusterSize];
+                        fiCR = new double[3 * clusterSize];
+                        fkCR = new double[3 * clusterSize];
+                        usei = new double[clusterSize];
+                        usek = new double[clusterSize];
+                    }
+                }
+
+                @Override
+                public void finish() {
+                    int threadIndex = getThreadIndex();
+                    realSpaceSCFTime[threadIndex] += System.nanoTime();
+                }
+
+                @Override
+                public void run(int lb, int ub) {
+                    final int cs = clusterPairList.getClusterSize();
+                    final int cs2 = cs * 2;
+                    final int tileSize = cs * cs;
+                    final int clusterAtoms[] = clusterPairList.getClusterAtoms();
+                    final double clusterWeight[] = clusterPairList.getClusterWeight();
+                    final double clusterXYZ[] = clusterPairList.getClusterXYZ();
+                    final int tileStart[] = clusterPairList.getTileStart();
+                    final int tileCluster[] = clusterPairList.getTileCluster();
+                    final double tileScale[] = clusterPairList.getTileScale();
+                    final double tileShift[] = clusterPairList.getTileShift();
+                    final boolean tileImage[] = clusterPairList.getTileImage();
+                    for (int ci = lb; ci <= ub; ci++) {
+                        final int iSlot = ci * cs;
+                        final int ix = iSlot * 3;
+                        final int iy = ix + cs;
+                        final int iz = iy + cs;
+                        for (int s = 0; s < cs; s++) {
+                            usei[s] = use[clusterAtoms[iSlot + s]] ? clusterWeight[iSlot + s] : 0.0;
+                        }
+                        fill(fi, 0.0);
+                        fill(fiCR, 0.0);
+                        for (int tile = tileStart[ci]; tile < tileStart[ci + 1]; tile++) {
+                            final int kSlot = tileCluster[tile] * cs;
+                            final int kx = kSlot * 3;
+                            final int ky = kx + cs;
+                            final int kz = ky + cs;
+                            final boolean image = tileImage[tile];
+                            final int t3 = tile * 3;
+                            final double sx = image ? 0.0 : tileShift[t3];
+                            final double sy = image ? 0.0 : tileShift[t3 + 1];
+                            final double sz = image ? 0.0 : tileShift[t3 + 2];
+                            for (int t = 0; t < cs; t++) {
+                                usek[t] = use[clusterAtoms[kSlot + t]] ? clusterWeight[kSlot + t] : 0.0;
+                            }
+                            fill(fk, 0.0);
+                            fill(fkCR, 0.0);
+                            for (int s = 0; s < cs; s++) {
+                                final int i = clusterAtoms[iSlot + s];
+                                final double xi = clusterXYZ[ix + s] - sx;
+                                final double yi = clusterXYZ[iy + s] - sy;
+                                final double zi = clusterXYZ[iz + s] - sz;
+                                final double dipolei[] = ind[i];
+                                final double uix = dipolei[0];
+                                final double uiy = dipolei[1];
+                                final double uiz = dipolei[2];
+                                final double dipoleCRi[] = indCR[i];
+                                final double pix = dipoleCRi[0];
+                                final double piy = dipoleCRi[1];
+                                final double piz = dipoleCRi[2];
+                                final double pdi = ipdamp[i];
+                                final double pti = thole[i];
+                                final double ui = usei[s];
+                                final int row = tile * tileSize + s * cs;
+                                double fx = 0.0;
+                                double fy = 0.0;
+                                double fz = 0.0;
+                                double px = 0.0;
+                                double py = 0.0;
+                                double pz = 0.0;
+                                for (int t = 0; t < cs; t++) {
+                                    final int k = clusterAtoms[kSlot + t];
+                                    double xr = clusterXYZ[kx + t] - xi;
+                                    double yr = clusterXYZ[ky + t] - yi;
+                                    double zr = clusterXYZ[kz + t] - zi;
+                                    double r2;
+                                    if (image) {
+                                        dx[0] = xr;
+                                        dx[1] = yr;
+                                        dx[2] = zr;
+                                        r2 = crystal.image(dx);
+                                        xr = dx[0];
+                                        yr = dx[1];
+                                        zr = dx[2];
+                                    } else {
+                                        r2 = xr * xr + yr * yr + zr * zr;
+                                    }
+                                    final double w = (r2 <= off2) ? tileScale[row + t] * ui * usek[t] : 0.0;
+                                    // Excluded pairs are evaluated at the cutoff to avoid r = 0.
+                                    final double r = sqrt((w > 0.0) ? r2 : off2);
+                                    /**
+                                     * Calculate the error function damping terms.
+                                     */
+                                    final double rr1 = 1.0 / r;
+                                    final double rr2 = rr1 * rr1;
+                                    final double ralpha = aewald * r;
+                                    final double exp2a = dampingExp(r, ralpha);
+                                    final double bn0 = dampingErfc(r, ralpha) * rr1;
+                                    final double b1 = (bn0 + an0 * exp2a) * rr2;
+                                    final double b2 = (3.0 * b1 + an1 * exp2a) * rr2;
+                                    final double bn1 = w * b1;
+                                    final double bn2 = w * b2;
+                                    double scale3 = 1.0;
+                                    double scale5 = 1.0;
+                                    double damp = pdi * ipdamp[k];
+                                    final double pgamma = min(pti, thole[k]);
+                                    final double rdamp = r * damp;
+                                    damp = -pgamma * rdamp * rdamp * rdamp;
+                                    if (damp > -50.0) {
+                                        final double expdamp = exp(damp);
+                                        scale3 = 1.0 - expdamp;
+                                        scale5 = 1.0 - expdamp * (1.0 - damp);
+                                    }
+                                    final double rr3 = w * rr1 * rr2 * (1.0 - scale3);
+                                    final double rr5 = w * 3.0 * rr1 * rr2 * rr2 * (1.0 - scale5);
+                                    final double dipolek[] = ind[k];
+                                    final double ukx = dipolek[0];
+                                    final double uky = dipolek[1];
+                                    final double ukz = dipolek[2];
+                                    final double ukr = ukx * xr + uky * yr + ukz * zr;
+                                    final double bn2ukr = bn2 * ukr;
+                                    final double rr5ukr = rr5 * ukr;
+                                    fx += (-bn1 * ukx + bn2ukr * xr) - (-rr3 * ukx + rr5ukr * xr);
+                                    fy += (-bn1 * uky + bn2ukr * yr) - (-rr3 * uky + rr5ukr * yr);
+                                    fz += (-bn1 * ukz + bn2ukr * zr) - (-rr3 * ukz + rr5ukr * zr);
+                                    final double dipolepk[] = indCR[k];
+                                    final double pkx = dipolepk[0];
+                                    final double pky = dipolepk[1];
+                                    final double pkz = dipolepk[2];
+                                    final double pkr = pkx * xr + pky * yr + pkz * zr;
+                                    final double bn2pkr = bn2 * pkr;
+                                    final double rr5pkr = rr5 * pkr;
+                                    px += (-bn1 * pkx + bn2pkr * xr) - (-rr3 * pkx + rr5pkr * xr);
+                                    py += (-bn1 * pky + bn2pkr * yr) - (-rr3 * pky + rr5pkr * yr);
+                                    pz += (-bn1 * pkz + bn2pkr * zr) - (-rr3 * pkz + rr5pkr * zr);
+                                    final double uir = uix * xr + uiy * yr + uiz * zr;
+                                    final double bn2uir = bn2 * uir;
+                                    final double rr5uir = rr5 * uir;
+                                    fk[t] += (-bn1 * uix + bn2uir * xr) - (-rr3 * uix + rr5uir * xr);
+                                    fk[cs + t] += (-bn1 * uiy + bn2uir * yr) - (-rr3 * uiy + rr5uir * yr);
+                                    fk[cs2 + t] += (-bn1 * uiz + bn2uir * zr) - (-rr3 * uiz + rr5uir * zr);
+                                    final double pir = pix * xr + piy * yr + piz * zr;
+                                    final double bn2pir = bn2 * pir;
+                                    final double rr5pir = rr5 * pir;
+                                    fkCR[t] += (-bn1 * pix + bn2pir * xr) - (-rr3 * pix + rr5pir * xr);
+                                    fkCR[cs + t] += (-bn1 * piy + bn2pir * yr) - (-rr3 * piy + rr5pir * yr);
+                                    fkCR[cs2 + t] += (-bn1 * piz + bn2pir * zr) - (-rr3 * piz + rr5pir * zr);
+                                }
+                                fi[s] += fx;
+                                fi[cs + s] += fy;
+                                fi[cs2 + s] += fz;
+                                fiCR[s] += px;
+                                fiCR[cs + s] += py;
+                                fiCR[cs2 + s] += pz;
+                            }
+                            for (int t = 0; t < cs; t++) {
+                                if (usek[t] == 0.0) {
+                                    continue;
+                                }
+                                final int k = clusterAtoms[kSlot + t];
+                                fX[k] += fk[t];
+                                fY[k] += fk[cs + t];
+                                fZ[k] += fk[cs2 + t];
+                                fXCR[k] += fkCR[t];
+                                fYCR[k] += fkCR[cs + t];
+                                fZCR[k] += fkCR[cs2 + t];
+                            }
+                        }
+                        for (int s = 0; s < cs; s++) {
+                            if (usei[s] == 0.0) {
+                                continue;
+                            }
+                            final int i = clusterAtoms[iSlot + s];
+                            fX[i] += fi[s];
+                            fY[i] += fi[cs + s];
+                            fZ[i] += fi[cs2 + s];
+                            fXCR[i] += fiCR[s];
+                            fYCR[i] += fiCR[cs + s];
+                            fZCR[i] += fiCR[cs2 + s];
+                        }
+                    }
+                }
+            }
+
             private class InducedRealSpaceFieldLoop extends IntegerForLoop {
 
                 private double ind[][], indCR[][];
@@ -2982,8 +4116,8 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                             final double rr1 = 1.0 / r;
                             final double rr2 = rr1 * rr1;
                             final double ralpha = aewald * r;
-                            final double exp2a = exp(-ralpha * ralpha);
-                            final double bn0 = erfc(ralpha) * rr1;
+                            final double exp2a = dampingExp(r, ralpha);
+                            final double bn0 = dampingErfc(r, ralpha) * rr1;
                             final double bn1 = (bn0 + an0 * exp2a) * rr2;
                             final double bn2 = (3.0 * bn1 + an1 * exp2a) * rr2;
                             double scale3 = 1.0;
@@ -3136,8 +4270,8 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                                 final double rr1 = 1.0 / r;
                                 final double rr2 = rr1 * rr1;
                                 final double ralpha = aewald * r;
-                                final double exp2a = exp(-ralpha * ralpha);
-                                final double bn0 = erfc(ralpha) * rr1;
+                                final double exp2a = dampingExp(r, ralpha);
+                                final double bn0 = dampingErfc(r, ralpha) * rr1;
                                 final double bn1 = (bn0 + an0 * exp2a) * rr2;
                                 final double bn2 = (3.0 * bn1 + an1 * exp2a) * rr2;
                                 double scale3 = 1.0;
@@ -3293,7 +4427,7 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                     fieldCR[0][1][i] += fyCR;
                     fieldCR[0][2][i] += fzCR;
                 }
-                if (aewald > 0.0) {
+                if (aewald > 0.0 && !realSpaceOnly) {
                     /**
                      * Add the self and reciprocal space contributions.
                      */
@@ -3441,7 +4575,7 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                     fieldCR[0][1][i] += fyCR;
                     fieldCR[0][2][i] += fzCR;
                 }
-                if (aewald > 0.0) {
+                if (aewald > 0.0 && !realSpaceOnly) {
                     /**
                      * Add the self and reciprocal space fields to the real
                      * space field.
@@ -3555,7 +4689,11 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                 realSpaceEnergyLoop[threadIndex] = new RealSpaceEnergyLoop();
             }
             try {
-                execute(0, nAtoms - 1, realSpaceEnergyLoop[threadIndex]);
+                if (localOrder != null) {
+                    execute(0, localOrder.length - 1, realSpaceEnergyLoop[threadIndex]);
+                } else {
+                    execute(0, nAtoms - 1, realSpaceEnergyLoop[threadIndex]);
+                }
             } catch (Exception e) {
                 String message = "Fatal exception computing the real space energy in thread " + getThreadIndex() + "\n";
                 logger.log(Level.SEVERE, message, e);
@@ -3665,6 +4803,9 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
 
             @Override
             public IntegerSchedule schedule() {
+                if (localOrder != null) {
+                    return IntegerSchedule.fixed();
+                }
                 return realSpaceSchedule;
             }
 
@@ -3795,7 +4936,8 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                 final double neighborMultipole[][] = globalMultipole[iSymm];
                 final double neighborInducedDipole[][] = inducedDipole[iSymm];
                 final double neighborInducedDipolep[][] = inducedDipoleCR[iSymm];
-                for (i = lb; i <= ub; i++) {
+                for (int ii = lb; ii <= ub; ii++) {
+                    i = (localOrder == null) ? ii : localOrder[ii];
                     if (!use[i]) {
                         continue;
                     }
@@ -3923,10 +5065,10 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                         scale7 = 1.0;
                         double r = sqrt(r2 + beta);
                         double ralpha = aewald * r;
-                        double exp2a = exp(-ralpha * ralpha);
+                        double exp2a = dampingExp(r, ralpha);
                         rr1 = 1.0 / r;
                         rr2 = rr1 * rr1;
-                        bn0 = erfc(ralpha) * rr1;
+                        bn0 = dampingErfc(r, ralpha) * rr1;
                         bn1 = (bn0 + an0 * exp2a) * rr2;
                         bn2 = (3.0 * bn1 + an1 * exp2a) * rr2;
                         bn3 = (5.0 * bn2 + an2 * exp2a) * rr2;
@@ -3999,10 +5141,10 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                                 scale7 = 1.0;
                                 r = sqrt(r2);
                                 ralpha = aewald * r;
-                                exp2a = exp(-ralpha * ralpha);
+                                exp2a = dampingExp(r, ralpha);
                                 rr1 = 1.0 / r;
                                 rr2 = rr1 * rr1;
-                                bn0 = erfc(ralpha) * rr1;
+                                bn0 = dampingErfc(r, ralpha) * rr1;
                                 bn1 = (bn0 + an0 * exp2a) * rr2;
                                 bn2 = (3.0 * bn1 + an1 * exp2a) * rr2;
                                 bn3 = (5.0 * bn2 + an2 * exp2a) * rr2;
@@ -5883,6 +7025,61 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
         }
     }
 
+    /**
+     * Tabulate the Ewald damping function erfc(a * r) from r = 0 to the real
+     * space cutoff using a cubic Hermite spline. Since d/dr erfc(a * r) =
+     * -2a / sqrt(pi) * exp(-a^2 * r^2), the Gaussian used by the gradient
+     * recursion is taken from the derivative of the same spline, which keeps
+     * it consistent with the interpolated erfc.
+     *
+     * @param density Table intervals per Angstrom.
+     */
+    private void buildEwaldTable(double density) {
+        int nIntervals = (int) ceil(off * max(density, 1.0));
+        double values[][] = new double[1][nIntervals + 1];
+        double derivatives[][] = new double[1][nIntervals + 1];
+        double dErfc = -2.0 * aewald / SQRT_PI;
+        for (int j = 0; j <= nIntervals; j++) {
+            double r = off * j / nIntervals;
+            double ralpha = aewald * r;
+            values[ERFC][j] = erfc(ralpha);
+            derivatives[ERFC][j] = dErfc * exp(-ralpha * ralpha);
+        }
+        ewaldTable = new CubicSplineTable(0.0, off, nIntervals, values, derivatives);
+        ewaldTableCoefficient = aewald;
+        ewaldTableExpScale = 1.0 / dErfc;
+    }
+
+    /**
+     * Evaluate erfc(a * r), using the damping table if it was built for the
+     * current Ewald coefficient and covers r.
+     *
+     * @param r The separation distance.
+     * @param ralpha The product of the Ewald coefficient and r.
+     * @return erfc(ralpha).
+     */
+    private double dampingErfc(double r, double ralpha) {
+        if (ewaldTable != null && aewald == ewaldTableCoefficient && ewaldTable.contains(r)) {
+            return ewaldTable.value(ERFC, r);
+        }
+        return erfc(ralpha);
+    }
+
+    /**
+     * Evaluate exp(-a^2 * r^2), using the derivative of the damping table if
+     * it was built for the current Ewald coefficient and covers r.
+     *
+     * @param r The separation distance.
+     * @param ralpha The product of the Ewald coefficient and r.
+     * @return exp(-ralpha^2).
+     */
+    private double dampingExp(double r, double ralpha) {
+        if (ewaldTable != null && aewald == ewaldTableCoefficient && ewaldTable.contains(r)) {
+            return ewaldTable.derivative(ERFC, r) * ewaldTableExpScale;
+        }
+        return exp(-ralpha * ralpha);
+    }
+
     /**
      * A precision of 1.0e-8 results in an Ewald coefficient that ensures
      * continuity in the real space gradient, but at the cost of increased
@@ -6763,11 +7960,11 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                 parallelTeam.execute(expandInducedDipolesRegion);
             }
 
-            if (reciprocalSpaceTerm && aewald > 0.0) {
+            if (reciprocalSpaceTerm && aewald > 0.0 && !reciprocalOverlap) {
                 reciprocalSpace.splineInducedDipoles(inducedDipole, inducedDipoleCR, use);
             }
             sectionTeam.execute(inducedDipoleFieldRegion);
-            if (reciprocalSpaceTerm && aewald > 0.0) {
+            if (reciprocalSpaceTerm && aewald > 0.0 && !reciprocalOverlap) {
                 reciprocalSpace.computeInducedPhi(cartesianDipolePhi, cartesianDipolePhiCR);
             }
             if (generalizedKirkwoodTerm) {
@@ -6804,6 +8001,14 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
          */
         computeInduceDipoleField();
 
+        /**
+         * The block-Jacobi preconditioner is factored once per SCF.
+         */
+        if (blockJacobiPreconditioner != null) {
+            blockJacobiPreconditioner.factor(parallelTeam, crystal, coordinates[0],
+                    polarizability, ipdamp, thole, use);
+        }
+
         try {
             /**
              * Set initial conjugate gradient residual (a field).
@@ -6816,10 +8021,14 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
             /**
              * Compute preconditioner.
              */
-            if (nSymm > 1) {
-                parallelTeam.execute(expandInducedDipolesRegion);
+            if (blockJacobiPreconditioner != null) {
+                blockJacobiPreconditioner.apply(parallelTeam, rsd, rsdCR, rsdPre, rsdPreCR);
+            } else {
+                if (nSymm > 1) {
+                    parallelTeam.execute(expandInducedDipolesRegion);
+                }
+                parallelTeam.execute(inducedDipolePreconditionerRegion);
             }
-            parallelTeam.execute(inducedDipolePreconditionerRegion);
 
             /**
              * Revert to the stored induce dipoles.
@@ -6881,10 +8090,14 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                 /**
                  * Compute preconditioner.
                  */
-                if (nSymm > 1) {
-                    parallelTeam.execute(expandInducedDipolesRegion);
+                if (blockJacobiPreconditioner != null) {
+                    blockJacobiPreconditioner.apply(parallelTeam, rsd, rsdCR, rsdPre, rsdPreCR);
+                } else {
+                    if (nSymm > 1) {
+                        parallelTeam.execute(expandInducedDipolesRegion);
+                    }
+                    parallelTeam.execute(inducedDipolePreconditionerRegion);
                 }
-                parallelTeam.execute(inducedDipolePreconditionerRegion);
 
                 /**
                  * Revert the induced dipoles to the saved values.
@@ -7105,8 +8318,8 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                         final double rr1 = 1.0 / r;
                         final double rr2 = rr1 * rr1;
                         final double ralpha = aewald * r;
-                        final double exp2a = exp(-ralpha * ralpha);
-                        final double bn0 = erfc(ralpha) * rr1;
+                        final double exp2a = dampingExp(r, ralpha);
+                        final double bn0 = dampingErfc(r, ralpha) * rr1;
                         // final double exp2a = 1.0;
                         // final double bn0 = rr1;
                         final double bn1 = (bn0 + an0 * exp2a) * rr2;
@@ -7259,8 +8472,8 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                             final double rr1 = 1.0 / r;
                             final double rr2 = rr1 * rr1;
                             final double ralpha = aewald * r;
-                            final double exp2a = exp(-ralpha * ralpha);
-                            final double bn0 = erfc(ralpha) * rr1;
+                            final double exp2a = dampingExp(r, ralpha);
+                            final double bn0 = dampingErfc(r, ralpha) * rr1;
                             //final double exp2a = 1.0;
                             //final double bn0 = rr1;
                             final double bn1 = (bn0 + an0 * exp2a) * rr2;
@@ -7516,16 +8729,19 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                     inducedDipoleCR[0][i][2] = vecCR[2][i];
 
                     /**
-                     * Set initial conjugate vector (induced dipoles).
+                     * Set initial conjugate vector (induced dipoles). The
+                     * block-Jacobi preconditioner has already been applied.
                      */
-                    double udiag = 2.0;
-                    double polar = polarizability[i];
-                    rsdPre[0][i] = polar * (field[0][0][i] + udiag * rsd[0][i]);
-                    rsdPre[1][i] = polar * (field[0][1][i] + udiag * rsd[1][i]);
-                    rsdPre[2][i] = polar * (field[0][2][i] + udiag * rsd[2][i]);
-                    rsdPreCR[0][i] = polar * (fieldCR[0][0][i] + udiag * rsdCR[0][i]);
-                    rsdPreCR[1][i] = polar * (fieldCR[0][1][i] + udiag * rsdCR[1][i]);
-                    rsdPreCR[2][i] = polar * (fieldCR[0][2][i] + udiag * rsdCR[2][i]);
+                    if (blockJacobiPreconditioner == null) {
+                        double udiag = 2.0;
+                        double polar = polarizability[i];
+                        rsdPre[0][i] = polar * (field[0][0][i] + udiag * rsd[0][i]);
+                        rsdPre[1][i] = polar * (field[0][1][i] + udiag * rsd[1][i]);
+                        rsdPre[2][i] = polar * (field[0][2][i] + udiag * rsd[2][i]);
+                        rsdPreCR[0][i] = polar * (fieldCR[0][0][i] + udiag * rsdCR[0][i]);
+                        rsdPreCR[1][i] = polar * (fieldCR[0][1][i] + udiag * rsdCR[1][i]);
+                        rsdPreCR[2][i] = polar * (fieldCR[0][2][i] + udiag * rsdCR[2][i]);
+                    }
                     conj[0][i] = rsdPre[0][i];
                     conj[1][i] = rsdPre[1][i];
                     conj[2][i] = rsdPre[2][i];
@@ -7801,13 +9017,15 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                      * Compute the dot product of the residual and
                      * preconditioner.
                      */
-                    double polar = polarizability[i];
-                    rsdPre[0][i] = polar * (field[0][0][i] + udiag * rsd[0][i]);
-                    rsdPre[1][i] = polar * (field[0][1][i] + udiag * rsd[1][i]);
-                    rsdPre[2][i] = polar * (field[0][2][i] + udiag * rsd[2][i]);
-                    rsdPreCR[0][i] = polar * (fieldCR[0][0][i] + udiag * rsdCR[0][i]);
-                    rsdPreCR[1][i] = polar * (fieldCR[0][1][i] + udiag * rsdCR[1][i]);
-                    rsdPreCR[2][i] = polar * (fieldCR[0][2][i] + udiag * rsdCR[2][i]);
+                    if (blockJacobiPreconditioner == null) {
+                        double polar = polarizability[i];
+                        rsdPre[0][i] = polar * (field[0][0][i] + udiag * rsd[0][i]);
+                        rsdPre[1][i] = polar * (field[0][1][i] + udiag * rsd[1][i]);
+                        rsdPre[2][i] = polar * (field[0][2][i] + udiag * rsd[2][i]);
+                        rsdPreCR[0][i] = polar * (fieldCR[0][0][i] + udiag * rsdCR[0][i]);
+                        rsdPreCR[1][i] = polar * (fieldCR[0][1][i] + udiag * rsdCR[1][i]);
+                        rsdPreCR[2][i] = polar * (fieldCR[0][2][i] + udiag * rsdCR[2][i]);
+                    }
                     dot += rsd[0][i] * rsdPre[0][i]
                             + rsd[1][i] * rsdPre[1][i]
                             + rsd[2][i] * rsdPre[2][i];
@@ -7925,7 +9143,7 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                     fieldCR[0][1][i] += fyCR;
                     fieldCR[0][2][i] += fzCR;
                 }
-                if (aewald > 0.0) {
+                if (aewald > 0.0 && !realSpaceOnly) {
                     /**
                      * Add the self and reciprocal space fields to the real
                      * space field.
@@ -8007,6 +9225,94 @@ public class ParticleMeshEwaldCart extends ParticleMeshEwald implements LambdaIn
                         = inducedDipoleCR[0][i][j] - directDipoleCR[i][j];
             }
         }
+
+        /**
+         * Until the extended Lagrangian history is complete, the auxiliary
+         * dipoles are initialized to the converged induced dipoles.
+         */
+        if (scfPredictor == SCFPredictor.XL && xlCount[mode] <= xlOrder) {
+            xlIndex[mode]--;
+            if (xlIndex[mode] < 0) {
+                xlIndex[mode] = xlOrder;
+            }
+            xlCount[mode]++;
+            for (int i = 0; i < nAtoms; i++) {
+                System.arraycopy(predictorInducedDipole[mode][predictorStartIndex][i], 0,
+                        xlAuxiliary[mode][xlIndex[mode]][i], 0, 3);
+                System.arraycopy(predictorInducedDipoleCR[mode][predictorStartIndex][i], 0,
+                        xlAuxiliaryCR[mode][xlIndex[mode]][i], 0, 3);
+            }
+        }
+    }
+
+    /**
+     * Propagate the auxiliary induced dipoles of the extended Lagrangian with
+     * a time-reversible Verlet step that is weakly coupled to the most recent
+     * corrected dipoles and damped by a dissipation term.
+     *
+     * p(n+1) = 2 p(n) - p(n-1) + kappa [u(n) - p(n)] + alpha sum_k c_k p(n-k)
+     *
+     * @return true if the auxiliary dipoles were propagated, or false if the
+     * history is incomplete and the SCF must be converged.
+     */
+    private boolean extendedLagrangianPredictor() {
+        int mode;
+        switch (lambdaMode) {
+            case OFF:
+            case CONDENSED:
+                mode = 0;
+                break;
+            case CONDENSED_NO_LIGAND:
+                mode = 1;
+                break;
+            case VAPOR:
+                mode = 2;
+                break;
+            default:
+                mode = 0;
+        }
+
+        if (xlCount[mode] <= xlOrder) {
+            return false;
+        }
+
+        final int nAux = xlOrder + 1;
+        final double kappa = XL_KAPPA[xlOrder - 3];
+        final double alpha = XL_ALPHA[xlOrder - 3];
+        final double c[] = XL_COEFFICIENTS[xlOrder - 3];
+        final double aux[][][] = xlAuxiliary[mode];
+        final double auxCR[][][] = xlAuxiliaryCR[mode];
+        final double u[][] = predictorInducedDipole[mode][predictorStartIndex];
+        final double uCR[][] = predictorInducedDipoleCR[mode][predictorStartIndex];
+        final int current = xlIndex[mode];
+        final int previous = (current + 1) % nAux;
+        // The new auxiliary dipoles replace the oldest ones.
+        int next = current - 1;
+        if (next < 0) {
+            next = xlOrder;
+        }
+        for (int i = 0; i < nAtoms; i++) {
+            for (int j = 0; j < 3; j++) {
+                double dissipation = 0.0;
+                double dissipationCR = 0.0;
+                int index = current;
+                for (int k = 0; k < nAux; k++) {
+                    dissipation += c[k] * aux[index][i][j];
+                    dissipationCR += c[k] * auxCR[index][i][j];
+                    index = (index + 1) % nAux;
+                }
+                final double p = 2.0 * aux[current][i][j] - aux[previous][i][j]
+                        + kappa * (u[i][j] - aux[current][i][j]) + alpha * dissipation;
+                final double pCR = 2.0 * auxCR[current][i][j] - auxCR[previous][i][j]
+                        + kappa * (uCR[i][j] - auxCR[current][i][j]) + alpha * dissipationCR;
+                aux[next][i][j] = p;
+                auxCR[next][i][j] = pCR;
+                inducedDipole[0][i][j] += p;
+                inducedDipoleCR[0][i][j] += pCR;
+            }
+        }
+        xlIndex[mode] = next;
+        return true;
     }
 
     /**
@@ -95,6 +95,7 @@ import ffx.potential.parameters.ForceField.ForceFieldType;
 import ffx.potential.parameters.MultipoleType;
 import ffx.potential.parameters.PolarizeType;
 import ffx.potential.utils.EnergyException;
+import ffx.potential.utils.EnergyMetrics;
 
 import static ffx.numerics.Erf.erfc;
 import static ffx.numerics.VectorMath.cross;
@@ -2027,6 +2028,9 @@ public class ParticleMeshEwaldQI extends ParticleMeshEwald implements LambdaInte
                 iterations = scfByPCG(print, startTime);
                 break;
         }
+        if (metrics != null) {
+            metrics.addCount(EnergyMetrics.SCF_ITERATIONS, iterations);
+        }
 
         if (System.getProperty("printInducedDipoles") != null) {
             StringBuilder sb = new StringBuilder();
@@ -2137,6 +2141,16 @@ public class ParticleMeshEwaldQI extends ParticleMeshEwald implements LambdaInte
         return completedSCFCycles;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Real space only evaluation is not supported by the QI implementation.
+     */
+    @Override
+    public boolean setRealSpaceOnly(boolean realSpaceOnly) {
+        return false;
+    }
+
     @Override
     public void destroy() throws Exception {
         if (fftTeam != null) {
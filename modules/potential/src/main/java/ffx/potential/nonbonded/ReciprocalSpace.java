@@ -692,6 +692,39 @@ public class ReciprocalSpace {
         }
     }
 
+    /**
+     * Wall time of the 3D convolutions since the last call to initTimings.
+     *
+     * @return the convolution time (nsec).
+     */
+    public long getConvolutionTime() {
+        return convTotal;
+    }
+
+    /**
+     * Per thread time of the parallel 3D convolutions since the last call to
+     * initTimings.
+     *
+     * @return the time for each thread (nsec), or null if the convolutions are
+     * not computed by a ParallelTeam.
+     */
+    public long[] getConvolutionThreadTimes() {
+        if (pjFFT3D == null) {
+            return null;
+        }
+        return pjFFT3D.getTimings();
+    }
+
+    /**
+     * Per thread time of the b-Spline computation since the last call to
+     * initTimings.
+     *
+     * @return the time for each thread (nsec).
+     */
+    public long[] getBSplineThreadTimes() {
+        return bSplineTime;
+    }
+
     public void initTimings() {
         /**
          * Reset total timings.
@@ -48,6 +48,7 @@ import static java.lang.String.format;
 import static java.util.Arrays.fill;
 
 import static org.apache.commons.math3.util.FastMath.PI;
+import static org.apache.commons.math3.util.FastMath.ceil;
 import static org.apache.commons.math3.util.FastMath.max;
 import static org.apache.commons.math3.util.FastMath.min;
 import static org.apache.commons.math3.util.FastMath.pow;
@@ -65,6 +66,7 @@ import ffx.crystal.SymOp;
 import ffx.numerics.AdderDoubleArray;
 import ffx.numerics.AtomicDoubleArray;
 import ffx.numerics.AtomicDoubleArray.AtomicDoubleArrayImpl;
+import ffx.numerics.CubicSplineTable;
 import ffx.numerics.MultiDoubleArray;
 import ffx.numerics.PJDoubleArray;
 import ffx.potential.bonded.Angle;
@@ -77,6 +79,7 @@ import ffx.potential.extended.ExtendedSystem;
 import ffx.potential.parameters.AtomType;
 import ffx.potential.parameters.ForceField;
 import ffx.potential.parameters.ForceField.ForceFieldDouble;
+import ffx.potential.parameters.ForceField.ForceFieldInteger;
 import ffx.potential.parameters.VDWType;
 
 import static ffx.numerics.AtomicDoubleArray.AtomicDoubleArrayImpl.MULTI;
@@ -262,7 +265,7 @@ public class VanDerWaals implements MaskingInterface,
      * *************************************************************************
      * Parallel variables.
      */
-    private final ParallelTeam parallelTeam;
+    private ParallelTeam parallelTeam;
     private final int threadCount;
     private final IntegerSchedule pairwiseSchedule;
     private final SharedInteger sharedInteractions;
@@ -308,6 +311,44 @@ public class VanDerWaals implements MaskingInterface,
     private NeighborList neighborList;
     private final VanDerWaalsRegion vanDerWaalsRegion;
     private boolean neighborListOnly = true;
+    /**
+     * An optional cluster pair list, which is used in place of the Verlet
+     * lists for the asymmetric unit of P1 systems without lambda or ESV terms.
+     */
+    private ClusterPairList clusterPairList = null;
+    /**
+     * The NeighborList rebuild the cluster pair list was last built from.
+     */
+    private long clusterPairRebuild = -1;
+    private boolean useClusterPairs = false;
+    /**
+     * Optional cubic spline tables in r^2 of the hard core pair energy and
+     * gradient factor, indexed by atom class [classi][classk]. Tables are only
+     * built for classes present in the system.
+     */
+    private CubicSplineTable vdwTables[][] = null;
+    /**
+     * The smallest r^2 covered by the tables; closer pairs are evaluated
+     * analytically.
+     */
+    private static final double TABLE_MINIMUM = 1.0;
+    private static final int TABLE_ENERGY = 0;
+    private static final int TABLE_GRADIENT = 1;
+    /**
+     * Slot of dE/d(r^2) in the result of CubicSplineTable.valueAndDerivative.
+     */
+    private static final int TABLE_DERIVATIVE = 1;
+    /**
+     * Local energy work arrays.
+     */
+    private boolean displaced[] = null;
+    private boolean localAtom[] = null;
+    private double localMask[] = null;
+    /**
+     * The neighbor list is rebuilt during a local energy evaluation when more
+     * than 1 / LOCAL_REBUILD_FRACTION of the atoms have moved half the buffer.
+     */
+    private static final int LOCAL_REBUILD_FRACTION = 16;
     /**
      * Timing variables.
      */
@@ -433,6 +474,23 @@ public class VanDerWaals implements MaskingInterface,
         neighborList = new NeighborList(null, this.crystal, atoms, off, buff, parallelTeam);
         pairwiseSchedule = neighborList.getPairwiseSchedule();
         neighborLists = new int[nSymm][][];
+        if (forceField.getBoolean(ForceField.ForceFieldBoolean.ADAPTIVE_BUFFER, false)) {
+            double minBuffer = forceField.getDouble(ForceFieldDouble.LIST_BUFFER_MIN, 0.5);
+            double maxBuffer = forceField.getDouble(ForceFieldDouble.LIST_BUFFER_MAX, 4.0);
+            neighborList.setAdaptiveBuffer(true, minBuffer, maxBuffer);
+        }
+
+        /**
+         * Optional cluster pair list.
+         */
+        if (forceField.getBoolean(ForceField.ForceFieldBoolean.VDW_CLUSTER_PAIRS, false)) {
+            int clusterSize = forceField.getInteger(ForceFieldInteger.VDW_CLUSTER_SIZE, 4);
+            if (clusterSize != 4 && clusterSize != 8) {
+                logger.info(format(" Unsupported VDW-CLUSTER-SIZE %d; defaulting to 4", clusterSize));
+                clusterSize = 4;
+            }
+            clusterPairList = new ClusterPairList(clusterSize);
+        }
 
         /**
          * Reduce and expand the coordinates of the asymmetric unit. Then build
@@ -440,6 +498,22 @@ public class VanDerWaals implements MaskingInterface,
          */
         buildNeighborList(atoms);
 
+        if (clusterPairList != null) {
+            if (useClusterPairs()) {
+                clusterPairList.print();
+            } else {
+                logger.info(" Cluster pairs are only used for P1 systems without lambda or ESV terms.");
+            }
+        }
+
+        /**
+         * Optional tabulated pair potentials.
+         */
+        if (forceField.getBoolean(ForceField.ForceFieldBoolean.VDW_TABLE, false)) {
+            double density = forceField.getDouble(ForceFieldDouble.VDW_TABLE_DENSITY, 20.0);
+            buildVdwTables(density);
+        }
+
         logger.info("  Van der Waals");
         logger.info(format("   Switch Start:                         %6.3f (A)", cut));
         logger.info(format("   Cut-Off:                              %6.3f (A)", off));
@@ -452,6 +526,118 @@ public class VanDerWaals implements MaskingInterface,
         }
     }
 
+    /**
+     * Tabulate the hard core energy (including the multiplicative switch) for
+     * each pair of atom classes present in the system using cubic Hermite
+     * splines in r^2. Knot derivatives are the analytic dE/d(r^2), and the
+     * gradient factor (dE/dr) / r = 2 dE/d(r^2) is taken from the derivative
+     * of the energy spline, so that forces are consistent with the
+     * interpolated energy.
+     *
+     * @param density Table intervals per square Angstrom.
+     */
+    private void buildVdwTables(double density) {
+        int maxClass = vdwForm.maxClass;
+        boolean present[] = new boolean[maxClass + 1];
+        for (int i = 0; i < nAtoms; i++) {
+            if (atomClass[i] >= 0 && atomClass[i] <= maxClass) {
+                present[atomClass[i]] = true;
+            }
+        }
+        double minimum = TABLE_MINIMUM;
+        double maximum = nonbondedCutoff.off2;
+        int nIntervals = (int) ceil((maximum - minimum) * max(density, 1.0));
+        double spacing = (maximum - minimum) / nIntervals;
+        double values[][] = new double[1][nIntervals + 1];
+        double derivatives[][] = new double[1][nIntervals + 1];
+        double pair[] = new double[2];
+        vdwTables = new CubicSplineTable[maxClass + 1][maxClass + 1];
+        int nTables = 0;
+        long bytes = 0;
+        for (int i = 0; i <= maxClass; i++) {
+            if (!present[i]) {
+                continue;
+            }
+            for (int k = i; k <= maxClass; k++) {
+                if (!present[k]) {
+                    continue;
+                }
+                double irv = vdwForm.radEps[i][k * 2 + RADMIN];
+                double ev = vdwForm.radEps[i][k * 2 + EPS];
+                if (irv <= 0.0) {
+                    continue;
+                }
+                for (int j = 0; j <= nIntervals; j++) {
+                    double r2 = minimum + j * spacing;
+                    tablePair(r2, irv, ev, pair);
+                    values[TABLE_ENERGY][j] = pair[TABLE_ENERGY];
+                    derivatives[TABLE_ENERGY][j] = 0.5 * pair[TABLE_GRADIENT];
+                }
+                CubicSplineTable table = new CubicSplineTable(minimum, maximum, nIntervals, values, derivatives);
+                vdwTables[i][k] = table;
+                vdwTables[k][i] = table;
+                nTables++;
+                bytes += table.getBytes();
+            }
+        }
+        StringBuilder sb = new StringBuilder("  Van der Waals Tables\n");
+        sb.append(format("   Pair Types:                         %8d\n", nTables));
+        sb.append(format("   Intervals Per Table:                %8d\n", nIntervals));
+        sb.append(format("   Memory:                             %8.2f (MB)", bytes / (1024.0 * 1024.0)));
+        logger.info(sb.toString());
+    }
+
+    /**
+     * Evaluate the hard core pair energy, including the multiplicative switch,
+     * and the gradient factor applied to the separation vector by the
+     * asymmetric unit kernels.
+     *
+     * @param r2 The squared separation.
+     * @param irv The inverse combined radius.
+     * @param ev The combined well depth.
+     * @param values The energy and gradient factor.
+     */
+    private void tablePair(double r2, double irv, double ev, double values[]) {
+        final double r = sqrt(r2);
+        final double rho = r * irv;
+        final double rhoDisp1 = vdwForm.rhoDisp1(rho);
+        final double rhoDisp = rhoDisp1 * rho;
+        final double rhoDelta1 = vdwForm.rhoDelta1(rho + vdwForm.delta);
+        final double rhoDelta = rhoDelta1 * (rho + vdwForm.delta);
+        final double t1d = 1.0 / rhoDelta;
+        final double t2d = 1.0 / (rhoDisp + vdwForm.gamma);
+        final double t1 = vdwForm.t1n * t1d;
+        final double t2a = vdwForm.gamma1 * t2d;
+        final double t2 = t2a - 2.0;
+        double taper = 1.0;
+        double dtaper = 0.0;
+        if (r2 > nonbondedCutoff.cut2) {
+            final double r3 = r2 * r;
+            final double r4 = r2 * r2;
+            final double r5 = r2 * r3;
+            taper = multiplicativeSwitch.taper(r, r2, r3, r4, r5);
+            dtaper = multiplicativeSwitch.dtaper(r, r2, r3, r4);
+        }
+        final double eik = ev * t1 * t2 * taper;
+        final double dt1d_dr = vdwForm.repDispPower * rhoDelta1 * irv;
+        final double dt2d_dr = vdwForm.dispersivePower * rhoDisp1 * irv;
+        final double dt1_dr = t1 * dt1d_dr * t1d;
+        final double dt2_dr = t2a * dt2d_dr * t2d;
+        final double dedr = -ev * (dt1_dr * t2 + t1 * dt2_dr);
+        values[TABLE_ENERGY] = eik;
+        values[TABLE_GRADIENT] = (eik * dtaper + dedr * taper) / r;
+    }
+
+    /**
+     * Get the van der Waals tables.
+     *
+     * @return The tables indexed by atom class, or null if tables are not in
+     * use.
+     */
+    public CubicSplineTable[][] getVdwTables() {
+        return vdwTables;
+    }
+
     /**
      * Allocate coordinate arrays and set up reduction indices and values.
      */
@@ -805,7 +991,42 @@ public class VanDerWaals implements MaskingInterface,
      * @since 1.0
      */
     public double getBuffer() {
-        return nonbondedCutoff.buff;
+        return neighborList.getBuffer();
+    }
+
+    /**
+     * Evaluate the van der Waals energy with a different team, which may have
+     * fewer threads than the team used at construction (i.e. the real space
+     * team while reciprocal space PME runs concurrently on the remaining
+     * threads). Neighbor list builds continue to use the original team.
+     *
+     * @param parallelTeam the ParallelTeam to use.
+     */
+    public void setParallelTeam(ParallelTeam parallelTeam) {
+        if (parallelTeam == this.parallelTeam) {
+            return;
+        }
+        if (parallelTeam.getThreadCount() > threadCount) {
+            logger.severe(format(" The van der Waals team cannot have more than %d threads.", threadCount));
+        }
+        this.parallelTeam = parallelTeam;
+
+        /**
+         * Clear gradient contributions of threads that may no longer
+         * participate in the reduction.
+         */
+        for (int i = 0; i < threadCount; i++) {
+            if (gradX != null) {
+                gradX.reset(i, 0, nAtoms - 1);
+                gradY.reset(i, 0, nAtoms - 1);
+                gradZ.reset(i, 0, nAtoms - 1);
+            }
+            if (lambdaGradX != null) {
+                lambdaGradX.reset(i, 0, nAtoms - 1);
+                lambdaGradY.reset(i, 0, nAtoms - 1);
+                lambdaGradZ.reset(i, 0, nAtoms - 1);
+            }
+        }
     }
 
     /**
@@ -1249,6 +1470,209 @@ public class VanDerWaals implements MaskingInterface,
         }
     }
 
+    /**
+     * Get the cluster pair list.
+     *
+     * @return The ClusterPairList, or null if cluster pairs are not enabled.
+     */
+    public ClusterPairList getClusterPairList() {
+        return clusterPairList;
+    }
+
+    /**
+     * The cluster pair kernel only describes the asymmetric unit, and does not
+     * support softcore, ESV or multi-scale interactions.
+     */
+    private boolean useClusterPairs() {
+        return clusterPairList != null && nSymm == 1 && !lambdaTerm && !esvTerm
+                && resolution == null;
+    }
+
+    /**
+     * Check if local energies are supported. Local evaluation describes
+     * hard core and softcore (at full strength) pairs of the asymmetric unit;
+     * lambda, ESV and symmetry mate interactions require a full evaluation.
+     *
+     * @return true if localEnergy may be called.
+     */
+    public boolean localEnergyAvailable() {
+        return nSymm == 1 && !lambdaTerm && !esvTerm;
+    }
+
+    /**
+     * Compute the van der Waals energy of all pairs that involve at least one
+     * of the given atoms at the current coordinates. The change in this
+     * energy across a move of the atoms is the change in the total van der
+     * Waals energy, which avoids evaluating pairs the move does not affect.
+     * Hydrogen atoms reduced toward a given atom are included.
+     *
+     * Pairs are taken from the neighbor list. Atoms that have moved more than
+     * half the buffer since the last rebuild are checked against all atoms,
+     * and the list is rebuilt once too many atoms have moved.
+     *
+     * @param localAtoms Indices of the atoms.
+     * @return The local van der Waals energy (kcal/mol).
+     */
+    public double localEnergy(int localAtoms[]) {
+        if (!localEnergyAvailable()) {
+            throw new IllegalStateException(" Local van der Waals energies are not available.");
+        }
+        if (localAtom == null || localAtom.length < nAtoms) {
+            displaced = new boolean[nAtoms];
+            localAtom = new boolean[nAtoms];
+            localMask = new double[nAtoms];
+            fill(localMask, 1.0);
+        }
+
+        /**
+         * Load current coordinates, which may have been changed by earlier
+         * moves since the last full evaluation.
+         */
+        for (int i = 0, i3 = 0; i < nAtoms; i++, i3 += 3) {
+            Atom atom = atoms[i];
+            coordinates[i3 + XX] = atom.getX();
+            coordinates[i3 + YY] = atom.getY();
+            coordinates[i3 + ZZ] = atom.getZ();
+            use[i] = atom.getUse();
+        }
+        for (int i = 0, i3 = 0; i < nAtoms; i++, i3 += 3) {
+            int redIndex = reductionIndex[i];
+            if (redIndex >= 0) {
+                int r3 = redIndex * 3;
+                double a = reductionValue[i];
+                reducedXYZ[i3 + XX] = a * (coordinates[i3 + XX] - coordinates[r3 + XX]) + coordinates[r3 + XX];
+                reducedXYZ[i3 + YY] = a * (coordinates[i3 + YY] - coordinates[r3 + YY]) + coordinates[r3 + YY];
+                reducedXYZ[i3 + ZZ] = a * (coordinates[i3 + ZZ] - coordinates[r3 + ZZ]) + coordinates[r3 + ZZ];
+            } else {
+                reducedXYZ[i3 + XX] = coordinates[i3 + XX];
+                reducedXYZ[i3 + YY] = coordinates[i3 + YY];
+                reducedXYZ[i3 + ZZ] = coordinates[i3 + ZZ];
+            }
+        }
+
+        /**
+         * Find atoms that may be missing from the neighbor list.
+         */
+        int nDisplaced = neighborList.getDisplacedAtoms(reducedXYZ, displaced);
+        if (nDisplaced * LOCAL_REBUILD_FRACTION > nAtoms) {
+            neighborList.buildList(reduced, neighborLists, null, true, false);
+            fill(displaced, false);
+            nDisplaced = 0;
+        }
+        int displacedList[] = new int[nDisplaced];
+        for (int i = 0, n = 0; n < nDisplaced; i++) {
+            if (displaced[i]) {
+                displacedList[n++] = i;
+            }
+        }
+        int partnerLists[][] = neighborList.getPartnerLists();
+
+        /**
+         * Flag the local atoms, including hydrogen atoms reduced toward them.
+         */
+        List<Integer> local = new ArrayList<>();
+        for (int i : localAtoms) {
+            if (!localAtom[i]) {
+                localAtom[i] = true;
+                local.add(i);
+            }
+            for (Bond bond : atoms[i].getBonds()) {
+                int k = bond.get1_2(atoms[i]).xyzIndex - 1;
+                if (reductionIndex[k] == i && !localAtom[k]) {
+                    localAtom[k] = true;
+                    local.add(k);
+                }
+            }
+        }
+
+        /**
+         * Sum pairs with at least one local atom; pairs of two local atoms
+         * are counted from the atom with the smaller index.
+         */
+        double e = 0.0;
+        for (int i : local) {
+            if (!use[i]) {
+                continue;
+            }
+            applyMask(localMask, i);
+            if (displaced[i]) {
+                for (int k = 0; k < nAtoms; k++) {
+                    if (k != i) {
+                        e += localPairEnergy(i, k);
+                    }
+                }
+            } else {
+                for (int k : partnerLists[i]) {
+                    if (!displaced[k]) {
+                        e += localPairEnergy(i, k);
+                    }
+                }
+                for (int k : displacedList) {
+                    e += localPairEnergy(i, k);
+                }
+            }
+            removeMask(localMask, i);
+        }
+        for (int i : local) {
+            localAtom[i] = false;
+        }
+        return e;
+    }
+
+    /**
+     * Evaluate one pair for a local energy, following the masking, softcore
+     * and table rules of the van der Waals loop.
+     *
+     * @param i A local atom, whose masking rules have been applied.
+     * @param k A second atom.
+     * @return The pair energy.
+     */
+    private double localPairEnergy(int i, int k) {
+        if ((localAtom[k] && k < i) || !use[k] || !include(atoms[i], atoms[k])) {
+            return 0.0;
+        }
+        int i3 = i * 3;
+        int k3 = k * 3;
+        final double dx[] = {reducedXYZ[i3 + XX] - reducedXYZ[k3 + XX],
+            reducedXYZ[i3 + YY] - reducedXYZ[k3 + YY],
+            reducedXYZ[i3 + ZZ] - reducedXYZ[k3 + ZZ]};
+        final double r2 = crystal.image(dx);
+        final int classi = atomClass[i];
+        final int classk = atomClass[k];
+        final double radEpsi[] = vdwForm.radEps[classi];
+        final double irv = radEpsi[classk * 2 + RADMIN];
+        final double mask = localMask[k];
+        if (r2 > nonbondedCutoff.off2 || mask <= 0 || irv <= 0) {
+            return 0.0;
+        }
+        final boolean sameMolecule = (molecule[i] == molecule[k]);
+        final boolean soft = (isSoft[i] ? softCore[SOFT][k] : softCore[HARD][k])
+                || (intermolecularSoftcore && !sameMolecule)
+                || (intramolecularSoftcore && sameMolecule);
+        if (vdwTables != null && !soft) {
+            CubicSplineTable table = vdwTables[classi][classk];
+            if (table != null && table.contains(r2)) {
+                return mask * table.value(TABLE_ENERGY, r2);
+            }
+        }
+        final double alpha = soft ? sc1 : 0.0;
+        final double lambda5 = soft ? sc2 : 1.0;
+        final double r = sqrt(r2);
+        final double rho = r * irv;
+        final double rhoDisp = vdwForm.rhoDisp1(rho) * rho;
+        final double rhoDelta = vdwForm.rhoDelta1(rho + vdwForm.delta) * (rho + vdwForm.delta);
+        final double t1 = vdwForm.t1n / (alpha + rhoDelta);
+        final double t2 = vdwForm.gamma1 / (alpha + rhoDisp + vdwForm.gamma) - 2.0;
+        double eik = mask * radEpsi[classk * 2 + EPS] * lambda5 * t1 * t2;
+        if (r2 > nonbondedCutoff.cut2) {
+            final double r3 = r2 * r;
+            final double r4 = r2 * r2;
+            final double r5 = r2 * r3;
+            eik *= multiplicativeSwitch.taper(r, r2, r3, r4, r5);
+        }
+        return eik;
+    }
+
     /**
      * Test if both atoms match the set Resolution (or true when unset).
      */
@@ -1262,12 +1686,14 @@ public class VanDerWaals implements MaskingInterface,
         private final InitializationLoop initializationLoop[];
         private final ExpandLoop expandLoop[];
         private final VanDerWaalsLoop vanDerWaalsLoop[];
+        private final ClusterPairLoop clusterPairLoop[];
         private final ReductionLoop reductionLoop[];
 
         public VanDerWaalsRegion() {
             initializationLoop = new InitializationLoop[threadCount];
             expandLoop = new ExpandLoop[threadCount];
             vanDerWaalsLoop = new VanDerWaalsLoop[threadCount];
+            clusterPairLoop = new ClusterPairLoop[threadCount];
             reductionLoop = new ReductionLoop[threadCount];
         }
 
@@ -1331,6 +1757,9 @@ public class VanDerWaals implements MaskingInterface,
                 vanDerWaalsLoop[threadIndex] = new VanDerWaalsLoop();
                 reductionLoop[threadIndex] = new ReductionLoop();
             }
+            if (clusterPairList != null && clusterPairLoop[threadIndex] == null) {
+                clusterPairLoop[threadIndex] = new ClusterPairLoop();
+            }
 
             /**
              * Initialize and expand coordinates.
@@ -1354,6 +1783,20 @@ public class VanDerWaals implements MaskingInterface,
              */
             if (threadIndex == 0) {
                 neighborList.buildList(reduced, neighborLists, null, neighborListOnly, false);
+                /**
+                 * Rebuild the cluster pair list after each neighbor-list
+                 * rebuild, then gather coordinates into cluster order.
+                 */
+                useClusterPairs = useClusterPairs();
+                if (useClusterPairs) {
+                    long rebuildCount = neighborList.getRebuildCount();
+                    if (rebuildCount != clusterPairRebuild) {
+                        clusterPairList.build(neighborList, crystal, atoms, reducedXYZ, VanDerWaals.this,
+                                neighborList.getCutoff() + neighborList.getBuffer());
+                        clusterPairRebuild = rebuildCount;
+                    }
+                    clusterPairList.updateCoordinates(reducedXYZ);
+                }
             }
             barrier();
 
@@ -1368,9 +1811,14 @@ public class VanDerWaals implements MaskingInterface,
                 if (threadIndex == 0) {
                     vdwTotal = -System.nanoTime();
                 }
-                execute(0, nAtoms - 1, vanDerWaalsLoop[threadIndex]);
+                if (useClusterPairs) {
+                    execute(0, clusterPairList.getNumberOfClusters() - 1, clusterPairLoop[threadIndex]);
+                } else {
+                    execute(0, nAtoms - 1, vanDerWaalsLoop[threadIndex]);
+                }
                 if (threadIndex == 0) {
                     vdwTotal += System.nanoTime();
+                    neighborList.addPairTime(vdwTotal);
                 }
             } catch (Exception e) {
                 String message = "Fatal exception evaluating van der Waals energy in thread: " + threadIndex + "\n";
@@ -1410,8 +1858,8 @@ public class VanDerWaals implements MaskingInterface,
                 long reductionMin = Long.MAX_VALUE;
                 int countMin = Integer.MAX_VALUE;
                 int countMax = 0;
-                for (int i = 0; i < threadCount; i++) {
-                    int count = vanDerWaalsLoop[i].getCount();
+                for (int i = 0; i < getThreadCount(); i++) {
+                    int count = useClusterPairs ? clusterPairLoop[i].getCount() : vanDerWaalsLoop[i].getCount();
                     long totalTime = initializationTime[i] + vdwTime[i] + reductionTime[i];
                     logger.fine(format("    %3d   %7.4f %7.4f %7.4f %7.4f %10d",
                             i, initializationTime[i] * 1e-9, vdwTime[i] * 1e-9,
@@ -1441,6 +1889,7 @@ public class VanDerWaals implements MaskingInterface,
                 logger.fine(format(" Actual   %7.4f %7.4f %7.4f %7.4f %10d\n",
                         initializationTotal * 1e-9, vdwTotal * 1e-9,
                         reductionTotal * 1e-9, totalActual * 1e-9, sharedInteractions.get()));
+                logger.fine(neighborList.getRebuildStatistics());
             }
         }
 
@@ -1600,6 +2049,7 @@ public class VanDerWaals implements MaskingInterface,
             private double mask[];
             private final double dx_local[];
             private final double transOp[][];
+            private final double tableValues[];
             private LambdaFactors lambdaFactorsLocal;
 
             // Extra padding to avert cache interference.
@@ -1610,6 +2060,7 @@ public class VanDerWaals implements MaskingInterface,
                 super();
                 dx_local = new double[3];
                 transOp = new double[3][3];
+                tableValues = new double[2];
             }
 
             public int getCount() {
@@ -1677,6 +2128,7 @@ public class VanDerWaals implements MaskingInterface,
                     final double rediv = 1.0 - redv;
                     final int classi = atomClass[i];
                     final double radEpsi[] = vdwForm.radEps[classi];
+                    final CubicSplineTable tablesi[] = (vdwTables != null) ? vdwTables[classi] : null;
                     final int moleculei = molecule[i];
                     double gxi = 0.0;
                     double gyi = 0.0;
@@ -1731,6 +2183,38 @@ public class VanDerWaals implements MaskingInterface,
                                     || (intermolecularSoftcore && !sameMolecule)
                                     || (intramolecularSoftcore && sameMolecule)
                                     || esvi || esvk;
+                            /**
+                             * Hard core pairs covered by a table are
+                             * interpolated.
+                             */
+                            final CubicSplineTable table = (tablesi != null && !soft) ? tablesi[atomClass[k]] : null;
+                            if (table != null && table.contains(r2)) {
+                                table.valueAndDerivative(TABLE_ENERGY, r2, tableValues);
+                                e += mask[k] * tableValues[TABLE_ENERGY];
+                                count++;
+                                if (gradient) {
+                                    final int redk = reductionIndex[k];
+                                    final double red = reductionValue[k];
+                                    final double redkv = 1.0 - red;
+                                    final double dswitch = 2.0 * mask[k] * tableValues[TABLE_DERIVATIVE];
+                                    final double dedx = dswitch * dx_local[0];
+                                    final double dedy = dswitch * dx_local[1];
+                                    final double dedz = dswitch * dx_local[2];
+                                    gxi += dedx * redv;
+                                    gyi += dedy * redv;
+                                    gzi += dedz * redv;
+                                    gxredi += dedx * rediv;
+                                    gyredi += dedy * rediv;
+                                    gzredi += dedz * rediv;
+                                    gradX.sub(threadID, k, red * dedx);
+                                    gradY.sub(threadID, k, red * dedy);
+                                    gradZ.sub(threadID, k, red * dedz);
+                                    gradX.sub(threadID, redk, redkv * dedx);
+                                    gradY.sub(threadID, redk, redkv * dedy);
+                                    gradZ.sub(threadID, redk, redkv * dedz);
+                                }
+                                continue;
+                            }
                             /**
                              * The setFactors(i,k) method is empty unless ESVs
                              * are present. If OSRW lambda present,
@@ -2189,6 +2673,254 @@ public class VanDerWaals implements MaskingInterface,
             }
         }
 
+        /**
+         * The cluster pair loop evaluates the van der Waals energy and gradient
+         * of the asymmetric unit one ClusterPairList tile at a time. Every
+         * pair of a tile is evaluated and weighted by its scale factor, which
+         * is zero for masked, padded, unused and out of range pairs, so the
+         * inner loop does not branch. Gradients are summed for each cluster
+         * slot before being added to the shared arrays.
+         *
+         * @author Michael J. Schnieders
+         * @since 1.0
+         */
+        private class ClusterPairLoop extends IntegerForLoop {
+
+            private int count;
+            private double energy;
+            private int threadID;
+            private double gi[];
+            private double gk[];
+            private double usei[];
+            private double usek[];
+            private final double dx_local[];
+            private final double tableValues[];
+            private final IntegerSchedule schedule;
+
+            // Extra padding to avert cache interference.
+            private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
+            private long pad8, pad9, pada, padb, padc, padd, pade, padf;
+
+            public ClusterPairLoop() {
+                super();
+                dx_local = new double[3];
+                tableValues = new double[2];
+                schedule = IntegerSchedule.dynamic(16);
+            }
+
+            public int getCount() {
+                return count;
+            }
+
+            @Override
+            public IntegerSchedule schedule() {
+                return schedule;
+            }
+
+            @Override
+            public void start() {
+                threadID = getThreadIndex();
+                vdwTime[threadID] = -System.nanoTime();
+                energy = 0.0;
+                count = 0;
+                int clusterSize = clusterPairList.getClusterSize();
+                if (gi == null || gi.length < 3 * clusterSize) {
+                    gi = new double[3 * clusterSize];
+                    gk = new double[3 * clusterSize];
+                    usei = new double[clusterSize];
+                    usek = new double[clusterSize];
+                }
+            }
+
+            @Override
+            public void finish() {
+                sharedEnergy.addAndGet(energy);
+                sharedInteractions.addAndGet(count);
+                vdwTime[threadID] += System.nanoTime();
+            }
+
+            @Override
+            public void run(int lb, int ub) {
+                final int cs = clusterPairList.getClusterSize();
+                final int cs2 = cs * 2;
+                final int tileSize = cs * cs;
+                final int clusterAtoms[] = clusterPairList.getClusterAtoms();
+                final double clusterWeight[] = clusterPairList.getClusterWeight();
+                final double clusterXYZ[] = clusterPairList.getClusterXYZ();
+                final int tileStart[] = clusterPairList.getTileStart();
+                final int tileCluster[] = clusterPairList.getTileCluster();
+                final double tileScale[] = clusterPairList.getTileScale();
+                final double tileShift[] = clusterPairList.getTileShift();
+                final boolean tileImage[] = clusterPairList.getTileImage();
+                final double off2 = nonbondedCutoff.off2;
+                final double cut2 = nonbondedCutoff.cut2;
+                final double ioff = 1.0 / nonbondedCutoff.off;
+                double e = 0.0;
+                for (int ci = lb; ci <= ub; ci++) {
+                    final int iSlot = ci * cs;
+                    final int ix = iSlot * 3;
+                    final int iy = ix + cs;
+                    final int iz = iy + cs;
+                    for (int s = 0; s < cs; s++) {
+                        usei[s] = use[clusterAtoms[iSlot + s]] ? clusterWeight[iSlot + s] : 0.0;
+                    }
+                    if (gradient) {
+                        fill(gi, 0.0);
+                    }
+                    for (int tile = tileStart[ci]; tile < tileStart[ci + 1]; tile++) {
+                        final int kSlot = tileCluster[tile] * cs;
+                        final int kx = kSlot * 3;
+                        final int ky = kx + cs;
+                        final int kz = ky + cs;
+                        final boolean image = tileImage[tile];
+                        final int t3 = tile * 3;
+                        final double sx = image ? 0.0 : tileShift[t3];
+                        final double sy = image ? 0.0 : tileShift[t3 + 1];
+                        final double sz = image ? 0.0 : tileShift[t3 + 2];
+                        for (int t = 0; t < cs; t++) {
+                            usek[t] = use[clusterAtoms[kSlot + t]] ? clusterWeight[kSlot + t] : 0.0;
+                        }
+                        if (gradient) {
+                            fill(gk, 0.0);
+                        }
+                        for (int s = 0; s < cs; s++) {
+                            final double xi = clusterXYZ[ix + s] - sx;
+                            final double yi = clusterXYZ[iy + s] - sy;
+                            final double zi = clusterXYZ[iz + s] - sz;
+                            final int classi = atomClass[clusterAtoms[iSlot + s]];
+                            final double radEpsi[] = vdwForm.radEps[classi];
+                            final CubicSplineTable tablesi[] = (vdwTables != null) ? vdwTables[classi] : null;
+                            final double ui = usei[s];
+                            final int row = tile * tileSize + s * cs;
+                            double gxi = 0.0;
+                            double gyi = 0.0;
+                            double gzi = 0.0;
+                            for (int t = 0; t < cs; t++) {
+                                double xr = xi - clusterXYZ[kx + t];
+                                double yr = yi - clusterXYZ[ky + t];
+                                double zr = zi - clusterXYZ[kz + t];
+                                double r2;
+                                if (image) {
+                                    dx_local[0] = xr;
+                                    dx_local[1] = yr;
+                                    dx_local[2] = zr;
+                                    r2 = crystal.image(dx_local);
+                                    xr = dx_local[0];
+                                    yr = dx_local[1];
+                                    zr = dx_local[2];
+                                } else {
+                                    r2 = xr * xr + yr * yr + zr * zr;
+                                }
+                                final int classk = atomClass[clusterAtoms[kSlot + t]];
+                                final int a2 = classk * 2;
+                                final double irv = radEpsi[a2 + RADMIN];
+                                final double w = (r2 <= off2 && irv > 0.0) ? tileScale[row + t] * ui * usek[t] : 0.0;
+                                // Excluded pairs are evaluated at the cutoff to avoid r = 0.
+                                final double rr2 = (w > 0.0) ? r2 : off2;
+                                final CubicSplineTable table = (tablesi != null) ? tablesi[classk] : null;
+                                final double eik;
+                                final double dswitch;
+                                if (table != null && table.contains(rr2)) {
+                                    table.valueAndDerivative(TABLE_ENERGY, rr2, tableValues);
+                                    eik = w * tableValues[TABLE_ENERGY];
+                                    dswitch = 2.0 * w * tableValues[TABLE_DERIVATIVE];
+                                } else {
+                                    final double r = sqrt(rr2);
+                                    final double ev = w * radEpsi[a2 + EPS];
+                                    /**
+                                     * Skipped pairs may have a zero radius
+                                     * (rho = 0 is singular for some forms), so
+                                     * they use a finite placeholder.
+                                     */
+                                    final double irvw = (w > 0.0) ? irv : ioff;
+                                    final double rho = r * irvw;
+                                    final double rhoDisp1 = vdwForm.rhoDisp1(rho);
+                                    final double rhoDisp = rhoDisp1 * rho;
+                                    final double rhoDelta1 = vdwForm.rhoDelta1(rho + vdwForm.delta);
+                                    final double rhoDelta = rhoDelta1 * (rho + vdwForm.delta);
+                                    final double t1d = 1.0 / rhoDelta;
+                                    final double t2d = 1.0 / (rhoDisp + vdwForm.gamma);
+                                    final double t1 = vdwForm.t1n * t1d;
+                                    final double t2a = vdwForm.gamma1 * t2d;
+                                    final double t2 = t2a - 2.0;
+                                    final boolean switched = rr2 > cut2;
+                                    final double r3 = rr2 * r;
+                                    final double r4 = rr2 * rr2;
+                                    final double r5 = rr2 * r3;
+                                    final double taper = switched ? multiplicativeSwitch.taper(r, rr2, r3, r4, r5) : 1.0;
+                                    final double dtaper = switched ? multiplicativeSwitch.dtaper(r, rr2, r3, r4) : 0.0;
+                                    eik = ev * t1 * t2 * taper;
+                                    if (gradient) {
+                                        final double dt1d_dr = vdwForm.repDispPower * rhoDelta1 * irvw;
+                                        final double dt2d_dr = vdwForm.dispersivePower * rhoDisp1 * irvw;
+                                        final double dt1_dr = t1 * dt1d_dr * t1d;
+                                        final double dt2_dr = t2a * dt2d_dr * t2d;
+                                        final double dedr = -ev * (dt1_dr * t2 + t1 * dt2_dr);
+                                        dswitch = (eik * dtaper + dedr * taper) / r;
+                                    } else {
+                                        dswitch = 0.0;
+                                    }
+                                }
+                                e += eik;
+                                count += (w > 0.0) ? 1 : 0;
+                                if (gradient) {
+                                    final double dedx = dswitch * xr;
+                                    final double dedy = dswitch * yr;
+                                    final double dedz = dswitch * zr;
+                                    gxi += dedx;
+                                    gyi += dedy;
+                                    gzi += dedz;
+                                    gk[t] -= dedx;
+                                    gk[cs + t] -= dedy;
+                                    gk[cs2 + t] -= dedz;
+                                }
+                            }
+                            if (gradient) {
+                                gi[s] += gxi;
+                                gi[cs + s] += gyi;
+                                gi[cs2 + s] += gzi;
+                            }
+                        }
+                        if (gradient) {
+                            for (int t = 0; t < cs; t++) {
+                                if (usek[t] == 0.0) {
+                                    continue;
+                                }
+                                final int k = clusterAtoms[kSlot + t];
+                                final int redk = reductionIndex[k];
+                                final double red = reductionValue[k];
+                                final double redkv = 1.0 - red;
+                                gradX.add(threadID, k, red * gk[t]);
+                                gradY.add(threadID, k, red * gk[cs + t]);
+                                gradZ.add(threadID, k, red * gk[cs2 + t]);
+                                gradX.add(threadID, redk, redkv * gk[t]);
+                                gradY.add(threadID, redk, redkv * gk[cs + t]);
+                                gradZ.add(threadID, redk, redkv * gk[cs2 + t]);
+                            }
+                        }
+                    }
+                    if (gradient) {
+                        for (int s = 0; s < cs; s++) {
+                            if (usei[s] == 0.0) {
+                                continue;
+                            }
+                            final int i = clusterAtoms[iSlot + s];
+                            final int redi = reductionIndex[i];
+                            final double redv = reductionValue[i];
+                            final double rediv = 1.0 - redv;
+                            gradX.add(threadID, i, redv * gi[s]);
+                            gradY.add(threadID, i, redv * gi[cs + s]);
+                            gradZ.add(threadID, i, redv * gi[cs2 + s]);
+                            gradX.add(threadID, redi, rediv * gi[s]);
+                            gradY.add(threadID, redi, rediv * gi[cs + s]);
+                            gradZ.add(threadID, redi, rediv * gi[cs2 + s]);
+                        }
+                    }
+                }
+                energy += e;
+            }
+        }
+
         /**
          * Reduce van der Waals gradient.
          */
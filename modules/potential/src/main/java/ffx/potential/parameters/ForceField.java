@@ -1462,6 +1462,7 @@ public class ForceField {
         RELATIVE_SOLVATION,
         SCF_PREDICTOR,
         SCF_ALGORITHM,
+        CG_PRECONDITIONER,
         SPACEGROUP,
         VDWINDEX,
         VDWTYPE,
@@ -1481,7 +1482,8 @@ public class ForceField {
         DUAL_TOPOLOGY_LAMBDA_EXPONENT, CG_PRECONDITIONER_CUTOFF, CG_PRECONDITIONER_EWALD, CG_PRECONDITIONER_SOR,
         RESTRAINT_K, PROBE_RADIUS, BORNAI, SURFACE_TENSION, TORSIONUNIT, IMPTORUNIT,
         VDW_12_SCALE, VDW_13_SCALE, VDW_14_SCALE, VDW_15_SCALE, GK_EPSILON, GK_BONDIOVERRIDE,
-        GK_OVERLAPSCALE
+        GK_OVERLAPSCALE, LIST_BUFFER_MIN, LIST_BUFFER_MAX, VDW_TABLE_DENSITY, EWALD_TABLE_DENSITY,
+        BORN_TOLERANCE, CG_PRECONDITIONER_CELL
     }
 
     public enum ForceFieldInteger {
@@ -1489,13 +1491,19 @@ public class ForceField {
         FF_THREADS,
         PME_ORDER,
         PME_REAL_THREADS,
+        PME_BALANCE_INTERVAL,
         PME_GRID_X,
         PME_GRID_Y,
         PME_GRID_Z,
         LIGAND_START,
         LIGAND_STOP,
         SCF_CYCLES,
-        SCF_PREDICTOR_ORDER
+        SCF_PREDICTOR_ORDER,
+        VDW_CLUSTER_SIZE,
+        EWALD_CLUSTER_SIZE,
+        BORN_REFRESH_INTERVAL,
+        SCF_XL_ITERATIONS,
+        SCF_DIIS_SIZE
     }
 
     public enum ForceFieldBoolean {
@@ -1506,7 +1514,9 @@ public class ForceField {
         LAMBDATERM, NCSTERM, USE_CHARGES, USE_DIPOLES, USE_QUADRUPOLES, ROTATE_MULTIPOLES,
         LIGAND_VAPOR_ELEC, NO_LIGAND_CONDENSED_SCF, USE_SCF_PRECONDITIONER, INTERMOLECULAR_SOFTCORE,
         INTRAMOLECULAR_SOFTCORE, LAMBDA_VALENCE_RESTRAINTS, LAMBDA_TORSIONS, RECIPTERM, BORN_USE_ALL,
-        CHECK_ALL_NODE_CHARGES, GK_USEFITRADII, GK_VERBOSERADII, PRINT_ON_FAILURE
+        CHECK_ALL_NODE_CHARGES, GK_USEFITRADII, GK_VERBOSERADII, PRINT_ON_FAILURE,
+        ENERGY_METRICS, VDW_CLUSTER_PAIRS, ADAPTIVE_BUFFER, VDW_TABLE, EWALD_TABLE,
+        PME_OVERLAP, EWALD_CLUSTER_PAIRS, BORN_INCREMENTAL, SCF_LOG
     }
 
     public enum ForceFieldType {
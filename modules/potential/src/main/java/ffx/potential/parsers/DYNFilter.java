@@ -43,6 +43,9 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -193,8 +196,9 @@ public class DYNFilter {
     }
 
     /**
-     * <p>
-     * writeDYN</p>
+     * Write a restart file. The file is first written to a temporary file in
+     * the same directory and then moved over the restart file, so that an
+     * interrupted write never leaves a truncated restart file behind.
      *
      * @param dynFile a {@link java.io.File} object.
      * @param unitCell a {@link ffx.crystal.Crystal} object.
@@ -206,12 +210,26 @@ public class DYNFilter {
      */
     public boolean writeDYN(File dynFile, Crystal unitCell, double x[], double v[],
             double[] a, double ap[]) {
-        FileWriter fw = null;
-        BufferedWriter bw = null;
-        try {
-            fw = new FileWriter(dynFile);
-            bw = new BufferedWriter(fw);
+        double cell[] = {unitCell.a, unitCell.b, unitCell.c,
+            unitCell.alpha, unitCell.beta, unitCell.gamma};
+        return writeDYN(dynFile, cell, x, v, a, ap);
+    }
 
+    /**
+     * Write a restart file using previously captured unit cell parameters.
+     *
+     * @param dynFile a {@link java.io.File} object.
+     * @param cell the unit cell parameters (a, b, c, alpha, beta, gamma).
+     * @param x an array of double.
+     * @param v an array of double.
+     * @param a an array of double.
+     * @param ap an array of double.
+     * @return a boolean.
+     */
+    public boolean writeDYN(File dynFile, double cell[], double x[], double v[],
+            double[] a, double ap[]) {
+        File tmpFile = new File(dynFile.getAbsolutePath() + ".tmp");
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(tmpFile))) {
             bw.write(" Number of Atoms and Title :\n");
             assert (x.length % 3 == 0);
             int numberOfAtoms = x.length / 3;
@@ -219,8 +237,8 @@ public class DYNFilter {
             bw.write(output);
 
             bw.write(" Periodic Box Dimensions :\n");
-            bw.write(format("%26.16E%26.16E%26.16E\n", unitCell.a, unitCell.b, unitCell.c));
-            bw.write(format("%26.16E%26.16E%26.16E\n", unitCell.alpha, unitCell.beta, unitCell.gamma));
+            bw.write(format("%26.16E%26.16E%26.16E\n", cell[0], cell[1], cell[2]));
+            bw.write(format("%26.16E%26.16E%26.16E\n", cell[3], cell[4], cell[5]));
 
             bw.write(" Current Atomic Positions :\n");
             for (int i = 0; i < numberOfAtoms; i++) {
@@ -248,17 +266,22 @@ public class DYNFilter {
         } catch (IOException e) {
             String message = " Exception writing dynamic restart file " + dynFile;
             logger.log(Level.SEVERE, message, e);
+            tmpFile.delete();
             return false;
-        } finally {
+        }
+
+        try {
             try {
-                bw.close();
-                fw.close();
-                return true;
-            } catch (IOException e) {
-                String message = " Exception closing dynamic restart file " + dynFile;
-                logger.log(Level.WARNING, message, e);
-                return false;
+                Files.move(tmpFile.toPath(), dynFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), dynFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
             }
+        } catch (IOException e) {
+            String message = " Exception moving dynamic restart file into place " + dynFile;
+            logger.log(Level.WARNING, message, e);
+            return false;
         }
+        return true;
     }
 }
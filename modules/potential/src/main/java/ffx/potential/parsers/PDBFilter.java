@@ -208,6 +208,16 @@ public final class PDBFilter extends SystemFilter {
      * Don't output atoms which fail Atom.getUse().
      */
     private boolean ignoreUnusedAtoms = false;
+    /**
+     * If non-null, ATOM records are written from these coordinates (indexed by
+     * XYZ index) rather than from the current atomic coordinates.
+     */
+    private double[] snapshot = null;
+    /**
+     * If non-null, the CRYST1 record is written from these unit cell
+     * parameters rather than from the current crystal.
+     */
+    private double[] snapshotCell = null;
     /**
      * Keep track of ATOM record serial numbers to match them with ANISOU
      * records.
@@ -1277,12 +1287,16 @@ public final class PDBFilter extends SystemFilter {
             Crystal crystal = activeMolecularAssembly.getCrystal();
             if (crystal != null && !crystal.aperiodic()) {
                 Crystal c = crystal.getUnitCell();
+                double cell[] = snapshotCell;
+                if (cell == null) {
+                    cell = new double[]{c.a, c.b, c.c, c.alpha, c.beta, c.gamma};
+                }
                 if (!listMode) {
-                    bw.write(format("CRYST1%9.3f%9.3f%9.3f%7.2f%7.2f%7.2f %10s\n", c.a, c.b, c.c, c.alpha, c.beta,
-                            c.gamma, padRight(c.spaceGroup.pdbName, 10)));
+                    bw.write(format("CRYST1%9.3f%9.3f%9.3f%7.2f%7.2f%7.2f %10s\n", cell[0], cell[1], cell[2],
+                            cell[3], cell[4], cell[5], padRight(c.spaceGroup.pdbName, 10)));
                 } else {
-                    listOutput.add(format("CRYST1%9.3f%9.3f%9.3f%7.2f%7.2f%7.2f %10s", c.a, c.b, c.c, c.alpha, c.beta,
-                            c.gamma, padRight(c.spaceGroup.pdbName, 10)));
+                    listOutput.add(format("CRYST1%9.3f%9.3f%9.3f%7.2f%7.2f%7.2f %10s", cell[0], cell[1], cell[2],
+                            cell[3], cell[4], cell[5], padRight(c.spaceGroup.pdbName, 10)));
                 }
             }
 // =============================================================================
@@ -1978,6 +1992,43 @@ public final class PDBFilter extends SystemFilter {
         return writeFile(saveFile, append, false);
     }
 
+    /**
+     * Write out the Atomic information in PDB format using previously captured
+     * coordinates.
+     *
+     * @param saveFile a {@link java.io.File} object.
+     * @param append a boolean.
+     * @param snapshot coordinates from getCoordinateSnapshot, or null to use
+     * the current atomic coordinates.
+     * @return Success of writing.
+     */
+    public boolean writeFile(File saveFile, boolean append, double[] snapshot) {
+        return writeFile(saveFile, append, snapshot, null);
+    }
+
+    /**
+     * Write out the Atomic information in PDB format using previously captured
+     * coordinates and unit cell parameters.
+     *
+     * @param saveFile a {@link java.io.File} object.
+     * @param append a boolean.
+     * @param snapshot coordinates from getCoordinateSnapshot, or null to use
+     * the current atomic coordinates.
+     * @param cell unit cell parameters from getUnitCellSnapshot, or null to
+     * use the current crystal.
+     * @return Success of writing.
+     */
+    public synchronized boolean writeFile(File saveFile, boolean append, double[] snapshot, double[] cell) {
+        this.snapshot = snapshot;
+        this.snapshotCell = cell;
+        try {
+            return writeFile(saveFile, append, false);
+        } finally {
+            this.snapshot = null;
+            this.snapshotCell = null;
+        }
+    }
+
     /**
      * Locate disulfide bonds based on SSBOND records.
      *
@@ -2835,7 +2886,13 @@ public final class PDBFilter extends SystemFilter {
                 name = name + " ";
             }
         }
-        double xyz[] = vdwH ? atom.getRedXYZ() : atom.getXYZ(null);
+        double xyz[];
+        if (snapshot != null) {
+            int k = (atom.getXYZIndex() - 1) * 3;
+            xyz = new double[]{snapshot[k], snapshot[k + 1], snapshot[k + 2]};
+        } else {
+            xyz = vdwH ? atom.getRedXYZ() : atom.getXYZ(null);
+        }
         if (nSymOp != 0) {
             Crystal crystal = activeMolecularAssembly.getCrystal();
             SymOp symOp = crystal.spaceGroup.getSymOp(nSymOp);
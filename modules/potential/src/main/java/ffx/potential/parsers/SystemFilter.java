@@ -50,6 +50,7 @@ import java.util.regex.Pattern;
 
 import org.apache.commons.configuration.CompositeConfiguration;
 
+import ffx.crystal.Crystal;
 import ffx.potential.MolecularAssembly;
 import ffx.potential.Utilities.FileType;
 import ffx.potential.bonded.Atom;
@@ -455,6 +456,65 @@ public abstract class SystemFilter {
      */
     public abstract void closeReader();
 
+    /**
+     * Copy the Cartesian coordinates this filter would write for the active
+     * MolecularAssembly into an array indexed by (XYZ index - 1) * 3. Hydrogen
+     * atoms are placed at their van der Waals centers if requested. The array
+     * can later be handed to a filter's writeFile method, so that a snapshot
+     * can be formatted while the atoms continue to move.
+     *
+     * @param xyz an array to fill; a new array is allocated if null or too
+     * short.
+     * @return the array of snapshot coordinates.
+     */
+    public double[] getCoordinateSnapshot(double[] xyz) {
+        Atom atoms[] = activeMolecularAssembly.getAtomArray();
+        int n = atoms.length * 3;
+        if (xyz == null || xyz.length < n) {
+            xyz = new double[n];
+        }
+        double temp[] = new double[3];
+        for (Atom atom : atoms) {
+            int k = (atom.getXYZIndex() - 1) * 3;
+            if (vdwH) {
+                atom.getRedXYZ(temp);
+            } else {
+                atom.getXYZ(temp);
+            }
+            xyz[k] = temp[0];
+            xyz[k + 1] = temp[1];
+            xyz[k + 2] = temp[2];
+        }
+        return xyz;
+    }
+
+    /**
+     * Copy the unit cell parameters (a, b, c, alpha, beta, gamma) of the
+     * active MolecularAssembly, so that a snapshot can be written with the
+     * box of the step its coordinates were captured at.
+     *
+     * @param cell an array to fill; a new array is allocated if null or too
+     * short.
+     * @return the unit cell parameters, or null if the system is aperiodic.
+     */
+    public double[] getUnitCellSnapshot(double[] cell) {
+        Crystal crystal = activeMolecularAssembly.getCrystal();
+        if (crystal == null || crystal.aperiodic()) {
+            return null;
+        }
+        crystal = crystal.getUnitCell();
+        if (cell == null || cell.length < 6) {
+            cell = new double[6];
+        }
+        cell[0] = crystal.a;
+        cell[1] = crystal.b;
+        cell[2] = crystal.c;
+        cell[3] = crystal.alpha;
+        cell[4] = crystal.beta;
+        cell[5] = crystal.gamma;
+        return cell;
+    }
+
     /**
      * <p>
      * getAtomCount</p>
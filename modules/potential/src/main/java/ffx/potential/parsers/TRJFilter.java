@@ -0,0 +1,491 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.parsers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+
+import org.apache.commons.configuration.CompositeConfiguration;
+import org.apache.commons.io.FilenameUtils;
+
+import ffx.crystal.Crystal;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.Utilities.FileType;
+import ffx.potential.bonded.Atom;
+import ffx.potential.parameters.ForceField;
+
+/**
+ * The TRJFilter class reads and writes Force Field X binary trajectory (*.TRJ)
+ * files.
+ *
+ * A TRJ file holds coordinates only; the topology comes from the
+ * MolecularAssembly the filter is constructed with. The file begins with a
+ * fixed header (magic string, number of atoms and frame size) followed by
+ * fixed-size frames, so the offset of frame N is HEADER_BYTES + N * frameBytes
+ * and serves as the frame index. Each frame holds the unit cell parameters,
+ * the state variable lambda and single precision Cartesian coordinates, all
+ * little-endian. A frame truncated by an interrupted run is ignored.
+ *
+ * Frames are read through a memory-mapped window of the file, so that
+ * sequential reads via readNext and random access via readFrame avoid
+ * parsing entirely. The file channel stays open from readFile until
+ * closeReader; a trajectory that grows while it is read is remapped from the
+ * start of the current window rather than reopened.
+ *
+ * The topology of a trajectory "name.trj" is read from "name.xyz" or
+ * "name.pdb" in the same directory (see getTopologyFile).
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ *
+ */
+public class TRJFilter extends SystemFilter {
+
+    private static final Logger logger = Logger.getLogger(TRJFilter.class.getName());
+    /**
+     * Identifies the file format and version.
+     */
+    private static final byte[] MAGIC = "FFXTRJ01".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Magic string, number of atoms and number of bytes per frame.
+     */
+    public static final int HEADER_BYTES = MAGIC.length + 8;
+    /**
+     * Unit cell parameters (a, b, c, alpha, beta, gamma) and lambda.
+     */
+    private static final int FRAME_HEADER_DOUBLES = 7;
+    /**
+     * Upper bound on the size of a mapped window of frames.
+     */
+    private static final long MAX_WINDOW_BYTES = 1L << 28;
+
+    private double lambda = 1.0;
+    private final double[] box = new double[6];
+    private FileChannel channel = null;
+    private MappedByteBuffer window = null;
+    private long windowStart = 0;
+    private long windowFrames = 0;
+    private int frameBytes = 0;
+    private long nFrames = 0;
+    private long currentFrame = -1;
+    private ByteBuffer writeBuffer = null;
+
+    /**
+     * <p>
+     * Constructor for TRJFilter.</p>
+     *
+     * @param files a {@link java.util.List} object.
+     * @param system a {@link ffx.potential.MolecularAssembly} object.
+     * @param forceField a {@link ffx.potential.parameters.ForceField} object.
+     * @param properties a
+     * {@link org.apache.commons.configuration.CompositeConfiguration} object.
+     */
+    public TRJFilter(List<File> files, MolecularAssembly system,
+            ForceField forceField, CompositeConfiguration properties) {
+        super(files, system, forceField, properties);
+        this.fileType = FileType.TRJ;
+    }
+
+    /**
+     * <p>
+     * Constructor for TRJFilter.</p>
+     *
+     * @param file a {@link java.io.File} object.
+     * @param system a {@link ffx.potential.MolecularAssembly} object.
+     * @param forceField a {@link ffx.potential.parameters.ForceField} object.
+     * @param properties a
+     * {@link org.apache.commons.configuration.CompositeConfiguration} object.
+     */
+    public TRJFilter(File file, MolecularAssembly system,
+            ForceField forceField, CompositeConfiguration properties) {
+        super(file, system, forceField, properties);
+        this.fileType = FileType.TRJ;
+    }
+
+    /**
+     * Number of bytes used to store one frame.
+     *
+     * @param nAtoms the number of atoms.
+     * @return the frame size in bytes.
+     */
+    public static int frameBytes(int nAtoms) {
+        return FRAME_HEADER_DOUBLES * 8 + nAtoms * 3 * 4;
+    }
+
+    /**
+     * Find the coordinate file that supplies the topology of a trajectory,
+     * which shares its base name and directory.
+     *
+     * @param trjFile a binary trajectory.
+     * @return the XYZ or PDB file, or null if neither exists.
+     */
+    public static File getTopologyFile(File trjFile) {
+        File parent = trjFile.getAbsoluteFile().getParentFile();
+        String name = FilenameUtils.getBaseName(trjFile.getName());
+        String extensions[] = {"xyz", "XYZ", "pdb", "PDB"};
+        for (String extension : extensions) {
+            File topology = new File(parent, name + "." + extension);
+            if (topology.isFile()) {
+                return topology;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Set the value of lambda recorded with subsequent frames.
+     *
+     * @param lambda the state variable.
+     */
+    public void setLambda(double lambda) {
+        this.lambda = lambda;
+    }
+
+    /**
+     * The value of lambda of the last frame read (or the value to be written).
+     *
+     * @return lambda.
+     */
+    public double getLambda() {
+        return lambda;
+    }
+
+    /**
+     * The unit cell parameters of the last frame read, which are also applied
+     * to the crystal of a periodic system.
+     *
+     * @param cell an array of length 6 to fill, or null.
+     * @return the unit cell parameters (a, b, c, alpha, beta, gamma).
+     */
+    public double[] getUnitCell(double[] cell) {
+        if (cell == null) {
+            cell = new double[6];
+        }
+        System.arraycopy(box, 0, cell, 0, 6);
+        return cell;
+    }
+
+    /**
+     * The number of complete frames in the trajectory.
+     *
+     * @return the number of frames.
+     */
+    public long getFrameCount() {
+        if (channel == null && !open()) {
+            return 0;
+        }
+        updateFrameCount();
+        return nFrames;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Loads the first frame onto the active MolecularAssembly.
+     */
+    @Override
+    public boolean readFile() {
+        if (!open()) {
+            return false;
+        }
+        boolean read = readFrame(0);
+        setFileRead(read);
+        return read;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean readNext() {
+        return readNext(false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * As for archive files, the first frame is loaded by readFile, so a reset
+     * moves to the second frame.
+     */
+    @Override
+    public boolean readNext(boolean resetPosition) {
+        if (channel == null && !open()) {
+            return false;
+        }
+        if (resetPosition || currentFrame < 0) {
+            currentFrame = 0;
+        }
+        return readFrame(currentFrame + 1);
+    }
+
+    /**
+     * Load frame N (counting from 0) onto the active MolecularAssembly.
+     *
+     * @param frame the frame to read.
+     * @return true if the frame exists and was read.
+     */
+    public boolean readFrame(long frame) {
+        if (channel == null && !open()) {
+            return false;
+        }
+        if (frame < 0) {
+            return false;
+        }
+        if (frame >= nFrames) {
+            updateFrameCount();
+            if (frame >= nFrames) {
+                return false;
+            }
+        }
+        try {
+            if (window == null || frame < windowStart || frame >= windowStart + windowFrames) {
+                mapWindow(frame);
+            }
+            int position = (int) ((frame - windowStart) * frameBytes);
+            for (int i = 0; i < 6; i++) {
+                box[i] = window.getDouble(position);
+                position += 8;
+            }
+            lambda = window.getDouble(position);
+            position += 8;
+            Crystal crystal = activeMolecularAssembly.getCrystal();
+            if (crystal != null && !crystal.aperiodic() && box[0] > 0.0) {
+                crystal.changeUnitCellParameters(box[0], box[1], box[2], box[3], box[4], box[5]);
+            }
+            Atom atoms[] = activeMolecularAssembly.getAtomArray();
+            for (Atom atom : atoms) {
+                int k = position + (atom.getXYZIndex() - 1) * 12;
+                atom.moveTo(window.getFloat(k), window.getFloat(k + 4), window.getFloat(k + 8));
+            }
+            currentFrame = frame;
+            return true;
+        } catch (IOException e) {
+            String message = format(" Exception reading frame %d of %s.", frame, currentFile);
+            logger.log(Level.WARNING, message, e);
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void closeReader() {
+        window = null;
+        currentFrame = -1;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                logger.warning(format(" Exception in closing TRJ filter: %s", ex.toString()));
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Appends the current coordinates as a frame; a new file (or an existing
+     * file when append is false) is started with a header.
+     */
+    @Override
+    public boolean writeFile(File saveFile, boolean append) {
+        return writeFile(saveFile, append, null);
+    }
+
+    /**
+     * Append a frame using previously captured coordinates.
+     *
+     * @param saveFile a {@link java.io.File} object.
+     * @param append a boolean.
+     * @param snapshot coordinates from getCoordinateSnapshot, or null to use
+     * the current atomic coordinates.
+     * @return a boolean.
+     */
+    public boolean writeFile(File saveFile, boolean append, double[] snapshot) {
+        return writeFile(saveFile, append, snapshot, lambda, getUnitCellSnapshot(null));
+    }
+
+    /**
+     * Append a frame using previously captured coordinates, lambda and unit
+     * cell parameters, so that a frame is not affected by later changes to the
+     * state of the filter or the crystal.
+     *
+     * @param saveFile a {@link java.io.File} object.
+     * @param append a boolean.
+     * @param snapshot coordinates from getCoordinateSnapshot, or null to use
+     * the current atomic coordinates.
+     * @param lambda the state variable of the frame.
+     * @param cell unit cell parameters from getUnitCellSnapshot, or null for
+     * an aperiodic system.
+     * @return a boolean.
+     */
+    public boolean writeFile(File saveFile, boolean append, double[] snapshot,
+            double lambda, double[] cell) {
+        if (saveFile == null) {
+            return false;
+        }
+        File newFile = saveFile;
+        if (!append) {
+            newFile = version(saveFile);
+        }
+        if (snapshot == null) {
+            snapshot = getCoordinateSnapshot(null);
+        }
+        Atom atoms[] = activeMolecularAssembly.getAtomArray();
+        int nAtoms = atoms.length;
+        int bytes = frameBytes(nAtoms);
+        if (writeBuffer == null || writeBuffer.capacity() != HEADER_BYTES + bytes) {
+            writeBuffer = ByteBuffer.allocateDirect(HEADER_BYTES + bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(newFile, "rw");
+                FileChannel out = raf.getChannel()) {
+            writeBuffer.clear();
+            long size = out.size();
+            if (size < HEADER_BYTES) {
+                size = 0;
+                out.truncate(0);
+                writeBuffer.put(MAGIC).putInt(nAtoms).putInt(bytes);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                out.read(header, 0);
+                if (!checkHeader(header, nAtoms)) {
+                    logger.warning(format(" %s is not a trajectory of %d atoms.", newFile.getName(), nAtoms));
+                    return false;
+                }
+                // Drop a partial frame left behind by an interrupted write.
+                size -= (size - HEADER_BYTES) % bytes;
+                out.truncate(size);
+            }
+            for (int i = 0; i < 6; i++) {
+                writeBuffer.putDouble(cell != null ? cell[i] : 0.0);
+            }
+            writeBuffer.putDouble(lambda);
+            for (int i = 0; i < nAtoms * 3; i++) {
+                writeBuffer.putFloat((float) snapshot[i]);
+            }
+            writeBuffer.flip();
+            long position = size;
+            while (writeBuffer.hasRemaining()) {
+                position += out.write(writeBuffer, position);
+            }
+        } catch (IOException e) {
+            String message = format(" Exception writing trajectory %s.", newFile);
+            logger.log(Level.WARNING, message, e);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean checkHeader(ByteBuffer header, int nAtoms) {
+        header.flip();
+        if (header.remaining() < HEADER_BYTES) {
+            return false;
+        }
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            return false;
+        }
+        int n = header.getInt();
+        int bytes = header.getInt();
+        return n == nAtoms && bytes == frameBytes(nAtoms);
+    }
+
+    private boolean open() {
+        closeReader();
+        try {
+            channel = new RandomAccessFile(currentFile, "r").getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            int nAtoms = activeMolecularAssembly.getAtomArray().length;
+            if (!checkHeader(header, nAtoms)) {
+                logger.warning(format(" %s is not a trajectory of %d atoms.", currentFile.getName(), nAtoms));
+                closeReader();
+                return false;
+            }
+            frameBytes = frameBytes(nAtoms);
+            updateFrameCount();
+            return true;
+        } catch (IOException e) {
+            String message = format(" Exception opening trajectory %s.", currentFile);
+            logger.log(Level.WARNING, message, e);
+            closeReader();
+            return false;
+        }
+    }
+
+    private void updateFrameCount() {
+        try {
+            nFrames = (channel.size() - HEADER_BYTES) / frameBytes;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, " Exception sizing trajectory.", e);
+        }
+    }
+
+    /**
+     * Map a window of whole frames that includes the requested frame. If the
+     * frame lies just past a window that ended at the previous end of file,
+     * the window is extended rather than moved, so following a growing
+     * trajectory does not repeatedly remap single frames.
+     */
+    private void mapWindow(long frame) throws IOException {
+        long maxFrames = Math.max(1, MAX_WINDOW_BYTES / frameBytes);
+        if (window != null && frame >= windowStart && frame - windowStart < maxFrames) {
+            frame = windowStart;
+        }
+        windowStart = frame;
+        windowFrames = Math.max(1, Math.min(nFrames - frame, MAX_WINDOW_BYTES / frameBytes));
+        long offset = HEADER_BYTES + frame * frameBytes;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, windowFrames * frameBytes);
+        window.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -599,6 +599,21 @@ public class XYZFilter extends SystemFilter {
      */
     @Override
     public boolean writeFile(File saveFile, boolean append) {
+        return writeFile(saveFile, append, null);
+    }
+
+    /**
+     * Write the active MolecularAssembly using previously captured coordinates.
+     *
+     * @param saveFile a {@link java.io.File} object.
+     * @param append a boolean.
+     * @param snapshot coordinates from getCoordinateSnapshot, or null to use
+     * the current atomic coordinates. A snapshot may be written from a thread
+     * other than the one moving the atoms, so the file and name of the
+     * MolecularAssembly are left unchanged.
+     * @return a boolean.
+     */
+    public boolean writeFile(File saveFile, boolean append, double[] snapshot) {
         if (saveFile == null) {
             return false;
         }
@@ -607,8 +622,11 @@ public class XYZFilter extends SystemFilter {
             if (!append) {
                 newFile = version(saveFile);
             }
-            activeMolecularAssembly.setFile(newFile);
-            activeMolecularAssembly.setName(newFile.getName());
+            String title = newFile.getName();
+            if (snapshot == null) {
+                activeMolecularAssembly.setFile(newFile);
+                activeMolecularAssembly.setName(title);
+            }
             FileWriter fw = null;
             if (append && !newFile.exists()) {
                 fw = new FileWriter(newFile);
@@ -619,7 +637,7 @@ public class XYZFilter extends SystemFilter {
 
             // XYZ File First Line
             int numberOfAtoms = activeMolecularAssembly.getAtomList().size();
-            String output = format("%7d  %s\n", numberOfAtoms, activeMolecularAssembly.toString());
+            String output = format("%7d  %s\n", numberOfAtoms, title);
             bw.write(output);
             Atom a2;
             StringBuilder line;
@@ -628,7 +646,11 @@ public class XYZFilter extends SystemFilter {
             ArrayList<Atom> atoms = activeMolecularAssembly.getAtomList();
             Vector3d offset = activeMolecularAssembly.getOffset();
             for (Atom a : atoms) {
-                if (vdwH) {
+                if (snapshot != null) {
+                    int k = (a.getXYZIndex() - 1) * 3;
+                    line = new StringBuilder(String.format(
+                            "%7d %3s%14.8f%14.8f%14.8f%6d", a.getXYZIndex(), a.getAtomType().name, snapshot[k] - offset.x, snapshot[k + 1] - offset.y, snapshot[k + 2] - offset.z, a.getType()));
+                } else if (vdwH) {
                     line = new StringBuilder(String.format(
                             "%7d %3s%14.8f%14.8f%14.8f%6d", a.getXYZIndex(), a.getAtomType().name, a.getRedX() - offset.x, a.getRedY() - offset.y, a.getRedZ() - offset.z, a.getType()));
                 } else {
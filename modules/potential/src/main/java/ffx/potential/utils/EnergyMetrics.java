@@ -0,0 +1,427 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * The EnergyMetrics class accumulates timings and counters for energy
+ * evaluations so that they can be queried programmatically or exported as JSON
+ * or CSV.
+ * <p>
+ * Three kinds of metric are kept, each identified by name:
+ * <ul>
+ * <li>Timers: the wall time of an energy term (calls, total, last and maximum
+ * time).</li>
+ * <li>Regions: the load imbalance of a ParallelRegion, defined as the maximum
+ * over threads of the time spent in the region divided by the mean.</li>
+ * <li>Counters: event counts such as neighbor list rebuilds and SCF
+ * iterations.</li>
+ * </ul>
+ * Recording a metric costs a hash lookup and a few additions, so collection is
+ * cheap enough to leave on for production runs.
+ *
+ * @author Michael J. Schnieders
+ *
+ * @since 1.0
+ */
+public class EnergyMetrics {
+
+    private static final Logger logger = Logger.getLogger(EnergyMetrics.class.getName());
+
+    /**
+     * Timer for the total potential energy.
+     */
+    public static final String TOTAL = "Total";
+    /**
+     * Timer for the reciprocal space 3D convolutions.
+     */
+    public static final String FFT = "FFT";
+    /**
+     * Counter for neighbor list rebuilds.
+     */
+    public static final String NEIGHBOR_LIST_REBUILDS = "NeighborListRebuilds";
+    /**
+     * Counter for SCF iterations.
+     */
+    public static final String SCF_ITERATIONS = "SCFIterations";
+    /**
+     * Timer for the self-consistent field of the induced dipoles.
+     */
+    public static final String SCF = "SCF";
+
+    private final LinkedHashMap<String, Timer> timers = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Region> regions = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Counter> counters = new LinkedHashMap<>();
+
+    /**
+     * Record one evaluation of a timed term.
+     *
+     * @param name Name of the term.
+     * @param time Wall time in nanoseconds.
+     */
+    public synchronized void recordTime(String name, long time) {
+        Timer timer = timers.get(name);
+        if (timer == null) {
+            timer = new Timer();
+            timers.put(name, timer);
+        }
+        timer.calls++;
+        timer.total += time;
+        timer.last = time;
+        if (time > timer.max) {
+            timer.max = time;
+        }
+    }
+
+    /**
+     * Record one execution of a ParallelRegion from the time spent by each
+     * thread. Threads that report zero time did not take part in the region
+     * (for example, when a region runs on a subset of a team) and are ignored.
+     *
+     * @param name Name of the region.
+     * @param threadTimes Time spent in the region by each thread (nsec).
+     */
+    public synchronized void recordRegion(String name, long threadTimes[]) {
+        if (threadTimes == null) {
+            return;
+        }
+        long max = 0;
+        long sum = 0;
+        int n = 0;
+        for (long time : threadTimes) {
+            if (time > 0) {
+                sum += time;
+                n++;
+                if (time > max) {
+                    max = time;
+                }
+            }
+        }
+        if (n == 0) {
+            return;
+        }
+        double mean = (double) sum / n;
+        double imbalance = max / mean;
+        Region region = regions.get(name);
+        if (region == null) {
+            region = new Region(threadTimes.length);
+            regions.put(name, region);
+        }
+        region.calls++;
+        region.last = imbalance;
+        region.sum += imbalance;
+        if (imbalance > region.max) {
+            region.max = imbalance;
+        }
+        int len = Math.min(threadTimes.length, region.threadTotal.length);
+        for (int i = 0; i < len; i++) {
+            region.threadTotal[i] += threadTimes[i];
+        }
+    }
+
+    /**
+     * Add to a counter.
+     *
+     * @param name Name of the counter.
+     * @param count Amount to add.
+     */
+    public synchronized void addCount(String name, long count) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counter = new Counter();
+            counters.put(name, counter);
+        }
+        counter.calls++;
+        counter.total += count;
+        counter.last = count;
+    }
+
+    /**
+     * Clear all metrics.
+     */
+    public synchronized void reset() {
+        timers.clear();
+        regions.clear();
+        counters.clear();
+    }
+
+    public synchronized List<String> getTimerNames() {
+        return new ArrayList<>(timers.keySet());
+    }
+
+    public synchronized List<String> getRegionNames() {
+        return new ArrayList<>(regions.keySet());
+    }
+
+    public synchronized List<String> getCounterNames() {
+        return new ArrayList<>(counters.keySet());
+    }
+
+    /**
+     * Number of times a term was timed.
+     *
+     * @param name Name of the term.
+     * @return the number of calls.
+     */
+    public synchronized long getCalls(String name) {
+        Timer timer = timers.get(name);
+        return timer == null ? 0 : timer.calls;
+    }
+
+    /**
+     * Cumulative wall time of a term.
+     *
+     * @param name Name of the term.
+     * @return the cumulative time (nsec).
+     */
+    public synchronized long getTotalTime(String name) {
+        Timer timer = timers.get(name);
+        return timer == null ? 0 : timer.total;
+    }
+
+    /**
+     * Wall time of the most recent evaluation of a term.
+     *
+     * @param name Name of the term.
+     * @return the last time (nsec).
+     */
+    public synchronized long getLastTime(String name) {
+        Timer timer = timers.get(name);
+        return timer == null ? 0 : timer.last;
+    }
+
+    /**
+     * Mean wall time per evaluation of a term.
+     *
+     * @param name Name of the term.
+     * @return the mean time (nsec).
+     */
+    public synchronized double getMeanTime(String name) {
+        Timer timer = timers.get(name);
+        return timer == null || timer.calls == 0 ? 0.0 : (double) timer.total / timer.calls;
+    }
+
+    /**
+     * Maximum wall time of a single evaluation of a term.
+     *
+     * @param name Name of the term.
+     * @return the maximum time (nsec).
+     */
+    public synchronized long getMaxTime(String name) {
+        Timer timer = timers.get(name);
+        return timer == null ? 0 : timer.max;
+    }
+
+    /**
+     * Mean load imbalance (max / mean thread time) of a region.
+     *
+     * @param name Name of the region.
+     * @return the mean imbalance, where 1.0 is perfect balance.
+     */
+    public synchronized double getImbalance(String name) {
+        Region region = regions.get(name);
+        return region == null || region.calls == 0 ? 0.0 : region.sum / region.calls;
+    }
+
+    /**
+     * Load imbalance of the most recent execution of a region.
+     *
+     * @param name Name of the region.
+     * @return the last imbalance.
+     */
+    public synchronized double getLastImbalance(String name) {
+        Region region = regions.get(name);
+        return region == null ? 0.0 : region.last;
+    }
+
+    /**
+     * Cumulative time spent in a region by each thread.
+     *
+     * @param name Name of the region.
+     * @return the time per thread (nsec), or null if the region is unknown.
+     */
+    public synchronized long[] getThreadTimes(String name) {
+        Region region = regions.get(name);
+        return region == null ? null : region.threadTotal.clone();
+    }
+
+    /**
+     * Current value of a counter.
+     *
+     * @param name Name of the counter.
+     * @return the count.
+     */
+    public synchronized long getCount(String name) {
+        Counter counter = counters.get(name);
+        return counter == null ? 0 : counter.total;
+    }
+
+    /**
+     * Export the metrics as a JSON object.
+     *
+     * @return a JSON String.
+     */
+    public synchronized String toJSON() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"timers\": {");
+        boolean first = true;
+        for (String name : timers.keySet()) {
+            Timer timer = timers.get(name);
+            sb.append(first ? "\n" : ",\n");
+            sb.append(format(Locale.US, "    \"%s\": {\"calls\": %d, \"total\": %d, \"last\": %d, \"max\": %d}",
+                    name, timer.calls, timer.total, timer.last, timer.max));
+            first = false;
+        }
+        sb.append("\n  },\n  \"regions\": {");
+        first = true;
+        for (String name : regions.keySet()) {
+            Region region = regions.get(name);
+            sb.append(first ? "\n" : ",\n");
+            sb.append(format(Locale.US, "    \"%s\": {\"calls\": %d, \"imbalance\": %.4f, \"last\": %.4f, \"max\": %.4f, \"threads\": [",
+                    name, region.calls, region.sum / region.calls, region.last, region.max));
+            for (int i = 0; i < region.threadTotal.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(region.threadTotal[i]);
+            }
+            sb.append("]}");
+            first = false;
+        }
+        sb.append("\n  },\n  \"counters\": {");
+        first = true;
+        for (String name : counters.keySet()) {
+            Counter counter = counters.get(name);
+            sb.append(first ? "\n" : ",\n");
+            sb.append(format(Locale.US, "    \"%s\": {\"calls\": %d, \"total\": %d, \"last\": %d}",
+                    name, counter.calls, counter.total, counter.last));
+            first = false;
+        }
+        sb.append("\n  }\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Export the metrics as CSV, with one row per metric. Times are in
+     * nanoseconds; for regions the value columns hold imbalance ratios.
+     *
+     * @return a CSV String.
+     */
+    public synchronized String toCSV() {
+        StringBuilder sb = new StringBuilder("type,name,calls,total,last,max\n");
+        for (String name : timers.keySet()) {
+            Timer timer = timers.get(name);
+            sb.append(format(Locale.US, "timer,%s,%d,%d,%d,%d\n",
+                    name, timer.calls, timer.total, timer.last, timer.max));
+        }
+        for (String name : regions.keySet()) {
+            Region region = regions.get(name);
+            sb.append(format(Locale.US, "region,%s,%d,%.4f,%.4f,%.4f\n",
+                    name, region.calls, region.sum / region.calls, region.last, region.max));
+        }
+        for (String name : counters.keySet()) {
+            Counter counter = counters.get(name);
+            sb.append(format(Locale.US, "counter,%s,%d,%d,%d,\n",
+                    name, counter.calls, counter.total, counter.last));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write the metrics to a file, as CSV if the file name ends with ".csv"
+     * and as JSON otherwise.
+     *
+     * @param file The file to write.
+     * @return true if the file was written.
+     */
+    public boolean write(File file) {
+        String contents;
+        if (file.getName().toLowerCase(Locale.US).endsWith(".csv")) {
+            contents = toCSV();
+        } else {
+            contents = toJSON();
+        }
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
+            bw.write(contents);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, format(" Exception writing energy metrics to %s.", file), e);
+            return false;
+        }
+        return true;
+    }
+
+    private static class Timer {
+
+        long calls;
+        long total;
+        long last;
+        long max;
+    }
+
+    private static class Region {
+
+        long calls;
+        double sum;
+        double last;
+        double max;
+        final long threadTotal[];
+
+        Region(int threadCount) {
+            threadTotal = new long[threadCount];
+        }
+    }
+
+    private static class Counter {
+
+        long calls;
+        long total;
+        long last;
+    }
+}
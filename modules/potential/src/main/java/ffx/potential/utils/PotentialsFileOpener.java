@@ -65,6 +65,8 @@ import ffx.potential.parsers.INTFilter;
 import ffx.potential.parsers.PDBFileFilter;
 import ffx.potential.parsers.PDBFilter;
 import ffx.potential.parsers.SystemFilter;
+import ffx.potential.parsers.TRJFileFilter;
+import ffx.potential.parsers.TRJFilter;
 import ffx.potential.parsers.XYZFileFilter;
 import ffx.potential.parsers.XYZFilter;
 import ffx.utilities.Keyword;
@@ -221,7 +223,10 @@ public class PotentialsFileOpener implements FileOpener {
 
     /**
      * At present, parses the PDB, XYZ, INT, or ARC file from the constructor
-     * and creates MolecularAssembly and properties objects.
+     * and creates MolecularAssembly and properties objects. A binary
+     * trajectory (TRJ) is opened on the topology from its XYZ or PDB file,
+     * after which its first frame is loaded and the TRJFilter is returned by
+     * getFilter.
      */
     @Override
     public void run() {
@@ -229,6 +234,15 @@ public class PotentialsFileOpener implements FileOpener {
         for (int i = 0; i < numFiles; i++) {
             File fileI = allFiles[i];
             Path pathI = allPaths[i];
+            File trjFile = null;
+            if (!fileI.isDirectory() && new TRJFileFilter().accept(fileI)) {
+                trjFile = fileI;
+                fileI = TRJFilter.getTopologyFile(trjFile);
+                if (fileI == null) {
+                    throw new IllegalArgumentException(String.format(" No XYZ or PDB topology was found for trajectory %s.", pathI.toString()));
+                }
+                pathI = pathI.resolveSibling(fileI.getName());
+            }
             MolecularAssembly assembly = new MolecularAssembly(pathI.toString());
             assembly.setFile(fileI);
             CompositeConfiguration properties = Keyword.loadProperties(fileI);
@@ -278,6 +292,15 @@ public class PotentialsFileOpener implements FileOpener {
                 assemblies.add(assembly);
                 propertyList.add(properties);
 
+                if (trjFile != null) {
+                    TRJFilter trjFilter = new TRJFilter(trjFile, assembly, forceField, properties);
+                    if (trjFilter.readFile()) {
+                        filter = trjFilter;
+                    } else {
+                        logger.warning(String.format(" Failed to read trajectory %s", trjFile.toString()));
+                    }
+                }
+
                 if (filter instanceof PDBFilter) {
                     PDBFilter pdbFilter = (PDBFilter) filter;
                     List<Character> altLocs = pdbFilter.getAltLocs();
@@ -0,0 +1,148 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import ffx.potential.bonded.Atom;
+import ffx.potential.utils.PotentialsUtils;
+
+/**
+ * Validate that partitioning threads between the topologies of a
+ * DualTopologyEnergy, which rebuilds their ForceFieldEnergy instances, leaves
+ * the energy and gradient unchanged.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class DualTopologyEnergyTest {
+
+    private final String filename = "ffx/potential/structures/ethylparaben.xyz";
+    private final int nThreads = 4;
+    private final double tolerance = 1.0e-6;
+
+    @After
+    public void tearDown() {
+        System.clearProperty("pj.nt");
+    }
+
+    @Test
+    public void testPartitionThreads() {
+        for (int n = 2; n <= 9; n++) {
+            int[][] atomCounts = {{100, 100}, {100, 101}, {1000, 10}, {10, 1000}, {37, 61}};
+            for (int[] atoms : atomCounts) {
+                int n1 = DualTopologyEnergy.partitionThreads(n, atoms[0], atoms[1]);
+                int n2 = n - n1;
+                String info = String.format(" %d threads for %d and %d atoms", n, atoms[0], atoms[1]);
+                assertTrue(info, n1 >= 1 && n2 >= 1);
+                // The larger topology never receives fewer threads.
+                if (atoms[0] >= atoms[1]) {
+                    assertTrue(info, n1 >= n2);
+                } else {
+                    assertTrue(info, n2 >= n1);
+                }
+            }
+        }
+        assertEquals(3, DualTopologyEnergy.partitionThreads(5, 101, 100));
+        assertEquals(2, DualTopologyEnergy.partitionThreads(5, 100, 101));
+    }
+
+    @Test
+    public void testRepartition() throws Exception {
+        System.setProperty("pj.nt", Integer.toString(nThreads));
+        MolecularAssembly topology1 = open();
+        MolecularAssembly topology2 = open();
+        ForceFieldEnergy forceFieldEnergy1 = topology1.getPotentialEnergy();
+        ForceFieldEnergy forceFieldEnergy2 = topology2.getPotentialEnergy();
+
+        /**
+         * A restraint bond set after construction must survive the rebuild.
+         */
+        Atom atoms[] = topology1.getAtomArray();
+        forceFieldEnergy1.setRestraintBond(atoms[0], atoms[1], 1.0, 10.0);
+
+        DualTopologyEnergy dualTopologyEnergy = new DualTopologyEnergy(topology1, topology2);
+        int n = dualTopologyEnergy.getNumberOfVariables();
+        double x[] = new double[n];
+        double expectedGradient[] = new double[n];
+        dualTopologyEnergy.getCoordinates(x);
+        double expected = dualTopologyEnergy.energyAndGradient(x, expectedGradient);
+        double expected1 = forceFieldEnergy1.getTotalEnergy();
+        double expected2 = forceFieldEnergy2.getTotalEnergy();
+
+        /**
+         * Three threads are split unevenly between the two topologies.
+         */
+        dualTopologyEnergy.setThreadCount(nThreads - 1);
+        dualTopologyEnergy.setParallel(true);
+        ForceFieldEnergy newEnergy1 = topology1.getPotentialEnergy();
+        ForceFieldEnergy newEnergy2 = topology2.getPotentialEnergy();
+        assertNotSame(forceFieldEnergy1, newEnergy1);
+        assertNotSame(forceFieldEnergy2, newEnergy2);
+        int threads1 = newEnergy1.getParallelTeam().getThreadCount();
+        int threads2 = newEnergy2.getParallelTeam().getThreadCount();
+        assertEquals(nThreads - 1, threads1 + threads2);
+        assertTrue(threads1 != threads2);
+
+        double gradient[] = new double[n];
+        double actual = dualTopologyEnergy.energyAndGradient(x, gradient);
+        assertEquals(" Topology 1 Energy", expected1, newEnergy1.getTotalEnergy(), tolerance);
+        assertEquals(" Topology 2 Energy", expected2, newEnergy2.getTotalEnergy(), tolerance);
+        assertEquals(" Dual Topology Energy", expected, actual, tolerance);
+        for (int i = 0; i < n; i++) {
+            assertEquals(" Gradient " + i, expectedGradient[i], gradient[i], tolerance);
+        }
+
+        newEnergy1.destroy();
+        newEnergy2.destroy();
+    }
+
+    private MolecularAssembly open() {
+        ClassLoader cl = this.getClass().getClassLoader();
+        File structure = new File(cl.getResource(filename).getPath());
+        PotentialsUtils potentialUtils = new PotentialsUtils();
+        return potentialUtils.open(structure.getAbsolutePath())[0];
+    }
+}
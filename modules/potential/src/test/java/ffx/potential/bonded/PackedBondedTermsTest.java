@@ -0,0 +1,152 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2016.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.bonded;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ffx.numerics.AtomicDoubleArray;
+import ffx.numerics.MultiDoubleArray;
+import ffx.potential.parameters.AngleType;
+import ffx.potential.parameters.BondType;
+import ffx.potential.parameters.TorsionType;
+import ffx.potential.parameters.UreyBradleyType;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests that compare the PackedBondedTerms energies and gradients with
+ * the BondedTerm objects.
+ */
+public class PackedBondedTermsTest {
+
+    private final double[][] xyz = {
+        {0.1, -0.2, 0.3},
+        {1.4, 0.1, -0.1},
+        {1.9, 1.3, 0.4},
+        {3.2, 1.5, 1.1}};
+    private final double tolerance = 1.0e-12;
+    private Atom atoms[];
+    private Bond bonds[];
+    private Angle angles[];
+    private UreyBradley ureyBradleys[];
+    private Torsion torsions[];
+
+    @Before
+    public void setUp() {
+        int classes[] = {1, 2};
+        atoms = new Atom[4];
+        for (int i = 0; i < 4; i++) {
+            atoms[i] = new Atom("A" + i);
+            atoms[i].setXYZ(xyz[i]);
+            atoms[i].setXYZIndex(i + 1);
+        }
+        bonds = new Bond[3];
+        for (int i = 0; i < 3; i++) {
+            bonds[i] = new Bond(atoms[i], atoms[i + 1]);
+        }
+        bonds[0].setBondType(new BondType(classes, 300.0, 1.2, BondType.BondFunction.QUARTIC));
+        bonds[1].setBondType(new BondType(classes, 250.0, 1.5, BondType.BondFunction.HARMONIC));
+        bonds[2].setBondType(new BondType(classes, 400.0, 1.0, BondType.BondFunction.QUARTIC));
+        bonds[2].setRigidScale(2.0);
+
+        int angleClasses[] = {1, 2, 3};
+        angles = new Angle[2];
+        angles[0] = new Angle(bonds[0], bonds[1]);
+        angles[0].setAngleType(new AngleType(angleClasses, 50.0, new double[]{109.5}, AngleType.AngleFunction.SEXTIC));
+        angles[1] = new Angle(bonds[1], bonds[2]);
+        angles[1].setAngleType(new AngleType(angleClasses, 70.0, new double[]{120.0}, AngleType.AngleFunction.HARMONIC));
+
+        ureyBradleys = new UreyBradley[1];
+        ureyBradleys[0] = new UreyBradley(angles[0]);
+        ureyBradleys[0].setUreyBradleyType(new UreyBradleyType(angleClasses, 10.0, 2.4));
+
+        int torsionClasses[] = {1, 2, 3, 4};
+        torsions = new Torsion[1];
+        torsions[0] = new Torsion(angles[0], angles[1]);
+        torsions[0].torsionType = new TorsionType(torsionClasses,
+                new double[]{0.8, -0.3, 0.25}, new double[]{0.0, 180.0, 0.0}, new int[]{1, 2, 3});
+    }
+
+    @Test(timeout = 500)
+    public void PackedBondedTerms_energyAndGradient() {
+        PackedBondedTerms packed = new PackedBondedTerms(bonds, angles, ureyBradleys, torsions);
+        assertEquals(3, packed.getBondCount());
+        assertEquals(2, packed.getAngleCount());
+        assertEquals(0, packed.getInPlaneAngles().length);
+        double packedXYZ[] = new double[12];
+        PackedBondedTerms.pack(atoms, 0, 3, packedXYZ);
+
+        AtomicDoubleArray gx = new MultiDoubleArray(1, 4);
+        AtomicDoubleArray gy = new MultiDoubleArray(1, 4);
+        AtomicDoubleArray gz = new MultiDoubleArray(1, 4);
+        AtomicDoubleArray px = new MultiDoubleArray(1, 4);
+        AtomicDoubleArray py = new MultiDoubleArray(1, 4);
+        AtomicDoubleArray pz = new MultiDoubleArray(1, 4);
+
+        double expected = 0.0;
+        double actual = 0.0;
+        for (Bond bond : bonds) {
+            expected += bond.energy(true, 0, gx, gy, gz, null, null, null);
+        }
+        actual += packed.bondEnergy(0, 2, packedXYZ, true, 0, px, py, pz);
+        assertEquals(bonds[1].getValue(), packed.getBondValue(1), tolerance);
+        for (Angle angle : angles) {
+            expected += angle.energy(true, 0, gx, gy, gz, null, null, null);
+        }
+        actual += packed.angleEnergy(0, 1, packedXYZ, true, 0, px, py, pz);
+        assertEquals(angles[0].getValue(), packed.getAngleValue(0), tolerance);
+        expected += ureyBradleys[0].energy(true, 0, gx, gy, gz, null, null, null);
+        actual += packed.ureyBradleyEnergy(0, 0, packedXYZ, true, 0, px, py, pz);
+        expected += torsions[0].energy(true, 0, gx, gy, gz, null, null, null);
+        actual += packed.torsionEnergy(0, 0, packedXYZ, true, 0, px, py, pz);
+        assertEquals(expected, actual, tolerance);
+
+        gx.reduce(0, 3);
+        gy.reduce(0, 3);
+        gz.reduce(0, 3);
+        px.reduce(0, 3);
+        py.reduce(0, 3);
+        pz.reduce(0, 3);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(gx.get(i), px.get(i), tolerance);
+            assertEquals(gy.get(i), py.get(i), tolerance);
+            assertEquals(gz.get(i), pz.get(i), tolerance);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.nonbonded;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Atom;
+import ffx.potential.utils.PotentialsUtils;
+
+/**
+ * Test that the cluster pair van der Waals and real space induced dipole field
+ * kernels reproduce the Verlet list kernels.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@RunWith(Parameterized.class)
+public class ClusterPairListTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {"Ubiquitin 4x4 Tiles", "ffx/potential/structures/ubiquitin.xyz", 4},
+            {"Ubiquitin 8x8 Tiles", "ffx/potential/structures/ubiquitin.xyz", 8},
+            {"Peptide OPLS-AA/L 4x4 Tiles", "ffx/potential/structures/peptide-oplsaal.xyz", 4},
+            {"Peptide AMBER99SB 8x8 Tiles", "ffx/potential/structures/peptide-amber99sb.xyz", 8}
+        });
+    }
+
+    private final String info;
+    private final String filename;
+    private final int clusterSize;
+    private final double tolerance = 1.0e-6;
+
+    public ClusterPairListTest(String info, String filename, int clusterSize) {
+        this.info = info;
+        this.filename = filename;
+        this.clusterSize = clusterSize;
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("vdw-cluster-pairs");
+        System.clearProperty("vdw-cluster-size");
+        System.clearProperty("ewald-cluster-pairs");
+        System.clearProperty("ewald-cluster-size");
+    }
+
+    @Test
+    public void testEnergyAndGradient() throws Exception {
+        MolecularAssembly verlet = open(false);
+        MolecularAssembly cluster = open(true);
+        VanDerWaals vdwVerlet = verlet.getPotentialEnergy().getVdwNode();
+        VanDerWaals vdwCluster = cluster.getPotentialEnergy().getVdwNode();
+        assertNotNull(info + " Cluster Pair List", vdwCluster.getClusterPairList());
+        assertEquals(info + " Cluster Size", clusterSize,
+                vdwCluster.getClusterPairList().getClusterSize());
+
+        ForceFieldEnergy energyVerlet = verlet.getPotentialEnergy();
+        ForceFieldEnergy energyCluster = cluster.getPotentialEnergy();
+        energyVerlet.energy(true, false);
+        energyCluster.energy(true, false);
+        assertEquals(info + " van der Waals Energy", vdwVerlet.getEnergy(), vdwCluster.getEnergy(), tolerance);
+        assertEquals(info + " van der Waals Count", vdwVerlet.getInteractions(), vdwCluster.getInteractions());
+        assertEquals(info + " Polarization Energy", energyVerlet.getPolarizationEnergy(),
+                energyCluster.getPolarizationEnergy(), tolerance);
+
+        Atom atomsVerlet[] = verlet.getAtomArray();
+        Atom atomsCluster[] = cluster.getAtomArray();
+        double gv[] = new double[3];
+        double gc[] = new double[3];
+        for (int i = 0; i < atomsVerlet.length; i++) {
+            atomsVerlet[i].getXYZGradient(gv);
+            atomsCluster[i].getXYZGradient(gc);
+            for (int j = 0; j < 3; j++) {
+                assertEquals(info + " Gradient " + atomsVerlet[i], gv[j], gc[j], tolerance);
+            }
+        }
+
+        energyVerlet.destroy();
+        energyCluster.destroy();
+    }
+
+    private MolecularAssembly open(boolean clusterPairs) {
+        System.setProperty("vdw-cluster-pairs", Boolean.toString(clusterPairs));
+        System.setProperty("vdw-cluster-size", Integer.toString(clusterSize));
+        System.setProperty("ewald-cluster-pairs", Boolean.toString(clusterPairs));
+        System.setProperty("ewald-cluster-size", Integer.toString(clusterSize));
+        ClassLoader cl = this.getClass().getClassLoader();
+        File structure = new File(cl.getResource(filename).getPath());
+        PotentialsUtils potentialUtils = new PotentialsUtils();
+        return potentialUtils.open(structure.getAbsolutePath())[0];
+    }
+}
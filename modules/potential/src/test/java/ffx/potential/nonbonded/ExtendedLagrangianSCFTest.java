@@ -0,0 +1,145 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.nonbonded;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.assertEquals;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Atom;
+import ffx.potential.utils.PotentialsUtils;
+
+/**
+ * Compare induced dipoles propagated by the extended Lagrangian to a
+ * converged SCF along a smooth trajectory of a box of 216 AMOEBA waters.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@RunWith(Parameterized.class)
+public class ExtendedLagrangianSCFTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {"Water Box XL Order 5", "ffx/potential/structures/watersmall.xyz", 5, 1, 1.0e-1},
+            {"Water Box XL Order 7 (2 Iterations)", "ffx/potential/structures/watersmall.xyz", 7, 2, 5.0e-2}
+        });
+    }
+
+    private final String info;
+    private final String filename;
+    private final int order;
+    private final int iterations;
+    private final double tolerance;
+    private final int nSteps = 16;
+    private final double displacement = 0.002;
+
+    public ExtendedLagrangianSCFTest(String info, String filename, int order,
+            int iterations, double tolerance) {
+        this.info = info;
+        this.filename = filename;
+        this.order = order;
+        this.iterations = iterations;
+        this.tolerance = tolerance;
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("scf-predictor");
+        System.clearProperty("scf-predictor-order");
+        System.clearProperty("scf-xl-iterations");
+    }
+
+    @Test
+    public void testPolarizationEnergy() throws Exception {
+        MolecularAssembly converged = open("NONE");
+        MolecularAssembly extended = open("XL");
+        ForceFieldEnergy energyConverged = converged.getPotentialEnergy();
+        ForceFieldEnergy energyExtended = extended.getPotentialEnergy();
+        Atom atomsConverged[] = converged.getAtomArray();
+        Atom atomsExtended[] = extended.getAtomArray();
+        // Move 33 whole water molecules.
+        Atom movedConverged[] = Arrays.copyOfRange(atomsConverged, 99, 198);
+        Atom movedExtended[] = Arrays.copyOfRange(atomsExtended, 99, 198);
+
+        for (int step = 0; step < nSteps; step++) {
+            translate(movedConverged, displacement);
+            translate(movedExtended, displacement);
+            energyConverged.energy(false, false);
+            energyExtended.energy(false, false);
+            ParticleMeshEwald pmeConverged = energyConverged.getPmeNode();
+            ParticleMeshEwald pmeExtended = energyExtended.getPmeNode();
+            assertEquals(info + " Polarization Energy (Step " + step + ")",
+                    pmeConverged.getPolarizationEnergy(), pmeExtended.getPolarizationEnergy(), tolerance);
+        }
+
+        energyConverged.destroy();
+        energyExtended.destroy();
+    }
+
+    private MolecularAssembly open(String predictor) {
+        System.setProperty("scf-predictor", predictor);
+        System.setProperty("scf-predictor-order", Integer.toString(order));
+        System.setProperty("scf-xl-iterations", Integer.toString(iterations));
+        ClassLoader cl = this.getClass().getClassLoader();
+        File structure = new File(cl.getResource(filename).getPath());
+        PotentialsUtils potentialUtils = new PotentialsUtils();
+        return potentialUtils.open(structure.getAbsolutePath())[0];
+    }
+
+    private void translate(Atom atoms[], double d) {
+        double xyz[] = new double[3];
+        for (Atom atom : atoms) {
+            atom.getXYZ(xyz);
+            xyz[0] += d;
+            xyz[2] -= d;
+            atom.setXYZ(xyz);
+        }
+    }
+}
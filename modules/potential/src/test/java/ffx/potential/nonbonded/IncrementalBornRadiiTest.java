@@ -0,0 +1,156 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.nonbonded;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.assertEquals;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Atom;
+import ffx.potential.utils.PotentialsUtils;
+
+/**
+ * Compare Born radii computed incrementally from cached descreening pairs to
+ * Born radii computed from all pairs, after moving a few atoms.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@RunWith(Parameterized.class)
+public class IncrementalBornRadiiTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {"DMHD Exact Update", "ffx/potential/structures/dmhd-amoebapro13.xyz", 0.0, 0.1, 1.0e-6},
+            {"DMHD Update Below Tolerance", "ffx/potential/structures/dmhd-amoebapro13.xyz", 0.05, 0.01, 5.0e-2}
+        });
+    }
+
+    private final String info;
+    private final String filename;
+    private final double bornTolerance;
+    private final double displacement;
+    private final double tolerance;
+
+    public IncrementalBornRadiiTest(String info, String filename, double bornTolerance,
+            double displacement, double tolerance) {
+        this.info = info;
+        this.filename = filename;
+        this.bornTolerance = bornTolerance;
+        this.displacement = displacement;
+        this.tolerance = tolerance;
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("born-incremental");
+        System.clearProperty("born-tolerance");
+    }
+
+    @Test
+    public void testEnergyAndGradient() throws Exception {
+        MolecularAssembly full = open(false);
+        MolecularAssembly incremental = open(true);
+        ForceFieldEnergy energyFull = full.getPotentialEnergy();
+        ForceFieldEnergy energyIncremental = incremental.getPotentialEnergy();
+        Atom atomsFull[] = full.getAtomArray();
+        Atom atomsIncremental[] = incremental.getAtomArray();
+
+        // The first evaluation computes all pairs.
+        energyFull.energy(true, false);
+        energyIncremental.energy(true, false);
+        compare(" Initial", energyFull, energyIncremental, atomsFull, atomsIncremental);
+
+        // Subsequent evaluations only recompute pairs that include a moved atom.
+        for (int step = 1; step <= 3; step++) {
+            translate(Arrays.copyOfRange(atomsFull, 10 * step, 10 * step + 5), displacement);
+            translate(Arrays.copyOfRange(atomsIncremental, 10 * step, 10 * step + 5), displacement);
+            energyFull.energy(true, false);
+            energyIncremental.energy(true, false);
+            compare(" Step " + step, energyFull, energyIncremental, atomsFull, atomsIncremental);
+        }
+
+        energyFull.destroy();
+        energyIncremental.destroy();
+    }
+
+    private void compare(String step, ForceFieldEnergy energyFull, ForceFieldEnergy energyIncremental,
+            Atom atomsFull[], Atom atomsIncremental[]) {
+        assertEquals(info + step + " Solvation Energy", energyFull.getSolvationEnergy(),
+                energyIncremental.getSolvationEnergy(), tolerance);
+        double gf[] = new double[3];
+        double gi[] = new double[3];
+        for (int i = 0; i < atomsFull.length; i++) {
+            atomsFull[i].getXYZGradient(gf);
+            atomsIncremental[i].getXYZGradient(gi);
+            for (int j = 0; j < 3; j++) {
+                assertEquals(info + step + " Gradient " + atomsFull[i], gf[j], gi[j], tolerance);
+            }
+        }
+    }
+
+    private MolecularAssembly open(boolean incremental) {
+        System.setProperty("born-incremental", Boolean.toString(incremental));
+        System.setProperty("born-tolerance", Double.toString(bornTolerance));
+        ClassLoader cl = this.getClass().getClassLoader();
+        File structure = new File(cl.getResource(filename).getPath());
+        PotentialsUtils potentialUtils = new PotentialsUtils();
+        return potentialUtils.open(structure.getAbsolutePath())[0];
+    }
+
+    private void translate(Atom atoms[], double d) {
+        double xyz[] = new double[3];
+        for (Atom atom : atoms) {
+            atom.getXYZ(xyz);
+            xyz[0] += d;
+            xyz[1] -= d;
+            atom.setXYZ(xyz);
+        }
+    }
+}
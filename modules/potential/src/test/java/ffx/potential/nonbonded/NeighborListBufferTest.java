@@ -0,0 +1,128 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.nonbonded;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.utils.PotentialsUtils;
+
+/**
+ * Follow a short trajectory with an adaptive neighbor list buffer and with a
+ * fixed buffer, and check that the adaptive buffer stays within its limits
+ * and that both lists give the same energy and gradient.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class NeighborListBufferTest {
+
+    private final String filename = "ffx/potential/structures/ubiquitin.xyz";
+    private final double minBuffer = 0.6;
+    private final double maxBuffer = 1.2;
+    private final int nSteps = 20;
+    /**
+     * Standard deviation of each coordinate step (A), large enough that the
+     * lists are rebuilt every few steps.
+     */
+    private final double step = 0.05;
+    private final double tolerance = 1.0e-5;
+
+    @After
+    public void tearDown() {
+        System.clearProperty("adaptive-buffer");
+        System.clearProperty("list-buffer-min");
+        System.clearProperty("list-buffer-max");
+    }
+
+    @Test
+    public void testAdaptiveBuffer() throws Exception {
+        MolecularAssembly fixed = open(false);
+        MolecularAssembly adaptive = open(true);
+        ForceFieldEnergy energyFixed = fixed.getPotentialEnergy();
+        ForceFieldEnergy energyAdaptive = adaptive.getPotentialEnergy();
+        NeighborList listFixed = energyFixed.getVdwNode().getNeighborList();
+        NeighborList listAdaptive = energyAdaptive.getVdwNode().getNeighborList();
+        double fixedBuffer = listFixed.getBuffer();
+
+        int n = energyFixed.getNumberOfVariables();
+        double x[] = new double[n];
+        double gf[] = new double[n];
+        double ga[] = new double[n];
+        energyFixed.getCoordinates(x);
+        Random random = new Random(1);
+        for (int s = 0; s < nSteps; s++) {
+            String info = " Step " + s;
+            double expected = energyFixed.energyAndGradient(x, gf);
+            double actual = energyAdaptive.energyAndGradient(x, ga);
+            assertEquals(info + " Energy", expected, actual, tolerance);
+            for (int i = 0; i < n; i++) {
+                assertEquals(info + " Gradient " + i, gf[i], ga[i], tolerance);
+            }
+            double buffer = listAdaptive.getBuffer();
+            assertTrue(info + " Buffer " + buffer, buffer >= minBuffer - 1.0e-8 && buffer <= maxBuffer + 1.0e-8);
+            assertEquals(info + " Fixed Buffer", fixedBuffer, listFixed.getBuffer(), 0.0);
+            for (int i = 0; i < n; i++) {
+                x[i] += step * random.nextGaussian();
+            }
+        }
+        // The adaptive list was rebuilt as the atoms moved.
+        assertTrue(" Adaptive List Rebuilds", listAdaptive.getRebuildCount() > 1);
+
+        energyFixed.destroy();
+        energyAdaptive.destroy();
+    }
+
+    private MolecularAssembly open(boolean adaptiveBuffer) {
+        System.setProperty("adaptive-buffer", Boolean.toString(adaptiveBuffer));
+        System.setProperty("list-buffer-min", Double.toString(minBuffer));
+        System.setProperty("list-buffer-max", Double.toString(maxBuffer));
+        ClassLoader cl = this.getClass().getClassLoader();
+        File structure = new File(cl.getResource(filename).getPath());
+        PotentialsUtils potentialUtils = new PotentialsUtils();
+        return potentialUtils.open(structure.getAbsolutePath())[0];
+    }
+}
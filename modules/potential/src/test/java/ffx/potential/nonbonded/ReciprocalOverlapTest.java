@@ -0,0 +1,150 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.nonbonded;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Atom;
+import ffx.potential.utils.PotentialsUtils;
+
+/**
+ * Validate that running reciprocal space PME on its own subset of threads,
+ * overlapped with the bonded, van der Waals and real space terms, reproduces
+ * the sequential energy and gradient.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@RunWith(Parameterized.class)
+public class ReciprocalOverlapTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {"Ubiquitin Overlap (Balanced)", "ffx/potential/structures/ubiquitin.xyz", 0},
+            {"Ubiquitin Overlap (1 Real Space Thread)", "ffx/potential/structures/ubiquitin.xyz", 1}
+        });
+    }
+
+    private final String info;
+    private final String filename;
+    private final int realThreads;
+    private final int nThreads = 4;
+    private final int nEvals = 3;
+    private final double tolerance = 1.0e-6;
+
+    public ReciprocalOverlapTest(String info, String filename, int realThreads) {
+        this.info = info;
+        this.filename = filename;
+        this.realThreads = realThreads;
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("pj.nt");
+        System.clearProperty("pme-overlap");
+        System.clearProperty("pme-real-threads");
+        System.clearProperty("pme-balance-interval");
+    }
+
+    @Test
+    public void testEnergyAndGradient() throws Exception {
+        System.setProperty("pj.nt", Integer.toString(nThreads));
+        MolecularAssembly sequential = open(false);
+        MolecularAssembly overlap = open(true);
+        ForceFieldEnergy energySequential = sequential.getPotentialEnergy();
+        ForceFieldEnergy energyOverlap = overlap.getPotentialEnergy();
+        assertNotNull(info + " Real Space Team", energyOverlap.getPmeNode().getOverlapTeam());
+
+        double expected = energySequential.energy(true, false);
+        Atom atomsSequential[] = sequential.getAtomArray();
+        Atom atomsOverlap[] = overlap.getAtomArray();
+        double gs[] = new double[3];
+        double go[] = new double[3];
+
+        /**
+         * The first evaluation balances the thread teams; later evaluations
+         * reuse the balanced split.
+         */
+        for (int n = 0; n < nEvals; n++) {
+            double actual = energyOverlap.energy(true, false);
+            assertEquals(info + " Total Energy", expected, actual, tolerance);
+            assertEquals(info + " van der Waals Energy", energySequential.getVdwNode().getEnergy(),
+                    energyOverlap.getVdwNode().getEnergy(), tolerance);
+            assertEquals(info + " Polarization Energy", energySequential.getPmeNode().getPolarizationEnergy(),
+                    energyOverlap.getPmeNode().getPolarizationEnergy(), tolerance);
+            for (int i = 0; i < atomsSequential.length; i++) {
+                atomsSequential[i].getXYZGradient(gs);
+                atomsOverlap[i].getXYZGradient(go);
+                for (int j = 0; j < 3; j++) {
+                    assertEquals(info + " Gradient " + atomsSequential[i], gs[j], go[j], tolerance);
+                }
+            }
+        }
+
+        energySequential.destroy();
+        energyOverlap.destroy();
+    }
+
+    private MolecularAssembly open(boolean reciprocalOverlap) {
+        System.setProperty("pme-overlap", Boolean.toString(reciprocalOverlap));
+        if (reciprocalOverlap && realThreads > 0) {
+            System.setProperty("pme-real-threads", Integer.toString(realThreads));
+        } else {
+            System.clearProperty("pme-real-threads");
+        }
+        System.setProperty("pme-balance-interval", "1");
+        ClassLoader cl = this.getClass().getClassLoader();
+        File structure = new File(cl.getResource(filename).getPath());
+        PotentialsUtils potentialUtils = new PotentialsUtils();
+        return potentialUtils.open(structure.getAbsolutePath())[0];
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.nonbonded;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.assertEquals;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.utils.PotentialsUtils;
+
+/**
+ * Compare the polarization energy converged by each SCF algorithm and
+ * preconditioner to that of the default preconditioned CG solver.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@RunWith(Parameterized.class)
+public class SCFSolverTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {"Ubiquitin CG (Block-Jacobi)", "ffx/potential/structures/ubiquitin.xyz", "CG", "BLOCK"},
+            {"Ubiquitin CG (No Preconditioner)", "ffx/potential/structures/ubiquitin.xyz", "CG", "NONE"},
+            {"Ubiquitin SOR", "ffx/potential/structures/ubiquitin.xyz", "SOR", "LOCAL"},
+            {"Ubiquitin DIIS", "ffx/potential/structures/ubiquitin.xyz", "DIIS", "LOCAL"}
+        });
+    }
+
+    private final String info;
+    private final String filename;
+    private final String algorithm;
+    private final String preconditioner;
+    private final double tolerance = 1.0e-3;
+
+    public SCFSolverTest(String info, String filename, String algorithm, String preconditioner) {
+        this.info = info;
+        this.filename = filename;
+        this.algorithm = algorithm;
+        this.preconditioner = preconditioner;
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("polar-eps");
+        System.clearProperty("scf-algorithm");
+        System.clearProperty("cg-preconditioner");
+        System.clearProperty("use-scf-preconditioner");
+    }
+
+    @Test
+    public void testPolarizationEnergy() throws Exception {
+        MolecularAssembly reference = open("CG", "LOCAL");
+        MolecularAssembly solver = open(algorithm, preconditioner);
+        ForceFieldEnergy energyReference = reference.getPotentialEnergy();
+        ForceFieldEnergy energySolver = solver.getPotentialEnergy();
+        energyReference.energy(false, false);
+        energySolver.energy(false, false);
+        ParticleMeshEwald pmeReference = energyReference.getPmeNode();
+        ParticleMeshEwald pmeSolver = energySolver.getPmeNode();
+        assertEquals(info + " Polarization Energy", pmeReference.getPolarizationEnergy(),
+                pmeSolver.getPolarizationEnergy(), tolerance);
+        energyReference.destroy();
+        energySolver.destroy();
+    }
+
+    private MolecularAssembly open(String scfAlgorithm, String scfPreconditioner) {
+        System.setProperty("polar-eps", "1.0e-7");
+        System.setProperty("scf-algorithm", scfAlgorithm);
+        if (scfPreconditioner.equals("NONE")) {
+            System.setProperty("use-scf-preconditioner", "false");
+        } else {
+            System.setProperty("use-scf-preconditioner", "true");
+            System.setProperty("cg-preconditioner", scfPreconditioner);
+        }
+        ClassLoader cl = this.getClass().getClassLoader();
+        File structure = new File(cl.getResource(filename).getPath());
+        PotentialsUtils potentialUtils = new PotentialsUtils();
+        return potentialUtils.open(structure.getAbsolutePath())[0];
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.nonbonded;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Atom;
+import ffx.potential.utils.PotentialsUtils;
+
+/**
+ * Validate the tabulated van der Waals and Ewald damping kernels against the
+ * analytic kernels. The tolerance of each case reflects the table density.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@RunWith(Parameterized.class)
+public class TabulatedKernelTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {"Ubiquitin vdW Table (20 / A^2)", "ffx/potential/structures/ubiquitin.xyz", "vdw", 20.0, 1.0e-3},
+            {"Ubiquitin vdW Table (100 / A^2)", "ffx/potential/structures/ubiquitin.xyz", "vdw", 100.0, 1.0e-5},
+            {"Ubiquitin Ewald Table (100 / A)", "ffx/potential/structures/ubiquitin.xyz", "ewald", 100.0, 1.0e-4}
+        });
+    }
+
+    private final String info;
+    private final String filename;
+    private final String table;
+    private final double density;
+    private final double tolerance;
+
+    public TabulatedKernelTest(String info, String filename, String table,
+            double density, double tolerance) {
+        this.info = info;
+        this.filename = filename;
+        this.table = table;
+        this.density = density;
+        this.tolerance = tolerance;
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(table + "-table");
+        System.clearProperty(table + "-table-density");
+        System.clearProperty("polarization");
+    }
+
+    @Test
+    public void testEnergyAndGradient() throws Exception {
+        MolecularAssembly analytic = open(false);
+        MolecularAssembly tabulated = open(true);
+        ForceFieldEnergy energyAnalytic = analytic.getPotentialEnergy();
+        ForceFieldEnergy energyTabulated = tabulated.getPotentialEnergy();
+        if (table.equals("vdw")) {
+            assertNotNull(info + " Tables", energyTabulated.getVdwNode().getVdwTables());
+        }
+
+        energyAnalytic.energy(true, false);
+        energyTabulated.energy(true, false);
+        VanDerWaals vdwAnalytic = energyAnalytic.getVdwNode();
+        VanDerWaals vdwTabulated = energyTabulated.getVdwNode();
+        assertEquals(info + " van der Waals Energy", vdwAnalytic.getEnergy(), vdwTabulated.getEnergy(), tolerance);
+        assertEquals(info + " van der Waals Count", vdwAnalytic.getInteractions(), vdwTabulated.getInteractions());
+        ParticleMeshEwald pmeAnalytic = energyAnalytic.getPmeNode();
+        ParticleMeshEwald pmeTabulated = energyTabulated.getPmeNode();
+        assertEquals(info + " Permanent Energy", pmeAnalytic.getPermanentEnergy(),
+                pmeTabulated.getPermanentEnergy(), tolerance);
+        assertEquals(info + " Polarization Energy", pmeAnalytic.getPolarizationEnergy(),
+                pmeTabulated.getPolarizationEnergy(), tolerance);
+
+        Atom atomsAnalytic[] = analytic.getAtomArray();
+        Atom atomsTabulated[] = tabulated.getAtomArray();
+        double ga[] = new double[3];
+        double gt[] = new double[3];
+        for (int i = 0; i < atomsAnalytic.length; i++) {
+            atomsAnalytic[i].getXYZGradient(ga);
+            atomsTabulated[i].getXYZGradient(gt);
+            for (int j = 0; j < 3; j++) {
+                assertEquals(info + " Gradient " + atomsAnalytic[i], ga[j], gt[j], tolerance);
+            }
+        }
+
+        energyAnalytic.destroy();
+        energyTabulated.destroy();
+    }
+
+    /**
+     * The tabulated gradient is the derivative of the tabulated energy, so it
+     * should agree with central finite differences of the energy. Polarization
+     * is turned off to keep SCF convergence noise out of the differences.
+     */
+    @Test
+    public void testFiniteDifferenceGradient() throws Exception {
+        System.setProperty("polarization", "NONE");
+        MolecularAssembly tabulated = open(true);
+        ForceFieldEnergy energy = tabulated.getPotentialEnergy();
+        Atom atoms[] = tabulated.getAtomArray();
+        energy.energy(true, false);
+        int nCheck = 3;
+        double analytic[][] = new double[nCheck][3];
+        for (int n = 0; n < nCheck; n++) {
+            atoms[n * atoms.length / nCheck].getXYZGradient(analytic[n]);
+        }
+
+        double step = 1.0e-5;
+        double xyz[] = new double[3];
+        for (int n = 0; n < nCheck; n++) {
+            Atom atom = atoms[n * atoms.length / nCheck];
+            for (int j = 0; j < 3; j++) {
+                atom.getXYZ(xyz);
+                double x = xyz[j];
+                xyz[j] = x + step;
+                atom.setXYZ(xyz);
+                double ePlus = energy.energy(false, false);
+                xyz[j] = x - step;
+                atom.setXYZ(xyz);
+                double eMinus = energy.energy(false, false);
+                xyz[j] = x;
+                atom.setXYZ(xyz);
+                double numeric = (ePlus - eMinus) / (2.0 * step);
+                assertEquals(info + " Finite Difference Gradient " + atom, numeric, analytic[n][j], 1.0e-3);
+            }
+        }
+
+        energy.destroy();
+    }
+
+    private MolecularAssembly open(boolean tabulate) {
+        System.setProperty(table + "-table", Boolean.toString(tabulate));
+        System.setProperty(table + "-table-density", Double.toString(density));
+        ClassLoader cl = this.getClass().getClassLoader();
+        File structure = new File(cl.getResource(filename).getPath());
+        PotentialsUtils potentialUtils = new PotentialsUtils();
+        return potentialUtils.open(structure.getAbsolutePath())[0];
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.parsers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Atom;
+import ffx.potential.utils.PotentialsUtils;
+
+/**
+ * Write binary trajectory frames and read them back, including a trajectory
+ * whose last frame was cut short.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class TRJFilterTest {
+
+    private static final String FILENAME = "ffx/potential/structures/ammonia.xyz";
+    private static final double TOLERANCE = 1.0e-5;
+
+    private MolecularAssembly assembly;
+    private File directory;
+    private File trjFile;
+
+    @Before
+    public void setUp() throws IOException {
+        ClassLoader cl = this.getClass().getClassLoader();
+        File structure = new File(cl.getResource(FILENAME).getPath());
+        PotentialsUtils potentialUtils = new PotentialsUtils();
+        assembly = potentialUtils.open(structure.getAbsolutePath())[0];
+        directory = Files.createTempDirectory("trj").toFile();
+        trjFile = new File(directory, "ammonia.trj");
+    }
+
+    @After
+    public void tearDown() {
+        File files[] = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testWriteAndRead() {
+        int nFrames = 3;
+        double frames[][] = writeFrames(nFrames);
+
+        TRJFilter reader = newFilter();
+        assertEquals(" Frame count", nFrames, reader.getFrameCount());
+        assertTrue(" Read first frame", reader.readFile());
+        compare(0, frames[0], reader);
+        for (int frame = 1; frame < nFrames; frame++) {
+            assertTrue(" Read frame " + frame, reader.readNext());
+            compare(frame, frames[frame], reader);
+        }
+        assertFalse(" Read past the last frame", reader.readNext());
+
+        // Random access.
+        assertTrue(" Read frame 1", reader.readFrame(1));
+        compare(1, frames[1], reader);
+        reader.closeReader();
+    }
+
+    @Test
+    public void testTruncatedLastFrame() throws IOException {
+        double frames[][] = writeFrames(2);
+        int nAtoms = assembly.getAtomArray().length;
+        int frameBytes = TRJFilter.frameBytes(nAtoms);
+        try (RandomAccessFile raf = new RandomAccessFile(trjFile, "rw")) {
+            raf.setLength(raf.length() - frameBytes / 2);
+        }
+
+        // The partial frame is ignored by the reader.
+        TRJFilter reader = newFilter();
+        assertEquals(" Frame count", 1, reader.getFrameCount());
+        assertTrue(" Read first frame", reader.readFile());
+        compare(0, frames[0], reader);
+        assertFalse(" Read the truncated frame", reader.readNext());
+        reader.closeReader();
+
+        // Appending replaces the partial frame with a whole one.
+        double next[] = writeFrame(newFilter(), 5.0, 0.75);
+        reader = newFilter();
+        assertEquals(" Frame count after append", 2, reader.getFrameCount());
+        assertEquals(" File size after append", TRJFilter.HEADER_BYTES + 2L * frameBytes, trjFile.length());
+        assertTrue(" Read appended frame", reader.readFrame(1));
+        compare(1, next, reader);
+        assertEquals(" Lambda of appended frame", 0.75, reader.getLambda(), 0.0);
+        reader.closeReader();
+    }
+
+    @Test
+    public void testTopologyFile() throws IOException {
+        assertNull(" Topology without a coordinate file", TRJFilter.getTopologyFile(trjFile));
+        File xyzFile = new File(directory, "ammonia.xyz");
+        assertTrue(xyzFile.createNewFile());
+        assertEquals(" Topology file", xyzFile.getAbsoluteFile(), TRJFilter.getTopologyFile(trjFile));
+        assertTrue(new TRJFileFilter().accept(trjFile));
+        assertFalse(new TRJFileFilter().accept(xyzFile));
+    }
+
+    private TRJFilter newFilter() {
+        return new TRJFilter(trjFile, assembly, assembly.getForceField(), assembly.getProperties());
+    }
+
+    /**
+     * Append frames with displaced coordinates and distinct values of lambda.
+     */
+    private double[][] writeFrames(int nFrames) {
+        TRJFilter writer = newFilter();
+        double frames[][] = new double[nFrames][];
+        for (int frame = 0; frame < nFrames; frame++) {
+            frames[frame] = writeFrame(writer, 0.1 * frame, frame / (double) nFrames);
+        }
+        return frames;
+    }
+
+    private double[] writeFrame(TRJFilter writer, double displacement, double lambda) {
+        Atom atoms[] = assembly.getAtomArray();
+        double xyz[] = new double[3];
+        for (Atom atom : atoms) {
+            atom.getXYZ(xyz);
+            atom.moveTo(xyz[0] + displacement, xyz[1] - displacement, xyz[2]);
+        }
+        writer.setLambda(lambda);
+        assertTrue(" Append frame", writer.writeFile(trjFile, true));
+        return writer.getCoordinateSnapshot(null);
+    }
+
+    private void compare(int frame, double expected[], TRJFilter reader) {
+        Atom atoms[] = assembly.getAtomArray();
+        double xyz[] = new double[3];
+        for (Atom atom : atoms) {
+            atom.getXYZ(xyz);
+            int k = (atom.getXYZIndex() - 1) * 3;
+            for (int j = 0; j < 3; j++) {
+                assertEquals(" Frame " + frame + " " + atom, expected[k + j], xyz[j], TOLERANCE);
+            }
+        }
+        double cell[] = reader.getUnitCell(null);
+        assertEquals(" Frame " + frame + " a-axis", assembly.getCrystal().a, cell[0], TOLERANCE);
+    }
+}
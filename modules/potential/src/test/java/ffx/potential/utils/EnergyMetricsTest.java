@@ -0,0 +1,112 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2017.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.utils;
+
+import java.util.Locale;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the EnergyMetrics class.
+ */
+public class EnergyMetricsTest {
+
+    private final double tolerance = 1.0e-12;
+
+    @Test
+    public void testTimers() {
+        EnergyMetrics metrics = new EnergyMetrics();
+        metrics.recordTime("Bond", 10);
+        metrics.recordTime("Bond", 30);
+        assertEquals(2, metrics.getCalls("Bond"));
+        assertEquals(40, metrics.getTotalTime("Bond"));
+        assertEquals(30, metrics.getLastTime("Bond"));
+        assertEquals(30, metrics.getMaxTime("Bond"));
+        assertEquals(20.0, metrics.getMeanTime("Bond"), tolerance);
+        assertEquals(0, metrics.getCalls("Angle"));
+    }
+
+    @Test
+    public void testRegions() {
+        EnergyMetrics metrics = new EnergyMetrics();
+        // Threads with zero time did not take part and are ignored.
+        metrics.recordRegion("RealSpace", new long[]{100, 300, 0});
+        assertEquals(1.5, metrics.getLastImbalance("RealSpace"), tolerance);
+        metrics.recordRegion("RealSpace", new long[]{200, 200, 0});
+        assertEquals(1.0, metrics.getLastImbalance("RealSpace"), tolerance);
+        assertEquals(1.25, metrics.getImbalance("RealSpace"), tolerance);
+        long threadTimes[] = metrics.getThreadTimes("RealSpace");
+        assertEquals(300, threadTimes[0]);
+        assertEquals(500, threadTimes[1]);
+    }
+
+    @Test
+    public void testExport() {
+        EnergyMetrics metrics = new EnergyMetrics();
+        metrics.recordTime(EnergyMetrics.TOTAL, 5);
+        metrics.recordRegion("FFT", new long[]{1, 1});
+        metrics.addCount(EnergyMetrics.SCF_ITERATIONS, 7);
+        metrics.addCount(EnergyMetrics.SCF_ITERATIONS, 8);
+        assertEquals(15, metrics.getCount(EnergyMetrics.SCF_ITERATIONS));
+        String json = metrics.toJSON();
+        assertTrue(json.contains("\"SCFIterations\": {\"calls\": 2, \"total\": 15, \"last\": 8}"));
+        String csv = metrics.toCSV();
+        assertTrue(csv.startsWith("type,name,calls,total,last,max\n"));
+        assertTrue(csv.contains("timer,Total,1,5,5,5\n"));
+        metrics.reset();
+        assertEquals(0, metrics.getCount(EnergyMetrics.SCF_ITERATIONS));
+    }
+
+    @Test
+    public void testExportLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            // A decimal comma must not leak into the JSON or CSV output.
+            Locale.setDefault(Locale.GERMANY);
+            EnergyMetrics metrics = new EnergyMetrics();
+            metrics.recordRegion("FFT", new long[]{100, 300});
+            assertTrue(metrics.toJSON().contains("\"imbalance\": 1.5000, \"last\": 1.5000, \"max\": 1.5000"));
+            assertTrue(metrics.toCSV().contains("region,FFT,1,1.5000,1.5000,1.5000\n"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
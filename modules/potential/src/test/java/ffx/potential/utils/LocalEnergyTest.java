@@ -0,0 +1,163 @@
+/**
+ * Title: Force Field X.
+ *
+ * Description: Force Field X - Software for Molecular Biophysics.
+ *
+ * Copyright: Copyright (c) Michael J. Schnieders 2001-2016.
+ *
+ * This file is part of Force Field X.
+ *
+ * Force Field X is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * Force Field X is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ *
+ * Linking this library statically or dynamically with other modules is making a
+ * combined work based on this library. Thus, the terms and conditions of the
+ * GNU General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent modules, and
+ * to copy and distribute the resulting executable under terms of your choice,
+ * provided that you also meet, for each linked independent module, the terms
+ * and conditions of the license of that module. An independent module is a
+ * module which is not derived from or based on this library. If you modify this
+ * library, you may extend this exception to your version of the library, but
+ * you are not obligated to do so. If you do not wish to do so, delete this
+ * exception statement from your version.
+ */
+package ffx.potential.utils;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Atom;
+
+/**
+ * Compare energy changes of localized moves (and of turning atoms off)
+ * computed from the terms that involve the moved atoms to differences of full
+ * energy evaluations.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@RunWith(Parameterized.class)
+public class LocalEnergyTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {"Ubiquitin Small Moves", "ffx/potential/structures/ubiquitin.xyz", false, false, 0.1},
+            {"Ubiquitin Large Moves", "ffx/potential/structures/ubiquitin.xyz", false, false, 3.0},
+            {"Ubiquitin Tabulated Large Moves", "ffx/potential/structures/ubiquitin.xyz", true, false, 3.0},
+            {"Ubiquitin Real Space Multipoles Small Moves", "ffx/potential/structures/ubiquitin.xyz", false, true, 0.1},
+            {"Ubiquitin Real Space Multipoles Large Moves", "ffx/potential/structures/ubiquitin.xyz", false, true, 3.0}
+        });
+    }
+
+    private final String info;
+    private final String filename;
+    private final boolean tabulate;
+    private final boolean multipoles;
+    private final double displacement;
+    private final double tolerance = 1.0e-6;
+
+    public LocalEnergyTest(String info, String filename, boolean tabulate,
+            boolean multipoles, double displacement) {
+        this.info = info;
+        this.filename = filename;
+        this.tabulate = tabulate;
+        this.multipoles = multipoles;
+        this.displacement = displacement;
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("mpoleterm");
+        System.clearProperty("recipterm");
+        System.clearProperty("polarization");
+        System.clearProperty("vdw-table");
+    }
+
+    @Test
+    public void testEnergyChange() {
+        System.setProperty("mpoleterm", Boolean.toString(multipoles));
+        if (multipoles) {
+            System.setProperty("recipterm", "false");
+            System.setProperty("polarization", "NONE");
+        }
+        System.setProperty("vdw-table", Boolean.toString(tabulate));
+        ClassLoader cl = this.getClass().getClassLoader();
+        File structure = new File(cl.getResource(filename).getPath());
+        PotentialsUtils potentialUtils = new PotentialsUtils();
+        MolecularAssembly molecularAssembly = potentialUtils.open(structure.getAbsolutePath())[0];
+        ForceFieldEnergy energy = molecularAssembly.getPotentialEnergy();
+        assertTrue(info + " Local Energy Available", energy.localEnergyAvailable());
+
+        Atom atoms[] = molecularAssembly.getAtomArray();
+        Atom movedA[] = Arrays.copyOfRange(atoms, 100, 120);
+        Atom movedB[] = Arrays.copyOfRange(atoms, 110, 140);
+        double e0 = energy.energy(false, false);
+
+        // A single move.
+        energy.startEnergyChange(movedA);
+        translate(movedA, displacement);
+        double dA = energy.energyChange();
+        double e1 = energy.energy(false, false);
+        assertEquals(info + " Energy Change", e1 - e0, dA, tolerance * Math.max(1.0, Math.abs(e1)));
+
+        // Consecutive overlapping moves without a full evaluation in between.
+        energy.startEnergyChange(movedA);
+        translate(movedA, -displacement);
+        dA = energy.energyChange();
+        energy.startEnergyChange(movedB);
+        translate(movedB, displacement);
+        double dB = energy.energyChange();
+        double e2 = energy.energy(false, false);
+        assertEquals(info + " Consecutive Energy Changes", e2 - e1, dA + dB, tolerance * Math.max(1.0, Math.abs(e2)));
+
+        // Turning atoms off changes only the terms that involve them.
+        double on = energy.localEnergy(movedB);
+        for (Atom atom : movedB) {
+            atom.setUse(false);
+        }
+        double off = energy.localEnergy(movedB);
+        double e3 = energy.energy(false, false);
+        for (Atom atom : movedB) {
+            atom.setUse(true);
+        }
+        assertEquals(info + " Use Flag Energy Change", e3 - e2, off - on, tolerance * Math.max(1.0, Math.abs(e3)));
+    }
+
+    private void translate(Atom atoms[], double d) {
+        double xyz[] = new double[3];
+        for (Atom atom : atoms) {
+            atom.getXYZ(xyz);
+            xyz[0] += d;
+            xyz[1] += 0.5 * d;
+            xyz[2] -= 0.5 * d;
+            atom.setXYZ(xyz);
+        }
+    }
+}